@@ -1,13 +1,24 @@
 package com.bytedance.myapplication;
 
 import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.annotation.GlideModule;
 import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.bytedance.myapplication.utils.ImageCacheConfig;
+import com.bytedance.myapplication.utils.ResizedImage;
 
 import java.io.InputStream;
 import java.util.concurrent.TimeUnit;
@@ -16,7 +27,43 @@ import okhttp3.OkHttpClient;
 
 @GlideModule
 public class GlideConfigModule extends AppGlideModule {
-    
+    private static final String TAG = "GlideConfigModule";
+    private static final String DISK_CACHE_DIR = "image_cache";
+
+    /**
+     * 按设备档位和 assets/glide/glide.properties 配置缓存大小和默认解码参数
+     */
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ImageCacheConfig config = ImageCacheConfig.getInstance();
+        config.load(context);
+
+        // 以“屏”为单位换算，并按可用堆的比例封顶
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(config.getMemoryCacheScreens())
+                .setBitmapPoolScreens(config.getBitmapPoolScreens())
+                .setMaxSizeMultiplier(config.getMaxHeapFraction())
+                .build();
+        builder.setMemoryCache(new ImageCacheConfig.CountingResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new ImageCacheConfig.CountingBitmapPool(calculator.getBitmapPoolSize()));
+
+        long diskCacheBytes = config.getDiskCacheBytes();
+        DiskCache.Factory diskCacheFactory = new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, diskCacheBytes);
+        builder.setDiskCache(() -> {
+            DiskCache diskCache = diskCacheFactory.build();
+            return diskCache != null ? new ImageCacheConfig.CountingDiskCache(diskCache) : null;
+        });
+
+        // 默认 ARGB_8888（头像有圆形裁剪等透明区域），不透明的缩略图在请求中单独指定 RGB_565
+        builder.setDefaultRequestOptions(new RequestOptions()
+                .format(DecodeFormat.PREFER_ARGB_8888)
+                .downsample(config.getDownsampleStrategy()));
+
+        Log.d(TAG, "Glide 内存缓存=" + (calculator.getMemoryCacheSize() / 1024) + "KB"
+                + ", BitmapPool=" + (calculator.getBitmapPoolSize() / 1024) + "KB"
+                + ", 磁盘缓存=" + (diskCacheBytes / 1024 / 1024) + "MB");
+    }
+
     @Override
     public void registerComponents(Context context, Glide glide, Registry registry) {
         OkHttpClient okHttpClient = new OkHttpClient.Builder()
@@ -25,13 +72,14 @@ public class GlideConfigModule extends AppGlideModule {
                 .writeTimeout(10, TimeUnit.SECONDS)
                 .retryOnConnectionFailure(true)
                 .build();
-        
+
         registry.replace(GlideUrl.class, InputStream.class, new OkHttpUrlLoader.Factory(okHttpClient));
+        // 按目标尺寸请求服务端缩放后的头像
+        registry.prepend(ResizedImage.class, InputStream.class, new ResizedImage.LoaderFactory());
     }
-    
+
     @Override
     public boolean isManifestParsingEnabled() {
         return false;
     }
 }
-
@@ -20,6 +20,7 @@ public class LiveBoard extends Application {
         super.onCreate();
         
         PerformanceMonitor.recordAppStartTime();
+        com.bytedance.myapplication.utils.MemoryBudget.getInstance().init(this);
         PluginManager.getInstance().init(this);
         com.bytedance.myapplication.utils.ViewPoolManager.getInstance().init(this);
         
@@ -32,6 +33,7 @@ public class LiveBoard extends Application {
             activityLayoutPreloader::preloadAllLayouts, 1000);
         
         com.bytedance.myapplication.utils.PreloadManager.getInstance().startPreload(this);
+        com.bytedance.myapplication.utils.CommentModerator.getInstance().loadFromAssets(this);
         registerPlugins();
         
         Thread.setDefaultUncaughtExceptionHandler((thread, ex) -> {
@@ -50,6 +52,13 @@ public class LiveBoard extends Application {
         return applicationExecutor;
     }
     
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        com.bytedance.myapplication.utils.AvatarCache.getInstance().trimMemory(level);
+        com.bytedance.myapplication.utils.MemoryBudget.getInstance().onTrimMemory(level);
+    }
+    
     @Override
     public void onTerminate() {
         super.onTerminate();
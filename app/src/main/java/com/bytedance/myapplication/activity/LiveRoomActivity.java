@@ -14,6 +14,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
@@ -26,20 +27,24 @@ import com.bytedance.myapplication.adapter.CommentAdapter;
 import com.bytedance.myapplication.model.Comment;
 import com.bytedance.myapplication.model.Host;
 import com.bytedance.myapplication.plugin.PluginManager;
+import com.bytedance.myapplication.utils.CommentScrollbackLog;
+import com.bytedance.myapplication.utils.LocalAssetServer;
 import com.bytedance.myapplication.utils.PerformanceMonitor;
+import com.bytedance.myapplication.utils.PlayerBridge;
 import com.bytedance.myapplication.utils.PreloadManager;
+import com.bytedance.myapplication.utils.RoomEntryOrchestrator;
 import com.bytedance.myapplication.utils.SmoothnessMonitor;
+import com.bytedance.myapplication.utils.StreamPrefetchCache;
+import com.bytedance.myapplication.utils.StreamRegistry;
+import com.bytedance.myapplication.utils.VideoMetricsInterface;
+import com.bytedance.myapplication.utils.ViewPoolManager;
+import com.bytedance.myapplication.utils.WebViewPool;
 import com.bytedance.myapplication.viewmodel.LiveRoomViewModel;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.util.List;
 
 public class LiveRoomActivity extends AppCompatActivity {
     private static final String PAGE_ID = "LiveRoomActivity";
-    // 使用 DASH 直播流（与 dash_live_final.html 保持一致）
-    private static final String DEFAULT_STREAM_URL = "https://akamaibroadcasteruseast.akamaized.net/cmaf/live/657078/akasource/out.mpd";
     
     private ImageView hostAvatar;
     private TextView hostName;
@@ -59,11 +64,24 @@ public class LiveRoomActivity extends AppCompatActivity {
     private LiveRoomViewModel viewModel;
     private String roomId;
     private SmoothnessMonitor smoothnessMonitor;
+    // 进房计划：播放来源、提前取出的 WebView、提前请求的数据和连接
+    private RoomEntryOrchestrator.EntryPlan entryPlan;
     
     // 标记当前使用的 WebView 是否是预加载的（用于退出时判断是否需要放回预加载池）
     private boolean isUsingPreloadedWebView = false;
     private String preloadedRoomId = null; // 如果是预加载的 WebView，记录房间ID
-    private boolean isUsingTTLCache = false; // 标记是否使用了TTL缓存
+    
+    // 播放器页面事件：开始播放前报错时重新加载一次
+    private PlayerBridge observedPlayer;
+    private boolean playerReloadedAfterError = false;
+    private final PlayerBridge.StateListener playerStateListener = (bridge, state) -> {
+        if (state == PlayerBridge.State.ERROR && !bridge.hasReached(PlayerBridge.State.PLAYING)
+                && !playerReloadedAfterError && !isFinishing()) {
+            playerReloadedAfterError = true;
+            Log.w("LiveRoomActivity", "播放器在开始播放前报错，重新加载: roomId=" + roomId);
+            loadPlayer();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -72,23 +90,18 @@ public class LiveRoomActivity extends AppCompatActivity {
         PerformanceMonitor.recordPageStartTime(PAGE_ID);
         smoothnessMonitor = new SmoothnessMonitor(PAGE_ID);
         
-        // 优化：尝试使用预渲染的布局，减少首次渲染时间
-        // 使用 getPreloadedLayoutAndReload 自动重新预加载，确保下次打开时也能使用
-        com.bytedance.myapplication.utils.ActivityLayoutPreloader preloader = 
-            com.bytedance.myapplication.utils.ActivityLayoutPreloader.getInstance();
-        View preloadedLayout = preloader.getPreloadedLayoutAndReload(R.layout.activity_live_room);
-        if (preloadedLayout != null) {
-            // 使用预渲染的布局
-            setContentView(preloadedLayout);
-        } else {
-            // 如果没有预渲染的布局，正常加载
-            setContentView(R.layout.activity_live_room);
-        }
-
         roomId = getIntent().getStringExtra("room_id");
         if (roomId == null) {
             roomId = "5";
         }
+        // 点击时已经取出 WebView、请求数据、连接 WebSocket，这里只负责放进布局
+        entryPlan = RoomEntryOrchestrator.getInstance()
+            .takePlan(this, roomId, getIntent().getStringExtra("stream_url"));
+        
+        // 优化：有预渲染的布局时直接使用（Context 切换到当前 Activity），没有时正常加载
+        // 使用后自动补充预渲染，确保下次打开时也能使用
+        com.bytedance.myapplication.utils.ActivityLayoutPreloader.getInstance()
+            .setContentView(this, R.layout.activity_live_room);
 
         viewModel = new ViewModelProvider(this).get(LiveRoomViewModel.class);
 
@@ -98,17 +111,13 @@ public class LiveRoomActivity extends AppCompatActivity {
         setupSendButton();
         PerformanceMonitor.initImageLoadMonitor(PAGE_ID, 1);
         
-        // 如果使用TTL缓存，数据已经在setupVideoPlayer中恢复了，不需要重新加载
-        if (!isUsingTTLCache) {
-            // 不使用TTL缓存时，正常加载数据
-            viewModel.loadHostInfo(roomId);
-            viewModel.loadComments();
-        }
-        
-        viewModel.setupWebSocket();
+        // 评论回滚日志：TTL 恢复时保留之前淘汰到磁盘的评论
+        viewModel.bindCommentScrollback(roomId, entryPlan.getSource() == RoomEntryOrchestrator.Source.TTL);
+        viewModel.attachEntryPlan(entryPlan);
         
         // 激活所有启用的插件
         PluginManager.getInstance().activateAll(this);
+        RoomEntryOrchestrator.getInstance().onAttached(entryPlan, videoView);
     }
 
     private void initViews() {
@@ -128,398 +137,115 @@ public class LiveRoomActivity extends AppCompatActivity {
     
     /**
      * 配置 WebView 以优化性能
-     * 优化：使用统一的工具类，避免代码重复
+     * 优化：使用统一的工具类，避免代码重复；同一个 WebView 只配置一次
      */
     private void configureWebViewForPerformance(WebView webView) {
         com.bytedance.myapplication.utils.WebViewConfigHelper.configureForPerformance(webView);
         // 添加 JavaScript 接口，用于接收视频性能指标
-        webView.addJavascriptInterface(new VideoPerformanceInterface(), "Android");
+        VideoMetricsInterface.install(webView, PAGE_ID);
     }
     
     /**
-     * JavaScript 接口，用于接收视频性能指标
+     * 把进房计划中的 WebView 换进布局（替换 video_view 占位 View）
+     * 计划中没有 WebView（池已满）时从池中取一个 WebView 替换后加载播放器
      */
-    private class VideoPerformanceInterface {
-        @android.webkit.JavascriptInterface
-        public void onVideoPerformanceMetrics(String metricsJson) {
-            try {
-                JSONObject json = new JSONObject(metricsJson);
-                
-                long playerInitTime = json.optLong("playerInitTime", 0);
-                long loadStartTime = json.optLong("loadStartTime", 0);
-                long loadedDataTime = json.optLong("loadedDataTime", 0);
-                long playingTime = json.optLong("playingTime", 0);
-                long firstFrameDuration = json.optLong("firstFrameDuration", 0);
-                
-                // 如果 firstFrameDuration 为 0，但 playingTime 和 playerInitTime 都有值，则计算
-                if (firstFrameDuration == 0 && playingTime > 0 && playerInitTime > 0) {
-                    firstFrameDuration = playingTime - playerInitTime;
-                }
-                
-                PerformanceMonitor.VideoPerformanceMetrics metrics = 
-                    new PerformanceMonitor.VideoPerformanceMetrics(
-                        playerInitTime,
-                        loadStartTime,
-                        loadedDataTime,
-                        playingTime,
-                        firstFrameDuration
-                    );
-                PerformanceMonitor.recordVideoPerformanceMetrics(PAGE_ID, metrics);
-                
-                // 只在有完整数据时输出日志
-                if (firstFrameDuration > 0) {
-                    long connectTime = loadStartTime > 0 && playerInitTime > 0 ? 
-                        (loadStartTime - playerInitTime) : 0;
-                    long dataLoadTime = loadedDataTime > 0 && loadStartTime > 0 ? 
-                        (loadedDataTime - loadStartTime) : 0;
-                    long renderTime = playingTime > 0 && loadedDataTime > 0 ? 
-                        (playingTime - loadedDataTime) : 0;
-                    Log.d("LiveRoomActivity", String.format(
-                        "首帧渲染: %dms (连接:%dms 数据:%dms 渲染:%dms)",
-                        firstFrameDuration, connectTime, dataLoadTime, renderTime
-                    ));
-                }
-            } catch (JSONException e) {
-                Log.e("LiveRoomActivity", "解析视频性能指标失败: " + metricsJson, e);
-            } catch (Exception e) {
-                Log.e("LiveRoomActivity", "处理性能指标失败", e);
-            }
-        }
-    }
-    
     private void setupVideoPlayer() {
-        PreloadManager preloadManager = PreloadManager.getInstance();
-        
         // 确保videoContainer存在
-        View tempVideoView = findViewById(R.id.video_view);
-        if (tempVideoView == null) {
+        View placeholder = findViewById(R.id.video_view);
+        if (placeholder == null) {
             Log.e("LiveRoomActivity", "无法找到video_view，无法设置播放器");
             return;
         }
-        android.view.ViewGroup videoContainer = (android.view.ViewGroup) tempVideoView.getParent();
+        android.view.ViewGroup videoContainer = (android.view.ViewGroup) placeholder.getParent();
         if (videoContainer == null) {
             Log.e("LiveRoomActivity", "video_view的父容器不存在，无法设置播放器");
             return;
         }
 
-        PreloadManager.TTLRoomCache ttlCache = preloadManager.getTTLRoomCache(roomId);
-        boolean useTTLCache = false;
-        if (ttlCache != null && ttlCache.webView != null && videoContainer != null) {
-            // 先检查WebView是否真的被销毁（使用更宽松的检查）
-            boolean isDestroyed = false;
-            try {
-                ttlCache.webView.getUrl();
-            } catch (Exception e) {
-                isDestroyed = true;
-            }
-            
-            // 检查WebView的Context是否有效（Activity被销毁后，Context可能失效）
-            boolean contextValid = true;
-            try {
-                android.content.Context context = ttlCache.webView.getContext();
-                if (context instanceof android.app.Activity) {
-                    android.app.Activity activity = (android.app.Activity) context;
-                    // 检查Activity是否被销毁
-                    if (activity.isFinishing() || activity.isDestroyed()) {
-                        contextValid = false;
-                        Log.w("LiveRoomActivity", "TTL缓存WebView的Activity已销毁: roomId=" + roomId);
-                    }
-                }
-            } catch (Exception e) {
-                contextValid = false;
-                Log.w("LiveRoomActivity", "检查TTL缓存WebView Context失败", e);
-            }
-            
-            if (isDestroyed || !contextValid) {
-                Log.w("LiveRoomActivity", "TTL缓存中的WebView已销毁或Context无效，使用其他逻辑: roomId=" + roomId);
-                // TTL缓存无效，不使用，继续执行后面的fallback逻辑
-                useTTLCache = false;
-            } else {
-                // TTL缓存有效，可以使用
-                useTTLCache = true;
-            }
+        WebView plannedWebView = entryPlan.getWebView();
+        if (plannedWebView != null) {
+            Log.d("LiveRoomActivity", "使用进房计划中的WebView: roomId=" + roomId + ", 来源=" + entryPlan.getSource());
+            if (entryPlan.getSource() != RoomEntryOrchestrator.Source.FRESH) {
+                isUsingPreloadedWebView = true;
+                preloadedRoomId = roomId;
+            }
+            videoView = plannedWebView;
+        } else {
+            videoView = obtainFallbackWebView();
+            // 单独创建的 WebView 也登记到 WebViewPool，离开页面时按状态回收
+            WebViewPool.getInstance().markInUse(videoView, roomId);
         }
+        replacePlaceholder(videoContainer, placeholder, videoView);
+        configureWebViewForPerformance(videoView);
+        videoView.setVisibility(android.view.View.VISIBLE);
+        videoView.setAlpha(1.0f);
+        videoView.requestFocus();
         
-        if (useTTLCache) {
-            Log.d("LiveRoomActivity", "使用TTL缓存恢复WebView: roomId=" + roomId);
-            isUsingPreloadedWebView = true;
-            preloadedRoomId = roomId;
-            isUsingTTLCache = true; // 标记使用了TTL缓存
-            
-            videoView = findViewById(R.id.video_view);
-            if (videoView == null) {
-                Log.e("LiveRoomActivity", "无法找到video_view，无法恢复TTL缓存");
-                loadPlayer();
-                return;
-            }
-            
-            android.view.ViewGroup.LayoutParams params = videoView.getLayoutParams();
-            int index = videoContainer.indexOfChild(videoView);
-            if (index < 0) {
-                index = 0;
-            }
-            videoContainer.removeView(videoView);
-            
-            // 从隐藏容器中移除 WebView（如果存在）
-            android.view.ViewParent parent = ttlCache.webView.getParent();
-            if (parent instanceof android.view.ViewGroup) {
-                ((android.view.ViewGroup) parent).removeView(ttlCache.webView);
-                // 如果父容器是隐藏容器，也移除它
-                if (parent.getParent() instanceof android.view.ViewGroup) {
-                    ((android.view.ViewGroup) parent.getParent()).removeView((android.view.View) parent);
-                }
-            }
-            
-            // 确保WebView配置正确
-            configureWebViewForPerformance(ttlCache.webView);
-            
-            // 设置WebView可见性和状态
-            ttlCache.webView.setVisibility(android.view.View.VISIBLE);
-            ttlCache.webView.setAlpha(1.0f);
-            
-            // 恢复WebView状态
-            try {
-                ttlCache.webView.onResume();
-                ttlCache.webView.resumeTimers();
-            } catch (Exception e) {
-                Log.w("LiveRoomActivity", "恢复WebView状态失败", e);
-            }
-            
-            // 添加到容器
-            try {
-                videoContainer.addView(ttlCache.webView, index, params);
-                Log.d("LiveRoomActivity", "TTL缓存WebView已添加到容器");
-            } catch (Exception e) {
-                Log.e("LiveRoomActivity", "添加WebView到容器失败", e);
-                // 如果添加失败，重新加载
-                loadPlayer();
-                return;
-            }
-            
-            videoView = ttlCache.webView;
-            videoView.requestFocus();
-            
-            // 确保WebView可见（不需要bringToFront，避免覆盖其他组件）
-            videoView.post(() -> {
-                if (videoView != null && !isWebViewDestroyed(videoView)) {
-                    videoView.setVisibility(android.view.View.VISIBLE);
-                    videoView.setAlpha(1.0f);
-                    // 不调用bringToFront()，避免覆盖其他组件（主播信息、在线人数等）
-                }
-            });
-            
-            // 恢复数据：如果TTL缓存中的数据不完整，重新加载
-            if (ttlCache.host != null) {
-                viewModel.setHostData(ttlCache.host);
-            } else {
-                // TTL缓存中主播信息为空，重新加载
-                Log.w("LiveRoomActivity", "TTL缓存中主播信息为空，重新加载: roomId=" + roomId);
-                viewModel.loadHostInfo(roomId);
-            }
-            
-            if (ttlCache.comments != null) {
-                viewModel.setCommentsData(ttlCache.comments);
-            } else {
-                // TTL缓存中评论为空，重新加载
-                Log.w("LiveRoomActivity", "TTL缓存中评论为空，重新加载");
-                viewModel.loadComments();
-            }
-            
-            if (ttlCache.onlineCount != null) {
-                viewModel.setOnlineCount(ttlCache.onlineCount);
-            }
-            
+        if (plannedWebView == null) {
+            loadPlayer();
+            return;
+        }
+        
+        PreloadManager.TTLRoomCache ttlCache = entryPlan.getTtlCache();
+        if (ttlCache != null && ttlCache.commentScrollPosition >= 0) {
             // 恢复评论列表滚动位置（恢复完整的Activity状态）
-            if (ttlCache.commentScrollPosition >= 0 && commentRecyclerView != null) {
-                pendingScrollPosition = ttlCache.commentScrollPosition;
-                commentRecyclerView.post(() -> {
-                    if (commentRecyclerView != null && pendingScrollPosition >= 0) {
-                        try {
-                            RecyclerView.LayoutManager layoutManager = commentRecyclerView.getLayoutManager();
-                            if (layoutManager instanceof LinearLayoutManager) {
-                                LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
-                                int lastVisiblePosition = linearLayoutManager.findLastCompletelyVisibleItemPosition();
-                                if (lastVisiblePosition < 0) {
-                                    lastVisiblePosition = linearLayoutManager.findLastVisibleItemPosition();
-                                }
-                                if (lastVisiblePosition < pendingScrollPosition - 3) {
-                                    commentRecyclerView.scrollToPosition(pendingScrollPosition);
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Ignore
-                        }
-                        pendingScrollPosition = -1;
-                    }
-                });
-            }
-            
-            // 延迟检查，确保WebView已经完全添加到容器并可见
-            Handler handler = new Handler(Looper.getMainLooper());
-            handler.postDelayed(() -> {
-                if (videoView == null || isWebViewDestroyed(videoView)) {
-                    Log.w("LiveRoomActivity", "TTL缓存恢复后，WebView为空或已销毁，重新加载");
-                    loadPlayer();
-                    return;
-                }
-                
-                // 再次确保WebView可见（不需要bringToFront，避免覆盖其他组件）
+            restoreCommentScrollPosition(ttlCache.commentScrollPosition);
+        }
+        
+        // 后台策略已按离开时长发出恢复命令（跳到直播边缘 / 重新创建播放器），
+        // 这里取消静音并播放，与恢复命令同一批下发；命令在页面就绪前排队，数据不足时等到 canplay 再播放
+        observePlayer().mute(false).play();
+    }
+    
+    /**
+     * 计划中没有 WebView 时从池中取一个；池已满且没有空闲的 WebView 时单独创建（Application Context，不引用页面）
+     */
+    private WebView obtainFallbackWebView() {
+        WebView webView = PreloadManager.getInstance().getReusableWebView();
+        if (webView == null) {
+            webView = WebViewPool.getInstance().createWarmed(this);
+        }
+        return webView != null ? webView : new WebView(getApplicationContext());
+    }
+    
+    /**
+     * 用 WebView 替换布局中的 video_view 占位 View
+     */
+    private void replacePlaceholder(android.view.ViewGroup videoContainer, View placeholder, WebView webView) {
+        android.view.ViewGroup.LayoutParams params = placeholder.getLayoutParams();
+        int index = Math.max(videoContainer.indexOfChild(placeholder), 0);
+        videoContainer.removeView(placeholder);
+        android.view.ViewParent parent = webView.getParent();
+        if (parent instanceof android.view.ViewGroup) {
+            ((android.view.ViewGroup) parent).removeView(webView);
+        }
+        // 保留 id：布局中其他 View 的约束引用了 video_view
+        webView.setId(placeholder.getId());
+        videoContainer.addView(webView, index, params);
+    }
+    
+    private void restoreCommentScrollPosition(int position) {
+        pendingScrollPosition = position;
+        commentRecyclerView.post(() -> {
+            if (commentRecyclerView != null && pendingScrollPosition >= 0) {
                 try {
-                    videoView.setVisibility(android.view.View.VISIBLE);
-                    videoView.setAlpha(1.0f);
-                    // 不调用bringToFront()，避免覆盖其他组件（主播信息、在线人数等）
-                } catch (Exception e) {
-                    Log.w("LiveRoomActivity", "设置WebView可见性失败", e);
-                }
-                
-                // 检查WebView是否在容器中
-                if (videoView.getParent() == null) {
-                    Log.w("LiveRoomActivity", "TTL缓存WebView不在容器中，重新添加到容器");
-                    try {
-                        android.view.ViewGroup.LayoutParams layoutParams = videoView.getLayoutParams();
-                        if (layoutParams == null) {
-                            layoutParams = new android.view.ViewGroup.LayoutParams(
-                                android.view.ViewGroup.LayoutParams.MATCH_PARENT,
-                                android.view.ViewGroup.LayoutParams.MATCH_PARENT
-                            );
+                    RecyclerView.LayoutManager layoutManager = commentRecyclerView.getLayoutManager();
+                    if (layoutManager instanceof LinearLayoutManager) {
+                        LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+                        int lastVisiblePosition = linearLayoutManager.findLastCompletelyVisibleItemPosition();
+                        if (lastVisiblePosition < 0) {
+                            lastVisiblePosition = linearLayoutManager.findLastVisibleItemPosition();
+                        }
+                        if (lastVisiblePosition < pendingScrollPosition - 3) {
+                            commentRecyclerView.scrollToPosition(pendingScrollPosition);
                         }
-                        videoContainer.addView(videoView, layoutParams);
-                    } catch (Exception e) {
-                        Log.e("LiveRoomActivity", "重新添加WebView到容器失败", e);
-                        loadPlayer();
-                        return;
                     }
-                }
-                
-                // 检查URL和加载状态
-                String checkUrl = null;
-                try {
-                    checkUrl = videoView.getUrl();
-                } catch (Exception e) {
-                    Log.w("LiveRoomActivity", "检查WebView URL失败，重新加载", e);
-                    loadPlayer();
-                    return;
-                }
-                
-                // 如果URL不对，重新加载
-                if (checkUrl == null || !checkUrl.contains("player.html")) {
-                    Log.w("LiveRoomActivity", "WebView URL异常，重新加载: url=" + checkUrl);
-                    loadPlayer();
-                    return;
-                }
-                
-                // URL正确，恢复播放（取消静音，确保播放）
-                Log.d("LiveRoomActivity", "TTL缓存WebView状态正常，恢复播放: url=" + checkUrl);
-                try {
-                    // 由于TTL缓存中的WebView在隐藏容器中保持活跃播放（只是静音），
-                    // 恢复时只需要取消静音即可，不需要重新播放
-                    String jsCode = "(function(){" +
-                                   "try{" +
-                                   "if(window.player&&window.player.video){" +
-                                   "var video=window.player.video;" +
-                                   "video.muted=false;" +
-                                   "if(video.paused){video.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(err){console.log('play error:',err);});}" +
-                                   "}" +
-                                   "}catch(e){console.log('restore error:',e);}" +
-                                   "})();";
-                    videoView.evaluateJavascript(jsCode, null);
                 } catch (Exception e) {
-                    Log.e("LiveRoomActivity", "恢复播放失败", e);
-                    // 如果恢复失败，重新加载播放器
-                    loadPlayer();
-                }
-            }, 300);
-        } else {
-            // TTL缓存不存在或无效，正常加载
-            Log.d("LiveRoomActivity", "TTL缓存不存在或无效，正常加载: roomId=" + roomId);
-            
-            // 只有item1第一次进入时，检查预加载的WebView
-            if ("1".equals(roomId)) {
-                WebView preloadedStreamWebView = preloadManager.getPreloadedStreamWebView(roomId);
-                if (preloadedStreamWebView != null && preloadedStreamWebView.getParent() == null && videoContainer != null) {
-                    isUsingPreloadedWebView = true;
-                    preloadedRoomId = roomId;
-                    
-                    videoView = findViewById(R.id.video_view);
-                    android.view.ViewGroup.LayoutParams params = videoView.getLayoutParams();
-                    int index = videoContainer.indexOfChild(videoView);
-                    videoContainer.removeView(videoView);
-                    configureWebViewForPerformance(preloadedStreamWebView);
-                    preloadedStreamWebView.setVisibility(android.view.View.VISIBLE);
-                    videoContainer.addView(preloadedStreamWebView, index, params);
-                    videoView = preloadedStreamWebView;
-                    videoView.requestFocus();
-                    
-                    String currentUrl = null;
-                    try {
-                        currentUrl = videoView.getUrl();
-                    } catch (Exception e) {
-                        loadPlayer();
-                        return;
-                    }
-                    
-                    if (currentUrl != null && currentUrl.contains("player.html")) {
-                        Handler handler = new Handler(Looper.getMainLooper());
-                        handler.postDelayed(() -> {
-                            if (videoView == null || isWebViewDestroyed(videoView)) {
-                                return;
-                            }
-                            try {
-                                String streamUrl = Uri.encode(DEFAULT_STREAM_URL);
-                                String jsCode = "(function(){" +
-                                               "try{" +
-                                               "if(window.player&&window.player.video){" +
-                                               "var video=window.player.video;" +
-                                               "if(video.readyState>=3&&video.paused){" +
-                                               "video.muted=false;video.play().catch(function(){});" +
-                                               "}else if(video.readyState<3){" +
-                                               "video.addEventListener('canplay',function(){video.muted=false;if(video.paused){video.play().catch(function(){});}},{once:true});" +
-                                               "}" +
-                                               "}" +
-                                               "}catch(e){}" +
-                                               "})();";
-                                videoView.evaluateJavascript(jsCode, null);
-                            } catch (Exception e) {
-                                // Ignore
-                            }
-                        }, 200);
-                    } else {
-                        loadPlayer();
-                    }
-                    return;
-                }
-            }
-            
-            // 其他情况：直接使用布局中的WebView，正常加载
-            videoView = findViewById(R.id.video_view);
-            if (videoView == null) {
-                Log.e("LiveRoomActivity", "无法找到video_view，创建新的WebView");
-                // 获取原始WebView的布局参数
-                View originalView = tempVideoView;
-                if (originalView != null) {
-                    android.view.ViewGroup.LayoutParams originalParams = originalView.getLayoutParams();
-                    int originalIndex = videoContainer.indexOfChild(originalView);
-                    if (originalIndex >= 0) {
-                        videoContainer.removeView(originalView);
-                    }
-                    videoView = new WebView(this);
-                    videoContainer.addView(videoView, originalIndex >= 0 ? originalIndex : 0, originalParams);
-                } else {
-                    videoView = new WebView(this);
-                    android.view.ViewGroup.LayoutParams params = new android.view.ViewGroup.LayoutParams(
-                        android.view.ViewGroup.LayoutParams.MATCH_PARENT,
-                        android.view.ViewGroup.LayoutParams.MATCH_PARENT
-                    );
-                    videoContainer.addView(videoView, params);
+                    // Ignore
                 }
+                pendingScrollPosition = -1;
             }
-            configureWebViewForPerformance(videoView);
-            // 确保 WebView 可见且可获得焦点
-            videoView.setVisibility(android.view.View.VISIBLE);
-            videoView.setAlpha(1.0f);
-            videoView.requestFocus();
-            loadPlayer();
-        }
+        });
     }
     
     /**
@@ -527,10 +253,7 @@ public class LiveRoomActivity extends AppCompatActivity {
      */
     private void updateStreamUrlIfNeeded() {
         if (videoView != null) {
-            String streamUrlParam = getIntent().getStringExtra("stream_url");
-            final String streamUrl = (streamUrlParam == null || streamUrlParam.isEmpty()) 
-                    ? DEFAULT_STREAM_URL 
-                    : streamUrlParam;
+            final String streamUrl = resolveStreamUrl();
             
             // 检查 WebView 是否已经加载了内容（预加载的情况）
             String currentUrl = videoView.getUrl();
@@ -538,45 +261,12 @@ public class LiveRoomActivity extends AppCompatActivity {
                 // WebView 已经加载了播放器，通过 JavaScript 更新流地址（如果需要）
                 String currentStreamUrl = extractStreamUrlFromUrl(currentUrl);
                 if (!streamUrl.equals(currentStreamUrl)) {
-                    // 流地址不同，需要更新
-                    Handler handler = new Handler(Looper.getMainLooper());
-                    handler.postDelayed(() -> {
-                        // 使用安全的方法转义 JavaScript 字符串
-                        String escapedUrl = escapeJsString(streamUrl);
-                        String encodedUrl = Uri.encode(streamUrl);
-                        // 使用单引号包裹转义后的 URL
-                        String jsCode = "if (typeof window.switchStreamUrl === 'function') { " +
-                                       "window.switchStreamUrl('" + escapedUrl + "'); " +
-                                       "} else if (window.player && window.player.switchURL) { " +
-                                       "window.player.switchURL('" + escapedUrl + "'); " +
-                                       "} else { " +
-                                       "location.href = 'file:///android_asset/player.html?url=" + encodedUrl + "'; " +
-                                       "}";
-                        videoView.evaluateJavascript(jsCode, null);
-                    }, 500);
+                    // 流地址不同，需要更新（页面未就绪时命令先排队）
+                    PlayerBridge.of(videoView).switchUrl(streamUrl);
                 } else {
                     // 流地址相同，预加载的 WebView 已经加载了正确的流，需要启动播放（预加载模式不自动播放）
-                    Handler handler = new Handler(Looper.getMainLooper());
-                    handler.postDelayed(() -> {
-                        // 启动播放（预加载模式只缓冲，不播放，现在需要开始播放）
-                        // 优化：确保播放器真正开始播放，检查播放状态
-                        String jsCode = "try { " +
-                                       "if (window.player && window.player.video) { " +
-                                       "  var video = window.player.video; " +
-                                       "  video.muted = true; " +
-                                       "  if (video.paused) { " +
-                                       "    video.play().then(function() { " +
-                                       "      console.log('✓ 预加载模式：开始播放'); " +
-                                       "    }).catch(function(err) { " +
-                                       "      console.error('播放失败:', err); " +
-                                       "    }); " +
-                                       "  } else { " +
-                                       "    console.log('视频已在播放'); " +
-                                       "  } " +
-                                       "} " +
-                                       "} catch(e) { console.error('启动播放失败:', e); }";
-                        videoView.evaluateJavascript(jsCode, null);
-                    }, 500);
+                    // 启动播放（预加载模式只缓冲，不播放，现在需要开始播放）
+                    PlayerBridge.of(videoView).mute(true).play();
                 }
             } else {
                 // WebView 未加载播放器，正常加载
@@ -585,6 +275,17 @@ public class LiveRoomActivity extends AppCompatActivity {
         }
     }
     
+    /**
+     * 播放地址：优先使用 Intent 传入的地址，否则使用流信息登记表中该直播间的 manifest
+     */
+    private String resolveStreamUrl() {
+        String streamUrlParam = getIntent().getStringExtra("stream_url");
+        if (streamUrlParam != null && !streamUrlParam.isEmpty()) {
+            return streamUrlParam;
+        }
+        return StreamRegistry.getInstance().getPlaybackUrl(roomId);
+    }
+    
     /**
      * 从 URL 中提取流地址
      */
@@ -613,13 +314,9 @@ public class LiveRoomActivity extends AppCompatActivity {
             return;
         }
         
-        try {
-            if (isWebViewDestroyed(videoView)) {
-                Log.w("LiveRoomActivity", "loadPlayer: WebView已销毁，无法加载播放器");
-                return;
-            }
-        } catch (Exception e) {
-            // 如果是新创建的 WebView，getUrl() 可能返回 null，这是正常的，继续执行
+        if (isWebViewDestroyed(videoView)) {
+            Log.w("LiveRoomActivity", "loadPlayer: WebView已销毁，无法加载播放器");
+            return;
         }
         
         // 确保WebView配置正确（包括背景色）
@@ -629,61 +326,69 @@ public class LiveRoomActivity extends AppCompatActivity {
         videoView.setVisibility(android.view.View.VISIBLE);
         videoView.setAlpha(1.0f);
         
-        String streamUrlParam = getIntent().getStringExtra("stream_url");
-        final String streamUrl = (streamUrlParam == null || streamUrlParam.isEmpty()) 
-                ? DEFAULT_STREAM_URL 
-                : streamUrlParam;
+        final String streamUrl = resolveStreamUrl();
+        // 播放器脚本加载期间并行预取 manifest 和首批分片，Shaka 发起请求时直接命中缓存
+        StreamPrefetchCache.getInstance().prefetch(streamUrl);
         
-        String htmlUrl = "file:///android_asset/player.html?url=" + Uri.encode(streamUrl);
+        String htmlUrl = LocalAssetServer.playerUrl(streamUrl, false);
         Log.d("LiveRoomActivity", "loadPlayer: 加载播放器 URL=" + htmlUrl);
         try {
-            videoView.loadUrl(htmlUrl);
+            PlayerBridge bridge = observePlayer();
+            bridge.load(htmlUrl);
+            // 页面和播放器就绪后取消静音并播放（数据不足时等到 canplay）
+            bridge.mute(false).play();
         } catch (Exception e) {
             Log.e("LiveRoomActivity", "加载播放器失败", e);
-            return;
         }
-        
-        Handler handler = new Handler(Looper.getMainLooper());
-        handler.postDelayed(() -> {
-            if (videoView == null) {
-                return;
-            }
-            
-            try {
-                if (isWebViewDestroyed(videoView)) {
-                    return;
-                }
-            } catch (Exception e) {
-                // Ignore
-            }
-            
-            try {
-                String encodedUrl = Uri.encode(streamUrl);
-                String jsCode = "(function(){" +
-                               "try{" +
-                               "if(window.player&&window.player.video){" +
-                               "var video=window.player.video;" +
-                               "if(video.readyState>=3&&video.paused){" +
-                               "video.muted=false;video.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(){});" +
-                               "}else if(video.readyState<3){" +
-                               "video.addEventListener('canplay',function(){video.muted=false;if(video.paused){video.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(){});}},{once:true});" +
-                               "}" +
-                               "}else{" +
-                               "setTimeout(function(){if(window.player&&window.player.video){var v=window.player.video;if(v.readyState>=3&&v.paused){v.muted=false;v.play().catch(function(){});}}},500);" +
-                               "}" +
-                               "}catch(e){}" +
-                               "})();";
-                videoView.evaluateJavascript(jsCode, null);
-            } catch (Exception e) {
-                // Ignore
+    }
+
+    /**
+     * 监听当前 videoView 的播放器事件（切换 WebView 时转移监听）
+     */
+    private PlayerBridge observePlayer() {
+        PlayerBridge bridge = PlayerBridge.of(videoView);
+        if (observedPlayer != bridge) {
+            if (observedPlayer != null) {
+                observedPlayer.removeListener(playerStateListener);
             }
-        }, 300);
+            observedPlayer = bridge;
+            bridge.addListener(playerStateListener);
+        }
+        return bridge;
     }
 
     private void setupRecyclerView() {
         commentAdapter = new CommentAdapter();
-        commentRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        // 评论由 ViewModel 中的合并引擎维护，Adapter 直接接收精确的插入/变更区间
+        commentAdapter.bindMergeEngine(viewModel.getCommentMergeEngine());
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        // 页面销毁时把评论行回收到共享池，下一个直播间直接复用
+        layoutManager.setRecycleChildrenOnDetach(true);
+        commentRecyclerView.setLayoutManager(layoutManager);
         commentRecyclerView.setAdapter(commentAdapter);
+        commentRecyclerView.setRecycledViewPool(CommentAdapter.getSharedViewPool());
+        
+        // 向上滚动接近顶部时分页读回更早的评论；离开底部时暂停淘汰
+        commentRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+                if (!(layoutManager instanceof LinearLayoutManager)) {
+                    return;
+                }
+                LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+                int firstVisible = linearLayoutManager.findFirstVisibleItemPosition();
+                int lastVisible = linearLayoutManager.findLastVisibleItemPosition();
+                boolean atBottom = lastVisible >= commentAdapter.getItemCount() - 2;
+                // 滚动回调中不能修改数据，延迟到下一帧处理
+                recyclerView.post(() -> {
+                    viewModel.setFollowingLatestComments(atBottom);
+                    if (dy < 0 && firstVisible >= 0 && firstVisible <= SCROLLBACK_PREFETCH_DISTANCE) {
+                        viewModel.loadOlderComments();
+                    }
+                });
+            }
+        });
     }
 
     private void setupObservers() {
@@ -696,8 +401,7 @@ public class LiveRoomActivity extends AppCompatActivity {
 
         viewModel.getCommentsData().observe(this, comments -> {
             if (comments != null && commentAdapter != null) {
-                commentAdapter.setComments(comments);
-                
+                // 列表变更已由合并引擎直接派发给 Adapter，这里只处理滚动到底部
                 if (comments.size() > 0 && commentRecyclerView != null) {
                     int lastPosition = comments.size() - 1;
                     pendingScrollPosition = lastPosition;
@@ -829,6 +533,7 @@ public class LiveRoomActivity extends AppCompatActivity {
         }
         // 停止播放监控
         stopPlaybackMonitoring();
+        ViewPoolManager.getInstance().flush();
         // 注意：对于直播流，不在 onPause 时暂停 WebView
         // WebView.onPause() 会暂停 JavaScript 执行和渲染，导致播放卡住
         // 直播流需要持续播放，让 WebView 自然运行（与浏览器打开 HTML 文件的行为一致）
@@ -842,6 +547,8 @@ public class LiveRoomActivity extends AppCompatActivity {
     private Runnable commentScrollRunnable;
     private int pendingScrollPosition = -1;
     private static final long COMMENT_SCROLL_DELAY_MS = 200; // 200ms 防抖
+    // 距离顶部多少条时开始读回更早的评论
+    private static final int SCROLLBACK_PREFETCH_DISTANCE = 5;
     
     @Override
     protected void onResume() {
@@ -911,18 +618,10 @@ public class LiveRoomActivity extends AppCompatActivity {
      * 优化：分离恢复操作和播放检查，避免同时执行导致阻塞
      */
     /**
-     * 检查 WebView 是否已被销毁
+     * 检查 WebView 是否已被销毁：WebView 只由 WebViewPool 销毁，不在池中即视为已销毁
      */
     private boolean isWebViewDestroyed(WebView webView) {
-        if (webView == null) {
-            return true;
-        }
-        try {
-            webView.getUrl();
-            return false;
-        } catch (Exception e) {
-            return true;
-        }
+        return !WebViewPool.getInstance().isAlive(webView);
     }
     
     private void resumeWebView() {
@@ -1025,9 +724,23 @@ public class LiveRoomActivity extends AppCompatActivity {
         // 停用所有插件
         PluginManager.getInstance().deactivateAll(this);
         
+        if (commentAdapter != null) {
+            commentAdapter.unbindMergeEngine();
+        }
+        
         // 停止播放监控
         stopPlaybackMonitoring();
         
+        if (observedPlayer != null) {
+            observedPlayer.removeListener(playerStateListener);
+            observedPlayer = null;
+        }
+        if (entryPlan != null) {
+            RoomEntryOrchestrator.getInstance().onExit(entryPlan);
+            entryPlan = null;
+        }
+        
+        boolean savedToTTL = false;
         if (videoView != null) {
             PreloadManager preloadManager = PreloadManager.getInstance();
             String currentRoomId = roomId;
@@ -1037,13 +750,8 @@ public class LiveRoomActivity extends AppCompatActivity {
             
             try {
                 if (!isWebViewDestroyed(videoView)) {
-                    // 检查WebView是否正在加载中（缓冲状态）
-                    boolean isLoading = false;
-                    try {
-                        isLoading = videoView.getProgress() < 100;
-                    } catch (Exception e) {
-                        // Ignore
-                    }
+                    // 检查播放器是否还在加载中（还没缓冲到可以播放）
+                    boolean isLoading = !PlayerBridge.of(videoView).hasReached(PlayerBridge.State.CAN_PLAY);
                     
                     // 如果正在加载中，不保存到TTL缓存，直接回收到复用池
                     if (isLoading) {
@@ -1106,25 +814,15 @@ public class LiveRoomActivity extends AppCompatActivity {
                             if (currentRoomId != null && !currentRoomId.isEmpty()) {
                                 // 保存到TTL缓存（包含完整的Activity状态）
                                 preloadManager.returnRoomWithTTL(currentRoomId, videoView, host, comments, onlineCount, commentScrollPosition, 0L);
+                                savedToTTL = true;
                             } else {
-                                // 如果没有roomId，尝试回收到复用池
-                                WebView preloadedWebView = preloadManager.getPreloadedWebView();
-                                if (preloadedWebView == videoView) {
-                                    try {
-                                        videoView.onPause();
-                                        videoView.pauseTimers();
-                                        videoView.setVisibility(android.view.View.GONE);
-                                    } catch (Exception e) {
-                                        // Ignore
-                                    }
-                                } else {
-                                    preloadManager.returnWebViewForReuse(videoView);
-                                }
+                                // 如果没有roomId，回收到复用池
+                                preloadManager.returnWebViewForReuse(videoView);
                             }
                         }
                     }
                 } else {
-                    // WebView已销毁，清理引用
+                    // WebView已被池淘汰，只清理引用
                     Log.w("LiveRoomActivity", "WebView已销毁，无法保存到TTL缓存");
                 }
             } catch (Exception e) {
@@ -1133,6 +831,11 @@ public class LiveRoomActivity extends AppCompatActivity {
             videoView = null;
         }
         
+        // 没有进入 TTL 缓存时，评论回滚日志不会再被使用，立即回收
+        if (!savedToTTL && roomId != null && !isChangingConfigurations()) {
+            CommentScrollbackLog.release(roomId);
+        }
+        
         // 重置标记
         isUsingPreloadedWebView = false;
         preloadedRoomId = null;
@@ -1141,6 +844,9 @@ public class LiveRoomActivity extends AppCompatActivity {
             smoothnessMonitor.stopMonitoring();
             smoothnessMonitor = null;
         }
+        // 预渲染布局的 Context 切换回 Application，不再引用当前页面
+        com.bytedance.myapplication.utils.ActivityLayoutPreloader.getInstance().onActivityDestroyed(this);
+        
         // 输出最终性能报告
         PerformanceMonitor.printFinalReport(PAGE_ID);
         PerformanceMonitor.clearPageData(PAGE_ID);
@@ -1159,24 +865,5 @@ public class LiveRoomActivity extends AppCompatActivity {
             commentInput.setText("");
         });
     }
-    
-    /**
-     * 安全地转义 JavaScript 字符串（用于单引号字符串）
-     * 转义所有特殊字符，确保字符串可以安全地嵌入到 JavaScript 代码中
-     */
-    private String escapeJsString(String str) {
-        if (str == null) {
-            return "null";
-        }
-        // 转义所有可能破坏 JavaScript 字符串的特殊字符
-        return str.replace("\\", "\\\\")      // 反斜杠必须最先转义
-                  .replace("'", "\\'")        // 单引号
-                  .replace("\"", "\\\"")      // 双引号
-                  .replace("\n", "\\n")       // 换行符
-                  .replace("\r", "\\r")       // 回车符
-                  .replace("\t", "\\t")       // 制表符
-                  .replace("\f", "\\f")       // 换页符
-                  .replace("\b", "\\b");      // 退格符
-    }
 
 }
@@ -1,77 +1,121 @@
 package com.bytedance.myapplication.activity;
 
 import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
-import android.widget.AbsListView;
-import android.widget.GridView;
+import android.os.SystemClock;
+import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
 import com.bytedance.myapplication.R;
 import com.bytedance.myapplication.adapter.RoomListAdapter;
 import com.bytedance.myapplication.utils.PerformanceMonitor;
 import com.bytedance.myapplication.utils.PreloadManager;
+import com.bytedance.myapplication.utils.RoomEntryOrchestrator;
+import com.bytedance.myapplication.utils.RoomPreloadPredictor;
+import com.bytedance.myapplication.utils.RoomPreviewCache;
 import com.bytedance.myapplication.utils.SmoothnessMonitor;
+import com.bytedance.myapplication.utils.ThumbnailPrefetcher;
+import com.bytedance.myapplication.utils.ViewPoolManager;
 import com.bytedance.myapplication.viewmodel.RoomListViewModel;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 public class RoomListActivity extends AppCompatActivity {
     private static final String PAGE_ID = "RoomListActivity";
 
-    private GridView gridView;
+    private RecyclerView roomRecyclerView;
+    private GridLayoutManager layoutManager;
     private RoomListAdapter adapter;
     private RoomListViewModel viewModel;
     private SmoothnessMonitor smoothnessMonitor;
     private final Handler preloadHandler = new Handler(Looper.getMainLooper());
     private Runnable preloadRunnable;
-    private final Set<String> preloadedRoomIds = new HashSet<>();
+    private RoomPreloadPredictor preloadPredictor;
+    private boolean isScrollIdle = true;
     private static final long PRELOAD_DELAY_MS = 100;
+    // 停止滚动后定期重新打分，取消分数已衰减的预缓冲
+    private static final long PRELOAD_REFRESH_MS = 3000;
     private static final int MAX_PRELOAD_COUNT = 4;
+    private static final int SPAN_COUNT = 2;
+    // 滚动方向上提前加载头像的条目数（约一屏）
+    private static final int IMAGE_PREFETCH_COUNT = 6;
+    private ThumbnailPrefetcher thumbnailPrefetcher;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         PerformanceMonitor.recordPageStartTime(PAGE_ID);
         smoothnessMonitor = new SmoothnessMonitor(PAGE_ID);
+        // 与 GridView 版本的流畅性报告区分，便于对比
+        smoothnessMonitor.setVariant("recyclerview");
         setContentView(R.layout.activity_room_list);
 
+        preloadPredictor = RoomPreloadPredictor.getInstance();
+        preloadPredictor.init(this);
         viewModel = new ViewModelProvider(this).get(RoomListViewModel.class);
-        gridView = findViewById(R.id.room_grid_view);
+        roomRecyclerView = findViewById(R.id.room_recycler_view);
+        layoutManager = new GridLayoutManager(this, SPAN_COUNT);
+        // GapWorker 在帧间空闲时间提前创建并绑定即将进入屏幕的条目
+        layoutManager.setItemPrefetchEnabled(true);
+        roomRecyclerView.setLayoutManager(layoutManager);
+        roomRecyclerView.setHasFixedSize(true);
 
-        viewModel.getRoomIds().observe(this, roomIds -> {
-            if (roomIds != null && !roomIds.isEmpty()) {
-                int visibleItemCount = Math.min(roomIds.size(), 6);
-                PerformanceMonitor.initImageLoadMonitor(PAGE_ID, visibleItemCount);
-                
-                if (adapter == null) {
-                    adapter = new RoomListAdapter(this, roomIds, PAGE_ID);
-                    gridView.setAdapter(adapter);
+        adapter = new RoomListAdapter(this, viewModel.getDirectory(), PAGE_ID);
+        // 按下时生成进房计划并请求数据，点击时取出 WebView、连接 WebSocket，再启动页面
+        adapter.setOnRoomPressListener(new RoomListAdapter.OnRoomPressListener() {
+            @Override
+            public void onRoomPressed(String roomId) {
+                RoomEntryOrchestrator.getInstance().prepare(roomId);
+            }
 
-                    gridView.setOnItemClickListener((parent, view, position, id) -> {
-                        String roomId = roomIds.get(position);
-                        Intent intent = new Intent(RoomListActivity.this, LiveRoomActivity.class);
-                        intent.putExtra("room_id", roomId);
-                        startActivity(intent);
-                    });
-                    
-                    setupPreloadOnScroll();
-                } else {
-                    adapter.updateRoomIds(roomIds);
-                }
+            @Override
+            public void onRoomPressCancelled(String roomId) {
+                RoomEntryOrchestrator.getInstance().cancel(roomId);
             }
         });
-        
-        viewModel.getRoomInfoCache().observe(this, cache -> {
-            if (cache != null && adapter != null) {
-                adapter.updateRoomInfoCache(cache);
-            }
+        adapter.setOnRoomClickListener((roomId, position) -> {
+            preloadPredictor.onRoomTapped(roomId);
+            RoomEntryOrchestrator.getInstance().commit(RoomListActivity.this, roomId);
+            Intent intent = new Intent(RoomListActivity.this, LiveRoomActivity.class);
+            intent.putExtra("room_id", roomId);
+            startActivity(intent);
         });
+        roomRecyclerView.setAdapter(adapter);
+        // 第一页到达（或启动页已经加载好）时按首屏条目数初始化图片加载监控
+        if (!initFirstScreenMonitor()) {
+            adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    if (initFirstScreenMonitor()) {
+                        adapter.unregisterAdapterDataObserver(this);
+                    }
+                }
+            });
+        }
+
+        setupImagePreloader();
+        setupPreloadOnScroll();
+    }
+    
+    private boolean initFirstScreenMonitor() {
+        int itemCount = adapter.getItemCount();
+        if (itemCount == 0) {
+            return false;
+        }
+        PerformanceMonitor.initImageLoadMonitor(PAGE_ID, Math.min(itemCount, 6));
+        return true;
     }
     
     @Override
@@ -80,6 +124,11 @@ public class RoomListActivity extends AppCompatActivity {
         if (smoothnessMonitor != null) {
             smoothnessMonitor.startMonitoring();
         }
+        if (adapter != null) {
+            // 上次加载失败或从后台返回时补齐视口附近的页
+            notifyViewportChanged();
+            schedulePreload();
+        }
     }
     
     @Override
@@ -88,22 +137,56 @@ public class RoomListActivity extends AppCompatActivity {
         if (smoothnessMonitor != null) {
             smoothnessMonitor.stopMonitoring();
         }
+        cancelPreload();
+        preloadPredictor.flush();
+        ViewPoolManager.getInstance().flush();
+    }
+    
+    /**
+     * 滚动时按滚动方向、以缩略图的实际尺寸提前加载即将出现的头像（与列表绑定使用相同的请求参数，命中内存缓存）
+     */
+    private void setupImagePreloader() {
+        RequestManager requestManager = Glide.with(this);
+        thumbnailPrefetcher = new ThumbnailPrefetcher(requestManager, new ThumbnailPrefetcher.ModelProvider() {
+            @Override
+            public String getUrl(int position) {
+                return adapter != null ? adapter.getAvatarUrl(position) : null;
+            }
+            
+            @Override
+            public RequestBuilder<Drawable> request(String url) {
+                return RoomListAdapter.avatarRequest(requestManager, url);
+            }
+        }, IMAGE_PREFETCH_COUNT);
+        adapter.setThumbnailPrefetcher(thumbnailPrefetcher);
     }
     
     private void setupPreloadOnScroll() {
-        gridView.setOnScrollListener(new AbsListView.OnScrollListener() {
+        roomRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onScrollStateChanged(AbsListView view, int scrollState) {
-                if (scrollState == AbsListView.OnScrollListener.SCROLL_STATE_IDLE) {
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                isScrollIdle = newState == RecyclerView.SCROLL_STATE_IDLE;
+                if (isScrollIdle) {
                     schedulePreload();
                 } else {
                     cancelPreload();
                 }
+                if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    // 按下变成了拖动，丢弃按下时生成的进房计划
+                    RoomEntryOrchestrator.getInstance().cancel(null);
+                }
             }
             
             @Override
-            public void onScroll(AbsListView view, int firstVisibleItem, 
-                               int visibleItemCount, int totalItemCount) {
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int firstVisible = layoutManager.findFirstVisibleItemPosition();
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (firstVisible == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                viewModel.onViewportChanged(firstVisible, lastVisible);
+                preloadPredictor.onScroll(firstVisible, SystemClock.uptimeMillis());
+                preloadImages(recyclerView, firstVisible, lastVisible);
                 cancelPreload();
                 schedulePreload();
             }
@@ -112,10 +195,37 @@ public class RoomListActivity extends AppCompatActivity {
         schedulePreload();
     }
     
+    private void notifyViewportChanged() {
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (firstVisible == RecyclerView.NO_POSITION) {
+            // 列表还没有条目：从第一页开始
+            viewModel.onViewportChanged(0, 0);
+        } else {
+            viewModel.onViewportChanged(firstVisible, lastVisible);
+        }
+    }
+    
+    private void preloadImages(RecyclerView recyclerView, int firstVisible, int lastVisible) {
+        if (thumbnailPrefetcher == null) {
+            return;
+        }
+        // 第一次有条目时从列表中的缩略图控件取得图片尺寸
+        if (!thumbnailPrefetcher.hasTileSize() && recyclerView.getChildCount() > 0) {
+            View thumbnail = recyclerView.getChildAt(0).findViewById(R.id.room_thumbnail);
+            thumbnailPrefetcher.setTileSize(this, thumbnail.getWidth(), thumbnail.getHeight());
+        }
+        thumbnailPrefetcher.onScroll(firstVisible, lastVisible, adapter.getItemCount());
+    }
+    
     private void schedulePreload() {
+        schedulePreload(PRELOAD_DELAY_MS);
+    }
+    
+    private void schedulePreload(long delayMs) {
         cancelPreload();
-        preloadRunnable = this::preloadVisibleRooms;
-        preloadHandler.postDelayed(preloadRunnable, PRELOAD_DELAY_MS);
+        preloadRunnable = this::preloadPredictedRooms;
+        preloadHandler.postDelayed(preloadRunnable, delayMs);
     }
     
     private void cancelPreload() {
@@ -125,30 +235,36 @@ public class RoomListActivity extends AppCompatActivity {
         }
     }
     
-    private void preloadVisibleRooms() {
+    /**
+     * 按预测分数预缓冲直播间：名额给分数最高的几个，分数衰减的预缓冲会被取消
+     */
+    private void preloadPredictedRooms() {
+        preloadRunnable = null;
         if (adapter == null || viewModel == null) {
             return;
         }
         
-        List<String> roomIds = viewModel.getRoomIds().getValue();
-        if (roomIds == null || roomIds.isEmpty()) {
+        // 只在目录窗口内已加载的直播间中选择（占位条目为 null）
+        List<String> roomIds = viewModel.getDirectory().roomIdList();
+        if (roomIds.isEmpty()) {
             return;
         }
         
-        PreloadManager preloadManager = PreloadManager.getInstance();
-        int firstVisible = gridView.getFirstVisiblePosition();
-        int visibleCount = gridView.getLastVisiblePosition() - firstVisible + 1;
-        int preloadCount = Math.min(MAX_PRELOAD_COUNT, Math.min(visibleCount, roomIds.size() - firstVisible));
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        List<String> ranked = preloadPredictor.rank(roomIds, firstVisible, lastVisible,
+                MAX_PRELOAD_COUNT, SystemClock.uptimeMillis());
+        PreloadManager.getInstance().applyPreloadPlan(RoomListActivity.this, ranked);
         
-        for (int i = 0; i < preloadCount; i++) {
-            int position = firstVisible + i;
-            if (position < roomIds.size()) {
-                String roomId = roomIds.get(position);
-                if (!preloadedRoomIds.contains(roomId)) {
-                    preloadedRoomIds.add(roomId);
-                    preloadManager.preloadStreamForRoom(RoomListActivity.this, roomId);
-                }
-            }
+        // 可见条目的预览帧（缺少或过期时重新截取）
+        List<String> visibleIds = new ArrayList<>();
+        for (int i = Math.max(firstVisible, 0); i <= lastVisible; i++) {
+            visibleIds.add(viewModel.getDirectory().getRoomId(i));
+        }
+        RoomPreviewCache.getInstance().refresh(this, visibleIds);
+        
+        if (isScrollIdle) {
+            schedulePreload(PRELOAD_REFRESH_MS);
         }
     }
     
@@ -156,7 +272,12 @@ public class RoomListActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         cancelPreload();
-        preloadedRoomIds.clear();
+        preloadPredictor.resetSession();
+        if (thumbnailPrefetcher != null) {
+            thumbnailPrefetcher.cancelAll();
+        }
+        // 解除 Adapter 对目录（单例）的监听
+        roomRecyclerView.setAdapter(null);
         
         if (smoothnessMonitor != null) {
             smoothnessMonitor.stopMonitoring();
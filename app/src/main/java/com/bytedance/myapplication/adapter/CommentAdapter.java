@@ -8,25 +8,84 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.bytedance.myapplication.R;
 import com.bytedance.myapplication.model.Comment;
+import com.bytedance.myapplication.utils.AvatarCache;
+import com.bytedance.myapplication.utils.CommentMergeEngine;
 import com.bytedance.myapplication.utils.ViewPoolManager;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHolder> {
     private List<Comment> comments;
+    private static final int VIEW_TYPE_COMMENT = 0;
+    
+    private CommentMergeEngine mergeEngine;
+    // 本列表绑定过的 ViewHolder（即同时使用的评论行），数量报告给 View 池调整预加载数量
+    private final Set<ViewHolder> usedHolders = Collections.newSetFromMap(new WeakHashMap<>());
 
     public CommentAdapter() {
         this.comments = new ArrayList<>();
     }
 
+    /**
+     * 预先创建评论行的 ViewHolder 放入共享的 RecycledViewPool（主线程调用）
+     * 进入直播间时评论列表直接从池中取出绑定，不再 inflate 和 findViewById
+     */
+    public static void preloadViewHolders() {
+        ViewPoolManager viewPoolManager = ViewPoolManager.getInstance();
+        viewPoolManager.seedRecycledViewPool(R.layout.item_comment, new CommentAdapter(), VIEW_TYPE_COMMENT,
+                viewPoolManager.getPreloadCount(R.layout.item_comment));
+    }
+
+    /**
+     * 评论列表使用的共享 RecycledViewPool，在进程内跨直播间保留
+     */
+    public static RecyclerView.RecycledViewPool getSharedViewPool() {
+        return ViewPoolManager.getInstance().getRecycledViewPool(R.layout.item_comment);
+    }
+
+    /**
+     * 绑定评论合并引擎
+     * 绑定后列表数据直接来自引擎，引擎派发的插入/变更区间直接通知到 Adapter
+     */
+    public void bindMergeEngine(CommentMergeEngine engine) {
+        if (mergeEngine != null) {
+            mergeEngine.setListUpdateCallback(null);
+        }
+        mergeEngine = engine;
+        if (engine != null) {
+            comments = engine.asList();
+            engine.setListUpdateCallback(new AdapterListUpdateCallback(this));
+        } else {
+            comments = new ArrayList<>();
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 解绑评论合并引擎（Activity 销毁时调用，避免引擎持有 Adapter 导致泄漏）
+     */
+    public void unbindMergeEngine() {
+        if (mergeEngine != null) {
+            mergeEngine.setListUpdateCallback(null);
+            mergeEngine = null;
+        }
+    }
+
     public void addComment(Comment comment) {
+        if (mergeEngine != null) {
+            mergeEngine.upsert(comment);
+            return;
+        }
         comments.add(comment);
         notifyItemInserted(comments.size() - 1);
     }
@@ -36,6 +95,12 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
             newComments = new ArrayList<>();
         }
         
+        // 已绑定合并引擎：交给引擎按 ID 合并，由引擎派发精确的变更区间
+        if (mergeEngine != null) {
+            mergeEngine.merge(newComments);
+            return;
+        }
+        
         // 优化：使用 DiffUtil 只更新变化的部分，避免全量重绘
         // 保持评论实时更新，但减少 UI 重绘开销
         DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
@@ -107,27 +172,14 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         // 优化：优先从 View 池中获取 View，减少 inflate 开销
-        ViewPoolManager viewPoolManager = ViewPoolManager.getInstance();
-        View view = viewPoolManager.getViewFromPool(R.layout.item_comment);
+        // 布局参数由 RecyclerView 转换，不需要手动处理
+        View view = ViewPoolManager.getInstance().getViewFromPool(R.layout.item_comment);
         
         if (view == null) {
             // 如果池中没有，则创建新的 View
-            view = LayoutInflater.from(parent.getContext())
+            // 使用 Application Context：ViewHolder 会回收到共享池中，被之后的直播间复用，不能持有 Activity
+            view = LayoutInflater.from(parent.getContext().getApplicationContext())
                     .inflate(R.layout.item_comment, parent, false);
-        } else {
-            // 从池中获取的 View，需要确保没有旧的父容器引用
-            if (view.getParent() != null) {
-                ((ViewGroup) view.getParent()).removeView(view);
-            }
-            // 重要：重置布局参数，确保宽度正确
-            ViewGroup.LayoutParams params = view.getLayoutParams();
-            if (params == null || !(params instanceof androidx.recyclerview.widget.RecyclerView.LayoutParams)) {
-                params = new androidx.recyclerview.widget.RecyclerView.LayoutParams(
-                    ViewGroup.LayoutParams.MATCH_PARENT,
-                    ViewGroup.LayoutParams.WRAP_CONTENT
-                );
-                view.setLayoutParams(params);
-            }
         }
         
         return new ViewHolder(view);
@@ -137,6 +189,9 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         Comment comment = comments.get(position);
         holder.comment = comment;
+        if (usedHolders.add(holder)) {
+            ViewPoolManager.getInstance().recordDemand(R.layout.item_comment, usedHolders.size());
+        }
         
         // 重置所有状态，确保从ViewPool获取的View不会保留之前的状态
         holder.detailLayout.setVisibility(View.GONE);
@@ -174,18 +229,8 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
         // 确保整个item重新布局
         holder.itemView.requestLayout();
         
-        String avatarUrl = comment.getAvatar();
-        if (avatarUrl != null && !avatarUrl.isEmpty()) {
-            Glide.with(holder.itemView.getContext())
-                    .load(avatarUrl)
-                    .circleCrop()
-                    .placeholder(R.mipmap.ic_launcher)
-                    .error(R.mipmap.ic_launcher)
-                    .fallback(R.mipmap.ic_launcher)
-                    .into(holder.avatarImage);
-        } else {
-            holder.avatarImage.setImageResource(R.mipmap.ic_launcher);
-        }
+        // 头像按控件像素尺寸缓存圆形裁剪结果，重复出现的观众直接同步设置
+        AvatarCache.getInstance().bind(holder.avatarImage, comment.getAvatar(), holder.avatarSizePx);
         
         String fullCommentText = originalCommentText.isEmpty() ? "（无内容）" : originalCommentText;
         holder.detailComment.setText(fullCommentText);
@@ -198,23 +243,19 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
         holder.detailName.setText(name);
         holder.detailName.setVisibility(View.VISIBLE);
         
-        if (avatarUrl != null && !avatarUrl.isEmpty()) {
-            Glide.with(holder.itemView.getContext())
-                    .load(avatarUrl)
-                    .circleCrop()
-                    .placeholder(R.mipmap.ic_launcher)
-                    .error(R.mipmap.ic_launcher)
-                    .fallback(R.mipmap.ic_launcher)
-                    .into(holder.detailAvatar);
-        } else {
-            holder.detailAvatar.setImageResource(R.mipmap.ic_launcher);
-        }
+        // 详情头像只在展开详情时加载，收起状态下不再为每行多发起一次请求
+        AvatarCache.getInstance().reset(holder.detailAvatar);
         holder.detailAvatar.setVisibility(View.VISIBLE);
         
         holder.itemView.setOnClickListener(v -> toggleDetailView(holder));
         holder.detailClose.setOnClickListener(v -> toggleDetailView(holder));
         
-        holder.itemView.setAlpha(isTruncated ? 0.9f : 1.0f);
+        // 被审核标记的评论降低透明度提示
+        if (comment.isFlagged()) {
+            holder.itemView.setAlpha(0.6f);
+        } else {
+            holder.itemView.setAlpha(isTruncated ? 0.9f : 1.0f);
+        }
     }
     
     private void toggleDetailView(ViewHolder holder) {
@@ -223,6 +264,10 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
         } else {
             holder.detailLayout.setVisibility(View.VISIBLE);
             
+            if (holder.comment != null) {
+                AvatarCache.getInstance().bind(holder.detailAvatar, holder.comment.getAvatar(), holder.detailAvatarSizePx);
+            }
+            
             if (holder.detailScroll != null) {
                 holder.detailScroll.post(() -> {
                     holder.detailScroll.scrollTo(0, 0);
@@ -259,6 +304,10 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
         TextView detailComment;
         TextView detailClose;
         android.widget.ScrollView detailScroll;
+        
+        // 头像控件的像素尺寸（布局中为固定 dp 值），作为头像缓存 key 的一部分
+        final int avatarSizePx;
+        final int detailAvatarSizePx;
 
         ViewHolder(View itemView) {
             super(itemView);
@@ -274,6 +323,9 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
             detailClose = itemView.findViewById(R.id.detail_close);
             detailScroll = itemView.findViewById(R.id.detail_scroll);
             
+            avatarSizePx = fixedSizeOf(avatarImage, 32);
+            detailAvatarSizePx = fixedSizeOf(detailAvatar, 40);
+            
             // 设置ScrollView的触摸事件，确保可以正常滚动
             if (detailScroll != null) {
                 detailScroll.setOnTouchListener(new View.OnTouchListener() {
@@ -290,6 +342,14 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.ViewHold
                 detailScroll.setNestedScrollingEnabled(true);
             }
         }
+        
+        private static int fixedSizeOf(View view, int fallbackDp) {
+            ViewGroup.LayoutParams params = view.getLayoutParams();
+            if (params != null && params.width > 0) {
+                return params.width;
+            }
+            return Math.round(fallbackDp * view.getResources().getDisplayMetrics().density);
+        }
     }
 }
 
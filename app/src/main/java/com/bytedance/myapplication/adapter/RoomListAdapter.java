@@ -1,220 +1,356 @@
 package com.bytedance.myapplication.adapter;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
 import com.bytedance.myapplication.R;
 import com.bytedance.myapplication.model.Host;
-import com.bytedance.myapplication.utils.ApiService;
+import com.bytedance.myapplication.repository.RoomDirectory;
 import com.bytedance.myapplication.utils.GlideImageLoadListener;
+import com.bytedance.myapplication.utils.ImageCacheConfig;
+import com.bytedance.myapplication.utils.PerformanceMonitor;
+import com.bytedance.myapplication.utils.RoomPreviewCache;
+import com.bytedance.myapplication.utils.ThumbnailPrefetcher;
 import com.bytedance.myapplication.utils.ViewPoolManager;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 直播间网格列表的 Adapter
+ * - 数据来自分页的 RoomDirectory：未加载的页显示为占位条目，某一页加载或被丢弃时只更新该页的条目
+ * - 使用稳定 ID（房间 ID，占位条目按槽位），不重新绑定整个列表，头像地址不变时也不重复发起图片请求；
+ *   占位条目和直播间之间的切换 ID 会变化，按移除 + 插入通知，不违反稳定 ID 的约定
+ * - 有直播间预览帧时显示预览帧，预览帧更新时只刷新对应条目
+ */
+public class RoomListAdapter extends RecyclerView.Adapter<RoomListAdapter.ViewHolder> {
+    // payload：只更新主播信息（名称、头像）
+    private static final Object PAYLOAD_HOST = new Object();
+    // 首屏条目数量（两列三行），用于页面渲染完成的判断
+    private static final int FIRST_SCREEN_COUNT = 6;
+
+    public interface OnRoomClickListener {
+        void onRoomClick(String roomId, int position);
+    }
+
+    /**
+     * 按下条目（ACTION_DOWN，点击之前）时回调，用于提前准备进入直播间
+     */
+    public interface OnRoomPressListener {
+        void onRoomPressed(String roomId);
+
+        /** 按下被取消（手势变成滑动） */
+        void onRoomPressCancelled(String roomId);
+    }
 
-public class RoomListAdapter extends BaseAdapter {
     private Context context;
-    private List<String> roomIds;
-    private LayoutInflater inflater;
-    private Map<String, Host> roomInfoCache; // 房间信息缓存
+    private final RoomDirectory directory;
     private String pageId; // 页面ID，用于性能监控
     private ViewPoolManager viewPoolManager; // View 池管理器
+    private OnRoomClickListener onRoomClickListener;
+    private OnRoomPressListener onRoomPressListener;
+    private ThumbnailPrefetcher thumbnailPrefetcher;
+    // 本列表绑定过的 ViewHolder，数量报告给 View 池调整预加载数量
+    private final Set<ViewHolder> usedHolders = Collections.newSetFromMap(new WeakHashMap<>());
+    // 已经记录过首屏图片加载的位置
+    private final Set<Integer> reportedFirstScreen = new HashSet<>();
+    // 非数字房间 ID 分配的稳定 ID，从 Long.MIN_VALUE 开始递增，不与数字 ID（非负）和占位 ID（-1 起递减）重叠
+    private final Map<String, Long> internedIds = new HashMap<>();
 
-    public RoomListAdapter(Context context, List<String> roomIds) {
-        this.context = context;
-        this.roomIds = roomIds;
-        this.inflater = LayoutInflater.from(context);
-        this.viewPoolManager = ViewPoolManager.getInstance();
+    private final RoomPreviewCache.Listener previewListener = roomId -> {
+        for (ViewHolder holder : usedHolders) {
+            int position = holder.getBindingAdapterPosition();
+            if (roomId.equals(holder.roomId) && position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position, PAYLOAD_HOST);
+            }
+        }
+    };
+
+    private final RoomDirectory.Listener directoryListener = new RoomDirectory.Listener() {
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            notifyItemRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            // 页加载 / 丢弃时条目在占位和直播间之间切换，稳定 ID 改变，不能按 change 通知
+            notifyItemRangeRemoved(positionStart, itemCount);
+            notifyItemRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            notifyItemRangeRemoved(positionStart, itemCount);
+        }
+    };
+
+    public RoomListAdapter(Context context, RoomDirectory directory) {
+        this(context, directory, null);
     }
-    
-    public RoomListAdapter(Context context, List<String> roomIds, String pageId) {
+
+    public RoomListAdapter(Context context, RoomDirectory directory, String pageId) {
         this.context = context;
-        this.roomIds = roomIds;
-        this.inflater = LayoutInflater.from(context);
+        this.directory = directory;
         this.pageId = pageId;
         this.viewPoolManager = ViewPoolManager.getInstance();
+        setHasStableIds(true);
     }
-    
-    public void updateRoomInfoCache(Map<String, Host> cache) {
-        this.roomInfoCache = cache;
-        notifyDataSetChanged();
+
+    public void setOnRoomClickListener(OnRoomClickListener listener) {
+        this.onRoomClickListener = listener;
+    }
+
+    public void setOnRoomPressListener(OnRoomPressListener listener) {
+        this.onRoomPressListener = listener;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        directory.addListener(directoryListener);
+        RoomPreviewCache.getInstance().addListener(previewListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        directory.removeListener(directoryListener);
+        RoomPreviewCache.getInstance().removeListener(previewListener);
+    }
+
+    /**
+     * 指定位置的房间 ID，占位条目或越界时返回 null
+     */
+    @Nullable
+    public String getRoomId(int position) {
+        return directory.getRoomId(position);
     }
-    
+
     /**
-     * 更新房间 ID 列表
+     * 指定位置房间的头像地址（用于图片预加载），没有时返回 null
      */
-    public void updateRoomIds(List<String> roomIds) {
-        this.roomIds = roomIds;
-        notifyDataSetChanged();
+    @Nullable
+    public String getAvatarUrl(int position) {
+        Host host = directory.getHost(position);
+        String avatar = host != null ? host.getAvatar() : null;
+        return avatar != null && !avatar.isEmpty() ? avatar : null;
     }
 
-    @Override
-    public int getCount() {
-        return roomIds != null ? roomIds.size() : 0;
+    /**
+     * 加载房间头像的请求，列表绑定和图片预取使用相同的参数，预取的结果可以直接命中内存缓存
+     */
+    public RequestBuilder<Drawable> avatarRequest(String avatarUrl) {
+        return avatarRequest(Glide.with(context), avatarUrl);
+    }
+
+    /**
+     * 显式指定 centerCrop（与缩略图控件的 scaleType 一致）：into(ImageView) 不再自动追加变换，
+     * 预取到自定义 Target 的请求与绑定请求的缓存 key 相同
+     * 缩略图不透明，按配置使用 RGB_565 解码，并按目标尺寸向服务端请求缩放后的图片
+     */
+    public static RequestBuilder<Drawable> avatarRequest(RequestManager requestManager, String avatarUrl) {
+        ImageCacheConfig config = ImageCacheConfig.getInstance();
+        RequestBuilder<Drawable> request = requestManager
+                .load(config.avatarModel(avatarUrl))
+                .centerCrop()
+                .placeholder(R.mipmap.ic_launcher)
+                .error(R.mipmap.ic_launcher)
+                .fallback(R.mipmap.ic_launcher);
+        return config.isRgb565Thumbnails() ? request.format(DecodeFormat.PREFER_RGB_565) : request;
+    }
+
+    /**
+     * 设置缩略图预取器，绑定头像时报告给它统计命中
+     */
+    public void setThumbnailPrefetcher(@Nullable ThumbnailPrefetcher prefetcher) {
+        this.thumbnailPrefetcher = prefetcher;
     }
 
     @Override
-    public Object getItem(int position) {
-        return roomIds.get(position);
+    public int getItemCount() {
+        return directory.getItemCount();
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        String roomId = directory.getRoomId(position);
+        if (roomId == null) {
+            // 占位条目：按槽位取负数，前面的页缩小时不变
+            return -(directory.getSlot(position) + 1L);
+        }
+        try {
+            long id = Long.parseLong(roomId);
+            if (id >= 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // 非数字 ID 使用分配的 ID
+        }
+        Long interned = internedIds.get(roomId);
+        if (interned == null) {
+            interned = Long.MIN_VALUE + internedIds.size();
+            internedIds.put(roomId, interned);
+        }
+        return interned;
     }
 
+    @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        ViewHolder holder;
-        boolean isNewView = false;
-        
-        if (convertView == null) {
-            // 优化：优先从 View 池获取 View，减少 inflate 开销
-            convertView = viewPoolManager.getViewFromPool(R.layout.item_room);
-            if (convertView == null) {
-                // 如果池中没有，创建新 View
-                convertView = inflater.inflate(R.layout.item_room, parent, false);
-            } else {
-                // 从池中获取的 View，需要确保布局参数正确
-                // 确保 View 没有旧的父容器引用
-                if (convertView.getParent() != null) {
-                    ((ViewGroup) convertView.getParent()).removeView(convertView);
-                }
-                // 重要：确保布局参数与 GridView 的要求一致
-                // GridView 的 item 应该使用 AbsListView.LayoutParams
-                // item_room.xml 中 CardView 的高度是 200dp，需要转换为像素
-                ViewGroup.LayoutParams params = convertView.getLayoutParams();
-                if (params == null || !(params instanceof android.widget.AbsListView.LayoutParams)) {
-                    // 获取 item 的固定高度（200dp）
-                    float density = context.getResources().getDisplayMetrics().density;
-                    int heightPx = (int) (200 * density);
-                    // 创建 GridView 需要的布局参数，宽度 MATCH_PARENT，高度固定 200dp
-                    android.widget.AbsListView.LayoutParams newParams = new android.widget.AbsListView.LayoutParams(
-                        ViewGroup.LayoutParams.MATCH_PARENT,
-                        heightPx
-                    );
-                    convertView.setLayoutParams(newParams);
-                } else {
-                    // 如果已经有 AbsListView.LayoutParams，确保高度正确
-                    android.widget.AbsListView.LayoutParams absParams = (android.widget.AbsListView.LayoutParams) params;
-                    float density = context.getResources().getDisplayMetrics().density;
-                    int heightPx = (int) (200 * density);
-                    if (absParams.height != heightPx) {
-                        absParams.height = heightPx;
-                        convertView.setLayoutParams(absParams);
-                    }
-                }
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        // 优化：优先从 View 池获取 View，减少 inflate 开销（布局参数由 RecyclerView 转换）
+        View view = viewPoolManager.getViewFromPool(R.layout.item_room);
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_room, parent, false);
+        }
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            String roomId = getRoomId(position);
+            if (roomId != null && onRoomClickListener != null) {
+                onRoomClickListener.onRoomClick(roomId, position);
             }
-            holder = new ViewHolder();
-            holder.thumbnail = convertView.findViewById(R.id.room_thumbnail);
-            holder.name = convertView.findViewById(R.id.room_name);
-            convertView.setTag(holder);
-            isNewView = true;
-        } else {
-            holder = (ViewHolder) convertView.getTag();
-        }
-        
-        // 确保 ImageView 和 TextView 的可见性正确
-        if (holder.thumbnail != null) {
-            holder.thumbnail.setVisibility(View.VISIBLE);
-        }
-        if (holder.name != null) {
-            holder.name.setVisibility(View.VISIBLE);
-        }
-
-        if (roomIds == null || position >= roomIds.size()) {
-            return convertView;
-        }
-        String roomId = roomIds.get(position);
-        holder.roomId = roomId;
-        
-        // 优化：如果是新 View 或从池中获取的 View，需要清理之前的状态
-        // 确保显示正确的数据，避免显示之前的数据
-        // 注意：不要在这里 clear Glide，因为会清除 placeholder，导致图片不显示
-        
-        // 判断是否是首屏可见的item（前6个）
-        boolean isFirstScreenItem = position < 6 && pageId != null;
-        
-        if (roomInfoCache != null && roomInfoCache.containsKey(roomId)) {
-            Host host = roomInfoCache.get(roomId);
-            if (host != null) {
-                holder.name.setText(host.getRoomName());
-                if (host.getAvatar() != null && !host.getAvatar().isEmpty()) {
-                    Glide.with(context)
-                            .load(host.getAvatar())
-                            .placeholder(R.mipmap.ic_launcher)
-                            .error(R.mipmap.ic_launcher)
-                            .fallback(R.mipmap.ic_launcher)
-                            .listener(isFirstScreenItem ? new GlideImageLoadListener(pageId) : null)
-                            .into(holder.thumbnail);
-                } else {
-                    holder.thumbnail.setImageResource(R.mipmap.ic_launcher);
-                    if (isFirstScreenItem) {
-                        // 没有头像URL，直接记录图片加载完成
-                        com.bytedance.myapplication.utils.PerformanceMonitor.recordImageLoadComplete(pageId);
-                    }
-                }
-                return convertView;
+        });
+        // 只观察按下 / 取消事件，不消费（水波纹和点击照常处理）；RecyclerView 拦截滑动时子 View 收到 ACTION_CANCEL
+        view.setOnTouchListener((v, event) -> {
+            int action = event.getActionMasked();
+            if (onRoomPressListener == null
+                    || (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_CANCEL)) {
+                return false;
             }
+            String roomId = getRoomId(holder.getBindingAdapterPosition());
+            if (roomId == null) {
+                return false;
+            }
+            if (action == MotionEvent.ACTION_DOWN) {
+                onRoomPressListener.onRoomPressed(roomId);
+            } else {
+                onRoomPressListener.onRoomPressCancelled(roomId);
+            }
+            return false;
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_HOST)) {
+            bindHost(holder, position);
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        if (usedHolders.add(holder)) {
+            viewPoolManager.recordDemand(R.layout.item_room, usedHolders.size());
         }
-        
-        holder.name.setText("直播间 " + roomId);
-        holder.thumbnail.setImageResource(R.mipmap.ic_launcher);
-        
-        if (roomInfoCache == null || !roomInfoCache.containsKey(roomId)) {
-            ApiService.getHostInfo(roomId, new ApiService.ApiCallback<Host>() {
-                @Override
-                public void onSuccess(Host host) {
-                    if (holder.name != null && roomId.equals(holder.roomId)) {
-                        holder.name.setText(host.getRoomName());
-                        if (host.getAvatar() != null && !host.getAvatar().isEmpty()) {
-                            Glide.with(context)
-                                    .load(host.getAvatar())
-                                    .placeholder(R.mipmap.ic_launcher)
-                                    .error(R.mipmap.ic_launcher)
-                                    .fallback(R.mipmap.ic_launcher)
-                                    .listener(isFirstScreenItem ? new GlideImageLoadListener(pageId) : null)
-                                    .into(holder.thumbnail);
-                        } else {
-                            holder.thumbnail.setImageResource(R.mipmap.ic_launcher);
-                            if (isFirstScreenItem) {
-                                // 没有头像URL，直接记录图片加载完成
-                                com.bytedance.myapplication.utils.PerformanceMonitor.recordImageLoadComplete(pageId);
-                            }
-                        }
-                    }
-                }
-
-                @Override
-                public void onFailure(String error) {
-                    // 加载失败，保持默认显示
-                    if (isFirstScreenItem) {
-                        // 加载失败也视为完成（避免阻塞渲染完成判断）
-                        com.bytedance.myapplication.utils.PerformanceMonitor.recordImageLoadComplete(pageId);
-                    }
-                }
-            });
-        } else {
-            // 如果缓存中没有数据且不在加载中，对于首屏item需要记录完成
-            if (isFirstScreenItem) {
-                com.bytedance.myapplication.utils.PerformanceMonitor.recordImageLoadComplete(pageId);
+        holder.boundAvatarUrl = null;
+        holder.boundPreview = null;
+        bindHost(holder, position);
+    }
+
+    /**
+     * 绑定主播信息：所在页已加载时显示房间名和预览帧（没有时显示头像），否则显示占位内容
+     * 头像地址或预览帧没有变化时不重新设置图片
+     */
+    private void bindHost(ViewHolder holder, int position) {
+        Host host = directory.getHost(position);
+        holder.roomId = host != null ? host.getId() : null;
+        if (host == null) {
+            holder.name.setText("加载中...");
+            // 复用的条目可能还有上一个房间未完成的图片请求
+            Glide.with(context).clear(holder.thumbnail);
+            holder.thumbnail.setImageResource(R.mipmap.ic_launcher);
+            holder.boundAvatarUrl = null;
+            holder.boundPreview = null;
+            return;
+        }
+
+        holder.name.setText(host.getRoomName());
+        Bitmap preview = RoomPreviewCache.getInstance().get(host.getId());
+        if (preview != null) {
+            bindPreview(holder, preview, position);
+            return;
+        }
+        holder.boundPreview = null;
+        String avatar = host.getAvatar();
+        if (avatar == null || avatar.isEmpty()) {
+            Glide.with(context).clear(holder.thumbnail);
+            holder.thumbnail.setImageResource(R.mipmap.ic_launcher);
+            holder.boundAvatarUrl = null;
+            if (shouldReportFirstScreen(position)) {
+                // 没有头像URL，直接记录图片加载完成
+                PerformanceMonitor.recordImageLoadComplete(pageId);
             }
+            return;
+        }
+        if (avatar.equals(holder.boundAvatarUrl)) {
+            return;
+        }
+        holder.boundAvatarUrl = avatar;
+        if (thumbnailPrefetcher != null) {
+            thumbnailPrefetcher.onBind(avatar);
+        }
+        avatarRequest(avatar)
+                .listener(shouldReportFirstScreen(position) ? new GlideImageLoadListener(pageId) : null)
+                .into(holder.thumbnail);
+    }
+
+    private void bindPreview(ViewHolder holder, Bitmap preview, int position) {
+        holder.boundAvatarUrl = null;
+        if (preview == holder.boundPreview) {
+            return;
+        }
+        holder.boundPreview = preview;
+        Glide.with(context).clear(holder.thumbnail);
+        holder.thumbnail.setImageBitmap(preview);
+        if (shouldReportFirstScreen(position)) {
+            PerformanceMonitor.recordImageLoadComplete(pageId);
         }
+    }
 
-        return convertView;
+    /**
+     * 首屏条目的图片加载只记录一次
+     */
+    private boolean shouldReportFirstScreen(int position) {
+        return pageId != null && position < FIRST_SCREEN_COUNT && reportedFirstScreen.add(position);
     }
 
-    static class ViewHolder {
-        ImageView thumbnail;
-        TextView name;
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final ImageView thumbnail;
+        final TextView name;
         String roomId;
+        // 当前已经发起请求的头像地址
+        String boundAvatarUrl;
+        // 当前显示的预览帧
+        Bitmap boundPreview;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            thumbnail = itemView.findViewById(R.id.room_thumbnail);
+            name = itemView.findViewById(R.id.room_name);
+        }
     }
 }
-
-
@@ -1,34 +1,112 @@
 package com.bytedance.myapplication.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 评论
+ * 内部使用紧凑存储：用户信息放在 UserTable 中只记录引用，createdAt 在解析时转换为毫秒时间戳
+ * createdAt 无法解析、或按 ISO 格式重新格式化后与原文不同（秒级时间戳等）时保留原始字符串，getCreatedAt 原样返回
+ * 对外保持原有的 getter / setter，CommentAdapter 等调用方无需修改
+ * JSON 解析由 CommentTypeAdapter 完成（mockapi 字段名不变）
+ */
+@JsonAdapter(CommentTypeAdapter.class)
 public class Comment {
-    private String createdAt;
-    private String name;
-    private String avatar;
-    private String comment;
+    // mockapi 返回的 createdAt 格式，例如 2025-11-20T08:15:30.123Z
+    private static final ThreadLocal<SimpleDateFormat> ISO_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+        }
+    };
+
     private String id;
+    private String comment;
+    private int userRef = UserTable.ANONYMOUS;
+    // 毫秒时间戳，-1 表示未知
+    private long createdAtMillis = -1;
+    // 原始 createdAt，能由 createdAtMillis 无损还原时为 null
+    private String rawCreatedAt;
+    // 审核标记（不参与序列化）
+    private transient boolean flagged;
 
     public String getCreatedAt() {
-        return createdAt;
+        if (rawCreatedAt != null) {
+            return rawCreatedAt;
+        }
+        return createdAtMillis >= 0 ? ISO_FORMAT.get().format(new Date(createdAtMillis)) : null;
     }
 
     public void setCreatedAt(String createdAt) {
-        this.createdAt = createdAt;
+        this.createdAtMillis = parseCreatedAt(createdAt);
+        boolean lossless = createdAtMillis >= 0
+                && ISO_FORMAT.get().format(new Date(createdAtMillis)).equals(createdAt);
+        this.rawCreatedAt = lossless ? null : createdAt;
+    }
+
+    /**
+     * 直接设置原始字符串和毫秒时间戳，不重新解析（回滚日志读回时使用）
+     */
+    public void setCreatedAt(String rawCreatedAt, long createdAtMillis) {
+        this.rawCreatedAt = rawCreatedAt;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    /**
+     * 原始 createdAt 字符串，能由毫秒时间戳无损还原时返回 null
+     */
+    public String getRawCreatedAt() {
+        return rawCreatedAt;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * 设置毫秒时间戳，不改变保留的原始字符串
+     * createdAt 无法解析时，CommentMergeEngine 用它记录排序用的到达时间
+     */
+    public void setCreatedAtMillis(long createdAtMillis) {
+        this.createdAtMillis = createdAtMillis;
     }
 
     public String getName() {
-        return name;
+        return UserTable.getInstance().getName(userRef);
     }
 
     public void setName(String name) {
-        this.name = name;
+        this.userRef = UserTable.getInstance().intern(name, getAvatar());
     }
 
     public String getAvatar() {
-        return avatar;
+        return UserTable.getInstance().getAvatar(userRef);
     }
 
     public void setAvatar(String avatar) {
-        this.avatar = avatar;
+        this.userRef = UserTable.getInstance().intern(getName(), avatar);
+    }
+
+    /**
+     * 同时设置昵称和头像，避免分别设置时登记出中间状态的用户
+     */
+    public void setUser(String name, String avatar) {
+        this.userRef = UserTable.getInstance().intern(name, avatar);
+    }
+
+    public int getUserRef() {
+        return userRef;
+    }
+
+    public void setUserRef(int userRef) {
+        this.userRef = userRef;
     }
 
     public String getComment() {
@@ -46,6 +124,42 @@ public class Comment {
     public void setId(String id) {
         this.id = id;
     }
-}
 
+    public boolean isFlagged() {
+        return flagged;
+    }
+
+    public void setFlagged(boolean flagged) {
+        this.flagged = flagged;
+    }
 
+    /**
+     * 解析评论时间（毫秒）
+     * 支持 ISO-8601 字符串和秒/毫秒时间戳
+     * @return 毫秒时间戳，无法解析时返回 -1
+     */
+    public static long parseCreatedAt(String createdAt) {
+        if (createdAt == null || createdAt.isEmpty()) {
+            return -1;
+        }
+
+        boolean numeric = true;
+        for (int i = 0; i < createdAt.length(); i++) {
+            char c = createdAt.charAt(i);
+            if (c < '0' || c > '9') {
+                numeric = false;
+                break;
+            }
+        }
+        try {
+            if (numeric) {
+                long value = Long.parseLong(createdAt);
+                // 小于 1e12 视为秒级时间戳
+                return value < 1_000_000_000_000L ? value * 1000 : value;
+            }
+            return ISO_FORMAT.get().parse(createdAt).getTime();
+        } catch (NumberFormatException | ParseException e) {
+            return -1;
+        }
+    }
+}
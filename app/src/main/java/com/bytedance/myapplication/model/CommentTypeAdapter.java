@@ -0,0 +1,74 @@
+package com.bytedance.myapplication.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Comment 的 JSON 读写
+ * 读取时直接把 name / avatar 登记到 UserTable、把 createdAt 转换为毫秒，
+ * 不在评论对象上保留这些字符串
+ */
+public class CommentTypeAdapter extends TypeAdapter<Comment> {
+
+    @Override
+    public void write(JsonWriter out, Comment comment) throws IOException {
+        if (comment == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(comment.getId());
+        out.name("createdAt").value(comment.getCreatedAt());
+        out.name("name").value(comment.getName());
+        out.name("avatar").value(comment.getAvatar());
+        out.name("comment").value(comment.getComment());
+        out.endObject();
+    }
+
+    @Override
+    public Comment read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Comment comment = new Comment();
+        String name = null;
+        String avatar = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    comment.setId(in.nextString());
+                    break;
+                case "createdAt":
+                    comment.setCreatedAt(in.nextString());
+                    break;
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "avatar":
+                    avatar = in.nextString();
+                    break;
+                case "comment":
+                    comment.setComment(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        comment.setUser(name, avatar);
+        return comment;
+    }
+}
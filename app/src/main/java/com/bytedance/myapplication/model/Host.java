@@ -7,6 +7,10 @@ public class Host {
     private String roomName;
     private int followerNum;
     private String id;
+    // 直播流信息（接口可能不下发，缺省时使用默认流）
+    private String streamUrl;
+    // 直播间关键帧截图地址（定期刷新，接口可能不下发）
+    private String snapshotUrl;
 
     public String getCreatedAt() {
         return createdAt;
@@ -55,6 +59,20 @@ public class Host {
     public void setId(String id) {
         this.id = id;
     }
-}
 
+    public String getStreamUrl() {
+        return streamUrl;
+    }
+
+    public void setStreamUrl(String streamUrl) {
+        this.streamUrl = streamUrl;
+    }
+
+    public String getSnapshotUrl() {
+        return snapshotUrl;
+    }
 
+    public void setSnapshotUrl(String snapshotUrl) {
+        this.snapshotUrl = snapshotUrl;
+    }
+}
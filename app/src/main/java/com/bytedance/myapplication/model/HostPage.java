@@ -0,0 +1,30 @@
+package com.bytedance.myapplication.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 直播间目录的一页
+ * nextCursor 为下一页的游标，没有更多数据时为 null
+ */
+public class HostPage {
+    private final List<Host> hosts;
+    private final String nextCursor;
+
+    public HostPage(List<Host> hosts, String nextCursor) {
+        this.hosts = hosts != null ? hosts : new ArrayList<>();
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Host> getHosts() {
+        return hosts;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.bytedance.myapplication.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * 评论用户身份表（享元）
+ * 同一观众的昵称和头像 URL 只保存一份，评论中只记录一个 int 引用
+ * - 查找按 昵称 → 头像 → 引用 两级索引，登记时不拼接新的字符串 key
+ * - 读取不加锁：昵称和头像数组扩容时复制一份新数组，写入后通过 volatile 字段发布
+ * - 直播间引用过的用户通过 retain 登记，直播间的回滚日志回收时调用 releaseRoom，
+ *   不再被任何直播间引用的用户被移除，引用编号留给之后登记的用户复用
+ *   （从未被直播间登记过的用户不会被移除）
+ * 注意：intern 在解析线程调用，读取在主线程调用；写入方法做了同步，读取方法不加锁
+ */
+public final class UserTable {
+    // 0 号条目固定为匿名用户（昵称和头像都为空）
+    public static final int ANONYMOUS = 0;
+
+    private static UserTable instance;
+
+    /**
+     * 读取使用的数组，扩容时整体替换
+     */
+    private static final class Slots {
+        final String[] names;
+        final String[] avatars;
+
+        Slots(String[] names, String[] avatars) {
+            this.names = names;
+            this.avatars = avatars;
+        }
+    }
+
+    // 以下字段只在持有锁时访问
+    private final HashMap<String, HashMap<String, Integer>> lookup = new HashMap<>();
+    private final HashMap<String, BitSet> roomRefs = new HashMap<>();
+    // 每个用户被多少个直播间引用
+    private int[] roomCounts = new int[64];
+    // 被移除的引用编号（栈）
+    private int[] freeRefs = new int[16];
+    private int freeCount = 0;
+    private int size = 1;
+
+    // 写入后重新赋值发布，读取方法先读这个字段
+    private volatile Slots slots = new Slots(new String[64], new String[64]);
+
+    private UserTable() {
+    }
+
+    public static synchronized UserTable getInstance() {
+        if (instance == null) {
+            instance = new UserTable();
+        }
+        return instance;
+    }
+
+    /**
+     * 查找或登记用户，返回用户引用
+     * 昵称和头像都相同才视为同一用户（mockapi 的评论没有用户 ID）
+     */
+    public synchronized int intern(String name, String avatar) {
+        if (name == null && avatar == null) {
+            return ANONYMOUS;
+        }
+        HashMap<String, Integer> byAvatar = lookup.get(name);
+        if (byAvatar == null) {
+            byAvatar = new HashMap<>(2);
+            lookup.put(name, byAvatar);
+        }
+        Integer existing = byAvatar.get(avatar);
+        if (existing != null) {
+            return existing;
+        }
+
+        Slots current = slots;
+        int ref;
+        if (freeCount > 0) {
+            ref = freeRefs[--freeCount];
+        } else {
+            ref = size++;
+            if (ref == current.names.length) {
+                int capacity = ref * 2;
+                current = new Slots(Arrays.copyOf(current.names, capacity), Arrays.copyOf(current.avatars, capacity));
+                roomCounts = Arrays.copyOf(roomCounts, capacity);
+            }
+        }
+        current.names[ref] = name;
+        current.avatars[ref] = avatar;
+        roomCounts[ref] = 0;
+        byAvatar.put(avatar, ref);
+        // volatile 写：之后读到该字段的线程都能看到上面写入的条目
+        slots = current;
+        return ref;
+    }
+
+    public String getName(int ref) {
+        Slots current = slots;
+        return ref > 0 && ref < current.names.length ? current.names[ref] : null;
+    }
+
+    public String getAvatar(int ref) {
+        Slots current = slots;
+        return ref > 0 && ref < current.avatars.length ? current.avatars[ref] : null;
+    }
+
+    /**
+     * 登记直播间引用了该用户（重复登记无影响）
+     */
+    public synchronized void retain(String roomId, int ref) {
+        if (roomId == null || ref <= 0 || ref >= size) {
+            return;
+        }
+        BitSet refs = roomRefs.get(roomId);
+        if (refs == null) {
+            refs = new BitSet();
+            roomRefs.put(roomId, refs);
+        }
+        if (!refs.get(ref)) {
+            refs.set(ref);
+            roomCounts[ref]++;
+        }
+    }
+
+    /**
+     * 释放直播间登记的引用，不再被任何直播间引用的用户被移除
+     * 与该直播间的回滚日志一起回收：之后不应再显示该直播间保留的评论
+     * @return 移除的用户数
+     */
+    public synchronized int releaseRoom(String roomId) {
+        BitSet refs = roomId != null ? roomRefs.remove(roomId) : null;
+        if (refs == null) {
+            return 0;
+        }
+        Slots current = slots;
+        int removed = 0;
+        for (int ref = refs.nextSetBit(0); ref >= 0; ref = refs.nextSetBit(ref + 1)) {
+            if (--roomCounts[ref] > 0) {
+                continue;
+            }
+            HashMap<String, Integer> byAvatar = lookup.get(current.names[ref]);
+            if (byAvatar != null) {
+                byAvatar.remove(current.avatars[ref]);
+                if (byAvatar.isEmpty()) {
+                    lookup.remove(current.names[ref]);
+                }
+            }
+            current.names[ref] = null;
+            current.avatars[ref] = null;
+            if (freeCount == freeRefs.length) {
+                freeRefs = Arrays.copyOf(freeRefs, freeCount * 2);
+            }
+            freeRefs[freeCount++] = ref;
+            removed++;
+        }
+        slots = current;
+        return removed;
+    }
+
+    /**
+     * 已登记的用户数（不含匿名用户）
+     */
+    public synchronized int size() {
+        return size - 1 - freeCount;
+    }
+}
@@ -0,0 +1,484 @@
+package com.bytedance.myapplication.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.bytedance.myapplication.model.Host;
+import com.bytedance.myapplication.model.HostPage;
+import com.bytedance.myapplication.utils.ApiService;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分页的直播间目录
+ * - 按游标逐页请求，视口距离已加载末尾不足 PREFETCH_DISTANCE 时请求下一页
+ * - 只保留视口附近最多 MAX_LOADED_PAGES 页数据，离视口最远的页被丢弃，对应位置变成占位条目（条目数不变）
+ * - 占位条目重新进入预取范围时用该页的游标重新请求
+ * - 每页的条目数等于实际返回的有效主播数（接口过滤掉的无效条目不占位置），页的起始位置随之累加
+ * - 游标是页码（偏移分页），服务端列表变化时同一直播间可能出现在相邻的两页：
+ *   追加和重新加载时丢弃窗口内其他页已有的直播间（也不占位置）。
+ *   只能对照已加载的页去重，已被丢弃的页中的直播间重新出现时无法识别；列表变化导致被跳过的直播间也无法补回
+ * 列表、房间信息和流预缓冲都只使用窗口内的数据，滚动多远内存和请求量都保持不变
+ * 注意：需要在主线程调用（ApiService 的回调在主线程）
+ */
+public class RoomDirectory {
+    private static final String TAG = "RoomDirectory";
+    private static RoomDirectory instance;
+
+    public static final int PAGE_SIZE = 20;
+    // 视口前后多少个条目内的页需要加载
+    public static final int PREFETCH_DISTANCE = 10;
+    // 同时保留数据的页数上限
+    public static final int MAX_LOADED_PAGES = 5;
+
+    /**
+     * 条目变化的监听（主线程回调）
+     */
+    public interface Listener {
+        /** 新的一页追加到末尾 */
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        /** 一页数据被重新加载或被丢弃变成占位条目 */
+        void onItemRangeChanged(int positionStart, int itemCount);
+
+        /** 重新加载的页条数变少，多出的条目被移除 */
+        void onItemRangeRemoved(int positionStart, int itemCount);
+    }
+
+    private enum PageState {
+        NOT_LOADED,
+        LOADING,
+        LOADED
+    }
+
+    private static class Page {
+        final int index;
+        final String cursor;
+        // 第一个条目的位置
+        int start;
+        // 条目数，丢弃数据后保持不变，保证后面条目的位置稳定；只在重新加载返回更少条目时缩小
+        int size;
+        PageState state = PageState.NOT_LOADED;
+        List<Host> hosts;
+
+        Page(int index, String cursor, int start, int size) {
+            this.index = index;
+            this.cursor = cursor;
+            this.start = start;
+            this.size = size;
+        }
+    }
+
+    private final List<Page> pages = new ArrayList<>();
+    // 已加载页中的直播间 → 所在页，用于跨页去重
+    private final Map<String, Page> loadedRooms = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final List<Runnable> firstPageCallbacks = new ArrayList<>();
+    // 下一页的游标，没有更多数据时为 null
+    private String nextCursor = null;
+    private boolean hasMore = true;
+    private boolean appending = false;
+    // reset 后丢弃之前发出的请求结果
+    private int generation = 0;
+    private int viewportFirst = 0;
+    private int viewportLast = 0;
+    private int requestCount = 0;
+    private int droppedPageCount = 0;
+
+    private RoomDirectory() {
+    }
+
+    public static synchronized RoomDirectory getInstance() {
+        if (instance == null) {
+            instance = new RoomDirectory();
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 加载第一页，已加载时直接回调
+     * @param onDone 第一页加载完成或失败后回调，可以为 null
+     */
+    public void loadFirstPage(@Nullable Runnable onDone) {
+        if (!pages.isEmpty() && pages.get(0).state == PageState.LOADED) {
+            if (onDone != null) {
+                onDone.run();
+            }
+            return;
+        }
+        if (onDone != null) {
+            firstPageCallbacks.add(onDone);
+        }
+        if (pages.isEmpty()) {
+            appendNextPage();
+        } else {
+            loadPage(pages.get(0));
+        }
+    }
+
+    /**
+     * 可见范围变化时调用：加载预取范围内缺少的页、必要时追加下一页，并丢弃窗口外的页
+     */
+    public void onViewportChanged(int firstVisible, int lastVisible) {
+        if (firstVisible < 0 || lastVisible < firstVisible) {
+            return;
+        }
+        viewportFirst = firstVisible;
+        viewportLast = lastVisible;
+        int from = Math.max(0, firstVisible - PREFETCH_DISTANCE);
+        int to = lastVisible + PREFETCH_DISTANCE;
+        for (int index = pageIndexOf(from); index < pages.size() && index <= pageIndexOf(to); index++) {
+            loadPage(pages.get(index));
+        }
+        if (to >= getItemCount()) {
+            appendNextPage();
+        }
+    }
+
+    public int getItemCount() {
+        if (pages.isEmpty()) {
+            return 0;
+        }
+        Page last = pages.get(pages.size() - 1);
+        return last.start + last.size;
+    }
+
+    /**
+     * 指定位置的主播信息，所在页未加载（占位条目）或越界时返回 null
+     */
+    @Nullable
+    public Host getHost(int position) {
+        if (position < 0) {
+            return null;
+        }
+        int index = pageIndexOf(position);
+        if (index >= pages.size()) {
+            return null;
+        }
+        Page page = pages.get(index);
+        int offset = position - page.start;
+        if (page.hosts == null || offset >= page.hosts.size()) {
+            return null;
+        }
+        return page.hosts.get(offset);
+    }
+
+    /**
+     * 指定位置的房间 ID，占位条目或越界时返回 null
+     */
+    @Nullable
+    public String getRoomId(int position) {
+        Host host = getHost(position);
+        return host != null ? host.getId() : null;
+    }
+
+    /**
+     * 条目所在的槽位（页下标 * PAGE_SIZE + 页内偏移），越界时返回 -1
+     * 前面的页缩小时条目的位置会前移，槽位不变，可以作为占位条目的稳定 ID
+     */
+    public long getSlot(int position) {
+        if (position < 0) {
+            return -1;
+        }
+        int index = pageIndexOf(position);
+        if (index >= pages.size()) {
+            return -1;
+        }
+        return (long) index * PAGE_SIZE + (position - pages.get(index).start);
+    }
+
+    /**
+     * 按位置访问房间 ID 的只读列表（不复制数据），占位条目为 null
+     */
+    public List<String> roomIdList() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getRoomId(index);
+            }
+
+            @Override
+            public int size() {
+                return getItemCount();
+            }
+        };
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int getLoadedPageCount() {
+        int count = 0;
+        for (Page page : pages) {
+            if (page.state == PageState.LOADED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 目录统计，例如 "条目=120, 已加载页=5/6, 请求=8, 丢弃=1, 还有更多"
+     */
+    public String describe() {
+        return "条目=" + getItemCount()
+                + ", 已加载页=" + getLoadedPageCount() + "/" + pages.size()
+                + ", 请求=" + requestCount
+                + ", 丢弃=" + droppedPageCount
+                + (hasMore ? ", 还有更多" : ", 已到末尾");
+    }
+
+    /**
+     * 清空目录，下次从第一页重新加载
+     */
+    public void reset() {
+        generation++;
+        pages.clear();
+        loadedRooms.clear();
+        firstPageCallbacks.clear();
+        nextCursor = null;
+        hasMore = true;
+        appending = false;
+        viewportFirst = 0;
+        viewportLast = 0;
+    }
+
+    /**
+     * 位置所在页的下标（按起始位置二分查找），超出末尾时返回 pages.size()
+     */
+    private int pageIndexOf(int position) {
+        int low = 0;
+        int high = pages.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Page page = pages.get(mid);
+            if (position < page.start) {
+                high = mid - 1;
+            } else if (position >= page.start + page.size) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 请求下一页并追加到末尾（同一时间只有一个追加请求）
+     */
+    private void appendNextPage() {
+        if (!hasMore || appending) {
+            return;
+        }
+        appending = true;
+        final int requestGeneration = generation;
+        final String cursor = nextCursor;
+        requestCount++;
+        ApiService.getHostPage(cursor, PAGE_SIZE, new ApiService.ApiCallback<HostPage>() {
+            @Override
+            public void onSuccess(HostPage hostPage) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                appending = false;
+                nextCursor = hostPage.getNextCursor();
+                hasMore = hostPage.hasMore();
+                Page page = new Page(pages.size(), cursor, getItemCount(), 0);
+                // 页的条数按实际有效条目计算，被过滤掉的无效条目和重复的直播间不留占位
+                List<Host> hosts = takeNewRooms(page, hostPage.getHosts(), PAGE_SIZE);
+                if (!hosts.isEmpty()) {
+                    page.size = hosts.size();
+                    page.hosts = hosts;
+                    page.state = PageState.LOADED;
+                    pages.add(page);
+                    for (Listener listener : new ArrayList<>(listeners)) {
+                        listener.onItemRangeInserted(page.start, page.size);
+                    }
+                    trimWindow();
+                } else if (hasMore && !hostPage.getHosts().isEmpty()) {
+                    // 整页都是已加载的直播间：继续请求下一页，避免停在列表末尾
+                    appendNextPage();
+                }
+                runFirstPageCallbacks();
+            }
+
+            @Override
+            public void onFailure(String error) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                appending = false;
+                Log.w(TAG, "加载直播间目录失败: cursor=" + cursor + ", " + error);
+                runFirstPageCallbacks();
+            }
+        });
+    }
+
+    /**
+     * 重新加载被丢弃的页（用第一次加载时的游标）
+     * 服务端数据变化导致条数变多时按原条数截断；变少（包括丢弃了其他页已有的直播间）时
+     * 缩小该页并移除多出的条目，后面的页整体前移
+     */
+    private void loadPage(Page page) {
+        if (page.state != PageState.NOT_LOADED) {
+            return;
+        }
+        page.state = PageState.LOADING;
+        final int requestGeneration = generation;
+        requestCount++;
+        ApiService.getHostPage(page.cursor, PAGE_SIZE, new ApiService.ApiCallback<HostPage>() {
+            @Override
+            public void onSuccess(HostPage hostPage) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                page.hosts = takeNewRooms(page, hostPage.getHosts(), page.size);
+                page.state = PageState.LOADED;
+                shrinkPage(page, page.hosts.size());
+                notifyPageChanged(page);
+                trimWindow();
+                if (page.index == 0) {
+                    runFirstPageCallbacks();
+                }
+            }
+
+            @Override
+            public void onFailure(String error) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                // 保持占位，下次进入预取范围时重试
+                page.state = PageState.NOT_LOADED;
+                Log.w(TAG, "重新加载直播间目录失败: page=" + page.index + ", " + error);
+                if (page.index == 0) {
+                    runFirstPageCallbacks();
+                }
+            }
+        });
+    }
+
+    /**
+     * 已加载的页超过上限时，丢弃离视口最远的页（预取范围内的页不丢弃）
+     */
+    private void trimWindow() {
+        int protectFrom = pageIndexOf(Math.max(0, viewportFirst - PREFETCH_DISTANCE));
+        int protectTo = pageIndexOf(viewportLast + PREFETCH_DISTANCE);
+        int center = pageIndexOf((viewportFirst + viewportLast) / 2);
+        while (getLoadedPageCount() > MAX_LOADED_PAGES) {
+            Page farthest = null;
+            for (Page page : pages) {
+                if (page.state != PageState.LOADED || (page.index >= protectFrom && page.index <= protectTo)) {
+                    continue;
+                }
+                if (farthest == null || Math.abs(page.index - center) > Math.abs(farthest.index - center)) {
+                    farthest = page;
+                }
+            }
+            if (farthest == null) {
+                return;
+            }
+            releaseRooms(farthest);
+            farthest.hosts = null;
+            farthest.state = PageState.NOT_LOADED;
+            droppedPageCount++;
+            notifyPageChanged(farthest);
+        }
+    }
+
+    /**
+     * 取出不超过 limit 个窗口内其他页没有的直播间，并登记到该页
+     */
+    private List<Host> takeNewRooms(Page page, List<Host> hosts, int limit) {
+        List<Host> result = new ArrayList<>(Math.min(hosts.size(), limit));
+        for (Host host : hosts) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Page owner = loadedRooms.get(host.getId());
+            if (owner != null && owner != page) {
+                continue;
+            }
+            if (owner == page && containsRoom(result, host.getId())) {
+                // 同一页内重复
+                continue;
+            }
+            loadedRooms.put(host.getId(), page);
+            result.add(host);
+        }
+        return result;
+    }
+
+    private static boolean containsRoom(List<Host> hosts, String roomId) {
+        for (Host host : hosts) {
+            if (roomId.equals(host.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 页的数据被丢弃时注销其中的直播间
+     */
+    private void releaseRooms(Page page) {
+        if (page.hosts == null) {
+            return;
+        }
+        for (Host host : page.hosts) {
+            if (loadedRooms.get(host.getId()) == page) {
+                loadedRooms.remove(host.getId());
+            }
+        }
+    }
+
+    /**
+     * 把页缩小到指定条数，后面的页前移，并通知移除多出的条目
+     */
+    private void shrinkPage(Page page, int size) {
+        int removed = page.size - size;
+        if (removed <= 0) {
+            return;
+        }
+        page.size = size;
+        for (int index = page.index + 1; index < pages.size(); index++) {
+            pages.get(index).start -= removed;
+        }
+        int removedStart = page.start + size;
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onItemRangeRemoved(removedStart, removed);
+        }
+    }
+
+    private void notifyPageChanged(Page page) {
+        if (page.size == 0) {
+            return;
+        }
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onItemRangeChanged(page.start, page.size);
+        }
+    }
+
+    private void runFirstPageCallbacks() {
+        List<Runnable> callbacks = new ArrayList<>(firstPageCallbacks);
+        firstPageCallbacks.clear();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+}
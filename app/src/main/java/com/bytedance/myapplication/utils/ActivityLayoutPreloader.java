@@ -1,160 +1,402 @@
 package com.bytedance.myapplication.utils;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.MutableContextWrapper;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.ContextThemeWrapper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Activity 布局预渲染管理器
  * 用于提前渲染 Activity 布局，减少首次打开时的渲染时间
+ * - 布局用 MutableContextWrapper inflate（主题与 Application 的主题一致），使用时把 Context 切换到 Activity，
+ *   布局中的 View 拿到的是真正的 Activity
+ * - inflate 和 measure 在后台线程执行；布局中不放 WebView（WebView 在 Activity 之外创建会绕过 WebViewPool
+ *   的上限和内存预算），视频区域是占位 View，由页面从 WebViewPool 取得 WebView 后替换
+ * - 布局中有不能在后台线程创建的 View 时（inflate 抛出异常），该布局之后改为在主线程 inflate
+ * - 按屏幕尺寸预先 measure / layout
+ * - 每个布局保留 COPIES_PER_LAYOUT 份，连续切换直播间时每次都能命中
+ * - 统计每次 setContentView 的耗时和节省的时间
+ * - 页面销毁时调用 onActivityDestroyed，把 Context 切换回 Application，避免布局引用已销毁的 Activity
+ * 注意：除 init 外的方法都需要在主线程调用
  */
 public class ActivityLayoutPreloader {
     private static final String TAG = "ActivityLayoutPreloader";
     private static ActivityLayoutPreloader instance;
-    
+
+    // 每个布局保留的预渲染份数
+    private static final int COPIES_PER_LAYOUT = 2;
+
     // 预渲染的布局缓存：key 为 layoutId，value 为预渲染的 View
-    private Map<Integer, View> preloadedLayouts = new HashMap<>();
-    
+    private final Map<Integer, Deque<PreloadedLayout>> preloadedLayouts = new HashMap<>();
+
+    // 单个预渲染布局的估算内存（整页布局的 View 树，不包含 WebView）
+    private static final long ESTIMATED_LAYOUT_BYTES = 256 * 1024;
+
+    // 已注册的布局
+    private final Set<Integer> registeredLayouts = new LinkedHashSet<>();
+    // 正在预渲染的份数
+    private final Map<Integer, Integer> inFlight = new HashMap<>();
+    // 不能在后台线程 inflate 的布局
+    private final Set<Integer> mainThreadOnlyLayouts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // 每个布局的 setContentView 统计
+    private final Map<Integer, ContentViewStats> contentViewStats = new HashMap<>();
+    // 正在被 Activity 使用的预渲染布局（销毁时把 Context 切换回去）
+    private final Map<Activity, PreloadedLayout> attachedLayouts = new WeakHashMap<>();
+
     private Context applicationContext;
     private Handler mainHandler;
-    
+    private Handler inflateHandler;
+
+    /**
+     * 一份预渲染的布局：根 View、它使用的可切换 Context 和切换前的基础 Context
+     */
+    private static class PreloadedLayout {
+        final View view;
+        final MutableContextWrapper context;
+        final Context baseContext;
+        final long inflateNanos;
+
+        PreloadedLayout(View view, MutableContextWrapper context, Context baseContext, long inflateNanos) {
+            this.view = view;
+            this.context = context;
+            this.baseContext = baseContext;
+            this.inflateNanos = inflateNanos;
+        }
+    }
+
+    private static class ContentViewStats {
+        int hits;
+        int misses;
+        long hitNanos;
+        long missNanos;
+        // 预渲染时的 inflate + measure 耗时，没有未命中样本时作为正常加载耗时的估计
+        long preloadNanos;
+        int preloadCount;
+    }
+
     private ActivityLayoutPreloader() {
         mainHandler = new Handler(Looper.getMainLooper());
     }
-    
+
     public static synchronized ActivityLayoutPreloader getInstance() {
         if (instance == null) {
             instance = new ActivityLayoutPreloader();
         }
         return instance;
     }
-    
+
+    // 登记到内存预算的占用
+    private final MemoryBudget.Holder budgetHolder = new MemoryBudget.Holder() {
+        @Override
+        public String getName() {
+            return "预渲染布局";
+        }
+
+        @Override
+        public long getSpeculativeBytes() {
+            return getPreloadedCount() * ESTIMATED_LAYOUT_BYTES;
+        }
+
+        @Override
+        public long getRequiredBytes() {
+            return 0;
+        }
+
+        @Override
+        public long releaseSpeculative(long bytes) {
+            long freed = getSpeculativeBytes();
+            clearAll();
+            return freed;
+        }
+    };
+
     /**
      * 初始化布局预渲染管理器
      * @param context Application 上下文
      */
     public void init(Context context) {
         this.applicationContext = context.getApplicationContext();
+        MemoryBudget.getInstance().register(budgetHolder, MemoryBudget.PRIORITY_LAYOUT);
     }
-    
+
     /**
-     * 预渲染指定布局
+     * 预渲染指定布局，补足到 COPIES_PER_LAYOUT 份
      * @param layoutId 布局资源 ID
-     * @param parent 父容器（可以为 null）
+     * @param parent 父容器（可以为 null，只用于生成布局参数）
      */
     public void preloadLayout(int layoutId, ViewGroup parent) {
         if (applicationContext == null) {
             return;
         }
-        
-        // 如果已经预渲染过，跳过
-        if (preloadedLayouts.containsKey(layoutId)) {
-            return;
+
+        int needed = COPIES_PER_LAYOUT - getPreloadedCount(layoutId) - getInFlight(layoutId);
+        for (int i = 0; i < needed; i++) {
+            // 内存预算不足时不预渲染，打开页面时正常 inflate
+            if (!MemoryBudget.getInstance().hasRoomFor(ESTIMATED_LAYOUT_BYTES, MemoryBudget.PRIORITY_LAYOUT)) {
+                return;
+            }
+            inFlight.put(layoutId, getInFlight(layoutId) + 1);
+            if (mainThreadOnlyLayouts.contains(layoutId)) {
+                mainHandler.post(() -> onInflated(layoutId, inflateCopy(layoutId, parent, false)));
+            } else {
+                getInflateHandler().post(() -> {
+                    PreloadedLayout layout = inflateCopy(layoutId, parent, true);
+                    mainHandler.post(() -> onInflated(layoutId, layout));
+                });
+            }
         }
-        
-        // 在主线程预渲染（inflate 必须在主线程执行）
-        mainHandler.post(() -> {
-            try {
-                LayoutInflater inflater = LayoutInflater.from(applicationContext);
-                View view = inflater.inflate(layoutId, parent, false);
-                
-                // 执行一次 measure 和 layout，触发预渲染
-                if (parent != null) {
-                    int widthMeasureSpec = View.MeasureSpec.makeMeasureSpec(
-                            parent.getWidth(), View.MeasureSpec.EXACTLY);
-                    int heightMeasureSpec = View.MeasureSpec.makeMeasureSpec(
-                            parent.getHeight(), View.MeasureSpec.EXACTLY);
-                    view.measure(widthMeasureSpec, heightMeasureSpec);
-                    view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
-                }
-                
-                preloadedLayouts.put(layoutId, view);
-            } catch (Exception e) {
+    }
+
+    /**
+     * inflate 一份布局并按屏幕尺寸 measure / layout
+     * @return 失败时返回 null
+     */
+    @Nullable
+    private PreloadedLayout inflateCopy(int layoutId, ViewGroup parent, boolean background) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        // 使用 Application 的主题，与 Activity 的主题一致
+        Context themed = new ContextThemeWrapper(applicationContext, applicationContext.getApplicationInfo().theme);
+        MutableContextWrapper context = new MutableContextWrapper(themed);
+        LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
+        try {
+            View view = inflater.inflate(layoutId, parent, false);
+            measureForScreen(view);
+            return new PreloadedLayout(view, context, themed, SystemClock.elapsedRealtimeNanos() - start);
+        } catch (Exception e) {
+            if (background) {
+                Log.w(TAG, "后台预渲染失败，改为在主线程预渲染: layoutId=" + layoutId, e);
+                mainThreadOnlyLayouts.add(layoutId);
+            } else {
                 Log.e(TAG, "布局预渲染失败: layoutId=" + layoutId, e);
             }
-        });
+            return null;
+        }
     }
-    
+
     /**
-     * 获取预渲染的布局（如果存在）
-     * @param layoutId 布局资源 ID
-     * @return 预渲染的 View，如果不存在则返回 null
-     * 注意：使用后会从缓存中移除
+     * 按屏幕尺寸执行一次 measure 和 layout，触发预渲染
      */
-    public View getPreloadedLayout(int layoutId) {
-        View view = preloadedLayouts.get(layoutId);
-        if (view != null) {
-            // 从缓存中移除（因为 View 只能有一个父容器）
-            preloadedLayouts.remove(layoutId);
-        }
-        return view;
+    private void measureForScreen(View view) {
+        DisplayMetrics metrics = applicationContext.getResources().getDisplayMetrics();
+        int widthMeasureSpec = View.MeasureSpec.makeMeasureSpec(metrics.widthPixels, View.MeasureSpec.EXACTLY);
+        int heightMeasureSpec = View.MeasureSpec.makeMeasureSpec(metrics.heightPixels, View.MeasureSpec.EXACTLY);
+        view.measure(widthMeasureSpec, heightMeasureSpec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
     }
-    
+
     /**
-     * 获取预渲染的布局并自动重新预加载（用于频繁使用的布局，如直播间）
-     * @param layoutId 布局资源 ID
-     * @return 预渲染的 View，如果不存在则返回 null
+     * 预渲染完成（主线程）：放入缓存
      */
-    public View getPreloadedLayoutAndReload(int layoutId) {
-        View view = preloadedLayouts.get(layoutId);
-        if (view != null) {
-            // 从缓存中移除（因为 View 只能有一个父容器）
-            preloadedLayouts.remove(layoutId);
-            // 优化：立即重新预加载，为下次使用做准备（不延迟，尽快预加载）
-            mainHandler.post(() -> {
+    private void onInflated(int layoutId, @Nullable PreloadedLayout layout) {
+        inFlight.put(layoutId, Math.max(0, getInFlight(layoutId) - 1));
+        if (layout == null) {
+            if (mainThreadOnlyLayouts.contains(layoutId)) {
+                // 后台失败，在主线程重试
                 preloadLayout(layoutId, null);
-            });
+            }
+            return;
+        }
+        Deque<PreloadedLayout> copies = preloadedLayouts.get(layoutId);
+        if (copies == null) {
+            copies = new ArrayDeque<>();
+            preloadedLayouts.put(layoutId, copies);
         }
-        return view;
+        copies.offer(layout);
+        ContentViewStats stats = getContentViewStats(layoutId);
+        stats.preloadNanos += layout.inflateNanos;
+        stats.preloadCount++;
+        MemoryBudget.getInstance().requestCheck();
     }
-    
+
+    /**
+     * 设置 Activity 的内容：有预渲染的布局时直接使用（Context 切换到该 Activity），否则正常 inflate
+     * 使用后自动补充预渲染，并记录本次 setContentView 的耗时和节省的时间
+     */
+    public void setContentView(Activity activity, int layoutId) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        PreloadedLayout layout = takePreloadedLayout(layoutId);
+        if (layout != null) {
+            layout.context.setBaseContext(activity);
+            attachedLayouts.put(activity, layout);
+            activity.setContentView(layout.view);
+        } else {
+            activity.setContentView(layoutId);
+        }
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+
+        ContentViewStats stats = getContentViewStats(layoutId);
+        if (layout != null) {
+            stats.hits++;
+            stats.hitNanos += elapsed;
+            Log.d(TAG, String.format(Locale.US, "使用预渲染布局: setContentView %.1fms, 节省约 %.1fms",
+                    elapsed / 1e6, (baselineNanos(stats) - elapsed) / 1e6));
+        } else {
+            stats.misses++;
+            stats.missNanos += elapsed;
+            Log.d(TAG, String.format(Locale.US, "没有预渲染布局: setContentView %.1fms", elapsed / 1e6));
+        }
+
+        // 为下次打开补充预渲染（不延迟，尽快预加载）
+        mainHandler.post(() -> preloadLayout(layoutId, null));
+    }
+
+    /**
+     * 页面销毁时调用：预渲染布局的 Context 切换回 Application，仍被引用的 View 不再持有已销毁的 Activity
+     */
+    public void onActivityDestroyed(Activity activity) {
+        PreloadedLayout layout = attachedLayouts.remove(activity);
+        if (layout != null) {
+            layout.context.setBaseContext(layout.baseContext);
+        }
+    }
+
+    @Nullable
+    private PreloadedLayout takePreloadedLayout(int layoutId) {
+        Deque<PreloadedLayout> copies = preloadedLayouts.get(layoutId);
+        return copies != null ? copies.poll() : null;
+    }
+
+    /**
+     * 正常加载一次布局的耗时：优先使用未命中时实测的 setContentView 耗时，没有时用预渲染耗时估计
+     */
+    private static long baselineNanos(ContentViewStats stats) {
+        if (stats.misses > 0) {
+            return stats.missNanos / stats.misses;
+        }
+        return stats.preloadCount > 0 ? stats.preloadNanos / stats.preloadCount : 0;
+    }
+
     /**
      * 检查布局是否已预渲染
      * @param layoutId 布局资源 ID
      * @return 是否已预渲染
      */
     public boolean isPreloaded(int layoutId) {
-        return preloadedLayouts.containsKey(layoutId);
+        return getPreloadedCount(layoutId) > 0;
     }
-    
+
     /**
      * 注册需要预渲染的布局
      * @param layoutId 布局资源 ID
      */
     public void registerLayout(int layoutId) {
+        registeredLayouts.add(layoutId);
         // 延迟预渲染，避免在注册时立即执行
         mainHandler.postDelayed(() -> {
             preloadLayout(layoutId, null);
         }, 500);
     }
-    
+
     /**
-     * 预加载所有已注册的布局
+     * 预加载所有已注册的布局（补足被使用或被释放的份数）
      */
     public void preloadAllLayouts() {
-        // 这个方法主要用于批量预加载，但当前实现是注册时自动预加载
-        // 如果需要批量预加载，可以在这里实现
+        for (int layoutId : new ArrayList<>(registeredLayouts)) {
+            preloadLayout(layoutId, null);
+        }
     }
-    
+
+    /**
+     * 各布局的 setContentView 统计，例如 "activity_live_room: 命中 3 次 平均 4.1ms, 未命中 1 次 平均 38.0ms, 共节省 101.7ms"
+     */
+    public String describeStats() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Integer, ContentViewStats> entry : contentViewStats.entrySet()) {
+            ContentViewStats stats = entry.getValue();
+            long saved = stats.hits > 0 ? stats.hits * baselineNanos(stats) - stats.hitNanos : 0;
+            builder.append(String.format(Locale.US, "%s: 命中 %d 次 平均 %.1fms, 未命中 %d 次 平均 %.1fms, 共节省 %.1fms\n",
+                    layoutName(entry.getKey()),
+                    stats.hits, stats.hits > 0 ? stats.hitNanos / 1e6 / stats.hits : 0.0,
+                    stats.misses, stats.misses > 0 ? stats.missNanos / 1e6 / stats.misses : 0.0,
+                    Math.max(0, saved) / 1e6));
+        }
+        return builder.toString();
+    }
+
     /**
      * 清空所有预渲染的布局
      * 注意：View 对象会被垃圾回收，但需要确保没有其他引用
      */
     public void clearAll() {
         // 清理 View 引用，帮助 GC
-        for (View view : preloadedLayouts.values()) {
-            if (view instanceof ViewGroup) {
-                ((ViewGroup) view).removeAllViews();
+        for (Deque<PreloadedLayout> copies : preloadedLayouts.values()) {
+            for (PreloadedLayout layout : copies) {
+                if (layout.view instanceof ViewGroup) {
+                    ((ViewGroup) layout.view).removeAllViews();
+                }
             }
         }
         preloadedLayouts.clear();
     }
-}
 
+    private int getPreloadedCount() {
+        int total = 0;
+        for (Deque<PreloadedLayout> copies : preloadedLayouts.values()) {
+            total += copies.size();
+        }
+        return total;
+    }
+
+    private int getPreloadedCount(int layoutId) {
+        Deque<PreloadedLayout> copies = preloadedLayouts.get(layoutId);
+        return copies != null ? copies.size() : 0;
+    }
+
+    private int getInFlight(int layoutId) {
+        Integer count = inFlight.get(layoutId);
+        return count != null ? count : 0;
+    }
+
+    private ContentViewStats getContentViewStats(int layoutId) {
+        ContentViewStats stats = contentViewStats.get(layoutId);
+        if (stats == null) {
+            stats = new ContentViewStats();
+            contentViewStats.put(layoutId, stats);
+        }
+        return stats;
+    }
+
+    private String layoutName(int layoutId) {
+        try {
+            return applicationContext.getResources().getResourceEntryName(layoutId);
+        } catch (Exception e) {
+            return String.valueOf(layoutId);
+        }
+    }
+
+    /**
+     * 后台预渲染线程，第一次使用时创建
+     */
+    private Handler getInflateHandler() {
+        if (inflateHandler == null) {
+            HandlerThread thread = new HandlerThread("LayoutPreloader", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            inflateHandler = new Handler(thread.getLooper());
+        }
+        return inflateHandler;
+    }
+}
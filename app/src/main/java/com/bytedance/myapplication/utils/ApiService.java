@@ -6,10 +6,12 @@ import android.os.Looper;
 import com.bytedance.myapplication.LiveBoard;
 import com.bytedance.myapplication.model.Comment;
 import com.bytedance.myapplication.model.Host;
+import com.bytedance.myapplication.model.HostPage;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -59,6 +61,8 @@ public class ApiService {
                     parseExecutor.execute(() -> {
                         try {
                             Host host = gson.fromJson(json, Host.class);
+                            // 登记直播间的流信息，供预加载和播放使用
+                            StreamRegistry.getInstance().register(hostId, host);
                             mainHandler.post(() -> callback.onSuccess(host));
                         } catch (Exception e) {
                             mainHandler.post(() -> callback.onFailure("解析失败: " + e.getMessage()));
@@ -71,6 +75,61 @@ public class ApiService {
         });
     }
 
+    /**
+     * 分页获取直播间目录
+     * mockapi 只支持 page / limit 分页，游标即页码（null 表示第一页）；返回条数不足 limit 时没有下一页
+     */
+    public static void getHostPage(String cursor, int limit, ApiCallback<HostPage> callback) {
+        int page;
+        try {
+            page = cursor != null ? Integer.parseInt(cursor) : 1;
+        } catch (NumberFormatException e) {
+            mainHandler.post(() -> callback.onFailure("无效的游标: " + cursor));
+            return;
+        }
+        Request request = new Request.Builder()
+                .url(BASE_URL + "/hosts?page=" + page + "&limit=" + limit)
+                .get()
+                .build();
+
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                mainHandler.post(() -> callback.onFailure(e.getMessage()));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                if (response.isSuccessful()) {
+                    String json = response.body().string();
+
+                    parseExecutor.execute(() -> {
+                        try {
+                            List<Host> hosts = gson.fromJson(json, new TypeToken<List<Host>>(){}.getType());
+                            List<Host> valid = new ArrayList<>();
+                            if (hosts != null) {
+                                for (Host host : hosts) {
+                                    if (host != null && host.getId() != null) {
+                                        StreamRegistry.getInstance().register(host.getId(), host);
+                                        valid.add(host);
+                                    }
+                                }
+                            }
+                            String nextCursor = hosts != null && hosts.size() >= limit
+                                    ? String.valueOf(page + 1) : null;
+                            HostPage hostPage = new HostPage(valid, nextCursor);
+                            mainHandler.post(() -> callback.onSuccess(hostPage));
+                        } catch (Exception e) {
+                            mainHandler.post(() -> callback.onFailure("解析失败: " + e.getMessage()));
+                        }
+                    });
+                } else {
+                    mainHandler.post(() -> callback.onFailure("请求失败: " + response.code()));
+                }
+            }
+        });
+    }
+
     public static void getComments(ApiCallback<List<Comment>> callback) {
         Request request = new Request.Builder()
                 .url(BASE_URL + "/comments_4")
@@ -92,7 +151,9 @@ public class ApiService {
                     // JSON解析移到子线程，避免阻塞UI线程
                     parseExecutor.execute(() -> {
                         try {
-                            List<Comment> comments = gson.fromJson(json, new TypeToken<List<Comment>>(){}.getType());
+                            List<Comment> parsed = gson.fromJson(json, new TypeToken<List<Comment>>(){}.getType());
+                            // 在解析线程完成关键词审核，避免违规评论到达 Adapter
+                            List<Comment> comments = CommentModerator.getInstance().filter(parsed);
                             mainHandler.post(() -> callback.onSuccess(comments));
                         } catch (Exception e) {
                             mainHandler.post(() -> callback.onFailure("解析失败: " + e.getMessage()));
@@ -111,7 +172,12 @@ public class ApiService {
             return;
         }
 
-        String trimmedComment = comment.trim();
+        // 发送前审核：命中 drop 的评论不发送，命中 mask 的发送屏蔽后的内容
+        String trimmedComment = CommentModerator.getInstance().moderateOutgoing(comment.trim());
+        if (trimmedComment == null) {
+            mainHandler.post(() -> callback.onFailure("评论包含违规内容"));
+            return;
+        }
         RequestBody formBody = new FormBody.Builder()
                 .add("comment", trimmedComment)
                 .build();
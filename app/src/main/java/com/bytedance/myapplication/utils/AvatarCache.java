@@ -0,0 +1,202 @@
+package com.bytedance.myapplication.utils;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.bytedance.myapplication.R;
+
+/**
+ * 评论头像加载
+ * 圆形裁剪后的头像只保存在 Glide 的内存缓存中（按 URL + 固定的目标像素尺寸 + 变换区分），
+ * 尺寸固定时 Glide 在 into() 中同步检查内存缓存，同一观众的头像重复出现时直接同步设置，不再经过解码和变换
+ * 本类只记录已加载头像的估算内存，登记到 MemoryBudget；需要释放时清空 Glide 的内存缓存
+ * （不另外持有 Bitmap：Glide 的 Bitmap 会被回收到 BitmapPool 复用，复制一份又会让每个头像占用两份内存）
+ */
+public class AvatarCache {
+    private static final String TAG = "AvatarCache";
+    private static AvatarCache instance;
+
+    // 头像占应用可用堆的估算上限（1/32，256MB 机型约 8MB，可容纳两百多个 96px 头像）
+    private static final int MEMORY_CLASS_DIVISOR = 32;
+    // 圆形裁剪的结果带透明通道，按 ARGB_8888 估算
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // 已加载的头像 → 估算字节数，超出上限时按 LRU 移除（与 Glide 内存缓存的淘汰近似）
+    private LruCache<String, Integer> loaded;
+    private Context applicationContext;
+    private final MemoryBudget.Holder budgetHolder = new MemoryBudget.Holder() {
+        @Override
+        public String getName() {
+            return "评论头像";
+        }
+
+        @Override
+        public long getSpeculativeBytes() {
+            LruCache<String, Integer> current = currentLoaded();
+            return current != null ? current.size() : 0;
+        }
+
+        @Override
+        public long getRequiredBytes() {
+            return 0;
+        }
+
+        @Override
+        public long releaseSpeculative(long bytes) {
+            LruCache<String, Integer> current = currentLoaded();
+            if (current == null || applicationContext == null) {
+                return 0;
+            }
+            long freed = current.size();
+            Glide.get(applicationContext).clearMemory();
+            current.evictAll();
+            return freed;
+        }
+    };
+
+    // 统计（按 Glide 返回结果的来源区分命中）
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    private AvatarCache() {
+        MemoryBudget.getInstance().register(budgetHolder, MemoryBudget.PRIORITY_IMAGE_PRELOAD);
+    }
+
+    public static synchronized AvatarCache getInstance() {
+        if (instance == null) {
+            instance = new AvatarCache();
+        }
+        return instance;
+    }
+
+    private synchronized LruCache<String, Integer> getLoaded(Context context) {
+        if (loaded == null) {
+            applicationContext = context.getApplicationContext();
+            ActivityManager activityManager = (ActivityManager) applicationContext
+                    .getSystemService(Context.ACTIVITY_SERVICE);
+            int memoryClass = activityManager != null ? activityManager.getMemoryClass() : 64;
+            int maxBytes = memoryClass * 1024 * 1024 / MEMORY_CLASS_DIVISOR;
+            loaded = new LruCache<String, Integer>(maxBytes) {
+                @Override
+                protected int sizeOf(String key, Integer value) {
+                    return value;
+                }
+            };
+            Log.d(TAG, "头像估算上限: " + (maxBytes / 1024) + "KB");
+        }
+        return loaded;
+    }
+
+    private synchronized LruCache<String, Integer> currentLoaded() {
+        return loaded;
+    }
+
+    private static String keyOf(String url, int sizePx) {
+        return url + "@" + sizePx;
+    }
+
+    /**
+     * 设置头像
+     * 内存缓存命中时由 Glide 同步设置；未命中时由 Glide 加载并圆形裁剪
+     * @param sizePx 头像控件的像素尺寸（正方形），同一控件固定使用同一尺寸才能命中内存缓存
+     */
+    public void bind(ImageView imageView, String url, int sizePx) {
+        if (url == null || url.isEmpty()) {
+            reset(imageView);
+            return;
+        }
+
+        LruCache<String, Integer> current = getLoaded(imageView.getContext());
+        Glide.with(imageView)
+                .load(ImageCacheConfig.getInstance().avatarModel(url))
+                .override(sizePx, sizePx)
+                .circleCrop()
+                .placeholder(R.mipmap.ic_launcher)
+                .error(R.mipmap.ic_launcher)
+                .fallback(R.mipmap.ic_launcher)
+                .listener(new LoadListener(current, keyOf(url, sizePx), sizePx * sizePx * BYTES_PER_PIXEL))
+                .into(imageView);
+    }
+
+    /**
+     * 取消控件上进行中的请求并显示默认头像
+     */
+    public void reset(ImageView imageView) {
+        Glide.with(imageView).clear(imageView);
+        imageView.setImageResource(R.mipmap.ic_launcher);
+    }
+
+    /**
+     * 响应系统内存压力：Glide 自己会按同样的级别清理内存缓存，这里同步调整估算
+     */
+    public void trimMemory(int level) {
+        LruCache<String, Integer> current = currentLoaded();
+        if (current == null) {
+            return;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            current.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            current.trimToSize(current.maxSize() / 2);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 记录加载结果：来自内存缓存的计为命中，其余计为未命中并登记估算内存
+     */
+    private class LoadListener implements RequestListener<Drawable> {
+        private final LruCache<String, Integer> target;
+        private final String key;
+        private final int estimatedBytes;
+
+        LoadListener(LruCache<String, Integer> target, String key, int estimatedBytes) {
+            this.target = target;
+            this.key = key;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                    @NonNull Target<Drawable> glideTarget, boolean isFirstResource) {
+            missCount++;
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model,
+                                       @Nullable Target<Drawable> glideTarget, @NonNull DataSource dataSource,
+                                       boolean isFirstResource) {
+            if (dataSource == DataSource.MEMORY_CACHE) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            // get 同时把条目移到最近使用，与 Glide 内存缓存的 LRU 顺序保持一致
+            if (target.get(key) == null) {
+                target.put(key, estimatedBytes);
+            }
+            return false;
+        }
+    }
+}
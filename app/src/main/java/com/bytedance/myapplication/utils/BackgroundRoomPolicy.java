@@ -0,0 +1,269 @@
+package com.bytedance.myapplication.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebView;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * TTL 缓存直播间的后台解码策略
+ * 离开直播间后 WebView 在隐藏容器中静音播放，按停留时间逐级降级：
+ *   DECODING      宽限期内继续解码（马上返回时无需任何恢复）
+ *   SUSPENDED     暂停播放：停止解码，保留已缓冲数据，Shaka 继续刷新 manifest
+ *   MANIFEST_ONLY 销毁播放器实例（释放解码器和 MSE 缓冲），页面和脚本保留；检查任务在预取缓存中的
+ *                 manifest 过期后重新预取 manifest 和首批分片，恢复时播放器的首批请求直接命中
+ * 重新进入时按所在级别恢复到直播边缘，并统计各级别的后台时长和恢复后的首帧耗时
+ * （不按级别统计 CPU：解码在 WebView 渲染进程中，应用进程的 CPU 时间既不包含解码开销，也无法按级别拆分）
+ * 所有后台房间共用一个 TICK_MS 的检查任务，不为每个房间单独定时
+ * 房间是否仍在后台由本地记录维护（恢复、池淘汰时移除），检查任务不查询 WebViewPool
+ * 注意：需要在主线程调用
+ */
+public class BackgroundRoomPolicy {
+    private static final String TAG = "BackgroundRoomPolicy";
+    private static BackgroundRoomPolicy instance;
+
+    private static final long GRACE_MS = 5000;
+    private static final long SUSPEND_MS = 15000;
+    private static final long TICK_MS = 1000;
+
+    public enum Tier {
+        DECODING,
+        SUSPENDED,
+        MANIFEST_ONLY
+    }
+
+    private static class Entry {
+        final String roomId;
+        final long enteredAt;
+        Tier tier = Tier.DECODING;
+
+        Entry(String roomId, long enteredAt) {
+            this.roomId = roomId;
+            this.enteredAt = enteredAt;
+        }
+    }
+
+    /**
+     * 单个级别的统计
+     */
+    private static class TierStats {
+        long roomMs;
+        int reentryCount;
+        long reentryFirstFrameMs;
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<WebView, Entry> entries = new HashMap<>();
+    private final Map<Tier, TierStats> stats = new HashMap<>();
+    private final Runnable tickRunnable = this::tick;
+    private boolean ticking = false;
+    private long lastTickAt;
+
+    private BackgroundRoomPolicy() {
+        for (Tier tier : Tier.values()) {
+            stats.put(tier, new TierStats());
+        }
+        // TTL 过期、LRU 或内存紧张时池会销毁 WebView，同步停止管理
+        WebViewPool.getInstance().addEvictionListener((webView, state, roomId) -> forget(webView));
+    }
+
+    public static synchronized BackgroundRoomPolicy getInstance() {
+        if (instance == null) {
+            instance = new BackgroundRoomPolicy();
+        }
+        return instance;
+    }
+
+    /**
+     * 直播间进入 TTL 缓存：静音继续播放，开始计时
+     */
+    public void enterBackground(String roomId, WebView webView) {
+        if (webView == null) {
+            return;
+        }
+        PlayerBridge.of(webView).mute(true).play();
+        accountUntilNow();
+        entries.put(webView, new Entry(roomId, SystemClock.uptimeMillis()));
+        startTicking();
+    }
+
+    /**
+     * 直播间从 TTL 缓存恢复：按所在级别恢复到直播边缘，并开始统计首帧耗时
+     * 之后由调用方发送取消静音和播放命令（同一批下发）
+     * @return 离开期间最后所处的级别，不在后台时返回 null
+     */
+    public Tier onReenter(WebView webView, String streamUrl) {
+        Entry entry = entries.get(webView);
+        if (entry == null) {
+            return null;
+        }
+        accountUntilNow();
+        entries.remove(webView);
+        stopTickingIfIdle();
+
+        PlayerBridge bridge = PlayerBridge.of(webView);
+        Tier tier = entry.tier;
+        if (tier == Tier.MANIFEST_ONLY) {
+            // 播放器收到播放命令时在页面内重新创建，首批请求命中预取缓存
+            StreamPrefetchCache.getInstance().prefetch(streamUrl);
+        } else if (tier == Tier.SUSPENDED) {
+            bridge.seekToLive();
+        }
+        measureFirstFrame(bridge, tier, SystemClock.uptimeMillis());
+        Log.d(TAG, "恢复后台直播间: roomId=" + entry.roomId + ", tier=" + tier);
+        return tier;
+    }
+
+    /**
+     * 不再管理指定 WebView（已被淘汰或在外部销毁）
+     */
+    public void forget(WebView webView) {
+        if (!entries.containsKey(webView)) {
+            return;
+        }
+        accountUntilNow();
+        entries.remove(webView);
+        stopTickingIfIdle();
+    }
+
+    /**
+     * 记录恢复到开始播放的耗时（仍在解码的房间已经在播放，记为 0）
+     */
+    private void measureFirstFrame(PlayerBridge bridge, Tier tier, long startAt) {
+        if (bridge.getState() == PlayerBridge.State.PLAYING) {
+            recordReentry(tier, 0);
+            return;
+        }
+        bridge.addListener(new PlayerBridge.StateListener() {
+            @Override
+            public void onStateChanged(PlayerBridge source, PlayerBridge.State state) {
+                if (state == PlayerBridge.State.PLAYING) {
+                    recordReentry(tier, SystemClock.uptimeMillis() - startAt);
+                    source.removeListener(this);
+                } else if (state == PlayerBridge.State.LOADING || state == PlayerBridge.State.ERROR) {
+                    source.removeListener(this);
+                }
+            }
+        });
+    }
+
+    private void recordReentry(Tier tier, long firstFrameMs) {
+        TierStats tierStats = stats.get(tier);
+        tierStats.reentryCount++;
+        tierStats.reentryFirstFrameMs += firstFrameMs;
+    }
+
+    private void startTicking() {
+        if (ticking) {
+            return;
+        }
+        ticking = true;
+        lastTickAt = SystemClock.uptimeMillis();
+        mainHandler.postDelayed(tickRunnable, TICK_MS);
+    }
+
+    private void stopTickingIfIdle() {
+        if (entries.isEmpty() && ticking) {
+            ticking = false;
+            mainHandler.removeCallbacks(tickRunnable);
+        }
+    }
+
+    private void tick() {
+        accountUntilNow();
+        long now = SystemClock.uptimeMillis();
+        for (Map.Entry<WebView, Entry> item : entries.entrySet()) {
+            WebView webView = item.getKey();
+            Entry entry = item.getValue();
+            Tier target = tierFor(now - entry.enteredAt);
+            if (target.ordinal() > entry.tier.ordinal()) {
+                applyTier(webView, entry, target);
+            }
+            if (entry.tier == Tier.MANIFEST_ONLY) {
+                refreshManifest(entry);
+            }
+        }
+
+        ticking = false;
+        if (!entries.isEmpty()) {
+            ticking = true;
+            mainHandler.postDelayed(tickRunnable, TICK_MS);
+        }
+    }
+
+    private static Tier tierFor(long backgroundMs) {
+        if (backgroundMs < GRACE_MS) {
+            return Tier.DECODING;
+        }
+        return backgroundMs < SUSPEND_MS ? Tier.SUSPENDED : Tier.MANIFEST_ONLY;
+    }
+
+    private void applyTier(WebView webView, Entry entry, Tier tier) {
+        PlayerBridge bridge = PlayerBridge.of(webView);
+        if (tier == Tier.SUSPENDED) {
+            bridge.suspend();
+        } else if (tier == Tier.MANIFEST_ONLY) {
+            bridge.release();
+        }
+        entry.tier = tier;
+        Log.d(TAG, "后台直播间降级: roomId=" + entry.roomId + ", tier=" + tier);
+    }
+
+    /**
+     * 保持 MANIFEST_ONLY 房间的预取：缓存中的 manifest 未过期或正在预取时 prefetch 直接返回，
+     * 因此每个检查周期调用一次，实际请求频率跟随 manifest 的缓存时长；流信息已被淘汰的房间跳过
+     */
+    private void refreshManifest(Entry entry) {
+        String manifestUrl = StreamRegistry.getInstance().getManifestUrl(entry.roomId);
+        if (manifestUrl != null) {
+            StreamPrefetchCache.getInstance().prefetch(manifestUrl);
+        }
+    }
+
+    /**
+     * 把上次统计以来的时长累加到各后台房间所在的级别
+     */
+    private void accountUntilNow() {
+        if (!ticking) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - lastTickAt;
+        lastTickAt = now;
+        if (entries.isEmpty() || elapsed <= 0) {
+            return;
+        }
+        for (Entry entry : entries.values()) {
+            stats.get(entry.tier).roomMs += elapsed;
+        }
+    }
+
+    public int getBackgroundCount() {
+        return entries.size();
+    }
+
+    /**
+     * 各级别统计：后台时长（房间数 × 秒）、恢复次数和平均首帧耗时
+     */
+    public String describeStats() {
+        StringBuilder builder = new StringBuilder();
+        for (Tier tier : Tier.values()) {
+            TierStats tierStats = stats.get(tier);
+            long avgFirstFrame = tierStats.reentryCount > 0
+                    ? tierStats.reentryFirstFrameMs / tierStats.reentryCount : 0;
+            builder.append(String.format(Locale.US, "%s: 后台 %ds, 恢复 %d 次, 平均首帧 %dms\n",
+                    tier, tierStats.roomMs / 1000, tierStats.reentryCount, avgFirstFrame));
+        }
+        return builder.toString();
+    }
+
+    public void reset() {
+        entries.clear();
+        stopTickingIfIdle();
+    }
+}
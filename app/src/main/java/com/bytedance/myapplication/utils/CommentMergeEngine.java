@@ -0,0 +1,413 @@
+package com.bytedance.myapplication.utils;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.BatchingListUpdateCallback;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.bytedance.myapplication.model.Comment;
+import com.bytedance.myapplication.model.UserTable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评论合并引擎
+ * 统一合并 REST 历史评论、发送评论的返回结果以及 WebSocket 推送的评论：
+ * - 以评论 ID 建立哈希索引，重复到达的评论幂等更新，不会产生重复条目
+ * - 按时间戳有序存储，乱序到达的评论通过二分查找插入到正确位置
+ * - createdAt 无法解析的评论以第一次到达时的本地时间作为排序时间戳（写回评论，回滚日志读回后位置不变），
+ *   之后重复到达保持原位置；显示的 createdAt 仍是原始字符串
+ * - 直接向 Adapter 派发精确的插入/变更区间，不再依赖 DiffUtil 全量比较
+ * - 内存中只保留最新的一段评论，更早的评论淘汰到 CommentScrollbackLog，向上滚动时按页读回
+ * - 绑定回滚日志后，评论的用户登记到该直播间（UserTable.retain），随日志回收一起释放
+ * 注意：所有方法都需要在主线程调用（ApiService 的回调已切回主线程）
+ */
+public class CommentMergeEngine {
+    // 内存中保留的评论上限，超出后最旧的评论写入回滚日志
+    private static final int DEFAULT_CAPACITY = 300;
+    // 超出上限一定数量后再批量淘汰，避免每条新评论都触发一次淘汰
+    private static final int TRIM_SLACK = 50;
+    // 每次从回滚日志读回的评论数
+    private static final int SCROLLBACK_PAGE_SIZE = 50;
+
+    // 排序规则：时间戳 -> 数字 ID -> 到达顺序
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int result = Long.compare(a.timestamp, b.timestamp);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compare(a.idOrder, b.idOrder);
+        if (result != 0) {
+            return result;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    };
+
+    // 哈希索引：key 为评论 ID（无 ID 时使用内容生成的合成 key）
+    private final Map<String, Entry> index = new HashMap<>();
+    // 按时间戳排序的评论列表
+    private final ArrayList<Entry> ordered = new ArrayList<>();
+    // 对外暴露的只读视图，避免每次变更都复制列表
+    private final List<Comment> readOnlyView = Collections.unmodifiableList(new AbstractList<Comment>() {
+        @Override
+        public Comment get(int position) {
+            return ordered.get(position).comment;
+        }
+
+        @Override
+        public int size() {
+            return ordered.size();
+        }
+    });
+
+    private ListUpdateCallback updateCallback;
+    private long nextSequence = 0;
+
+    private int capacity = DEFAULT_CAPACITY;
+    // 用户是否停留在列表底部（跟随最新评论），离开底部时暂停淘汰，避免正在浏览的评论被移除
+    private boolean followingLatest = true;
+    private CommentScrollbackLog scrollbackLog;
+    // 回滚日志中 [0, scrollbackCursor) 范围的评论当前不在内存中
+    private int scrollbackCursor = 0;
+    private boolean loadingOlder = false;
+
+    private static class Entry {
+        final String key;
+        final long idOrder;
+        final long sequence;
+        long timestamp;
+        Comment comment;
+        // 在回滚日志中的下标，-1 表示尚未写入日志
+        int logIndex = -1;
+
+        Entry(String key, long idOrder, long sequence, long timestamp, Comment comment) {
+            this.key = key;
+            this.idOrder = idOrder;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.comment = comment;
+        }
+    }
+
+    /**
+     * 设置变更回调（通常为 AdapterListUpdateCallback），传 null 表示解绑
+     */
+    public void setListUpdateCallback(@Nullable ListUpdateCallback callback) {
+        this.updateCallback = callback;
+    }
+
+    /**
+     * 插入或更新单条评论
+     * 定位为 O(log n)，按时间顺序到达的评论直接追加到末尾
+     * @return 评论是否导致列表变化
+     */
+    public boolean upsert(Comment comment) {
+        boolean changed = upsertInternal(comment, -1, updateCallback);
+        if (changed) {
+            trimIfNeeded(updateCallback);
+        }
+        return changed;
+    }
+
+    /**
+     * 批量合并评论（REST 历史拉取、TTL 缓存恢复）
+     * 连续的插入会被合并成一个区间派发给 Adapter
+     * @return 发生变化的评论数量
+     */
+    public int merge(List<Comment> comments) {
+        if (comments == null || comments.isEmpty()) {
+            return 0;
+        }
+
+        BatchingListUpdateCallback batching = updateCallback != null
+                ? new BatchingListUpdateCallback(updateCallback)
+                : null;
+        int changed = 0;
+        for (Comment comment : comments) {
+            if (upsertInternal(comment, -1, batching)) {
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            trimIfNeeded(batching);
+        }
+        if (batching != null) {
+            batching.dispatchLastEvent();
+        }
+        return changed;
+    }
+
+    private boolean upsertInternal(Comment comment, int logIndex, ListUpdateCallback callback) {
+        if (comment == null) {
+            return false;
+        }
+
+        String key = keyOf(comment);
+        Entry existing = index.get(key);
+        long timestamp = comment.getCreatedAtMillis();
+        if (timestamp < 0) {
+            // 无法解析时间：已存在的评论保持原位置，新评论使用到达时间，并记录到评论上供回滚日志保存
+            timestamp = existing != null ? existing.timestamp : System.currentTimeMillis();
+            comment.setCreatedAtMillis(timestamp);
+        }
+
+        if (existing == null) {
+            Entry entry = new Entry(key, parseIdOrder(comment.getId()), nextSequence++,
+                    timestamp, comment);
+            entry.logIndex = logIndex;
+            int position = insertionPoint(entry);
+            if (position == 0 && logIndex < 0 && hasOlderComments() && !ordered.isEmpty()) {
+                // 早于内存中最旧评论的非日志评论已经属于淘汰区间（通常是 REST 刷新重复返回的旧评论），不再插入
+                return false;
+            }
+            ordered.add(position, entry);
+            index.put(key, entry);
+            retainUser(comment);
+            if (callback != null) {
+                callback.onInserted(position, 1);
+            }
+            return true;
+        }
+
+        // 已存在：幂等处理，内容相同直接忽略
+        if (isSameContent(existing.comment, comment) && existing.timestamp == timestamp) {
+            return false;
+        }
+
+        int oldPosition = positionOf(existing);
+        retainUser(comment);
+        if (existing.timestamp == timestamp) {
+            existing.comment = comment;
+            if (callback != null) {
+                callback.onChanged(oldPosition, 1, null);
+            }
+            return true;
+        }
+
+        // 时间戳被修正：移动到新位置
+        ordered.remove(oldPosition);
+        existing.timestamp = timestamp;
+        existing.comment = comment;
+        int newPosition = insertionPoint(existing);
+        ordered.add(newPosition, existing);
+        if (callback != null) {
+            if (oldPosition != newPosition) {
+                callback.onMoved(oldPosition, newPosition);
+            }
+            callback.onChanged(newPosition, 1, null);
+        }
+        return true;
+    }
+
+    /**
+     * 绑定直播间的回滚日志，绑定后超出上限的旧评论会被淘汰到日志中
+     */
+    public void attachScrollbackLog(@Nullable CommentScrollbackLog log) {
+        scrollbackLog = log;
+        loadingOlder = false;
+        for (Entry entry : ordered) {
+            retainUser(entry.comment);
+        }
+        recomputeScrollbackCursor();
+        trimIfNeeded(updateCallback);
+    }
+
+    private void retainUser(Comment comment) {
+        if (scrollbackLog != null) {
+            UserTable.getInstance().retain(scrollbackLog.getRoomId(), comment.getUserRef());
+        }
+    }
+
+    /**
+     * 设置用户是否停留在列表底部
+     * 回到底部时把内存中的评论重新收缩到上限以内
+     */
+    public void setFollowingLatest(boolean following) {
+        if (followingLatest == following) {
+            return;
+        }
+        followingLatest = following;
+        if (following) {
+            trimIfNeeded(updateCallback);
+        }
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 回滚日志中是否还有未读回的更早评论
+     */
+    public boolean hasOlderComments() {
+        return scrollbackLog != null && scrollbackCursor > 0;
+    }
+
+    /**
+     * 从回滚日志读回一页更早的评论，插入到列表头部
+     * @return 是否发起了读取
+     */
+    public boolean loadOlder() {
+        if (loadingOlder || !hasOlderComments()) {
+            return false;
+        }
+        loadingOlder = true;
+        CommentScrollbackLog log = scrollbackLog;
+        log.readPage(scrollbackCursor, SCROLLBACK_PAGE_SIZE, (startIndex, comments) -> {
+            if (log != scrollbackLog) {
+                return;
+            }
+            loadingOlder = false;
+            BatchingListUpdateCallback batching = updateCallback != null
+                    ? new BatchingListUpdateCallback(updateCallback)
+                    : null;
+            for (int i = 0; i < comments.size(); i++) {
+                upsertInternal(comments.get(i), startIndex + i, batching);
+            }
+            if (batching != null) {
+                batching.dispatchLastEvent();
+            }
+            scrollbackCursor = Math.min(scrollbackCursor, startIndex);
+        });
+        return true;
+    }
+
+    /**
+     * 内存中的评论超出上限时，把最旧的评论淘汰到回滚日志
+     * 离开底部时放宽到 2 倍上限，尽量不移除用户正在浏览的评论
+     */
+    private void trimIfNeeded(ListUpdateCallback callback) {
+        int limit = followingLatest ? capacity + TRIM_SLACK : capacity * 2;
+        // 回滚日志写入失败后不再淘汰，评论留在内存中，避免丢失
+        if (scrollbackLog == null || scrollbackLog.isFailed() || ordered.size() <= limit) {
+            return;
+        }
+
+        int evictCount = ordered.size() - capacity;
+        List<Comment> toPersist = new ArrayList<>();
+        for (int i = 0; i < evictCount; i++) {
+            Entry entry = ordered.get(i);
+            index.remove(entry.key);
+            // 从日志读回的评论已经在日志中，不需要重复写入
+            if (entry.logIndex < 0) {
+                toPersist.add(entry.comment);
+            }
+        }
+        ordered.subList(0, evictCount).clear();
+        scrollbackLog.append(toPersist);
+        recomputeScrollbackCursor();
+        if (callback != null) {
+            callback.onRemoved(0, evictCount);
+        }
+    }
+
+    private void recomputeScrollbackCursor() {
+        if (scrollbackLog == null) {
+            scrollbackCursor = 0;
+            return;
+        }
+        int cursor = scrollbackLog.getCount();
+        for (Entry entry : ordered) {
+            if (entry.logIndex >= 0 && entry.logIndex < cursor) {
+                cursor = entry.logIndex;
+            }
+        }
+        scrollbackCursor = cursor;
+    }
+
+    /**
+     * 计算插入位置：大多数评论按时间顺序到达，先检查末尾避免二分查找
+     */
+    private int insertionPoint(Entry entry) {
+        int size = ordered.size();
+        if (size == 0 || ORDER.compare(ordered.get(size - 1), entry) <= 0) {
+            return size;
+        }
+        int position = Collections.binarySearch(ordered, entry, ORDER);
+        return position >= 0 ? position : -(position + 1);
+    }
+
+    private int positionOf(Entry entry) {
+        int size = ordered.size();
+        if (size > 0 && ordered.get(size - 1) == entry) {
+            return size - 1;
+        }
+        return Collections.binarySearch(ordered, entry, ORDER);
+    }
+
+    public Comment get(int position) {
+        return ordered.get(position).comment;
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public boolean contains(String commentId) {
+        return commentId != null && index.containsKey(commentId);
+    }
+
+    /**
+     * 获取按时间排序的只读评论视图（实时反映引擎内容，不做复制）
+     */
+    public List<Comment> asList() {
+        return readOnlyView;
+    }
+
+    /**
+     * 清空所有评论
+     */
+    public void clear() {
+        int size = ordered.size();
+        ordered.clear();
+        index.clear();
+        recomputeScrollbackCursor();
+        if (size > 0 && updateCallback != null) {
+            updateCallback.onRemoved(0, size);
+        }
+    }
+
+    private static String keyOf(Comment comment) {
+        if (comment.getId() != null && !comment.getId().isEmpty()) {
+            return comment.getId();
+        }
+        // 没有 ID 时，使用名称 + 内容 + 时间生成合成 key（与 DiffUtil 的判断规则保持一致）
+        // 时间取 createdAt 字符串：无法解析的评论在合并时会被写入到达时间，字符串不受影响
+        return "\u0000" + comment.getName() + "\u0000" + comment.getComment() + "\u0000" + comment.getCreatedAt();
+    }
+
+    private static boolean isSameContent(Comment a, Comment b) {
+        // 用户信息已在 UserTable 中去重，比较引用即可
+        return equalsNullable(a.getComment(), b.getComment())
+                && a.getUserRef() == b.getUserRef();
+    }
+
+    private static boolean equalsNullable(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static long parseIdOrder(String id) {
+        if (id == null || id.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 解析评论时间戳（毫秒）
+     * 支持 ISO-8601 字符串和秒/毫秒时间戳
+     * @return 毫秒时间戳，无法解析时返回 -1
+     */
+    public static long parseTimestamp(String createdAt) {
+        return Comment.parseCreatedAt(createdAt);
+    }
+}
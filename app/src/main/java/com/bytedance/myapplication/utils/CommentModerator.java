@@ -0,0 +1,244 @@
+package com.bytedance.myapplication.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.bytedance.myapplication.LiveBoard;
+import com.bytedance.myapplication.model.Comment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 评论关键词审核
+ * 在评论到达 CommentAdapter 之前，对违规词和垃圾信息做屏蔽 / 丢弃 / 标记处理
+ * 词库编译成 Aho-Corasick 自动机，单条评论的审核耗时与词库大小无关
+ * 词库支持热更新：新词库在后台编译完成后原子替换，正在审核的评论不受影响
+ *
+ * 词库格式（每行一条，# 开头为注释）：
+ *   mask:关键词   命中部分替换为 *
+ *   drop:关键词   整条评论丢弃
+ *   flag:关键词   保留评论但标记为可疑
+ *   关键词        不带前缀时默认 mask
+ */
+public class CommentModerator {
+    private static final String TAG = "CommentModerator";
+    private static final String BLOCKLIST_ASSET = "moderation/blocklist.txt";
+    private static CommentModerator instance;
+
+    public static final int ACTION_FLAG = 1;
+    public static final int ACTION_MASK = 1 << 1;
+    public static final int ACTION_DROP = 1 << 2;
+
+    private static final char MASK_CHAR = '*';
+
+    // 当前生效的匹配器（热更新时整体替换）
+    private volatile KeywordMatcher matcher;
+
+    // 审核统计
+    private final AtomicLong checkedCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong maskedCount = new AtomicLong(0);
+    private final AtomicLong flaggedCount = new AtomicLong(0);
+
+    private CommentModerator() {
+    }
+
+    public static synchronized CommentModerator getInstance() {
+        if (instance == null) {
+            instance = new CommentModerator();
+        }
+        return instance;
+    }
+
+    /**
+     * 在后台线程从 assets 加载词库
+     */
+    public void loadFromAssets(Context context) {
+        Context appContext = context.getApplicationContext();
+        LiveBoard.getApplicationExecutor().execute(() -> {
+            try (InputStream inputStream = appContext.getAssets().open(BLOCKLIST_ASSET)) {
+                reload(readLines(inputStream));
+            } catch (IOException e) {
+                Log.w(TAG, "加载审核词库失败: " + BLOCKLIST_ASSET, e);
+            }
+        });
+    }
+
+    /**
+     * 热更新词库（在调用线程编译，编译完成后原子替换）
+     * @param rules 词库规则行
+     */
+    public void reload(List<String> rules) {
+        KeywordMatcher.Builder builder = new KeywordMatcher.Builder();
+        if (rules != null) {
+            for (String line : rules) {
+                addRule(builder, line);
+            }
+        }
+        KeywordMatcher newMatcher = builder.build();
+        matcher = newMatcher;
+        Log.d(TAG, "审核词库已更新: " + newMatcher.getPatternCount() + " 条");
+    }
+
+    /**
+     * 在后台线程热更新词库
+     */
+    public void reloadAsync(List<String> rules) {
+        List<String> snapshot = rules != null ? new ArrayList<>(rules) : null;
+        LiveBoard.getApplicationExecutor().execute(() -> reload(snapshot));
+    }
+
+    private static void addRule(KeywordMatcher.Builder builder, String line) {
+        if (line == null) {
+            return;
+        }
+        String rule = line.trim();
+        if (rule.isEmpty() || rule.startsWith("#")) {
+            return;
+        }
+
+        int action = ACTION_MASK;
+        int separator = rule.indexOf(':');
+        if (separator > 0) {
+            String prefix = rule.substring(0, separator);
+            if ("drop".equalsIgnoreCase(prefix)) {
+                action = ACTION_DROP;
+                rule = rule.substring(separator + 1);
+            } else if ("flag".equalsIgnoreCase(prefix)) {
+                action = ACTION_FLAG;
+                rule = rule.substring(separator + 1);
+            } else if ("mask".equalsIgnoreCase(prefix)) {
+                rule = rule.substring(separator + 1);
+            }
+        }
+        builder.add(rule.trim(), action);
+    }
+
+    private static List<String> readLines(InputStream inputStream) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * 审核单条评论（在解析线程调用）
+     * 命中 mask 时直接修改评论内容，命中 flag 时标记评论
+     * @return true 表示评论保留，false 表示应丢弃
+     */
+    public boolean moderate(Comment comment) {
+        KeywordMatcher current = matcher;
+        if (comment == null || current == null) {
+            return comment != null;
+        }
+        String text = comment.getComment();
+        if (text == null || text.isEmpty()) {
+            return true;
+        }
+
+        char[][] masked = new char[1][];
+        int actions = scan(current, text, masked);
+        if ((actions & ACTION_DROP) != 0) {
+            return false;
+        }
+        if (masked[0] != null) {
+            comment.setComment(new String(masked[0]));
+        }
+        if ((actions & ACTION_FLAG) != 0) {
+            comment.setFlagged(true);
+        }
+        return true;
+    }
+
+    /**
+     * 审核待发送的评论内容（发送之前调用，不走网络）
+     * 命中 flag 时原样发送，由收到评论时的审核标记
+     * @return 命中 drop 时返回 null，命中 mask 时返回屏蔽后的内容，否则原样返回
+     */
+    public String moderateOutgoing(String text) {
+        KeywordMatcher current = matcher;
+        if (current == null || text == null || text.isEmpty()) {
+            return text;
+        }
+        char[][] masked = new char[1][];
+        int actions = scan(current, text, masked);
+        if ((actions & ACTION_DROP) != 0) {
+            return null;
+        }
+        return masked[0] != null ? new String(masked[0]) : text;
+    }
+
+    /**
+     * 扫描文本并更新统计
+     * @param masked 命中 mask 时写入屏蔽后的字符（masked[0]），没有命中时保持 null
+     * @return 命中的处理方式（ACTION_* 按位或）
+     */
+    private int scan(KeywordMatcher current, String text, char[][] masked) {
+        checkedCount.incrementAndGet();
+        final int[] actions = new int[1];
+        current.scan(text, (start, end, tag) -> {
+            actions[0] |= tag;
+            if ((tag & ACTION_MASK) != 0) {
+                if (masked[0] == null) {
+                    masked[0] = text.toCharArray();
+                }
+                for (int i = start; i < end; i++) {
+                    masked[0][i] = MASK_CHAR;
+                }
+            }
+        });
+        if ((actions[0] & ACTION_DROP) != 0) {
+            droppedCount.incrementAndGet();
+            return actions[0];
+        }
+        if (masked[0] != null) {
+            maskedCount.incrementAndGet();
+        }
+        if ((actions[0] & ACTION_FLAG) != 0) {
+            flaggedCount.incrementAndGet();
+        }
+        return actions[0];
+    }
+
+    /**
+     * 批量审核评论，返回保留下来的评论（在解析线程调用）
+     */
+    public List<Comment> filter(List<Comment> comments) {
+        if (comments == null || matcher == null) {
+            return comments;
+        }
+        List<Comment> result = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            if (moderate(comment)) {
+                result.add(comment);
+            }
+        }
+        return result;
+    }
+
+    public long getCheckedCount() {
+        return checkedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getMaskedCount() {
+        return maskedCount.get();
+    }
+
+    public long getFlaggedCount() {
+        return flaggedCount.get();
+    }
+}
@@ -0,0 +1,337 @@
+package com.bytedance.myapplication.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.bytedance.myapplication.model.Comment;
+import com.bytedance.myapplication.model.UserTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 评论回滚日志（每个直播间一个文件）
+ * 内存中超出上限被淘汰的评论追加写入内存映射文件，内存只保留一个很小的偏移量索引
+ * 用户向上滚动时按页从文件读回，保证长时间直播时内存有界、历史评论仍可完整浏览
+ * 文件在直播间 TTL 缓存过期时由 PreloadManager 回收
+ * 文件打开或写入失败后日志进入失败状态（isFailed），不再接受新的评论，
+ * 已写入的记录仍可读回，调用方应把评论留在内存中
+ * 注意：append / readPage / getCount 在主线程调用，文件读写统一在单独的 IO 线程串行执行
+ */
+public class CommentScrollbackLog {
+    private static final String TAG = "CommentScrollbackLog";
+    private static final String DIR_NAME = "comment_scrollback";
+    private static final int INITIAL_MAP_SIZE = 256 * 1024;
+
+    private static final Map<String, CommentScrollbackLog> openLogs = new HashMap<>();
+    // 所有直播间共用一个 IO 线程，保证同一文件的写入和读取按提交顺序执行
+    private static final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final String roomId;
+    private final File file;
+    // 分页回调和失败状态回写所在的线程（正常为主线程）
+    private final Executor callbackExecutor;
+
+    // 以下字段只在 IO 线程访问
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int[] offsets = new int[256];
+    private int writtenCount = 0;
+    private int writePosition = 0;
+    private boolean released = false;
+
+    // 已分配的记录数（主线程）
+    private int count = 0;
+    // 打开或写入失败（IO 线程写入，主线程读取）
+    private volatile boolean failed = false;
+
+    /**
+     * 分页读取回调（主线程）
+     */
+    public interface PageCallback {
+        /**
+         * @param startIndex 本页第一条记录在日志中的下标
+         * @param comments 按写入顺序排列的评论
+         */
+        void onPageLoaded(int startIndex, List<Comment> comments);
+    }
+
+    private CommentScrollbackLog(String roomId, File file, Executor callbackExecutor) {
+        this.roomId = roomId;
+        this.file = file;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 创建日志并在 IO 线程打开文件（不登记到 openLogs，单元测试用它指定回调线程）
+     */
+    static CommentScrollbackLog create(String roomId, File file, Executor callbackExecutor) {
+        CommentScrollbackLog log = new CommentScrollbackLog(roomId, file, callbackExecutor);
+        ioExecutor.execute(log::openFile);
+        return log;
+    }
+
+    /**
+     * 获取直播间的回滚日志（同一直播间复用同一实例）
+     */
+    public static synchronized CommentScrollbackLog open(Context context, String roomId) {
+        CommentScrollbackLog log = openLogs.get(roomId);
+        if (log == null) {
+            File dir = new File(context.getApplicationContext().getCacheDir(), DIR_NAME);
+            log = create(roomId, new File(dir, "room_" + roomId + ".log"), mainHandler::post);
+            openLogs.put(roomId, log);
+        }
+        return log;
+    }
+
+    /**
+     * 回收直播间的回滚日志（关闭映射并删除文件），并释放该直播间在 UserTable 中登记的用户
+     */
+    public static synchronized void release(String roomId) {
+        CommentScrollbackLog log = openLogs.remove(roomId);
+        if (log != null) {
+            ioExecutor.execute(log::closeAndDelete);
+        }
+        UserTable.getInstance().releaseRoom(roomId);
+    }
+
+    /**
+     * 回收所有直播间的回滚日志
+     */
+    public static synchronized void releaseAll() {
+        for (CommentScrollbackLog log : openLogs.values()) {
+            ioExecutor.execute(log::closeAndDelete);
+            UserTable.getInstance().releaseRoom(log.roomId);
+        }
+        openLogs.clear();
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * 已写入（或已排队写入）的记录数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 文件打开或写入是否失败，失败后 append 不再接受评论
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * 追加评论（按传入顺序写入）
+     * @return 第一条评论在日志中的下标，日志已失败时返回 -1
+     */
+    public int append(List<Comment> comments) {
+        if (failed) {
+            return -1;
+        }
+        int startIndex = count;
+        if (comments == null || comments.isEmpty()) {
+            return startIndex;
+        }
+        count += comments.size();
+        List<Comment> snapshot = new ArrayList<>(comments);
+        ioExecutor.execute(() -> writeRecords(snapshot));
+        return startIndex;
+    }
+
+    /**
+     * 读取 [endExclusive - maxCount, endExclusive) 范围内的记录
+     */
+    public void readPage(int endExclusive, int maxCount, PageCallback callback) {
+        int end = Math.min(endExclusive, count);
+        int start = Math.max(0, end - maxCount);
+        if (start >= end) {
+            callbackExecutor.execute(() -> callback.onPageLoaded(start, new ArrayList<>()));
+            return;
+        }
+        ioExecutor.execute(() -> {
+            List<Comment> page = readRecords(start, end);
+            callbackExecutor.execute(() -> callback.onPageLoaded(start, page));
+        });
+    }
+
+    /**
+     * 清空日志（重新进入直播间且没有 TTL 缓存时调用）
+     */
+    public void clear() {
+        count = 0;
+        ioExecutor.execute(() -> {
+            writtenCount = 0;
+            writePosition = 0;
+        });
+    }
+
+    private void openFile() {
+        try {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                Log.w(TAG, "创建回滚日志目录失败: " + dir);
+            }
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.setLength(0);
+            channel = randomAccessFile.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_MAP_SIZE);
+        } catch (IOException e) {
+            Log.e(TAG, "打开回滚日志失败: roomId=" + roomId, e);
+            closeQuietly();
+            markFailed();
+        }
+    }
+
+    /**
+     * 进入失败状态（IO 线程）：主线程的记录数回退到实际写入的记录数，
+     * 已排队但没有写入的评论不会再被读回
+     */
+    private void markFailed() {
+        failed = true;
+        int persisted = writtenCount;
+        callbackExecutor.execute(() -> count = Math.min(count, persisted));
+    }
+
+    private void writeRecords(List<Comment> comments) {
+        if (released || failed || buffer == null) {
+            return;
+        }
+        int batchStartCount = writtenCount;
+        int batchStartPosition = writePosition;
+        try {
+            for (Comment comment : comments) {
+                byte[][] fields = encode(comment);
+                // 记录格式：标记(1) + 用户引用(4) + 时间戳(8) + 变长字段（ID、内容、原始 createdAt）
+                int recordSize = 1 + 4 + 8;
+                for (byte[] field : fields) {
+                    recordSize += 4 + (field != null ? field.length : 0);
+                }
+                ensureCapacity(writePosition + recordSize);
+                if (writtenCount == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[writtenCount++] = writePosition;
+
+                buffer.position(writePosition);
+                buffer.put((byte) (comment.isFlagged() ? 1 : 0));
+                buffer.putInt(comment.getUserRef());
+                buffer.putLong(comment.getCreatedAtMillis());
+                for (byte[] field : fields) {
+                    if (field == null) {
+                        buffer.putInt(-1);
+                    } else {
+                        buffer.putInt(field.length);
+                        buffer.put(field);
+                    }
+                }
+                writePosition = buffer.position();
+            }
+        } catch (IOException | RuntimeException e) {
+            // 丢弃写了一半的这一批，日志中只保留完整的记录
+            Log.e(TAG, "写入回滚日志失败: roomId=" + roomId, e);
+            writtenCount = batchStartCount;
+            writePosition = batchStartPosition;
+            markFailed();
+        }
+    }
+
+    private List<Comment> readRecords(int start, int end) {
+        List<Comment> result = new ArrayList<>(end - start);
+        if (released || buffer == null) {
+            return result;
+        }
+        ByteBuffer reader = buffer.duplicate();
+        for (int i = start; i < end && i < writtenCount; i++) {
+            reader.position(offsets[i]);
+            boolean flagged = reader.get() == 1;
+            Comment comment = new Comment();
+            // 用户引用指向进程内的 UserTable，日志文件在打开时会被截断，不会跨进程复用
+            comment.setUserRef(reader.getInt());
+            long createdAtMillis = reader.getLong();
+            comment.setId(readString(reader));
+            comment.setComment(readString(reader));
+            comment.setCreatedAt(readString(reader), createdAtMillis);
+            comment.setFlagged(flagged);
+            result.add(comment);
+        }
+        return result;
+    }
+
+    private void ensureCapacity(int required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        int newSize = buffer.capacity();
+        while (newSize < required) {
+            newSize *= 2;
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    private static byte[][] encode(Comment comment) {
+        return new byte[][] {
+                toBytes(comment.getId()),
+                toBytes(comment.getComment()),
+                toBytes(comment.getRawCreatedAt())
+        };
+    }
+
+    private static byte[] toBytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static String readString(ByteBuffer reader) {
+        int length = reader.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        reader.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void closeAndDelete() {
+        released = true;
+        closeQuietly();
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "删除回滚日志失败: " + file);
+        }
+    }
+
+    private void closeQuietly() {
+        buffer = null;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            // Ignore
+        }
+        channel = null;
+        randomAccessFile = null;
+    }
+}
@@ -0,0 +1,535 @@
+package com.bytedance.myapplication.utils;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * DASH manifest（MPD）的最小解析
+ * 只解析预取需要的部分：每个 Representation 的初始化分片地址和直播边缘附近的媒体分片地址
+ * 支持 SegmentTemplate（$Number$ / $Time$ / $RepresentationID$ / $Bandwidth$）以及 SegmentTimeline
+ * 只依赖 JDK（SAX 解析、java.net.URI），可以直接在 JVM 单元测试中运行
+ */
+public class DashManifest {
+
+    public static class Track {
+        public final String contentType; // video / audio / 其他
+        public final String representationId;
+        public final long bandwidth;
+        public final String initUrl;
+        // 直播边缘附近的媒体分片，从旧到新
+        public final List<String> edgeSegmentUrls;
+
+        Track(String contentType, String representationId, long bandwidth, String initUrl, List<String> edgeSegmentUrls) {
+            this.contentType = contentType;
+            this.representationId = representationId;
+            this.bandwidth = bandwidth;
+            this.initUrl = initUrl;
+            this.edgeSegmentUrls = edgeSegmentUrls;
+        }
+    }
+
+    private static final Pattern TEMPLATE_VAR = Pattern.compile("\\$(RepresentationID|Number|Time|Bandwidth)(%0(\\d+)d)?\\$");
+    private static final Pattern ISO_DURATION = Pattern.compile(
+            "P(?:(\\d+)D)?(?:T(?:(\\d+)H)?(?:(\\d+)M)?(?:([\\d.]+)S)?)?");
+    // xs:dateTime：日期、时间、可选的小数秒和时区（Z 或 ±hh:mm）
+    private static final Pattern ISO_DATE_TIME = Pattern.compile(
+            "(\\d{4})-(\\d{2})-(\\d{2})T(\\d{2}):(\\d{2}):(\\d{2})(?:\\.(\\d+))?(Z|[+-]\\d{2}:?\\d{2})?");
+
+    public final boolean isDynamic;
+    // manifest 的最小更新间隔（毫秒），没有时为 -1
+    public final long minimumUpdatePeriodMs;
+    public final List<Track> tracks;
+
+    private DashManifest(boolean isDynamic, long minimumUpdatePeriodMs, List<Track> tracks) {
+        this.isDynamic = isDynamic;
+        this.minimumUpdatePeriodMs = minimumUpdatePeriodMs;
+        this.tracks = tracks;
+    }
+
+    /**
+     * 选择播放器最可能先请求的轨道：指定类型中不超过 maxBandwidth 的最高码率，没有时取最低码率
+     */
+    public Track selectTrack(String contentType, long maxBandwidth) {
+        Track best = null;
+        Track lowest = null;
+        for (Track track : tracks) {
+            if (!contentType.equals(track.contentType)) {
+                continue;
+            }
+            if (lowest == null || track.bandwidth < lowest.bandwidth) {
+                lowest = track;
+            }
+            if (track.bandwidth <= maxBandwidth && (best == null || track.bandwidth > best.bandwidth)) {
+                best = track;
+            }
+        }
+        return best != null ? best : lowest;
+    }
+
+    /**
+     * 分片模板（AdaptationSet 上的模板会被 Representation 继承）
+     */
+    private static class SegmentTemplate {
+        String initialization;
+        String media;
+        long startNumber = 1;
+        long timescale = 1;
+        long duration = -1;
+        long presentationTimeOffset = 0;
+        // SegmentTimeline：每段为 {开始时间, 分片时长, 分片数}，分片数为 -1 表示 r=-1 尚未展开
+        List<long[]> timeline;
+
+        SegmentTemplate copy() {
+            SegmentTemplate copy = new SegmentTemplate();
+            copy.initialization = initialization;
+            copy.media = media;
+            copy.startNumber = startNumber;
+            copy.timescale = timescale;
+            copy.duration = duration;
+            copy.presentationTimeOffset = presentationTimeOffset;
+            copy.timeline = timeline;
+            return copy;
+        }
+    }
+
+    /**
+     * 解析 manifest
+     * @param nowMs 当前时间（用于计算基于时长模板的直播边缘，以及展开 r=-1 的 SegmentTimeline）
+     * @param edgeSegmentCount 每个轨道取直播边缘前多少个分片
+     */
+    public static DashManifest parse(String xml, String manifestUrl, long nowMs, int edgeSegmentCount) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            // manifest 来自网络，不解析外部实体
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (Exception e) {
+            // 部分平台的解析器不支持这些开关，本身也不解析外部实体
+        }
+        ManifestHandler handler = new ManifestHandler(manifestUrl, nowMs, edgeSegmentCount);
+        factory.newSAXParser().parse(new InputSource(new StringReader(xml)), handler);
+        return new DashManifest(handler.isDynamic, handler.minimumUpdatePeriodMs, handler.tracks);
+    }
+
+    /**
+     * 按元素层级逐个处理 MPD / Period / AdaptationSet / Representation，Representation 结束时生成轨道
+     */
+    private static class ManifestHandler extends DefaultHandler {
+        final String manifestUrl;
+        final long nowMs;
+        final int edgeSegmentCount;
+
+        boolean isDynamic = false;
+        long minimumUpdatePeriodMs = -1;
+        long availabilityStartMs = 0;
+        long periodStartMs = 0;
+        String mpdBase;
+        String periodBase = null;
+        String adaptationBase = null;
+        String representationBase = null;
+        String adaptationType = null;
+        SegmentTemplate adaptationTemplate = null;
+        SegmentTemplate representationTemplate = null;
+        String representationId = null;
+        long bandwidth = 0;
+        String representationType = null;
+        final List<Track> tracks = new ArrayList<>();
+        // 当前所在层级：0 MPD，1 Period，2 AdaptationSet，3 Representation
+        int level = 0;
+        StringBuilder text = null;
+        // 直播流只关心第一个 Period，之后的内容忽略
+        boolean done = false;
+
+        ManifestHandler(String manifestUrl, long nowMs, int edgeSegmentCount) {
+            this.manifestUrl = manifestUrl;
+            this.nowMs = nowMs;
+            this.edgeSegmentCount = edgeSegmentCount;
+            this.mpdBase = manifestUrl;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (done) {
+                return;
+            }
+            switch (nameOf(localName, qName)) {
+                case "MPD":
+                    isDynamic = "dynamic".equals(attributes.getValue("type"));
+                    minimumUpdatePeriodMs = parseDurationMs(attributes.getValue("minimumUpdatePeriod"), -1);
+                    availabilityStartMs = parseDateMs(attributes.getValue("availabilityStartTime"));
+                    break;
+                case "Period":
+                    level = 1;
+                    periodStartMs = parseDurationMs(attributes.getValue("start"), 0);
+                    periodBase = null;
+                    break;
+                case "AdaptationSet":
+                    level = 2;
+                    adaptationBase = null;
+                    adaptationTemplate = null;
+                    adaptationType = contentTypeOf(attributes.getValue("contentType"), attributes.getValue("mimeType"));
+                    break;
+                case "Representation": {
+                    level = 3;
+                    representationBase = null;
+                    representationTemplate = adaptationTemplate != null ? adaptationTemplate.copy() : null;
+                    representationId = attributes.getValue("id");
+                    bandwidth = parseLong(attributes.getValue("bandwidth"), 0);
+                    String mimeType = attributes.getValue("mimeType");
+                    representationType = mimeType != null ? contentTypeOf(null, mimeType) : adaptationType;
+                    break;
+                }
+                case "SegmentTemplate": {
+                    SegmentTemplate base = level == 3 ? representationTemplate : null;
+                    SegmentTemplate template = base != null ? base : new SegmentTemplate();
+                    String value = attributes.getValue("initialization");
+                    if (value != null) {
+                        template.initialization = value;
+                    }
+                    value = attributes.getValue("media");
+                    if (value != null) {
+                        template.media = value;
+                    }
+                    template.startNumber = parseLong(attributes.getValue("startNumber"), template.startNumber);
+                    template.timescale = parseLong(attributes.getValue("timescale"), template.timescale);
+                    template.duration = parseLong(attributes.getValue("duration"), template.duration);
+                    template.presentationTimeOffset = parseLong(
+                            attributes.getValue("presentationTimeOffset"), template.presentationTimeOffset);
+                    if (level == 3) {
+                        representationTemplate = template;
+                    } else {
+                        adaptationTemplate = template;
+                    }
+                    break;
+                }
+                case "SegmentTimeline": {
+                    SegmentTemplate template = currentTemplate();
+                    if (template != null) {
+                        template.timeline = new ArrayList<>();
+                    }
+                    break;
+                }
+                case "S": {
+                    SegmentTemplate template = currentTemplate();
+                    if (template != null && template.timeline != null) {
+                        long d = parseLong(attributes.getValue("d"), 0);
+                        long repeat = parseLong(attributes.getValue("r"), 0);
+                        long t = parseLong(attributes.getValue("t"), -1);
+                        // 上一段 r=-1 时重复到这一段的开始时间
+                        closeOpenRun(template.timeline, t);
+                        if (t < 0) {
+                            t = template.timeline.isEmpty() ? 0 : lastEnd(template.timeline);
+                        }
+                        if (d > 0) {
+                            template.timeline.add(new long[]{t, d, repeat < 0 ? -1 : repeat + 1});
+                        }
+                    }
+                    break;
+                }
+                case "BaseURL":
+                    text = new StringBuilder();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (!done && text != null) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (done) {
+                return;
+            }
+            switch (nameOf(localName, qName)) {
+                case "BaseURL":
+                    if (text != null) {
+                        onBaseUrl(text.toString().trim());
+                        text = null;
+                    }
+                    break;
+                case "SegmentTimeline": {
+                    SegmentTemplate template = currentTemplate();
+                    if (template != null && template.timeline != null) {
+                        // 最后一段 r=-1 时重复到直播边缘（最新一个已完整可用的分片）
+                        closeOpenRun(template.timeline, liveEdgeTime(template));
+                    }
+                    break;
+                }
+                case "Representation": {
+                    String parentBase = adaptationBase != null ? adaptationBase
+                            : periodBase != null ? periodBase : mpdBase;
+                    String base = representationBase != null ? resolve(parentBase, representationBase) : parentBase;
+                    Track track = buildTrack(representationType, representationId, bandwidth, base,
+                            representationTemplate, isDynamic, availabilityStartMs, periodStartMs, nowMs, edgeSegmentCount);
+                    if (track != null) {
+                        tracks.add(track);
+                    }
+                    level = 2;
+                    break;
+                }
+                case "AdaptationSet":
+                    level = 1;
+                    break;
+                case "Period":
+                    level = 0;
+                    done = !tracks.isEmpty();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void onBaseUrl(String value) {
+            switch (level) {
+                case 0:
+                    mpdBase = resolve(manifestUrl, value);
+                    break;
+                case 1:
+                    periodBase = resolve(mpdBase, value);
+                    break;
+                case 2:
+                    adaptationBase = resolve(periodBase != null ? periodBase : mpdBase, value);
+                    break;
+                default:
+                    representationBase = value;
+                    break;
+            }
+        }
+
+        private SegmentTemplate currentTemplate() {
+            return level == 3 ? representationTemplate : adaptationTemplate;
+        }
+
+        /**
+         * 直播边缘在 SegmentTimeline 时间轴上的位置，不是直播流或没有 availabilityStartTime 时返回 -1
+         */
+        private long liveEdgeTime(SegmentTemplate template) {
+            if (!isDynamic || availabilityStartMs <= 0) {
+                return -1;
+            }
+            long elapsedMs = nowMs - availabilityStartMs - periodStartMs;
+            return elapsedMs * template.timescale / 1000 + template.presentationTimeOffset;
+        }
+
+        private static String nameOf(String localName, String qName) {
+            return localName != null && !localName.isEmpty() ? localName : qName;
+        }
+    }
+
+    /**
+     * 确定最后一段 r=-1 的分片数：重复到 endTime 为止（只计完整的分片），endTime 未知时按一个分片处理
+     */
+    private static void closeOpenRun(List<long[]> timeline, long endTime) {
+        if (timeline.isEmpty()) {
+            return;
+        }
+        long[] run = timeline.get(timeline.size() - 1);
+        if (run[2] >= 0) {
+            return;
+        }
+        run[2] = endTime > run[0] ? Math.max(1, (endTime - run[0]) / run[1]) : 1;
+    }
+
+    private static Track buildTrack(String contentType, String representationId, long bandwidth, String base,
+                                    SegmentTemplate template, boolean isDynamic, long availabilityStartMs,
+                                    long periodStartMs, long nowMs, int edgeSegmentCount) {
+        if (template == null || template.media == null) {
+            return null;
+        }
+        String initUrl = template.initialization != null
+                ? resolve(base, expand(template.initialization, representationId, bandwidth, 0, 0))
+                : null;
+
+        List<String> edge = new ArrayList<>();
+        if (template.timeline != null && !template.timeline.isEmpty()) {
+            long total = 0;
+            for (long[] run : template.timeline) {
+                total += Math.max(1, run[2]);
+            }
+            // 从最后一段往前取最新的 edgeSegmentCount 个分片，分片序号按在时间轴中的位置计算
+            long index = total;
+            for (int i = template.timeline.size() - 1; i >= 0 && edge.size() < edgeSegmentCount; i--) {
+                long[] run = template.timeline.get(i);
+                long count = Math.max(1, run[2]);
+                for (long k = count - 1; k >= 0 && edge.size() < edgeSegmentCount; k--) {
+                    long number = template.startNumber + index - (count - k);
+                    long time = run[0] + k * run[1];
+                    edge.add(0, resolve(base, expand(template.media, representationId, bandwidth, number, time)));
+                }
+                index -= count;
+            }
+        } else if (template.duration > 0) {
+            long segmentMs = template.duration * 1000 / template.timescale;
+            long latest;
+            if (isDynamic && availabilityStartMs > 0 && segmentMs > 0) {
+                // 最新一个已完整可用的分片
+                long elapsed = nowMs - availabilityStartMs - periodStartMs;
+                latest = template.startNumber + elapsed / segmentMs - 1;
+            } else {
+                latest = template.startNumber + edgeSegmentCount - 1;
+            }
+            for (long number = Math.max(template.startNumber, latest - edgeSegmentCount + 1); number <= latest; number++) {
+                long time = (number - template.startNumber) * template.duration + template.presentationTimeOffset;
+                edge.add(resolve(base, expand(template.media, representationId, bandwidth, number, time)));
+            }
+        }
+        return new Track(contentType, representationId, bandwidth, initUrl, edge);
+    }
+
+    private static long lastEnd(List<long[]> timeline) {
+        long[] last = timeline.get(timeline.size() - 1);
+        return last[0] + last[1] * Math.max(1, last[2]);
+    }
+
+    private static String expand(String template, String representationId, long bandwidth, long number, long time) {
+        Matcher matcher = TEMPLATE_VAR.matcher(template);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String value;
+            switch (matcher.group(1)) {
+                case "RepresentationID":
+                    value = representationId != null ? representationId : "";
+                    break;
+                case "Number":
+                    value = String.valueOf(number);
+                    break;
+                case "Time":
+                    value = String.valueOf(time);
+                    break;
+                default:
+                    value = String.valueOf(bandwidth);
+                    break;
+            }
+            if (matcher.group(3) != null) {
+                int width = Integer.parseInt(matcher.group(3));
+                StringBuilder padded = new StringBuilder();
+                for (int i = value.length(); i < width; i++) {
+                    padded.append('0');
+                }
+                value = padded.append(value).toString();
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString().replace("$$", "$");
+    }
+
+    private static String resolve(String base, String relative) {
+        if (relative == null || relative.isEmpty()) {
+            return base;
+        }
+        if (base == null || relative.startsWith("http://") || relative.startsWith("https://")) {
+            return relative;
+        }
+        URI baseUri;
+        try {
+            baseUri = new URI(base);
+        } catch (Exception e) {
+            return relative;
+        }
+        if (relative.startsWith("/")) {
+            return baseUri.getScheme() + "://" + baseUri.getRawAuthority() + relative;
+        }
+        String path = baseUri.getRawPath();
+        String directory = path != null && path.contains("/") ? path.substring(0, path.lastIndexOf('/') + 1) : "/";
+        return baseUri.getScheme() + "://" + baseUri.getRawAuthority() + directory + relative;
+    }
+
+    private static String contentTypeOf(String contentType, String mimeType) {
+        if (contentType != null) {
+            return contentType;
+        }
+        if (mimeType != null && mimeType.contains("/")) {
+            return mimeType.substring(0, mimeType.indexOf('/'));
+        }
+        return "unknown";
+    }
+
+    private static long parseLong(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    static long parseDurationMs(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        Matcher matcher = ISO_DURATION.matcher(value.trim());
+        if (!matcher.matches()) {
+            return fallback;
+        }
+        double seconds = 0;
+        if (matcher.group(1) != null) {
+            seconds += Long.parseLong(matcher.group(1)) * 86400;
+        }
+        if (matcher.group(2) != null) {
+            seconds += Long.parseLong(matcher.group(2)) * 3600;
+        }
+        if (matcher.group(3) != null) {
+            seconds += Long.parseLong(matcher.group(3)) * 60;
+        }
+        if (matcher.group(4) != null) {
+            seconds += Double.parseDouble(matcher.group(4));
+        }
+        return (long) (seconds * 1000);
+    }
+
+    /**
+     * 解析 xs:dateTime，按时区偏移换算成 UTC 毫秒；没有时区时按 UTC 处理，无法解析时返回 0
+     */
+    static long parseDateMs(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Matcher matcher = ISO_DATE_TIME.matcher(value.trim());
+        if (!matcher.matches()) {
+            return 0;
+        }
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1,
+                Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)),
+                Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)));
+        long ms = calendar.getTimeInMillis();
+        String fraction = matcher.group(7);
+        if (fraction != null) {
+            // 只取到毫秒
+            String millis = (fraction + "00").substring(0, 3);
+            ms += Integer.parseInt(millis);
+        }
+        String zone = matcher.group(8);
+        if (zone != null && !"Z".equals(zone)) {
+            String digits = zone.substring(1).replace(":", "");
+            long offsetMs = (Integer.parseInt(digits.substring(0, 2)) * 60L
+                    + Integer.parseInt(digits.substring(2, 4))) * 60 * 1000;
+            // 本地时间减去偏移得到 UTC
+            ms += zone.charAt(0) == '+' ? -offsetMs : offsetMs;
+        }
+        return ms;
+    }
+}
@@ -0,0 +1,277 @@
+package com.bytedance.myapplication.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Glide 缓存和解码配置
+ * 从 assets/glide/glide.properties 按设备内存档位读取内存缓存、BitmapPool、磁盘缓存大小以及解码参数，
+ * 由 GlideConfigModule 在 Glide 初始化时应用；同时统计三级缓存的命中率
+ * 配置文件缺失或某一项解析失败时使用代码中的默认值（与 mid 档位相同）
+ */
+public class ImageCacheConfig {
+    private static final String TAG = "ImageCacheConfig";
+    private static final String CONFIG_ASSET = "glide/glide.properties";
+    private static ImageCacheConfig instance;
+
+    public enum DeviceClass {
+        LOW,
+        MID,
+        HIGH
+    }
+
+    private DeviceClass deviceClass = DeviceClass.MID;
+    private float memoryCacheScreens = 2f;
+    private float bitmapPoolScreens = 3f;
+    private float maxHeapFraction = 0.4f;
+    private int diskCacheMb = 250;
+    private volatile boolean rgb565Thumbnails = true;
+    private volatile DownsampleStrategy downsampleStrategy = DownsampleStrategy.CENTER_OUTSIDE;
+    private volatile boolean resizeAvatars = true;
+    private volatile String resizeQuery = "w={w}&h={h}";
+    private boolean loaded = false;
+
+    // 缓存命中统计（Glide 的各个线程更新）
+    private final AtomicLong memoryHitCount = new AtomicLong(0);
+    private final AtomicLong memoryMissCount = new AtomicLong(0);
+    private final AtomicLong poolHitCount = new AtomicLong(0);
+    private final AtomicLong poolMissCount = new AtomicLong(0);
+    private final AtomicLong diskHitCount = new AtomicLong(0);
+    private final AtomicLong diskMissCount = new AtomicLong(0);
+
+    private ImageCacheConfig() {
+    }
+
+    public static synchronized ImageCacheConfig getInstance() {
+        if (instance == null) {
+            instance = new ImageCacheConfig();
+        }
+        return instance;
+    }
+
+    /**
+     * 判断设备档位并读取配置（只读取一次，在 Glide 初始化时调用）
+     */
+    public synchronized void load(Context context) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        Context appContext = context.getApplicationContext();
+        deviceClass = detectDeviceClass(appContext);
+
+        Properties properties = new Properties();
+        try (InputStream inputStream = appContext.getAssets().open(CONFIG_ASSET)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            Log.w(TAG, "读取图片缓存配置失败，使用默认值: " + CONFIG_ASSET, e);
+        }
+
+        String prefix = deviceClass.name().toLowerCase(Locale.US) + ".";
+        memoryCacheScreens = getFloat(properties, prefix + "memory_cache_screens", memoryCacheScreens);
+        bitmapPoolScreens = getFloat(properties, prefix + "bitmap_pool_screens", bitmapPoolScreens);
+        maxHeapFraction = getFloat(properties, prefix + "max_heap_fraction", maxHeapFraction);
+        diskCacheMb = (int) getFloat(properties, prefix + "disk_cache_mb", diskCacheMb);
+        rgb565Thumbnails = Boolean.parseBoolean(properties.getProperty("rgb565_thumbnails", String.valueOf(rgb565Thumbnails)));
+        resizeAvatars = Boolean.parseBoolean(properties.getProperty("resize_avatars", String.valueOf(resizeAvatars)));
+        resizeQuery = properties.getProperty("resize_query", resizeQuery).trim();
+        downsampleStrategy = "at_least".equalsIgnoreCase(properties.getProperty("downsample", "").trim())
+                ? DownsampleStrategy.AT_LEAST : DownsampleStrategy.CENTER_OUTSIDE;
+        Log.d(TAG, "图片缓存配置: 档位=" + deviceClass + ", 内存缓存=" + memoryCacheScreens + "屏"
+                + ", BitmapPool=" + bitmapPoolScreens + "屏, 磁盘缓存=" + diskCacheMb + "MB");
+    }
+
+    private static DeviceClass detectDeviceClass(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return DeviceClass.MID;
+        }
+        int memoryClass = activityManager.getMemoryClass();
+        if (activityManager.isLowRamDevice() || memoryClass <= 128) {
+            return DeviceClass.LOW;
+        }
+        return memoryClass <= 256 ? DeviceClass.MID : DeviceClass.HIGH;
+    }
+
+    private static float getFloat(Properties properties, String key, float defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "无效的配置项: " + key + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    public DeviceClass getDeviceClass() {
+        return deviceClass;
+    }
+
+    public float getMemoryCacheScreens() {
+        return memoryCacheScreens;
+    }
+
+    public float getBitmapPoolScreens() {
+        return bitmapPoolScreens;
+    }
+
+    public float getMaxHeapFraction() {
+        return maxHeapFraction;
+    }
+
+    public long getDiskCacheBytes() {
+        return diskCacheMb * MemoryBudget.MB;
+    }
+
+    public boolean isRgb565Thumbnails() {
+        return rgb565Thumbnails;
+    }
+
+    public DownsampleStrategy getDownsampleStrategy() {
+        return downsampleStrategy;
+    }
+
+    /**
+     * 头像的加载模型：开启服务端缩放时包装成 ResizedImage，由 ResizedImage.Loader 按目标尺寸拼接地址
+     */
+    public Object avatarModel(String url) {
+        return resizeAvatars && url != null && !url.isEmpty() ? new ResizedImage(url) : url;
+    }
+
+    /**
+     * 按目标尺寸拼接服务端缩放参数，尺寸未知（原图加载）时返回原地址
+     */
+    public String resizedUrl(String url, int width, int height) {
+        if (width <= 0 || height <= 0 || resizeQuery.isEmpty()) {
+            return url;
+        }
+        String query = resizeQuery
+                .replace("{w}", String.valueOf(width))
+                .replace("{h}", String.valueOf(height))
+                .replace("{max}", String.valueOf(Math.max(width, height)));
+        return url + (url.indexOf('?') >= 0 ? "&" : "?") + query;
+    }
+
+    /**
+     * 设备档位和三级缓存命中率，每项一行，例如 "内存缓存 命中 120/150 (80%)"
+     */
+    public String describeStats() {
+        return "档位=" + deviceClass + "\n"
+                + describeRatio("内存缓存", memoryHitCount.get(), memoryMissCount.get()) + "\n"
+                + describeRatio("BitmapPool", poolHitCount.get(), poolMissCount.get()) + "\n"
+                + describeRatio("磁盘缓存", diskHitCount.get(), diskMissCount.get()) + "\n";
+    }
+
+    private static String describeRatio(String name, long hit, long miss) {
+        long total = hit + miss;
+        return name + " 命中 " + hit + "/" + total + " (" + (total > 0 ? hit * 100 / total : 0) + "%)";
+    }
+
+    /**
+     * 统计命中的内存缓存：Engine 只在查询缓存时调用 remove（命中的资源转为活动资源）
+     * 正在显示的图片由活动资源直接命中，不经过这里
+     */
+    public static class CountingResourceCache extends LruResourceCache {
+        public CountingResourceCache(long size) {
+            super(size);
+        }
+
+        @Nullable
+        @Override
+        public synchronized Resource<?> remove(@NonNull Key key) {
+            Resource<?> resource = super.remove(key);
+            ImageCacheConfig config = getInstance();
+            (resource != null ? config.memoryHitCount : config.memoryMissCount).incrementAndGet();
+            return resource;
+        }
+    }
+
+    /**
+     * 统计命中的 BitmapPool：取出后池中的大小减少说明复用了已有的 Bitmap，否则是新分配的
+     */
+    public static class CountingBitmapPool extends LruBitmapPool {
+        public CountingBitmapPool(long maxSize) {
+            super(maxSize);
+        }
+
+        @NonNull
+        @Override
+        public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+            long before = getCurrentSize();
+            Bitmap bitmap = super.get(width, height, config);
+            record(before);
+            return bitmap;
+        }
+
+        @NonNull
+        @Override
+        public synchronized Bitmap getDirty(int width, int height, Bitmap.Config config) {
+            long before = getCurrentSize();
+            Bitmap bitmap = super.getDirty(width, height, config);
+            record(before);
+            return bitmap;
+        }
+
+        private void record(long sizeBefore) {
+            ImageCacheConfig config = getInstance();
+            (getCurrentSize() < sizeBefore ? config.poolHitCount : config.poolMissCount).incrementAndGet();
+        }
+    }
+
+    /**
+     * 统计命中的磁盘缓存（转换后的资源和原始数据两种缓存都计入）
+     */
+    public static class CountingDiskCache implements DiskCache {
+        private final DiskCache delegate;
+
+        public CountingDiskCache(DiskCache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Nullable
+        @Override
+        public File get(Key key) {
+            File file = delegate.get(key);
+            ImageCacheConfig config = getInstance();
+            (file != null ? config.diskHitCount : config.diskMissCount).incrementAndGet();
+            return file;
+        }
+
+        @Override
+        public void put(Key key, Writer writer) {
+            delegate.put(key, writer);
+        }
+
+        @Override
+        public void delete(Key key) {
+            delegate.delete(key);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.bytedance.myapplication.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多模式关键词匹配器（Aho-Corasick 自动机）
+ * 构建后不可变，可在多个线程中并发使用
+ * 单条文本的匹配耗时只与文本长度和命中次数有关，与词库大小无关
+ * 匹配忽略大小写
+ */
+public final class KeywordMatcher {
+    private static final int ROOT = 0;
+    private static final long EMPTY = -1L;
+
+    // 状态转移表（开放寻址哈希）：key = (state << 16) | char
+    private final long[] transitionKeys;
+    private final int[] transitionTargets;
+    private final int transitionMask;
+
+    private final int[] failure;      // 失配指针
+    private final int[] output;       // 在该状态结束的关键词下标，-1 表示无
+    private final int[] outputLink;   // 沿失配链最近的带输出的状态，-1 表示无
+    private final int[] patternLengths;
+    private final int[] patternTags;
+
+    /**
+     * 匹配回调
+     */
+    public interface MatchListener {
+        /**
+         * @param start 命中起始位置（包含）
+         * @param end 命中结束位置（不包含）
+         * @param tag 构建时关键词附带的标记
+         */
+        void onMatch(int start, int end, int tag);
+    }
+
+    private KeywordMatcher(Builder builder) {
+        int stateCount = builder.children.size();
+        failure = new int[stateCount];
+        output = builder.toIntArray(builder.output);
+        outputLink = new int[stateCount];
+        patternLengths = builder.toIntArray(builder.patternLengths);
+        patternTags = builder.toIntArray(builder.patternTags);
+
+        // 转移表容量：边数的 2 倍以上，取 2 的幂
+        int edgeCount = Math.max(1, stateCount - 1);
+        int capacity = Integer.highestOneBit(edgeCount * 2 - 1) << 1;
+        if (capacity < 16) {
+            capacity = 16;
+        }
+        transitionKeys = new long[capacity];
+        transitionTargets = new int[capacity];
+        transitionMask = capacity - 1;
+        java.util.Arrays.fill(transitionKeys, EMPTY);
+        for (int state = 0; state < stateCount; state++) {
+            for (Map.Entry<Character, Integer> edge : builder.children.get(state).entrySet()) {
+                putTransition(state, edge.getKey(), edge.getValue());
+            }
+        }
+
+        // BFS 计算失配指针和输出链
+        outputLink[ROOT] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : builder.children.get(ROOT).values()) {
+            failure[child] = ROOT;
+            outputLink[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : builder.children.get(state).entrySet()) {
+                char c = edge.getKey();
+                int child = edge.getValue();
+                int fallback = failure[state];
+                int target;
+                while ((target = getTransition(fallback, c)) < 0 && fallback != ROOT) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = target >= 0 && target != child ? target : ROOT;
+                int failState = failure[child];
+                outputLink[child] = output[failState] >= 0 ? failState : outputLink[failState];
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void putTransition(int state, char c, int target) {
+        long key = ((long) state << 16) | c;
+        int slot = hash(key) & transitionMask;
+        while (transitionKeys[slot] != EMPTY) {
+            slot = (slot + 1) & transitionMask;
+        }
+        transitionKeys[slot] = key;
+        transitionTargets[slot] = target;
+    }
+
+    private int getTransition(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int slot = hash(key) & transitionMask;
+        long current;
+        while ((current = transitionKeys[slot]) != EMPTY) {
+            if (current == key) {
+                return transitionTargets[slot];
+            }
+            slot = (slot + 1) & transitionMask;
+        }
+        return -1;
+    }
+
+    /**
+     * 扫描文本，报告所有命中（包括重叠命中）
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        if (text == null || listener == null) {
+            return;
+        }
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = getTransition(state, c)) < 0 && state != ROOT) {
+                state = failure[state];
+            }
+            state = next >= 0 ? next : ROOT;
+
+            int matchState = output[state] >= 0 ? state : outputLink[state];
+            while (matchState >= 0) {
+                int pattern = output[matchState];
+                listener.onMatch(i + 1 - patternLengths[pattern], i + 1, patternTags[pattern]);
+                matchState = outputLink[matchState];
+            }
+        }
+    }
+
+    /**
+     * 文本中是否包含任意关键词
+     */
+    public boolean containsAny(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = getTransition(state, c)) < 0 && state != ROOT) {
+                state = failure[state];
+            }
+            state = next >= 0 ? next : ROOT;
+            if (output[state] >= 0 || outputLink[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getPatternCount() {
+        return patternLengths.length;
+    }
+
+    /**
+     * 匹配器构建器
+     * 同一关键词重复添加时，标记按位合并
+     */
+    public static class Builder {
+        private final List<Map<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> output = new ArrayList<>();
+        private final List<Integer> patternLengths = new ArrayList<>();
+        private final List<Integer> patternTags = new ArrayList<>();
+
+        public Builder() {
+            newState();
+        }
+
+        private int newState() {
+            children.add(new HashMap<>());
+            output.add(-1);
+            return children.size() - 1;
+        }
+
+        public Builder add(String keyword, int tag) {
+            if (keyword == null || keyword.isEmpty()) {
+                return this;
+            }
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = newState();
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            int existing = output.get(state);
+            if (existing >= 0) {
+                patternTags.set(existing, patternTags.get(existing) | tag);
+            } else {
+                output.set(state, patternLengths.size());
+                patternLengths.add(keyword.length());
+                patternTags.add(tag);
+            }
+            return this;
+        }
+
+        public KeywordMatcher build() {
+            return new KeywordMatcher(this);
+        }
+
+        private int[] toIntArray(List<Integer> values) {
+            int[] result = new int[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = values.get(i);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.bytedance.myapplication.utils;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 播放器页面的本地资源服务
+ * player.html、xgplayer.js、xgplayer-shaka.js 通过虚拟 https 域名提供（由 PlayerWebViewClient 拦截返回）：
+ * - 首次读取后保存在直接内存 ByteBuffer 中，之后的播放器加载不再读 APK、不再解压
+ * - 响应带长期缓存头；页面是 https 源而不是 file://，WebView 可以对脚本使用 V8 代码缓存
+ * 使用 appassets.androidplatform.net 域名（Android 为本地资源保留的域名，不会发出真实网络请求）
+ */
+public class LocalAssetServer {
+    private static final String TAG = "LocalAssetServer";
+    private static LocalAssetServer instance;
+
+    private static final String HOST = "appassets.androidplatform.net";
+    public static final String ORIGIN = "https://" + HOST;
+    private static final String PATH_PREFIX = "/assets/";
+    public static final String PLAYER_PAGE_URL = ORIGIN + PATH_PREFIX + "player.html";
+
+    private static final Set<String> SERVED_ASSETS = new HashSet<>(Arrays.asList(
+            "player.html", "xgplayer.js", "xgplayer-shaka.js"));
+    // 资源随 APK 发布不会变化，缓存一年
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final Map<String, ByteBuffer> buffers = new ConcurrentHashMap<>();
+    private volatile AssetManager assetManager;
+
+    private LocalAssetServer() {
+    }
+
+    public static synchronized LocalAssetServer getInstance() {
+        if (instance == null) {
+            instance = new LocalAssetServer();
+        }
+        return instance;
+    }
+
+    public void init(Context context) {
+        if (assetManager == null) {
+            assetManager = context.getApplicationContext().getAssets();
+        }
+    }
+
+    /**
+     * 提前把播放器资源读入内存（在后台线程调用）
+     */
+    public void warmUp() {
+        for (String name : SERVED_ASSETS) {
+            load(name);
+        }
+    }
+
+    /**
+     * 播放器页面地址
+     * @param preload 预加载模式（静音、只缓冲）
+     */
+    public static String playerUrl(String streamUrl, boolean preload) {
+        String url = PLAYER_PAGE_URL + "?url=" + Uri.encode(streamUrl);
+        return preload ? url + "&preload=true" : url;
+    }
+
+    /**
+     * WebView 资源拦截（在 WebView 的 IO 线程调用）
+     * @return 虚拟域名下的播放器资源返回内存中的数据，其他请求返回 null
+     */
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        if (request == null || !"GET".equalsIgnoreCase(request.getMethod())) {
+            return null;
+        }
+        Uri uri = request.getUrl();
+        if (!"https".equals(uri.getScheme()) || !HOST.equals(uri.getHost())) {
+            return null;
+        }
+        String path = uri.getPath();
+        if (path == null || !path.startsWith(PATH_PREFIX)) {
+            return null;
+        }
+        String name = path.substring(PATH_PREFIX.length());
+        if (!SERVED_ASSETS.contains(name)) {
+            return null;
+        }
+
+        ByteBuffer buffer = load(name);
+        if (buffer == null) {
+            return new WebResourceResponse("text/plain", "utf-8", 404, "Not Found",
+                    new HashMap<>(), new ByteArrayInputStream(new byte[0]));
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", CACHE_CONTROL);
+        headers.put("Access-Control-Allow-Origin", "*");
+        headers.put("Content-Length", String.valueOf(buffer.remaining()));
+        return new WebResourceResponse(mimeTypeOf(name), "utf-8", 200, "OK", headers,
+                new ByteBufferInputStream(buffer.duplicate()));
+    }
+
+    private ByteBuffer load(String name) {
+        ByteBuffer buffer = buffers.get(name);
+        if (buffer != null) {
+            return buffer;
+        }
+        AssetManager assets = assetManager;
+        if (assets == null) {
+            return null;
+        }
+        try (InputStream inputStream = assets.open(name)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(64 * 1024);
+            byte[] chunk = new byte[16 * 1024];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                output.write(chunk, 0, read);
+            }
+            byte[] bytes = output.toByteArray();
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            direct.flip();
+            // 并发读取时只保留第一份，保证所有响应共用同一块内存
+            ByteBuffer existing = buffers.putIfAbsent(name, direct.asReadOnlyBuffer());
+            Log.d(TAG, "资源已载入内存: " + name + " (" + (bytes.length / 1024) + "KB)");
+            return existing != null ? existing : buffers.get(name);
+        } catch (Exception e) {
+            Log.e(TAG, "读取资源失败: " + name, e);
+            return null;
+        }
+    }
+
+    private static String mimeTypeOf(String name) {
+        if (name.endsWith(".html")) {
+            return "text/html";
+        }
+        if (name.endsWith(".js")) {
+            return "application/javascript";
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * 以流的方式读取 ByteBuffer（每个响应使用独立的 duplicate，互不影响读取位置）
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
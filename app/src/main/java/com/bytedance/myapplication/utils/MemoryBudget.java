@@ -0,0 +1,257 @@
+package com.bytedance.myapplication.utils;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 预加载资源的统一内存预算
+ * WebView 池、View 池、布局预渲染、图片预加载、直播间预览帧等子系统登记为 Holder，各自报告估算内存，
+ * 并区分预测性占用（可以随时释放）和必需占用（正在使用）
+ * - 预算按设备内存档位（memoryClass）计算，必需占用先从预算中扣除，剩余部分留给预测性占用
+ * - 预测性占用超出预算或系统内存紧张（onTrimMemory）时，按优先级从低到高释放
+ * - 子系统预加载前通过 hasRoomFor 检查预算，优先级更低的占用可以被挤出
+ * 注意：register / unregister / requestCheck 可在任意线程调用，其余方法需要在主线程调用（Holder 的统计和释放都在主线程执行）
+ */
+public class MemoryBudget {
+    private static final String TAG = "MemoryBudget";
+    private static MemoryBudget instance;
+
+    // 释放优先级：数值越小越先释放
+    public static final int PRIORITY_IMAGE_PRELOAD = 10;
+    public static final int PRIORITY_ROOM_PREVIEW = 15;
+    public static final int PRIORITY_VIEW_POOL = 20;
+    public static final int PRIORITY_LAYOUT = 30;
+    public static final int PRIORITY_WARM_WEBVIEW = 40;
+    public static final int PRIORITY_STREAM_PRELOAD = 50;
+    public static final int PRIORITY_TTL_ROOM = 60;
+    // 只报告必需占用、不参与释放
+    public static final int PRIORITY_REQUIRED = Integer.MAX_VALUE;
+
+    public static final long MB = 1024 * 1024;
+
+    // 预算占 memoryClass 的比例（WebView 的估算包含渲染进程中的占用，因此按 memoryClass 的倍数计算）
+    private static final float BUDGET_RATIO = 0.75f;
+    private static final float LOW_RAM_BUDGET_RATIO = 0.4f;
+    // 收到内存压力后，缩小的预算保持的时长
+    private static final long PRESSURE_HOLD_MS = 60 * 1000;
+
+    /**
+     * 登记到预算中的子系统
+     */
+    public interface Holder {
+        String getName();
+
+        /** 可以释放的预测性占用（字节） */
+        long getSpeculativeBytes();
+
+        /** 正在使用、不能释放的占用（字节） */
+        long getRequiredBytes();
+
+        /**
+         * 释放预测性占用（在主线程调用）
+         * @param bytes 希望释放的字节数，尽量释放不少于该值
+         * @return 实际释放的估算字节数
+         */
+        long releaseSpeculative(long bytes);
+    }
+
+    private static class Registration {
+        final Holder holder;
+        final int priority;
+
+        Registration(Holder holder, int priority) {
+            this.holder = holder;
+            this.priority = priority;
+        }
+    }
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable checkRunnable = this::enforce;
+    private volatile long budgetBytes = 128 * MB;
+    private volatile float pressureFactor = 1.0f;
+    private volatile long pressureUntil = 0;
+    private volatile boolean checkScheduled = false;
+
+    private MemoryBudget() {
+    }
+
+    public static synchronized MemoryBudget getInstance() {
+        if (instance == null) {
+            instance = new MemoryBudget();
+        }
+        return instance;
+    }
+
+    /**
+     * 按设备内存档位计算预算
+     */
+    public void init(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getApplicationContext()
+                .getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return;
+        }
+        float ratio = activityManager.isLowRamDevice() ? LOW_RAM_BUDGET_RATIO : BUDGET_RATIO;
+        budgetBytes = (long) (activityManager.getMemoryClass() * MB * ratio);
+        Log.d(TAG, "预加载内存预算: " + (budgetBytes / MB) + "MB, memoryClass=" + activityManager.getMemoryClass());
+    }
+
+    public void register(Holder holder, int priority) {
+        for (Registration registration : registrations) {
+            if (registration.holder == holder) {
+                return;
+            }
+        }
+        registrations.add(new Registration(holder, priority));
+    }
+
+    public void unregister(Holder holder) {
+        for (Registration registration : registrations) {
+            if (registration.holder == holder) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * 预测性占用可用的预算：总预算（内存紧张时按比例缩小）减去必需占用
+     */
+    public long getSpeculativeLimit() {
+        float factor = SystemClock.uptimeMillis() < pressureUntil ? pressureFactor : 1.0f;
+        long limit = (long) (budgetBytes * factor) - getRequiredBytes();
+        return Math.max(0, limit);
+    }
+
+    public long getRequiredBytes() {
+        long total = 0;
+        for (Registration registration : registrations) {
+            total += registration.holder.getRequiredBytes();
+        }
+        return total;
+    }
+
+    public long getSpeculativeBytes() {
+        long total = 0;
+        for (Registration registration : registrations) {
+            total += registration.holder.getSpeculativeBytes();
+        }
+        return total;
+    }
+
+    /**
+     * 是否还能为指定优先级的预测性占用分配 bytes
+     * 只计算优先级不低于它的占用：更低优先级的占用会在超出预算时先被释放
+     */
+    public boolean hasRoomFor(long bytes, int priority) {
+        long used = 0;
+        for (Registration registration : registrations) {
+            if (registration.priority >= priority) {
+                used += registration.holder.getSpeculativeBytes();
+            }
+        }
+        return used + bytes <= getSpeculativeLimit();
+    }
+
+    /**
+     * 子系统分配了新的预测性占用后调用，检查合并到下一次主线程消息中执行
+     */
+    public void requestCheck() {
+        if (checkScheduled) {
+            return;
+        }
+        checkScheduled = true;
+        mainHandler.post(checkRunnable);
+    }
+
+    /**
+     * 预测性占用超出预算时，按优先级从低到高释放（主线程调用）
+     */
+    public void enforce() {
+        checkScheduled = false;
+        long over = getSpeculativeBytes() - getSpeculativeLimit();
+        if (over <= 0) {
+            return;
+        }
+        long freed = releaseInPriorityOrder(over);
+        Log.d(TAG, "预加载内存超出预算 " + (over / 1024) + "KB，已释放 " + (freed / 1024) + "KB: " + describe());
+    }
+
+    /**
+     * 响应系统内存压力：一段时间内缩小预算并立即释放超出部分（主线程调用）
+     */
+    public void onTrimMemory(int level) {
+        float factor;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            factor = 0f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            factor = 0.25f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            factor = 0.5f;
+        } else {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        // 持续压力期间只会进一步收紧
+        if (now >= pressureUntil || factor < pressureFactor) {
+            pressureFactor = factor;
+        }
+        pressureUntil = now + PRESSURE_HOLD_MS;
+        Log.d(TAG, "内存紧张(level=" + level + ")，预算缩小到 " + (int) (pressureFactor * 100) + "%");
+        enforce();
+    }
+
+    private long releaseInPriorityOrder(long bytes) {
+        List<Registration> ordered = new ArrayList<>(registrations);
+        Collections.sort(ordered, (a, b) -> Integer.compare(a.priority, b.priority));
+        long freed = 0;
+        for (Registration registration : ordered) {
+            if (freed >= bytes) {
+                break;
+            }
+            if (registration.priority == PRIORITY_REQUIRED
+                    || registration.holder.getSpeculativeBytes() <= 0) {
+                continue;
+            }
+            try {
+                freed += registration.holder.releaseSpeculative(bytes - freed);
+            } catch (Exception e) {
+                Log.e(TAG, "释放预加载资源失败: " + registration.holder.getName(), e);
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * 各子系统的占用，例如 "预缓冲直播间=35MB 使用中WebView=60MB(必需) limit=132MB"
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (Registration registration : registrations) {
+            Holder holder = registration.holder;
+            long speculative = holder.getSpeculativeBytes();
+            long required = holder.getRequiredBytes();
+            if (speculative > 0) {
+                builder.append(holder.getName()).append('=').append(speculative / 1024).append("KB ");
+            }
+            if (required > 0) {
+                builder.append(holder.getName()).append('=').append(required / 1024).append("KB(必需) ");
+            }
+        }
+        builder.append("limit=").append(getSpeculativeLimit() / MB).append("MB");
+        return builder.toString();
+    }
+}
@@ -4,9 +4,12 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import com.bytedance.myapplication.repository.RoomDirectory;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PerformanceMonitor {
     private static final String TAG = "PerformanceMonitor";
@@ -19,6 +22,16 @@ public class PerformanceMonitor {
     // 视频性能指标
     private static final Map<String, VideoPerformanceMetrics> videoMetrics = new ConcurrentHashMap<>();
     private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 流预取缓存命中统计（在 WebView 的 IO 线程更新）
+    private static final AtomicInteger prefetchHitCount = new AtomicInteger(0);
+    private static final AtomicInteger prefetchMissCount = new AtomicInteger(0);
+    private static final AtomicLong prefetchBytesSaved = new AtomicLong(0);
+    // 列表缩略图预取统计（主线程更新）
+    private static final AtomicInteger thumbnailPrefetchHitCount = new AtomicInteger(0);
+    private static final AtomicInteger thumbnailPrefetchLateCount = new AtomicInteger(0);
+    private static final AtomicInteger thumbnailPrefetchMissCount = new AtomicInteger(0);
+    private static final AtomicInteger thumbnailPrefetchCancelledCount = new AtomicInteger(0);
+    private static final AtomicInteger thumbnailPrefetchWastedCount = new AtomicInteger(0);
     
     public static void recordAppStartTime() {
         if (appStartTime == 0) {
@@ -62,6 +75,44 @@ public class PerformanceMonitor {
         }
     }
     
+    public static void recordPrefetchHit(long bytes) {
+        prefetchHitCount.incrementAndGet();
+        prefetchBytesSaved.addAndGet(bytes);
+    }
+    
+    public static void recordPrefetchMiss() {
+        prefetchMissCount.incrementAndGet();
+    }
+    
+    public static void recordThumbnailPrefetchHit() {
+        thumbnailPrefetchHitCount.incrementAndGet();
+    }
+    
+    public static void recordThumbnailPrefetchLate() {
+        thumbnailPrefetchLateCount.incrementAndGet();
+    }
+    
+    public static void recordThumbnailPrefetchMiss() {
+        thumbnailPrefetchMissCount.incrementAndGet();
+    }
+    
+    public static void recordThumbnailPrefetchCancelled() {
+        thumbnailPrefetchCancelledCount.incrementAndGet();
+    }
+    
+    public static void recordThumbnailPrefetchWasted() {
+        thumbnailPrefetchWastedCount.incrementAndGet();
+    }
+    
+    /**
+     * 缩略图预取命中率：绑定时预取已完成的比例（迟到的不算命中）
+     */
+    public static int getThumbnailPrefetchHitRate() {
+        int hit = thumbnailPrefetchHitCount.get();
+        int total = hit + thumbnailPrefetchLateCount.get() + thumbnailPrefetchMissCount.get();
+        return total > 0 ? hit * 100 / total : 0;
+    }
+    
     public static void initVideoRenderMonitor(String pageId) {
         videoRenderStatus.put(pageId, false);
     }
@@ -132,6 +183,46 @@ public class PerformanceMonitor {
                 videoMetrics.playingTime - videoMetrics.loadedDataTime));
         }
         
+        // WebView 池各状态数量和估算内存（低内存机型排查 OOM 用）
+        report.append("\n--- WebView 池 ---\n");
+        report.append(WebViewPool.getInstance().describe()).append("\n");
+        report.append(PreloadManager.getInstance().describePreloadStats()).append("\n");
+        
+        report.append("\n--- 后台直播间 ---\n");
+        report.append(BackgroundRoomPolicy.getInstance().describeStats());
+        
+        report.append("\n--- View 池 ---\n");
+        report.append(ViewPoolManager.getInstance().describeUsageStats());
+        report.append(ViewPoolManager.getInstance().describeInflateStats());
+        
+        report.append("\n--- 预渲染布局 ---\n");
+        report.append(ActivityLayoutPreloader.getInstance().describeStats());
+        
+        report.append("\n--- 直播间目录 ---\n");
+        report.append(RoomDirectory.getInstance().describe()).append("\n");
+        
+        report.append("\n--- 内存预算 ---\n");
+        report.append(MemoryBudget.getInstance().describe()).append("\n");
+        
+        report.append("\n--- 缩略图预取 ---\n");
+        report.append(String.format("命中: %d, 迟到: %d, 未命中: %d, 取消: %d, 浪费: %d, 命中率: %d%%\n",
+                thumbnailPrefetchHitCount.get(), thumbnailPrefetchLateCount.get(),
+                thumbnailPrefetchMissCount.get(), thumbnailPrefetchCancelledCount.get(),
+                thumbnailPrefetchWastedCount.get(), getThumbnailPrefetchHitRate()));
+        
+        report.append("\n--- 图片缓存 ---\n");
+        report.append(ImageCacheConfig.getInstance().describeStats());
+        
+        report.append("\n--- 直播间预览 ---\n");
+        report.append(RoomPreviewCache.getInstance().describeStats()).append("\n");
+        
+        report.append("\n--- 进房耗时 ---\n");
+        report.append(RoomEntryOrchestrator.getInstance().describeStats());
+        
+        report.append("\n--- 流预取缓存 ---\n");
+        report.append(String.format("命中: %d, 未命中: %d, 节省流量: %dKB\n",
+                prefetchHitCount.get(), prefetchMissCount.get(), prefetchBytesSaved.get() / 1024));
+        
         report.append("=========================");
         Log.d(TAG, report.toString());
     }
@@ -0,0 +1,489 @@
+package com.bytedance.myapplication.utils;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebMessage;
+import android.webkit.WebMessagePort;
+import android.webkit.WebView;
+
+import org.json.JSONArray;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Java 与播放器页面（player.html）之间的通道
+ * 命令（Java → 页面）：
+ * - 命令按类型构造（播放、静音、跳到直播边缘、切换地址、缓冲目标、暂停解码、释放播放器），不再手写 JavaScript 字符串
+ * - 命令序列化为紧凑的 JSON 数组，例如 [["m",0],["p"]]
+ * - 同一轮消息循环内发送的命令合并成一批，页面就绪后只调用一次 evaluateJavascript；页面未就绪时先排队
+ * - 同一批中重复的命令只保留最后一次（例如连续多次静音 / 取消静音）
+ * 事件（页面 → Java）：
+ * - 页面加载完成后建立 WebMessagePort，页面通过它推送生命周期事件（脚本加载、播放器创建、canplay、playing、waiting、paused、released、error）
+ * - 事件驱动状态机（State），调用方通过 whenReached / addListener 在确切的时间点执行操作，不再轮询或固定延迟
+ * 截帧：snapshot 通过 evaluateJavascript 的返回值取得当前视频帧（列表预览使用）
+ * 每个 WebView 对应一个 PlayerBridge，通过 of(webView) 获取
+ * 注意：所有方法都需要在主线程调用
+ */
+public class PlayerBridge {
+    private static final String TAG = "PlayerBridge";
+    private static final String PORT_HANDSHAKE = "pb-port";
+    private static final Map<WebView, PlayerBridge> bridges = new WeakHashMap<>();
+
+    /**
+     * 播放器页面状态
+     * IDLE → LOADING → SCRIPT_LOADED → PLAYER_CREATED → CAN_PLAY → PLAYING ⇄ BUFFERING / PAUSED
+     * 播放器被释放后进入 RELEASED，重新创建时再次经过 PLAYER_CREATED、CAN_PLAY
+     * 任意状态都可能进入 ERROR；重新导航回到 LOADING
+     */
+    public enum State {
+        IDLE,
+        LOADING,
+        // 页面脚本已执行，可以接收命令
+        SCRIPT_LOADED,
+        PLAYER_CREATED,
+        CAN_PLAY,
+        PLAYING,
+        PAUSED,
+        BUFFERING,
+        // 播放器实例已销毁（页面保留），收到播放命令时重新创建
+        RELEASED,
+        ERROR
+    }
+
+    public interface StateListener {
+        void onStateChanged(PlayerBridge bridge, State state);
+    }
+
+    /**
+     * 播放器命令
+     */
+    public static final class Command {
+        final String op;
+        final Object arg;
+
+        private Command(String op, Object arg) {
+            this.op = op;
+            this.arg = arg;
+        }
+
+        /** 播放（数据不足时等到 canplay 再播放） */
+        public static Command play() {
+            return new Command("p", null);
+        }
+
+        public static Command mute(boolean muted) {
+            return new Command("m", muted ? 1 : 0);
+        }
+
+        /** 跳到直播边缘 */
+        public static Command seekToLive() {
+            return new Command("l", null);
+        }
+
+        public static Command switchUrl(String url) {
+            return new Command("u", url);
+        }
+
+        /** 设置缓冲目标（秒） */
+        public static Command setBufferGoal(double seconds) {
+            return new Command("b", seconds);
+        }
+
+        /** 暂停解码，保留已缓冲的数据 */
+        public static Command suspend() {
+            return new Command("s", null);
+        }
+
+        /** 销毁播放器实例，之后的播放命令会重新创建播放器 */
+        public static Command release() {
+            return new Command("r", null);
+        }
+
+        JSONArray toJson() {
+            JSONArray json = new JSONArray();
+            json.put(op);
+            if (arg != null) {
+                json.put(arg);
+            }
+            return json;
+        }
+    }
+
+    private static class PendingAction {
+        final State target;
+        final Runnable action;
+
+        PendingAction(State target, Runnable action) {
+            this.target = target;
+            this.action = action;
+        }
+    }
+
+    private final WeakReference<WebView> webViewRef;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Command> pending = new ArrayList<>();
+    private final List<PendingAction> pendingActions = new ArrayList<>();
+    private final List<StateListener> listeners = new ArrayList<>();
+    // 当前页面已经到达过的状态
+    private final Set<State> reached = EnumSet.noneOf(State.class);
+    private State state = State.IDLE;
+    // 当前（或正在加载的）页面是否为播放器页面
+    private boolean playerPage = false;
+    private WebMessagePort port;
+    // load() 已经重置过状态，WebViewClient 随后的 onPageStarted 不再重复重置
+    private boolean navigationStarted = false;
+    private boolean flushScheduled = false;
+    private final Runnable flushRunnable = this::flush;
+
+    private PlayerBridge(WebView webView) {
+        webViewRef = new WeakReference<>(webView);
+    }
+
+    /**
+     * 获取（没有时创建）WebView 对应的通道
+     * 页面加载完成后才创建的通道会立即连接，页面会重放已经发生过的事件
+     */
+    public static PlayerBridge of(WebView webView) {
+        PlayerBridge bridge = bridges.get(webView);
+        if (bridge == null) {
+            bridge = new PlayerBridge(webView);
+            bridges.put(webView, bridge);
+            if (isPlayerPage(webView.getUrl()) && webView.getProgress() == 100) {
+                bridge.playerPage = true;
+                bridge.connect();
+            }
+        }
+        return bridge;
+    }
+
+    static PlayerBridge peek(WebView webView) {
+        return webView != null ? bridges.get(webView) : null;
+    }
+
+    public PlayerBridge play() {
+        return send(Command.play());
+    }
+
+    public PlayerBridge mute(boolean muted) {
+        return send(Command.mute(muted));
+    }
+
+    public PlayerBridge seekToLive() {
+        return send(Command.seekToLive());
+    }
+
+    public PlayerBridge switchUrl(String url) {
+        return send(Command.switchUrl(url));
+    }
+
+    public PlayerBridge setBufferGoal(double seconds) {
+        return send(Command.setBufferGoal(seconds));
+    }
+
+    public PlayerBridge suspend() {
+        return send(Command.suspend());
+    }
+
+    public PlayerBridge release() {
+        return send(Command.release());
+    }
+
+    public interface SnapshotCallback {
+        /** @param dataUrl JPEG data URL，页面未就绪或还没有画面时为 null */
+        void onSnapshot(String dataUrl);
+    }
+
+    /**
+     * 截取当前视频帧（页面内缩小到 maxWidth 宽后编码为 JPEG），不影响播放状态
+     */
+    public void snapshot(int maxWidth, SnapshotCallback callback) {
+        WebView webView = webViewRef.get();
+        if (webView == null || !isReady()) {
+            callback.onSnapshot(null);
+            return;
+        }
+        try {
+            webView.evaluateJavascript("window.__pb?__pb.snapshot(" + maxWidth + "):null",
+                    value -> callback.onSnapshot(parseJsString(value)));
+        } catch (Exception e) {
+            Log.w(TAG, "截取视频帧失败", e);
+            callback.onSnapshot(null);
+        }
+    }
+
+    /**
+     * evaluateJavascript 返回 JSON 编码的结果，字符串需要去掉引号和转义
+     */
+    private static String parseJsString(String value) {
+        if (value == null || "null".equals(value)) {
+            return null;
+        }
+        try {
+            return new JSONArray("[" + value + "]").optString(0, null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public PlayerBridge send(Command command) {
+        pending.add(command);
+        scheduleFlush();
+        return this;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 当前页面是否到达过该状态
+     */
+    public boolean hasReached(State target) {
+        return reached.contains(target);
+    }
+
+    public boolean isReady() {
+        return hasReached(State.SCRIPT_LOADED);
+    }
+
+    /**
+     * 是否停留在播放器页面（正在加载或已加载，播放器没有出错）
+     * 按通道记录的导航判断，不读取 WebView.getUrl()
+     */
+    public boolean isOnPlayerPage() {
+        return playerPage && state != State.ERROR;
+    }
+
+    /**
+     * 当前页面到达指定状态时执行一次（已经到达时立即执行）
+     * 页面重新导航时未执行的操作会被丢弃
+     */
+    public void whenReached(State target, Runnable action) {
+        if (hasReached(target)) {
+            action.run();
+        } else {
+            pendingActions.add(new PendingAction(target, action));
+        }
+    }
+
+    public void addListener(StateListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(StateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 加载页面：立即进入 LOADING，之后发送的命令等新页面就绪后下发，不会发给即将被替换的旧页面
+     */
+    public void load(String url) {
+        WebView webView = webViewRef.get();
+        if (webView == null) {
+            return;
+        }
+        resetForNavigation();
+        navigationStarted = true;
+        playerPage = isPlayerPage(url);
+        webView.loadUrl(url);
+    }
+
+    /**
+     * WebViewClient.onPageStarted 回调
+     */
+    void onPageStarted() {
+        if (navigationStarted) {
+            navigationStarted = false;
+            return;
+        }
+        // 不经过 load() 的导航，页面加载完成时再确定是否为播放器页面
+        playerPage = false;
+        resetForNavigation();
+    }
+
+    /**
+     * WebViewClient.onPageFinished 回调：播放器页面加载完成后建立事件通道
+     */
+    void onPageFinished(String url) {
+        navigationStarted = false;
+        playerPage = isPlayerPage(url);
+        if (playerPage) {
+            connect();
+        }
+    }
+
+    private void resetForNavigation() {
+        closePort();
+        reached.clear();
+        pendingActions.clear();
+        mainHandler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        moveTo(State.LOADING);
+    }
+
+    /**
+     * 建立 WebMessagePort：一端留在 Java 接收事件，另一端发给页面
+     */
+    private void connect() {
+        WebView webView = webViewRef.get();
+        if (webView == null) {
+            return;
+        }
+        closePort();
+        try {
+            WebMessagePort[] channel = webView.createWebMessageChannel();
+            port = channel[0];
+            port.setWebMessageCallback(new WebMessagePort.WebMessageCallback() {
+                @Override
+                public void onMessage(WebMessagePort source, WebMessage message) {
+                    if (source == port) {
+                        onEvent(message.getData());
+                    }
+                }
+            }, mainHandler);
+            webView.postWebMessage(new WebMessage(PORT_HANDSHAKE, new WebMessagePort[]{channel[1]}),
+                    Uri.parse(LocalAssetServer.ORIGIN));
+        } catch (Exception e) {
+            Log.w(TAG, "建立播放器事件通道失败", e);
+            closePort();
+        }
+    }
+
+    private void closePort() {
+        if (port != null) {
+            try {
+                port.close();
+            } catch (Exception e) {
+                // Ignore
+            }
+            port = null;
+        }
+    }
+
+    private void onEvent(String event) {
+        if (event == null) {
+            return;
+        }
+        switch (event) {
+            case "script-loaded":
+                moveTo(State.SCRIPT_LOADED);
+                scheduleFlush();
+                break;
+            case "player-created":
+                moveTo(State.PLAYER_CREATED);
+                break;
+            case "canplay":
+                moveTo(State.CAN_PLAY);
+                break;
+            case "playing":
+                moveTo(State.PLAYING);
+                break;
+            case "waiting":
+                moveTo(State.BUFFERING);
+                break;
+            case "paused":
+                moveTo(State.PAUSED);
+                break;
+            case "released":
+                // 播放器重新创建时需要再次经过创建和缓冲阶段
+                reached.remove(State.PLAYER_CREATED);
+                reached.remove(State.CAN_PLAY);
+                moveTo(State.RELEASED);
+                break;
+            case "error":
+                moveTo(State.ERROR);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void moveTo(State next) {
+        // 重新连接时页面会重放事件：加载阶段的状态每个页面只进入一次，播放 / 缓冲只在变化时处理
+        boolean milestone = next.ordinal() <= State.CAN_PLAY.ordinal();
+        if (milestone ? reached.contains(next) : next == state) {
+            return;
+        }
+        state = next;
+        reached.add(next);
+        Log.d(TAG, "播放器状态: " + next);
+
+        if (!pendingActions.isEmpty()) {
+            List<PendingAction> due = new ArrayList<>();
+            for (int i = pendingActions.size() - 1; i >= 0; i--) {
+                if (reached.contains(pendingActions.get(i).target)) {
+                    due.add(0, pendingActions.remove(i));
+                }
+            }
+            for (PendingAction pendingAction : due) {
+                pendingAction.action.run();
+            }
+        }
+        for (StateListener listener : new ArrayList<>(listeners)) {
+            listener.onStateChanged(this, next);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!isReady() || flushScheduled || pending.isEmpty()) {
+            return;
+        }
+        flushScheduled = true;
+        mainHandler.post(flushRunnable);
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        WebView webView = webViewRef.get();
+        if (webView == null) {
+            pending.clear();
+            return;
+        }
+        if (!isReady() || pending.isEmpty()) {
+            return;
+        }
+
+        JSONArray batch = new JSONArray();
+        for (Command command : dedupe(pending)) {
+            batch.put(command.toJson());
+        }
+        pending.clear();
+        try {
+            webView.evaluateJavascript("window.__pb&&__pb.run(" + batch + ")", null);
+        } catch (Exception e) {
+            Log.w(TAG, "下发播放器命令失败: " + batch, e);
+        }
+    }
+
+    /**
+     * 同类命令只保留最后一次，保持各命令最后一次出现时的先后顺序
+     */
+    private static List<Command> dedupe(List<Command> commands) {
+        List<Command> result = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = commands.size() - 1; i >= 0; i--) {
+            Command command = commands.get(i);
+            if (seen.add(command.op)) {
+                result.add(command);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static boolean isPlayerPage(String url) {
+        return url != null && url.contains("player.html");
+    }
+}
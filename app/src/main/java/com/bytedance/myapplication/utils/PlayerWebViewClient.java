@@ -0,0 +1,56 @@
+package com.bytedance.myapplication.utils;
+
+import android.graphics.Bitmap;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+/**
+ * 播放器 WebView 共用的 WebViewClient
+ * 拦截播放器发出的资源请求：播放器页面和脚本由 LocalAssetServer 提供，直播流命中预取缓存时直接返回内存中的数据
+ * 页面开始 / 完成加载时通知 PlayerBridge（重置播放器状态、建立事件通道）
+ * 注意：shouldInterceptRequest 在 WebView 的 IO 线程调用，不能访问 View
+ */
+public class PlayerWebViewClient extends WebViewClient {
+    private static PlayerWebViewClient instance;
+
+    private PlayerWebViewClient() {
+    }
+
+    public static synchronized PlayerWebViewClient getInstance() {
+        if (instance == null) {
+            instance = new PlayerWebViewClient();
+        }
+        return instance;
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        WebResourceResponse response = LocalAssetServer.getInstance().intercept(request);
+        if (response == null) {
+            response = StreamPrefetchCache.getInstance().intercept(request);
+        }
+        return response != null ? response : super.shouldInterceptRequest(view, request);
+    }
+
+    @Override
+    public void onPageStarted(WebView view, String url, Bitmap favicon) {
+        super.onPageStarted(view, url, favicon);
+        // 新页面就绪前，播放器命令先排队
+        PlayerBridge bridge = PlayerBridge.peek(view);
+        if (bridge != null) {
+            bridge.onPageStarted();
+        }
+    }
+
+    @Override
+    public void onPageFinished(WebView view, String url) {
+        super.onPageFinished(view, url);
+        // 页面加载完成后建立播放器事件通道
+        PlayerBridge bridge = PlayerBridge.peek(view);
+        if (bridge != null) {
+            bridge.onPageFinished(url);
+        }
+    }
+}
@@ -1,34 +1,46 @@
 package com.bytedance.myapplication.utils;
 
 import android.content.Context;
-import android.net.Uri;
+import android.net.ConnectivityManager;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.webkit.WebView;
 
 import com.bumptech.glide.Glide;
 import com.bytedance.myapplication.LiveBoard;
 import com.bytedance.myapplication.R;
+import com.bytedance.myapplication.adapter.CommentAdapter;
+import com.bytedance.myapplication.adapter.RoomListAdapter;
 import com.bytedance.myapplication.model.Comment;
 import com.bytedance.myapplication.model.Host;
+import com.bytedance.myapplication.repository.RoomDirectory;
 
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class PreloadManager {
     private static final String TAG = "PreloadManager";
     private static PreloadManager instance;
     private static final long DEFAULT_TTL_MS = 30000;
-    private static final int ROOM_COUNT = 10;
+    // 启动时预加载头像的条目数（首屏两列三行）
+    private static final int FIRST_SCREEN_IMAGE_COUNT = 6;
+    // 后台静音保留的直播间上限（实际能保留几个还受 WebView 池容量限制）
+    private static final int TTL_ROOM_CAPACITY = 3;
+    private static final long TTL_TICK_MS = 1000;
+    // 房间信息缓存：列表页刷新时可直接使用，过期后重新请求
+    private static final int ROOM_INFO_CAPACITY = 64;
+    private static final long ROOM_INFO_TTL_MS = 5 * 60 * 1000;
+    // 同时预缓冲的直播间数量上限（还受 WebView 池容量限制）
+    private static final int DEFAULT_STREAM_PRELOAD_BUDGET = 4;
+    // 按流量计费的网络（移动数据）上只预缓冲排名第一的直播间
+    private static final int METERED_STREAM_PRELOAD_BUDGET = 1;
     
     private final ExecutorService executor;
     private final Handler mainHandler;
@@ -37,13 +49,22 @@ public class PreloadManager {
     private final AtomicBoolean isRoomInfoPreloading = new AtomicBoolean(false);
     private final AtomicBoolean isRoomInfoPreloaded = new AtomicBoolean(false);
     
-    private WebView preloadedWebView;
-    private WebView reusableWebView;
+    // 所有 WebView（预热、预加载、TTL 静音播放、可复用）统一由 WebViewPool 管理
+    private final WebViewPool webViewPool = WebViewPool.getInstance();
     private WebSocketManager preloadedWebSocketManager;
-    private final Map<String, Host> preloadedRoomInfoCache = new HashMap<>();
-    private final Map<String, WebView> preloadedStreamWebViews = new HashMap<>();
-    private final Map<String, Boolean> preloadedManifests = new HashMap<>();
-    private final Map<String, TTLRoomCache> ttlCache = new HashMap<>();
+    private final TimedCache<String, Host> preloadedRoomInfoCache;
+    // TTL 到期由时间轮统一清理，整个缓存只保留一个主线程清理任务
+    private final TimedCache<String, TTLRoomCache> ttlCache;
+    // 已发起、还没有拿到 WebView 的预缓冲请求
+    private final Set<String> pendingStreamPreloads = new HashSet<>();
+    private volatile int streamPreloadBudget = DEFAULT_STREAM_PRELOAD_BUDGET;
+    // 预缓冲命中统计：预缓冲的直播间被进入算命中，没被进入就被淘汰 / 取消算浪费
+    private int streamPreloadStartedCount = 0;
+    private int streamPreloadHitCount = 0;
+    private int streamPreloadWastedCount = 0;
+    // 预加载到 Glide 内存缓存中的图片估算大小（主线程访问）
+    private long preloadedImageBytes = 0;
+    private Context imageContext;
     
     public static class TTLRoomCache {
         public final WebView webView;
@@ -51,25 +72,94 @@ public class PreloadManager {
         public final List<Comment> comments;
         public final Integer onlineCount;
         public final int commentScrollPosition; // 评论列表滚动位置
-        public final long expireTime;
         
-        public TTLRoomCache(WebView webView, Host host, List<Comment> comments, Integer onlineCount, int commentScrollPosition, long ttlMs) {
+        public TTLRoomCache(WebView webView, Host host, List<Comment> comments, Integer onlineCount, int commentScrollPosition) {
             this.webView = webView;
             this.host = host;
             this.comments = comments != null ? new ArrayList<>(comments) : null;
             this.onlineCount = onlineCount;
             this.commentScrollPosition = commentScrollPosition;
-            this.expireTime = System.currentTimeMillis() + ttlMs;
-        }
-        
-        public boolean isExpired() {
-            return System.currentTimeMillis() >= expireTime;
         }
     }
     
     private PreloadManager() {
         executor = LiveBoard.getApplicationExecutor();
         mainHandler = new Handler(Looper.getMainLooper());
+        preloadedRoomInfoCache = new TimedCache.Builder<String, Host>()
+                .maxSize(ROOM_INFO_CAPACITY)
+                .defaultTtl(ROOM_INFO_TTL_MS)
+                .build();
+        ttlCache = new TimedCache.Builder<String, TTLRoomCache>()
+                .maxSize(TTL_ROOM_CAPACITY)
+                .defaultTtl(DEFAULT_TTL_MS)
+                .tick(TTL_TICK_MS)
+                .scheduler(mainHandler::postDelayed)
+                .evictionListener(this::onTTLRoomEvicted, this::runOnMainThread)
+                .build();
+        // TTL 缓存中的 WebView 被池淘汰（LRU / 内存紧张）时，同步移除对应的 TTL 缓存
+        webViewPool.addEvictionListener((webView, state, roomId) -> {
+            if (state == WebViewPool.State.PLAYER_LOADED) {
+                streamPreloadWastedCount++;
+                return;
+            }
+            if (state != WebViewPool.State.PLAYING_MUTED || roomId == null) {
+                return;
+            }
+            TTLRoomCache cache = ttlCache.peek(roomId);
+            if (cache != null && cache.webView == webView) {
+                ttlCache.take(roomId);
+                CommentScrollbackLog.release(roomId);
+            }
+        });
+        MemoryBudget.getInstance().register(new MemoryBudget.Holder() {
+            @Override
+            public String getName() {
+                return "预加载图片";
+            }
+
+            @Override
+            public long getSpeculativeBytes() {
+                return preloadedImageBytes;
+            }
+
+            @Override
+            public long getRequiredBytes() {
+                return 0;
+            }
+
+            @Override
+            public long releaseSpeculative(long bytes) {
+                long freed = getSpeculativeBytes();
+                if (imageContext != null) {
+                    Glide.get(imageContext).clearMemory();
+                }
+                preloadedImageBytes = 0;
+                return freed;
+            }
+        }, MemoryBudget.PRIORITY_IMAGE_PRELOAD);
+    }
+    
+    private void runOnMainThread(Runnable task) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            task.run();
+        } else {
+            mainHandler.post(task);
+        }
+    }
+    
+    /**
+     * TTL 缓存条目被移除（过期、超出容量、被替换、主动清理）时回收对应的 WebView
+     * 被替换时同一房间仍在缓存中，只回收旧 WebView，保留评论回滚日志
+     */
+    private void onTTLRoomEvicted(String roomId, TTLRoomCache cache, TimedCache.RemovalCause cause) {
+        TTLRoomCache current = ttlCache.peek(roomId);
+        if (current == null || current.webView != cache.webView) {
+            webViewPool.evict(cache.webView);
+        }
+        if (cause != TimedCache.RemovalCause.REPLACED) {
+            Log.d(TAG, "TTL缓存移除: roomId=" + roomId + ", cause=" + cause);
+            CommentScrollbackLog.release(roomId);
+        }
     }
     
     public static synchronized PreloadManager getInstance() {
@@ -88,14 +178,18 @@ public class PreloadManager {
         executor.execute(() -> {
             try {
                 mainHandler.post(() -> {
-                    preloadedWebView = new WebView(context.getApplicationContext());
-                    WebViewConfigHelper.configureForPerformance(preloadedWebView);
+                    webViewPool.init(context);
+                    webViewPool.createWarmed(context);
                 });
                 
+                // 播放器页面和脚本提前读入内存，第一次加载播放器也不用读 APK
+                LocalAssetServer assetServer = LocalAssetServer.getInstance();
+                assetServer.init(context);
+                assetServer.warmUp();
+                
                 preloadedWebSocketManager = new WebSocketManager();
                 preloadRoomInfo(context);
                 preloadViews(context);
-                mainHandler.post(() -> preloadPreferredRoom(context, "1"));
                 
                 isPreloading.set(false);
                 isPreloaded.set(true);
@@ -112,161 +206,186 @@ public class PreloadManager {
             viewPoolManager.init(context);
             viewPoolManager.registerPreloadLayout(R.layout.item_comment, 5);
             viewPoolManager.registerPreloadLayout(R.layout.item_room, 10);
-            mainHandler.postDelayed(() -> viewPoolManager.preloadAllInBatches(mainHandler, null), 500);
+            // 评论行预加载完成后包装成 ViewHolder，放入评论列表的共享 RecycledViewPool
+            viewPoolManager.preloadAllAsync(CommentAdapter::preloadViewHolders);
         } catch (Exception e) {
             Log.e(TAG, "初始化 ViewPoolManager 失败", e);
         }
     }
     
+    /**
+     * 预加载直播间目录的第一页：主播信息放入房间信息缓存，首屏头像放入 Glide 内存缓存，
+     * 并预缓冲第一个直播间
+     */
     private void preloadRoomInfo(Context context) {
-        if (isRoomInfoPreloading.get()) {
+        if (isRoomInfoPreloading.getAndSet(true)) {
             return;
         }
         
-        isRoomInfoPreloading.set(true);
-        
-        List<String> roomIds = new ArrayList<>();
-        for (int i = 1; i <= ROOM_COUNT; i++) {
-            roomIds.add(String.valueOf(i));
-        }
-        
-        final int totalRooms = roomIds.size();
-        final AtomicInteger completedCount = new AtomicInteger(0);
-        
-        for (String roomId : roomIds) {
-            ApiService.getHostInfo(roomId, new ApiService.ApiCallback<Host>() {
-                @Override
-                public void onSuccess(Host host) {
-                    synchronized (preloadedRoomInfoCache) {
-                        preloadedRoomInfoCache.put(roomId, host);
-                        int count = completedCount.incrementAndGet();
-                        
-                        if (host.getAvatar() != null && !host.getAvatar().isEmpty()) {
-                            mainHandler.post(() -> Glide.with(context.getApplicationContext())
-                                    .load(host.getAvatar())
-                                    .preload());
-                        }
-                        
-                        if (count >= totalRooms) {
-                            isRoomInfoPreloaded.set(true);
-                        }
+        mainHandler.post(() -> {
+            RoomDirectory directory = RoomDirectory.getInstance();
+            directory.loadFirstPage(() -> {
+                int count = Math.min(directory.getItemCount(), RoomDirectory.PAGE_SIZE);
+                // 按列表缩略图的实际尺寸预加载（上次进入列表时记录），尺寸未知时不预加载原图
+                int[] tileSize = ThumbnailPrefetcher.getLastTileSize(context);
+                for (int position = 0; position < count; position++) {
+                    Host host = directory.getHost(position);
+                    if (host == null) {
+                        continue;
                     }
-                }
-
-                @Override
-                public void onFailure(String error) {
-                    int count = completedCount.incrementAndGet();
-                    if (count >= totalRooms) {
-                        isRoomInfoPreloaded.set(true);
+                    preloadedRoomInfoCache.put(host.getId(), host);
+                    if (tileSize != null && position < FIRST_SCREEN_IMAGE_COUNT
+                            && host.getAvatar() != null && !host.getAvatar().isEmpty()) {
+                        preloadImage(context, host.getAvatar(), tileSize[0], tileSize[1]);
                     }
                 }
+                preloadPreferredRoom(context, directory.getRoomId(0));
+                isRoomInfoPreloaded.set(true);
             });
+        });
+    }
+    
+    /**
+     * 把图片预加载到 Glide 内存缓存（主线程调用），内存预算不足时跳过
+     */
+    private void preloadImage(Context context, String url, int width, int height) {
+        // 解码后的大小（缩略图按配置可能使用 RGB_565）
+        long bytes = (long) width * height * (ImageCacheConfig.getInstance().isRgb565Thumbnails() ? 2 : 4);
+        MemoryBudget budget = MemoryBudget.getInstance();
+        if (!budget.hasRoomFor(bytes, MemoryBudget.PRIORITY_IMAGE_PRELOAD)) {
+            return;
         }
+        imageContext = context.getApplicationContext();
+        // 与列表绑定相同的请求参数和尺寸，进入列表时直接命中内存缓存
+        RoomListAdapter.avatarRequest(Glide.with(imageContext), url)
+                .preload(width, height);
+        preloadedImageBytes += bytes;
+        budget.requestCheck();
     }
     
     public Map<String, Host> getPreloadedRoomInfoCache() {
-        synchronized (preloadedRoomInfoCache) {
-            return new HashMap<>(preloadedRoomInfoCache);
-        }
+        return preloadedRoomInfoCache.snapshot();
     }
     
     private String getStreamUrlForRoom(String roomId) {
-        return "https://akamaibroadcasteruseast.akamaized.net/cmaf/live/657078/akasource/out.mpd";
+        return StreamRegistry.getInstance().getManifestUrl(roomId);
+    }
+    
+    /**
+     * 设置同时预缓冲的直播间数量上限，0 表示关闭流预加载
+     */
+    public void setStreamPreloadBudget(int budget) {
+        streamPreloadBudget = Math.max(0, budget);
+    }
+    
+    /**
+     * 按当前网络设置预缓冲上限：按流量计费的网络上减少预缓冲，避免替用户下载不会观看的直播流
+     */
+    private void updateStreamPreloadBudget(Context context) {
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        boolean metered = connectivityManager != null && connectivityManager.isActiveNetworkMetered();
+        setStreamPreloadBudget(metered ? METERED_STREAM_PRELOAD_BUDGET : DEFAULT_STREAM_PRELOAD_BUDGET);
+    }
+    
+    public int getStreamPreloadBudget() {
+        return streamPreloadBudget;
+    }
+    
+    /**
+     * 实际可用的预缓冲名额：配置的上限与 WebView 池容量取小，减去已缓冲和进行中的数量
+     * 超出池容量继续预加载只会互相淘汰
+     */
+    private int remainingStreamPreloadSlots() {
+        int budget = Math.min(streamPreloadBudget, webViewPool.getMaxSize());
+        int used = webViewPool.getCount(WebViewPool.State.PLAYER_LOADED);
+        synchronized (pendingStreamPreloads) {
+            used += pendingStreamPreloads.size();
+        }
+        return budget - used;
     }
     
     private void preloadPreferredRoom(Context context, String roomId) {
-        if (roomId == null || roomId.isEmpty() || !"1".equals(roomId)) {
+        if (roomId == null || roomId.isEmpty()) {
             return;
         }
         
-        synchronized (preloadedStreamWebViews) {
-            if (preloadedStreamWebViews.containsKey(roomId)) {
-                return;
-            }
+        if (webViewPool.contains(roomId, WebViewPool.State.PLAYER_LOADED)) {
+            return;
         }
         
         preloadStreamForRoom(context, roomId);
     }
     
+    /**
+     * 下载 manifest 和首批分片放入预取缓存（在调用线程执行，需要在后台线程调用）
+     * 播放器加载时通过 shouldInterceptRequest 直接从内存读取；已缓存或正在预取时直接返回
+     */
     private void preloadManifest(String streamUrl) {
         if (streamUrl == null || streamUrl.isEmpty()) {
             return;
         }
-        
-        synchronized (preloadedManifests) {
-            if (preloadedManifests.containsKey(streamUrl)) {
-                return;
-            }
-            preloadedManifests.put(streamUrl, true);
-        }
-        
-        executor.execute(() -> {
-            try {
-                URL url = new URL(streamUrl);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(3000);
-                connection.setReadTimeout(3000);
-                connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-                
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    InputStream inputStream = connection.getInputStream();
-                    byte[] buffer = new byte[8192];
-                    while (inputStream.read(buffer) != -1) {
-                        if (inputStream.available() <= 0) {
-                            break;
-                        }
-                    }
-                    inputStream.close();
-                }
-                connection.disconnect();
-            } catch (Exception e) {
-                // Ignore
-            }
-        });
+        StreamPrefetchCache.getInstance().prefetchBlocking(streamUrl);
     }
     
-    public void preloadStreamForRoom(Context context, String roomId) {
-        if (roomId == null || roomId.isEmpty() || !"1".equals(roomId)) {
-            return;
+    /**
+     * 预缓冲直播间的流（隐藏 WebView 中加载播放器）
+     * @return 该直播间已缓冲或已开始缓冲时返回 true；名额用完或直播间没有登记流信息时返回 false
+     */
+    public boolean preloadStreamForRoom(Context context, String roomId) {
+        if (roomId == null || roomId.isEmpty()) {
+            return false;
         }
         
-        synchronized (ttlCache) {
-            if (ttlCache.containsKey(roomId)) {
-                return;
-            }
+        if (ttlCache.containsKey(roomId)) {
+            return true;
         }
         
-        synchronized (preloadedStreamWebViews) {
-            if (preloadedStreamWebViews.containsKey(roomId)) {
-                return;
-            }
+        if (webViewPool.contains(roomId, WebViewPool.State.PLAYER_LOADED)) {
+            return true;
         }
         
+        // 未登记（或已被淘汰）的直播间不预加载，不用默认流代替
         String streamUrl = getStreamUrlForRoom(roomId);
         if (streamUrl == null || streamUrl.isEmpty()) {
-            return;
+            return false;
+        }
+        
+        synchronized (pendingStreamPreloads) {
+            if (pendingStreamPreloads.contains(roomId)) {
+                return true;
+            }
+            if (remainingStreamPreloadSlots() <= 0) {
+                Log.d(TAG, "预缓冲名额已用完，跳过房间 " + roomId + ": " + webViewPool.describe());
+                return false;
+            }
+            pendingStreamPreloads.add(roomId);
         }
         
         executor.execute(() -> {
             preloadManifest(streamUrl);
             
             mainHandler.post(() -> {
+                synchronized (pendingStreamPreloads) {
+                    pendingStreamPreloads.remove(roomId);
+                }
+                // 主线程上再检查一次，避免重复预加载
+                if (webViewPool.contains(roomId, WebViewPool.State.PLAYER_LOADED)) {
+                    return;
+                }
+                if (!MemoryBudget.getInstance().hasRoomFor(
+                        WebViewPool.estimatedBytes(WebViewPool.State.PLAYER_LOADED), MemoryBudget.PRIORITY_STREAM_PRELOAD)) {
+                    Log.d(TAG, "内存预算不足，跳过预缓冲房间 " + roomId + ": " + MemoryBudget.getInstance().describe());
+                    return;
+                }
+                WebView bufferWebView = webViewPool.obtainForPreload(context, roomId);
+                if (bufferWebView == null) {
+                    Log.d(TAG, "WebView 池已满，跳过预缓冲房间 " + roomId + ": " + webViewPool.describe());
+                    return;
+                }
                 try {
-                    WebView bufferWebView = new WebView(context.getApplicationContext());
-                    WebViewConfigHelper.configureForPerformance(bufferWebView);
-                    
                     if (context instanceof android.app.Activity) {
-                        android.app.Activity activity = (android.app.Activity) context;
-                        android.view.ViewGroup rootView = activity.findViewById(android.R.id.content);
-                        if (rootView != null) {
-                            android.widget.FrameLayout hiddenContainer = new android.widget.FrameLayout(context);
-                            hiddenContainer.setLayoutParams(new android.view.ViewGroup.LayoutParams(1, 1));
-                            hiddenContainer.setVisibility(android.view.View.INVISIBLE);
-                            hiddenContainer.setAlpha(0.0f);
-                            hiddenContainer.addView(bufferWebView, new android.view.ViewGroup.LayoutParams(1, 1));
-                            rootView.addView(hiddenContainer);
-                        }
+                        webViewPool.parkHidden(bufferWebView, (android.app.Activity) context);
                     }
                     
                     bufferWebView.setVisibility(android.view.View.INVISIBLE);
@@ -274,36 +393,60 @@ public class PreloadManager {
                     bufferWebView.onResume();
                     bufferWebView.resumeTimers();
                     
-                    synchronized (preloadedStreamWebViews) {
-                        preloadedStreamWebViews.put(roomId, bufferWebView);
-                    }
-                    
-                    String htmlUrl = "file:///android_asset/player.html?url=" + Uri.encode(streamUrl) + "&preload=true";
-                    bufferWebView.loadUrl(htmlUrl);
+                    String htmlUrl = LocalAssetServer.playerUrl(streamUrl, true);
+                    PlayerBridge.of(bufferWebView).load(htmlUrl);
+                    streamPreloadStartedCount++;
                 } catch (Exception e) {
                     Log.e(TAG, "预缓冲房间 " + roomId + " 的流失败", e);
-                    synchronized (preloadedStreamWebViews) {
-                        preloadedStreamWebViews.remove(roomId);
-                    }
+                    webViewPool.evict(bufferWebView);
                 }
             });
         });
+        return true;
     }
     
-    private boolean isWebViewDestroyed(WebView webView) {
-        if (webView == null) {
-            return true;
+    /**
+     * 按预测结果分配预缓冲名额（主线程调用）
+     * 先按当前网络确定名额，取消不在本次排名中、且分数已衰减到阈值以下的预缓冲，再按排名顺序预缓冲，名额用完即停止
+     * 没有登记流信息的直播间跳过（不用默认流代替）
+     * @param rankedRooms 按分数从高到低排列的直播间
+     */
+    public void applyPreloadPlan(Context context, List<String> rankedRooms) {
+        updateStreamPreloadBudget(context);
+        RoomPreloadPredictor predictor = RoomPreloadPredictor.getInstance();
+        long now = SystemClock.uptimeMillis();
+        for (String roomId : webViewPool.getRoomIds(WebViewPool.State.PLAYER_LOADED)) {
+            if (!rankedRooms.contains(roomId)
+                    && predictor.getScore(roomId, now) < RoomPreloadPredictor.MIN_SCORE_TO_KEEP) {
+                Log.d(TAG, "直播间分数已衰减，取消预缓冲: roomId=" + roomId);
+                webViewPool.evict(webViewPool.find(roomId, WebViewPool.State.PLAYER_LOADED));
+            }
         }
-        try {
-            webView.getUrl();
-            return false;
-        } catch (Exception e) {
-            return true;
+        StreamRegistry registry = StreamRegistry.getInstance();
+        for (String roomId : rankedRooms) {
+            if (!registry.isRegistered(roomId)) {
+                continue;
+            }
+            if (!preloadStreamForRoom(context, roomId)) {
+                break;
+            }
         }
     }
     
+    /**
+     * 预缓冲命中统计
+     */
+    public String describePreloadStats() {
+        int finished = streamPreloadHitCount + streamPreloadWastedCount;
+        int hitRate = finished > 0 ? streamPreloadHitCount * 100 / finished : 0;
+        return "预缓冲=" + streamPreloadStartedCount
+                + ", 命中=" + streamPreloadHitCount
+                + ", 浪费=" + streamPreloadWastedCount
+                + ", 命中率=" + hitRate + "%";
+    }
+    
     private void restoreWebViewState(WebView webView, String roomId) {
-        if (isWebViewDestroyed(webView)) {
+        if (!webViewPool.isAlive(webView)) {
             Log.w(TAG, "无法恢复已销毁的 WebView: roomId=" + roomId);
             return;
         }
@@ -324,43 +467,17 @@ public class PreloadManager {
             webView.setAlpha(1.0f);
             webView.requestFocus();
             
-            String currentUrl = null;
-            try {
-                currentUrl = webView.getUrl();
-            } catch (Exception e) {
-                Log.w(TAG, "获取 WebView URL 失败，WebView 可能已销毁", e);
-                return;
-            }
-            
-            if (currentUrl == null || currentUrl.isEmpty() || !currentUrl.contains("player.html")) {
-                String streamUrl = getStreamUrlForRoom(roomId);
+            if (!PlayerBridge.of(webView).isOnPlayerPage()) {
+                String streamUrl = StreamRegistry.getInstance().getPlaybackUrl(roomId);
                 if (streamUrl != null && !streamUrl.isEmpty()) {
-                    String htmlUrl = "file:///android_asset/player.html?url=" + Uri.encode(streamUrl);
-                    webView.loadUrl(htmlUrl);
+                    String htmlUrl = LocalAssetServer.playerUrl(streamUrl, false);
+                    PlayerBridge bridge = PlayerBridge.of(webView);
+                    bridge.load(htmlUrl);
+                    bridge.mute(false).play();
                 }
             } else {
-                String streamUrl = Uri.encode(getStreamUrlForRoom(roomId));
-                String jsCode = "(function(){" +
-                               "try{" +
-                               "if(window.player&&window.player.video){" +
-                               "var video=window.player.video;" +
-                               "var readyState=video.readyState;" +
-                               "var paused=video.paused;" +
-                               "if(readyState>=3){" +
-                               "video.muted=false;" +
-                               "if(paused){video.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(err){});}" +
-                               "}else{" +
-                               "video.addEventListener('canplay',function(){video.muted=false;if(video.paused){video.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(err){});}},{once:true});" +
-                               "}" +
-                               "}else{" +
-                               "var checkCount=0;" +
-                               "var checkInterval=setInterval(function(){checkCount++;if(window.player&&window.player.video){clearInterval(checkInterval);var v=window.player.video;if(v.readyState>=3){v.muted=false;if(v.paused){v.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(err){});}}else{v.addEventListener('canplay',function(){v.muted=false;if(v.paused){v.play().then(function(){if(window.recordTime){window.recordTime('playingTime');}}).catch(function(err){});}},{once:true});}}else if(checkCount>20){clearInterval(checkInterval);window.location.href='file:///android_asset/player.html?url=" + streamUrl + "';}},200);" +
-                               "}" +
-                               "}catch(e){" +
-                               "window.location.href='file:///android_asset/player.html?url=" + streamUrl + "';" +
-                               "}" +
-                               "})();";
-                webView.evaluateJavascript(jsCode, null);
+                // 播放器未创建时命令在页面内排队，数据不足时等到 canplay 再播放
+                PlayerBridge.of(webView).mute(false).play();
             }
         } catch (Exception e) {
             Log.e(TAG, "恢复 WebView 状态失败: roomId=" + roomId, e);
@@ -377,47 +494,26 @@ public class PreloadManager {
             return null;
         }
         
-        synchronized (ttlCache) {
-            TTLRoomCache cache = ttlCache.get(roomId);
-            if (cache != null) {
-                // 先检查是否过期
-                if (cache.isExpired()) {
-                    Log.d(TAG, "TTL缓存已过期: roomId=" + roomId);
-                    if (!isWebViewDestroyed(cache.webView)) {
-                        cleanupTTLWebView(cache.webView);
-                    }
-                    ttlCache.remove(roomId);
-                    return null;
-                }
-                
-                // 检查WebView是否被销毁（使用更宽松的检查，避免误判）
-                boolean isDestroyed = false;
-                if (cache.webView == null) {
-                    isDestroyed = true;
-                } else {
-                    try {
-                        cache.webView.getUrl();
-                    } catch (Exception e) {
-                        isDestroyed = true;
-                    }
-                }
-                
-                if (isDestroyed) {
-                    Log.d(TAG, "TTL缓存中的WebView已销毁: roomId=" + roomId);
-                    ttlCache.remove(roomId);
-                    return null;
-                }
-                
-                // 缓存有效，返回并移除（避免重复使用）
-                TTLRoomCache result = cache;
-                ttlCache.remove(roomId);
-                Log.d(TAG, "TTL缓存恢复成功: roomId=" + roomId + ", host=" + (result.host != null) + ", comments=" + (result.comments != null ? result.comments.size() : 0));
-                // 注意：不在这里调用 restoreWebViewState，让 LiveRoomActivity 自己处理
-                // 因为需要先添加到容器，再恢复状态
-                return result;
-            }
+        // 取出即移除（避免重复使用）；已过期的条目不会返回，由过期回调回收
+        TTLRoomCache cache = ttlCache.take(roomId);
+        if (cache == null) {
+            return null;
         }
-        return null;
+        
+        // WebView 被池淘汰时 TTL 缓存会一并清理，这里只防御不在池中的 WebView
+        if (!webViewPool.isAlive(cache.webView)) {
+            Log.d(TAG, "TTL缓存中的WebView已销毁: roomId=" + roomId);
+            BackgroundRoomPolicy.getInstance().forget(cache.webView);
+            return null;
+        }
+        
+        webViewPool.markInUse(cache.webView, roomId);
+        // 按离开期间所处的后台级别恢复到直播边缘
+        BackgroundRoomPolicy.getInstance().onReenter(cache.webView, getStreamUrlForRoom(roomId));
+        Log.d(TAG, "TTL缓存恢复成功: roomId=" + roomId + ", host=" + (cache.host != null) + ", comments=" + (cache.comments != null ? cache.comments.size() : 0));
+        // 注意：不在这里调用 restoreWebViewState，让 LiveRoomActivity 自己处理
+        // 因为需要先添加到容器，再恢复状态
+        return cache;
     }
     
     public WebView getPreloadedStreamWebView(String roomId) {
@@ -425,21 +521,16 @@ public class PreloadManager {
             return null;
         }
         
-        synchronized (preloadedStreamWebViews) {
-            WebView webView = preloadedStreamWebViews.get(roomId);
-            if (webView != null) {
-                preloadedStreamWebViews.remove(roomId);
-                
-                try {
-                    restoreWebViewState(webView, roomId);
-                } catch (Exception e) {
-                    Log.e(TAG, "恢复预加载流 WebView 状态失败: roomId=" + roomId, e);
-                }
-                
-                return webView;
+        WebView webView = webViewPool.acquire(roomId, WebViewPool.State.PLAYER_LOADED);
+        if (webView != null) {
+            streamPreloadHitCount++;
+            try {
+                restoreWebViewState(webView, roomId);
+            } catch (Exception e) {
+                Log.e(TAG, "恢复预加载流 WebView 状态失败: roomId=" + roomId, e);
             }
         }
-        return null;
+        return webView;
     }
     
     public void returnWebViewWithTTL(String roomId, WebView webView, long ttlMs) {
@@ -456,7 +547,7 @@ public class PreloadManager {
         }
         
         try {
-            if (!isWebViewDestroyed(webView)) {
+            if (webViewPool.isAlive(webView)) {
                 // 停止加载（如果正在加载中）
                 try {
                     webView.stopLoading();
@@ -464,10 +555,6 @@ public class PreloadManager {
                     // Ignore
                 }
                 
-                // 只静音播放，不暂停（参考item1的实现，保持WebView活跃）
-                // 这样切回来时WebView还在播放，能正常显示
-                String jsCode = "(function(){try{if(window.player&&window.player.video){window.player.video.muted=true;if(window.player.video.paused){window.player.video.play();}}}catch(e){}})();";
-                webView.evaluateJavascript(jsCode, null);
             }
             
             if (webView.getParent() != null) {
@@ -486,162 +573,75 @@ public class PreloadManager {
             //     // Ignore
             // }
             
-            // 重要：TTL缓存需要添加到隐藏容器中（参考item1的实现）
-            // 确保WebView在隐藏容器中保持活跃，这样切回来时能正常显示
-            android.view.ViewParent parent = webView.getParent();
-            if (parent == null) {
-                // 尝试从WebView的Context获取Activity
-                android.app.Activity activity = null;
-                android.content.Context context = webView.getContext();
-                
-                if (context instanceof android.app.Activity) {
-                    activity = (android.app.Activity) context;
-                    // 检查Activity是否正在被销毁
-                    if (activity.isFinishing() || activity.isDestroyed()) {
-                        Log.w(TAG, "Activity正在被销毁，无法添加到隐藏容器: roomId=" + roomId);
-                        // Activity正在被销毁，不添加到隐藏容器，但仍然保存到TTL缓存
-                        // WebView会在新Activity创建时恢复
-                    } else {
-                        android.view.ViewGroup rootView = activity.findViewById(android.R.id.content);
-                        if (rootView != null) {
-                            android.widget.FrameLayout hiddenContainer = new android.widget.FrameLayout(context);
-                            hiddenContainer.setLayoutParams(new android.view.ViewGroup.LayoutParams(1, 1));
-                            hiddenContainer.setVisibility(android.view.View.INVISIBLE);
-                            hiddenContainer.setAlpha(0.0f);
-                            hiddenContainer.addView(webView, new android.view.ViewGroup.LayoutParams(1, 1));
-                            rootView.addView(hiddenContainer);
-                            
-                            // 重要：保持WebView活跃（参考item1的实现）
-                            try {
-                                webView.onResume();
-                                webView.resumeTimers();
-                            } catch (Exception e) {
-                                // Ignore
-                            }
-                            Log.d(TAG, "TTL缓存WebView已添加到隐藏容器: roomId=" + roomId);
-                        }
-                    }
-                } else {
-                    Log.w(TAG, "WebView的Context不是Activity，无法添加到隐藏容器: roomId=" + roomId);
-                }
-            } else {
-                // WebView已经在某个容器中，确保它保持活跃
-                try {
-                    webView.onResume();
-                    webView.resumeTimers();
-                } catch (Exception e) {
-                    // Ignore
-                }
+            // 先写入 TTL 缓存再登记到池中：登记时如果触发淘汰，淘汰回调能找到对应的缓存
+            // 同一房间的旧条目会以 REPLACED 回调回收旧 WebView；超出容量时最久未使用的房间以 SIZE 回调回收
+            ttlCache.put(roomId, new TTLRoomCache(webView, host, comments, onlineCount, commentScrollPosition), ttlMs);
+            Log.d(TAG, "TTL缓存已保存: roomId=" + roomId + ", host=" + (host != null) + ", comments=" + (comments != null ? comments.size() : 0) + ", scrollPosition=" + commentScrollPosition);
+            webViewPool.setState(webView, WebViewPool.State.PLAYING_MUTED, roomId);
+            if (webViewPool.getState(webView) == null) {
+                // 池已满且没有其他可淘汰的 WebView，刚放入的 WebView 已被淘汰
+                Log.d(TAG, "WebView 池已满，放弃 TTL 缓存: roomId=" + roomId);
+                return;
             }
             
-            synchronized (ttlCache) {
-                TTLRoomCache oldCache = ttlCache.remove(roomId);
-                if (oldCache != null && oldCache.webView != webView) {
-                    cleanupTTLWebView(oldCache.webView);
-                }
-                
-                ttlCache.put(roomId, new TTLRoomCache(webView, host, comments, onlineCount, commentScrollPosition, ttlMs));
-                Log.d(TAG, "TTL缓存已保存: roomId=" + roomId + ", host=" + (host != null) + ", comments=" + (comments != null ? comments.size() : 0) + ", scrollPosition=" + commentScrollPosition);
+            // 重要：TTL缓存需要添加到隐藏容器中，保持WebView活跃（参考item1的实现）
+            // 这样切回来时能正常显示；Activity 正在销毁时无法停放，WebView 仍保存在 TTL 缓存中
+            android.content.Context context = webView.getContext();
+            if (webView.getParent() == null && context instanceof android.app.Activity) {
+                webViewPool.parkHidden(webView, (android.app.Activity) context);
             }
-            
-            final String finalRoomId = roomId;
-            final WebView finalWebView = webView;
-            Runnable cleanupTask = () -> {
-                synchronized (ttlCache) {
-                    TTLRoomCache cache = ttlCache.get(finalRoomId);
-                    if (cache != null && cache.webView == finalWebView && cache.isExpired()) {
-                        cleanupTTLWebView(finalWebView);
-                        ttlCache.remove(finalRoomId);
-                    }
-                }
-            };
-            
-            mainHandler.postDelayed(cleanupTask, ttlMs);
-            
+            try {
+                webView.onResume();
+                webView.resumeTimers();
+            } catch (Exception e) {
+                // Ignore
+            }
+            // 先静音继续播放，之后由后台策略按停留时间逐级暂停解码、释放播放器
+            BackgroundRoomPolicy.getInstance().enterBackground(roomId, webView);
         } catch (Exception e) {
             Log.e(TAG, "放入 TTL 缓存失败: roomId=" + roomId, e);
             returnWebViewForReuse(webView);
         }
     }
     
-    private void cleanupTTLWebView(WebView webView) {
-        if (webView == null) {
-            return;
-        }
-        
-        try {
-            String jsCode = "(function(){try{if(window.player){window.player.destroy();}}catch(e){}})();";
-            webView.evaluateJavascript(jsCode, null);
-            
-            android.view.ViewParent parent = webView.getParent();
-            if (parent instanceof android.view.ViewGroup) {
-                ((android.view.ViewGroup) parent).removeView(webView);
-                android.view.ViewParent grandParent = ((android.view.ViewGroup) parent).getParent();
-                if (grandParent instanceof android.view.ViewGroup) {
-                    ((android.view.ViewGroup) grandParent).removeView((android.view.View) parent);
-                }
-            }
-            
-            webView.onPause();
-            webView.pauseTimers();
-            webView.destroy();
-        } catch (Exception e) {
-            Log.e(TAG, "清理 TTL WebView 失败", e);
-        }
-    }
-    
+    /**
+     * 页面不再使用的 WebView 放回池中（暂停并清空页面，状态为 WARMED）
+     * 注意：不调用 pauseTimers()，它会暂停进程内所有 WebView 的定时器，包括后台静音播放的 WebView
+     */
     public void returnWebViewForReuse(WebView webView) {
         if (webView == null) {
             return;
         }
         
         try {
-            webView.onPause();
-            webView.pauseTimers();
-            
             if (webView.getParent() != null) {
                 ((android.view.ViewGroup) webView.getParent()).removeView(webView);
             }
             
+            webView.stopLoading();
+            webView.loadUrl("about:blank");
+            webView.onPause();
             webView.setVisibility(android.view.View.GONE);
-            
-            if (reusableWebView != null && reusableWebView != webView) {
-                try {
-                    reusableWebView.destroy();
-                } catch (Exception e) {
-                    // Ignore
-                }
-            }
-            
-            reusableWebView = webView;
+            webViewPool.setState(webView, WebViewPool.State.WARMED, null);
         } catch (Exception e) {
             Log.e(TAG, "放回 WebView 复用池失败", e);
-            try {
-                webView.destroy();
-            } catch (Exception e2) {
-                // Ignore
-            }
+            webViewPool.evict(webView);
         }
     }
     
     public WebView getReusableWebView() {
-        if (reusableWebView != null) {
-            WebView webView = reusableWebView;
-            reusableWebView = null;
-            
+        WebView webView = webViewPool.acquireIdle();
+        if (webView != null) {
             try {
                 webView.onResume();
                 webView.resumeTimers();
                 webView.setVisibility(android.view.View.VISIBLE);
-                webView.stopLoading();
                 webView.clearHistory();
             } catch (Exception e) {
                 Log.e(TAG, "恢复可复用 WebView 状态失败", e);
             }
-            
-            return webView;
         }
-        return null;
+        return webView;
     }
     
     
@@ -667,41 +667,14 @@ public class PreloadManager {
     }
     
     public int getPreloadedRoomCount() {
-        synchronized (preloadedRoomInfoCache) {
-            return preloadedRoomInfoCache.size();
-        }
+        return preloadedRoomInfoCache.size();
     }
     
+    /**
+     * 查看预热好的 WebView（不取出）
+     */
     public WebView getPreloadedWebView() {
-        if (preloadedWebView != null) {
-            synchronized (ttlCache) {
-                for (TTLRoomCache cache : ttlCache.values()) {
-                    if (cache.webView == preloadedWebView) {
-                        return null;
-                    }
-                }
-            }
-            
-            try {
-                preloadedWebView.onResume();
-                preloadedWebView.resumeTimers();
-                preloadedWebView.setVisibility(android.view.View.VISIBLE);
-                
-                String currentUrl = preloadedWebView.getUrl();
-                if (currentUrl != null && !currentUrl.isEmpty() && 
-                    !currentUrl.equals("about:blank") && 
-                    currentUrl.contains("player.html")) {
-                    preloadedWebView.stopLoading();
-                    preloadedWebView.clearHistory();
-                    preloadedWebView.loadUrl("about:blank");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "恢复预加载 WebView 状态失败", e);
-            }
-            
-            return preloadedWebView;
-        }
-        return null;
+        return webViewPool.peek(WebViewPool.State.WARMED);
     }
     
     public void reset() {
@@ -709,58 +682,25 @@ public class PreloadManager {
         isPreloaded.set(false);
         preloadedWebSocketManager = null;
         
-        synchronized (preloadedStreamWebViews) {
-            for (Map.Entry<String, WebView> entry : preloadedStreamWebViews.entrySet()) {
-                WebView webView = entry.getValue();
-                if (webView != null) {
-                    try {
-                        webView.onPause();
-                        webView.pauseTimers();
-                        webView.destroy();
-                    } catch (Exception e) {
-                        // Ignore
-                    }
-                }
-            }
-            preloadedStreamWebViews.clear();
+        webViewPool.evictAll(WebViewPool.State.PLAYER_LOADED);
+        synchronized (pendingStreamPreloads) {
+            pendingStreamPreloads.clear();
         }
         
-        synchronized (ttlCache) {
-            for (TTLRoomCache cache : ttlCache.values()) {
-                cleanupTTLWebView(cache.webView);
-            }
-            ttlCache.clear();
-        }
+        // 回调中回收 WebView 和评论回滚日志
+        ttlCache.invalidateAll();
+        CommentScrollbackLog.releaseAll();
+        runOnMainThread(BackgroundRoomPolicy.getInstance()::reset);
         
-        synchronized (preloadedManifests) {
-            preloadedManifests.clear();
-        }
+        StreamPrefetchCache.getInstance().clear();
     }
     
     public void cleanupAll() {
         reset();
         
-        if (preloadedWebView != null) {
-            try {
-                preloadedWebView.destroy();
-            } catch (Exception e) {
-                // Ignore
-            }
-            preloadedWebView = null;
-        }
+        webViewPool.clearIdle();
         
-        if (reusableWebView != null) {
-            try {
-                reusableWebView.destroy();
-            } catch (Exception e) {
-                // Ignore
-            }
-            reusableWebView = null;
-        }
-        
-        synchronized (preloadedRoomInfoCache) {
-            preloadedRoomInfoCache.clear();
-        }
+        preloadedRoomInfoCache.invalidateAll();
     }
     
     public void cleanup() {
@@ -0,0 +1,76 @@
+package com.bytedance.myapplication.utils;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.load.model.stream.BaseGlideUrlLoader;
+
+import java.io.InputStream;
+
+/**
+ * 按目标尺寸向服务端请求缩放后图片的加载模型
+ * Glide 在确定目标尺寸后调用 Loader.getUrl，由 ImageCacheConfig 拼接缩放参数；
+ * 不同尺寸对应不同地址，磁盘缓存中分别保存，内存缓存 key 同时包含模型和尺寸
+ */
+public class ResizedImage {
+    private final String url;
+
+    public ResizedImage(@NonNull String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ResizedImage && url.equals(((ResizedImage) o).url);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ResizedImage{" + url + "}";
+    }
+
+    static class Loader extends BaseGlideUrlLoader<ResizedImage> {
+        Loader(ModelLoader<GlideUrl, InputStream> concreteLoader) {
+            super(concreteLoader);
+        }
+
+        @Override
+        protected String getUrl(ResizedImage model, int width, int height, Options options) {
+            return ImageCacheConfig.getInstance().resizedUrl(model.getUrl(), width, height);
+        }
+
+        @Override
+        public boolean handles(@NonNull ResizedImage model) {
+            return true;
+        }
+    }
+
+    /**
+     * 在 GlideConfigModule 中注册，实际下载交给 GlideUrl 的加载器（OkHttp）
+     */
+    public static class LoaderFactory implements ModelLoaderFactory<ResizedImage, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<ResizedImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new Loader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,701 @@
+package com.bytedance.myapplication.utils;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ViewConfiguration;
+import android.webkit.WebView;
+
+import androidx.annotation.Nullable;
+
+import com.bytedance.myapplication.model.Comment;
+import com.bytedance.myapplication.model.Host;
+import com.bytedance.myapplication.repository.LiveRoomRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进入直播间的编排
+ * 把进房的准备工作从 LiveRoomActivity.onCreate 提前到点击过程中：
+ * - 按下（ACTION_DOWN）：生成进房计划，预判播放来源（TTL / 预缓冲 / 新加载）；
+ *   按住超过系统的点击判定时间（没有变成滑动）后才请求主播信息和评论，新加载的直播间预取 manifest 和首批分片
+ * - 手势变成滑动（ACTION_CANCEL / 列表开始拖动）：丢弃还没有点击的计划
+ * - 点击：确定播放来源并取出 WebView（新加载时立即开始加载播放器），连接 WebSocket
+ * - onCreate：页面取走计划，只把 WebView 放进布局、把数据和连接交给 ViewModel
+ * 每次进房按阶段记录耗时（按下 → 点击 → onCreate → 布局完成 → 首帧），汇总到性能报告
+ * 按下后没有点击、或点击后没有被页面取走的计划会过期回收（WebView 放回池中，断开连接）
+ * 注意：需要在主线程调用
+ */
+public class RoomEntryOrchestrator {
+    private static final String TAG = "RoomEntryOrchestrator";
+    // 播放器性能指标记录到直播间页面
+    private static final String PAGE_ID = "LiveRoomActivity";
+    private static RoomEntryOrchestrator instance;
+
+    // 按下后没有点击（滑动、长按等）时计划保留的时间
+    private static final long PRESS_PLAN_TIMEOUT_MS = 3000;
+    // 按下后延迟多久开始请求数据：滑动在点击判定时间内就会取消按下，不为滑动的起点发请求
+    private static final long PRESS_REQUEST_DELAY_MS = ViewConfiguration.getTapTimeout();
+    // 点击后等待页面取走计划的时间
+    private static final long COMMIT_PLAN_TIMEOUT_MS = 5000;
+    // 页面接手前缓存的 WebSocket 消息上限
+    private static final int MAX_BUFFERED_MESSAGES = 50;
+
+    public enum Source {
+        // 离开不久、在后台静音播放的直播间
+        TTL,
+        // 列表页已经预缓冲的直播间
+        PRELOADED,
+        // 点击时开始加载播放器
+        FRESH
+    }
+
+    // 进房阶段（按时间顺序）
+    public enum Phase {
+        PRESSED,
+        TAPPED,
+        CREATED,
+        ATTACHED,
+        FIRST_FRAME
+    }
+
+    /**
+     * 一次进房的计划：播放来源、取出的 WebView、提前请求的数据和连接
+     */
+    public static class EntryPlan {
+        private final String roomId;
+        private final String streamUrl;
+        private final long[] phaseTimes = new long[Phase.values().length];
+        private Source source;
+        private boolean committed = false;
+        private WebView webView;
+        private PreloadManager.TTLRoomCache ttlCache;
+
+        private Host host;
+        private String hostError;
+        private boolean hostRequested = false;
+        private ApiService.ApiCallback<Host> hostCallback;
+        private List<Comment> comments;
+        private String commentsError;
+        private boolean commentsRequested = false;
+        private ApiService.ApiCallback<List<Comment>> commentsCallback;
+
+        private WebSocketManager socket;
+        private SocketRelay socketRelay;
+
+        private PlayerBridge observedPlayer;
+        private PlayerBridge.StateListener firstFrameListener;
+        private boolean reported = false;
+
+        EntryPlan(String roomId, String streamUrl, Source source) {
+            this.roomId = roomId;
+            this.streamUrl = streamUrl;
+            this.source = source;
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /**
+         * 计划中的 WebView（已标记为使用中），没有可用的 WebView 时为 null，由页面使用布局中的 WebView
+         */
+        @Nullable
+        public WebView getWebView() {
+            return webView;
+        }
+
+        /**
+         * 从 TTL 缓存恢复时的页面状态（评论滚动位置等），其他来源为 null
+         */
+        @Nullable
+        public PreloadManager.TTLRoomCache getTtlCache() {
+            return ttlCache;
+        }
+
+        /**
+         * 接收主播信息：已经返回时立即回调，否则返回后回调
+         */
+        public void observeHost(ApiService.ApiCallback<Host> callback) {
+            if (host != null) {
+                callback.onSuccess(host);
+            } else if (hostError != null) {
+                callback.onFailure(hostError);
+            } else {
+                hostCallback = callback;
+            }
+        }
+
+        /**
+         * 接收评论：已经返回时立即回调，否则返回后回调
+         */
+        public void observeComments(ApiService.ApiCallback<List<Comment>> callback) {
+            if (comments != null) {
+                callback.onSuccess(comments);
+            } else if (commentsError != null) {
+                callback.onFailure(commentsError);
+            } else {
+                commentsCallback = callback;
+            }
+        }
+
+        @Nullable
+        public Integer getOnlineCount() {
+            return ttlCache != null ? ttlCache.onlineCount : null;
+        }
+
+        /**
+         * 提前连接的 WebSocket（由接手方负责断开）
+         */
+        public WebSocketManager getSocket() {
+            connectSocket(this);
+            return socket;
+        }
+
+        /**
+         * 接手 WebSocket 事件：之前收到的事件按顺序重放给回调
+         */
+        public void attachSocket(WebSocketManager.WebSocketCallback callback) {
+            connectSocket(this);
+            socketRelay.setDelegate(callback);
+        }
+
+        private void onHostLoaded(Host loaded, String error) {
+            host = loaded;
+            hostError = error;
+            ApiService.ApiCallback<Host> callback = hostCallback;
+            hostCallback = null;
+            if (callback != null) {
+                observeHost(callback);
+            }
+        }
+
+        private void onCommentsLoaded(List<Comment> loaded, String error) {
+            comments = loaded;
+            commentsError = error;
+            ApiService.ApiCallback<List<Comment>> callback = commentsCallback;
+            commentsCallback = null;
+            if (callback != null) {
+                observeComments(callback);
+            }
+        }
+    }
+
+    /**
+     * 页面接手前缓存 WebSocket 事件，接手后直接转发（WebSocketManager 在主线程回调）
+     */
+    private static class SocketRelay implements WebSocketManager.WebSocketCallback {
+        private final List<String> bufferedMessages = new ArrayList<>();
+        private WebSocketManager.WebSocketCallback delegate;
+        private boolean opened = false;
+        private Throwable failure;
+
+        void setDelegate(WebSocketManager.WebSocketCallback callback) {
+            delegate = callback;
+            if (opened) {
+                callback.onOpen();
+            }
+            for (String message : bufferedMessages) {
+                callback.onMessage(message);
+            }
+            bufferedMessages.clear();
+            if (failure != null) {
+                callback.onFailure(failure);
+                failure = null;
+            }
+        }
+
+        @Override
+        public void onMessage(String message) {
+            if (delegate != null) {
+                delegate.onMessage(message);
+            } else if (bufferedMessages.size() < MAX_BUFFERED_MESSAGES) {
+                bufferedMessages.add(message);
+            }
+        }
+
+        @Override
+        public void onOpen() {
+            if (delegate != null) {
+                delegate.onOpen();
+            } else {
+                opened = true;
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            if (delegate != null) {
+                delegate.onFailure(t);
+            } else {
+                failure = t;
+            }
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private EntryPlan pendingPlan;
+    private final Runnable expireRunnable = this::expirePendingPlan;
+    private final Runnable pressRequestRunnable = this::startPressRequests;
+
+    // 统计：各阶段耗时总和 / 次数（相对上一阶段），点击到首帧按来源统计
+    private final long[] phaseTotalMs = new long[Phase.values().length];
+    private final int[] phaseCounts = new int[Phase.values().length];
+    private final long[] firstFrameTotalMs = new long[Source.values().length];
+    private final int[] firstFrameCounts = new int[Source.values().length];
+    private final int[] entryCounts = new int[Source.values().length];
+    private int expiredCount = 0;
+    private int cancelledCount = 0;
+    private String lastEntry = "无";
+
+    private RoomEntryOrchestrator() {
+    }
+
+    public static synchronized RoomEntryOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new RoomEntryOrchestrator();
+        }
+        return instance;
+    }
+
+    /**
+     * 按下直播间条目时调用：生成计划并开始请求数据，不取出 WebView（手势可能变成滑动）
+     */
+    public void prepare(String roomId) {
+        if (roomId == null || roomId.isEmpty()) {
+            return;
+        }
+        if (pendingPlan != null) {
+            // 已点击的计划等待页面取走；同一直播间重复按下时沿用
+            if (pendingPlan.committed || pendingPlan.roomId.equals(roomId)) {
+                return;
+            }
+            pendingPlan = null;
+        }
+        EntryPlan plan = createPlan(roomId, null);
+        plan.phaseTimes[Phase.PRESSED.ordinal()] = SystemClock.uptimeMillis();
+        pendingPlan = plan;
+        mainHandler.removeCallbacks(pressRequestRunnable);
+        mainHandler.postDelayed(pressRequestRunnable, PRESS_REQUEST_DELAY_MS);
+        scheduleExpiry(PRESS_PLAN_TIMEOUT_MS);
+    }
+
+    /**
+     * 按下变成滑动（ACTION_CANCEL、列表开始拖动）时调用：丢弃还没有点击的计划
+     * @param roomId 按下的直播间，为 null 时丢弃任意未点击的计划
+     */
+    public void cancel(@Nullable String roomId) {
+        EntryPlan plan = pendingPlan;
+        if (plan == null || plan.committed || (roomId != null && !roomId.equals(plan.roomId))) {
+            return;
+        }
+        pendingPlan = null;
+        mainHandler.removeCallbacks(pressRequestRunnable);
+        mainHandler.removeCallbacks(expireRunnable);
+        cancelledCount++;
+    }
+
+    /**
+     * 按下保持到点击判定时间后开始请求数据（点击时还没开始的由 commit 请求）
+     */
+    private void startPressRequests() {
+        EntryPlan plan = pendingPlan;
+        if (plan == null || plan.committed) {
+            return;
+        }
+        if (plan.source != Source.TTL) {
+            requestData(plan);
+        }
+        if (plan.source == Source.FRESH) {
+            // 播放器加载前预取 manifest 和首批分片
+            StreamPrefetchCache.getInstance().prefetch(plan.streamUrl);
+        }
+    }
+
+    /**
+     * 点击直播间条目时调用（启动页面之前）：确定播放来源、取出 WebView、连接 WebSocket
+     */
+    public void commit(Context context, String roomId) {
+        if (roomId == null || roomId.isEmpty()) {
+            return;
+        }
+        if (pendingPlan != null && !pendingPlan.roomId.equals(roomId)) {
+            if (pendingPlan.committed) {
+                // 上一次点击的页面还没有创建，忽略连续点击
+                return;
+            }
+            pendingPlan = null;
+        }
+        if (pendingPlan == null) {
+            pendingPlan = createPlan(roomId, null);
+        }
+        EntryPlan plan = pendingPlan;
+        if (plan.committed) {
+            return;
+        }
+        mainHandler.removeCallbacks(pressRequestRunnable);
+        commitPlan(context, plan);
+        plan.phaseTimes[Phase.TAPPED.ordinal()] = SystemClock.uptimeMillis();
+        scheduleExpiry(COMMIT_PLAN_TIMEOUT_MS);
+    }
+
+    /**
+     * 页面 onCreate 开始时取走计划；没有提前准备（从其他入口进入、页面重建）时立即生成
+     * @param streamUrl 页面指定的播放地址，为 null 时使用流信息登记表中的地址
+     */
+    public EntryPlan takePlan(Context context, String roomId, @Nullable String streamUrl) {
+        EntryPlan plan = pendingPlan;
+        pendingPlan = null;
+        mainHandler.removeCallbacks(expireRunnable);
+        mainHandler.removeCallbacks(pressRequestRunnable);
+        if (plan != null && (!plan.roomId.equals(roomId)
+                || (streamUrl != null && !streamUrl.equals(plan.streamUrl)))) {
+            releasePlan(plan);
+            plan = null;
+        }
+        if (plan == null) {
+            plan = createPlan(roomId, streamUrl);
+        }
+        if (!plan.committed) {
+            commitPlan(context, plan);
+        }
+        plan.phaseTimes[Phase.CREATED.ordinal()] = SystemClock.uptimeMillis();
+        return plan;
+    }
+
+    /**
+     * onCreate 结束（WebView 已放进布局）时调用，之后等待首帧
+     */
+    public void onAttached(EntryPlan plan, @Nullable WebView videoView) {
+        plan.phaseTimes[Phase.ATTACHED.ordinal()] = SystemClock.uptimeMillis();
+        if (videoView == null) {
+            report(plan);
+            return;
+        }
+        PlayerBridge bridge = PlayerBridge.of(videoView);
+        if (bridge.hasReached(PlayerBridge.State.PLAYING)) {
+            // TTL 恢复时画面已经在播放
+            onFirstFrame(plan);
+            return;
+        }
+        plan.observedPlayer = bridge;
+        plan.firstFrameListener = (player, state) -> {
+            if (state == PlayerBridge.State.PLAYING) {
+                onFirstFrame(plan);
+            }
+        };
+        bridge.addListener(plan.firstFrameListener);
+    }
+
+    /**
+     * 页面销毁时调用：停止等待首帧（还没有首帧时按已有阶段记录）
+     */
+    public void onExit(EntryPlan plan) {
+        stopObservingPlayer(plan);
+        report(plan);
+    }
+
+    private void onFirstFrame(EntryPlan plan) {
+        stopObservingPlayer(plan);
+        if (plan.phaseTimes[Phase.FIRST_FRAME.ordinal()] == 0) {
+            plan.phaseTimes[Phase.FIRST_FRAME.ordinal()] = SystemClock.uptimeMillis();
+        }
+        report(plan);
+    }
+
+    private void stopObservingPlayer(EntryPlan plan) {
+        if (plan.observedPlayer != null) {
+            plan.observedPlayer.removeListener(plan.firstFrameListener);
+            plan.observedPlayer = null;
+            plan.firstFrameListener = null;
+        }
+    }
+
+    private EntryPlan createPlan(String roomId, @Nullable String streamUrl) {
+        if (streamUrl == null || streamUrl.isEmpty()) {
+            streamUrl = StreamRegistry.getInstance().getPlaybackUrl(roomId);
+        }
+        // 只查看池中的状态，不做存活检查，点击时再确定
+        WebViewPool pool = WebViewPool.getInstance();
+        Source source;
+        if (pool.contains(roomId, WebViewPool.State.PLAYING_MUTED)) {
+            source = Source.TTL;
+        } else if (pool.contains(roomId, WebViewPool.State.PLAYER_LOADED)) {
+            source = Source.PRELOADED;
+        } else {
+            source = Source.FRESH;
+        }
+        return new EntryPlan(roomId, streamUrl, source);
+    }
+
+    private void commitPlan(Context context, EntryPlan plan) {
+        plan.committed = true;
+        resolveWebView(context, plan);
+        requestData(plan);
+        connectSocket(plan);
+        entryCounts[plan.source.ordinal()]++;
+    }
+
+    /**
+     * 按 TTL 缓存 → 预缓冲 → 新加载的顺序取出 WebView
+     */
+    private void resolveWebView(Context context, EntryPlan plan) {
+        PreloadManager preloadManager = PreloadManager.getInstance();
+        PreloadManager.TTLRoomCache ttlCache = preloadManager.getTTLRoomCache(plan.roomId);
+        if (ttlCache != null) {
+            if (isContextAlive(ttlCache.webView)) {
+                plan.source = Source.TTL;
+                plan.ttlCache = ttlCache;
+                plan.webView = ttlCache.webView;
+                // TTL 缓存中已有的数据不再请求
+                if (ttlCache.host != null) {
+                    plan.onHostLoaded(ttlCache.host, null);
+                }
+                if (ttlCache.comments != null) {
+                    plan.onCommentsLoaded(ttlCache.comments, null);
+                }
+                ensurePlayerPage(plan);
+                return;
+            }
+            Log.w(TAG, "TTL缓存WebView的Activity已销毁: roomId=" + plan.roomId);
+            WebViewPool.getInstance().evict(ttlCache.webView);
+        }
+
+        WebView preloaded = preloadManager.getPreloadedStreamWebView(plan.roomId);
+        if (preloaded != null) {
+            plan.source = Source.PRELOADED;
+            plan.webView = preloaded;
+            ensurePlayerPage(plan);
+            return;
+        }
+
+        plan.source = Source.FRESH;
+        WebViewPool pool = WebViewPool.getInstance();
+        plan.webView = pool.obtainForPreload(context, plan.roomId);
+        if (plan.webView == null) {
+            // 池已满，由页面使用布局中的 WebView 加载
+            return;
+        }
+        pool.markInUse(plan.webView, plan.roomId);
+        loadPlayer(plan);
+    }
+
+    /**
+     * WebView 的 Context（展开 ContextWrapper，例如预渲染布局的 MutableContextWrapper）是否仍然有效
+     */
+    private static boolean isContextAlive(WebView webView) {
+        Context context = webView.getContext();
+        while (context instanceof ContextWrapper && !(context instanceof Activity)) {
+            Context base = ((ContextWrapper) context).getBaseContext();
+            if (base == null || base == context) {
+                break;
+            }
+            context = base;
+        }
+        if (context instanceof Activity) {
+            Activity activity = (Activity) context;
+            return !activity.isFinishing() && !activity.isDestroyed();
+        }
+        return true;
+    }
+
+    /**
+     * 取出的 WebView 没有停留在播放器页面时重新加载
+     */
+    private void ensurePlayerPage(EntryPlan plan) {
+        PlayerBridge bridge = PlayerBridge.of(plan.webView);
+        if (!bridge.isOnPlayerPage()) {
+            Log.w(TAG, "WebView不在播放器页面，重新加载: roomId=" + plan.roomId + ", state=" + bridge.getState());
+            loadPlayer(plan);
+        }
+    }
+
+    /**
+     * 页面创建之前开始加载播放器；播放命令由页面在放进布局后下发（页面就绪前排队）
+     */
+    private void loadPlayer(EntryPlan plan) {
+        WebView webView = plan.webView;
+        try {
+            WebViewConfigHelper.configureForPerformance(webView);
+            VideoMetricsInterface.install(webView, PAGE_ID);
+            // 放回池中的 WebView 处于暂停状态
+            webView.onResume();
+            StreamPrefetchCache.getInstance().prefetch(plan.streamUrl);
+            PlayerBridge.of(webView).load(LocalAssetServer.playerUrl(plan.streamUrl, false));
+        } catch (Exception e) {
+            Log.e(TAG, "提前加载播放器失败: roomId=" + plan.roomId, e);
+        }
+    }
+
+    private void requestData(EntryPlan plan) {
+        LiveRoomRepository repository = LiveRoomRepository.getInstance();
+        if (!plan.hostRequested && plan.host == null) {
+            plan.hostRequested = true;
+            repository.getHostInfo(plan.roomId, new ApiService.ApiCallback<Host>() {
+                @Override
+                public void onSuccess(Host host) {
+                    plan.onHostLoaded(host, null);
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    plan.onHostLoaded(null, error);
+                }
+            });
+        }
+        if (!plan.commentsRequested && plan.comments == null) {
+            plan.commentsRequested = true;
+            repository.getComments(new ApiService.ApiCallback<List<Comment>>() {
+                @Override
+                public void onSuccess(List<Comment> comments) {
+                    plan.onCommentsLoaded(comments, null);
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    plan.onCommentsLoaded(null, error);
+                }
+            });
+        }
+    }
+
+    private static void connectSocket(EntryPlan plan) {
+        if (plan.socket != null) {
+            return;
+        }
+        plan.socketRelay = new SocketRelay();
+        plan.socket = PreloadManager.getInstance().getPreloadedWebSocketManager();
+        plan.socket.connect(plan.socketRelay);
+    }
+
+    private void scheduleExpiry(long delayMs) {
+        mainHandler.removeCallbacks(expireRunnable);
+        mainHandler.postDelayed(expireRunnable, delayMs);
+    }
+
+    private void expirePendingPlan() {
+        EntryPlan plan = pendingPlan;
+        pendingPlan = null;
+        mainHandler.removeCallbacks(pressRequestRunnable);
+        if (plan != null && plan.committed) {
+            Log.w(TAG, "进房计划没有被页面取走，回收: roomId=" + plan.roomId);
+            expiredCount++;
+            releasePlan(plan);
+        }
+    }
+
+    /**
+     * 回收没有被页面使用的计划：WebView 放回 TTL 缓存或复用池，断开连接
+     */
+    private void releasePlan(EntryPlan plan) {
+        if (plan.socket != null) {
+            plan.socket.disconnect();
+            plan.socket = null;
+        }
+        WebView webView = plan.webView;
+        plan.webView = null;
+        if (webView == null) {
+            return;
+        }
+        PreloadManager preloadManager = PreloadManager.getInstance();
+        PreloadManager.TTLRoomCache ttlCache = plan.ttlCache;
+        if (ttlCache != null) {
+            preloadManager.returnRoomWithTTL(plan.roomId, webView, ttlCache.host, ttlCache.comments,
+                    ttlCache.onlineCount, ttlCache.commentScrollPosition, 0L);
+        } else {
+            preloadManager.returnWebViewForReuse(webView);
+        }
+    }
+
+    /**
+     * 记录一次进房的各阶段耗时（每次进房只记录一次）
+     */
+    private void report(EntryPlan plan) {
+        if (plan.reported) {
+            return;
+        }
+        plan.reported = true;
+        long[] times = plan.phaseTimes;
+        StringBuilder entry = new StringBuilder("roomId=" + plan.roomId + ", 来源=" + plan.source);
+        for (Phase phase : Phase.values()) {
+            int index = phase.ordinal();
+            if (index == 0 || times[index] == 0 || times[index - 1] == 0) {
+                continue;
+            }
+            long cost = times[index] - times[index - 1];
+            phaseTotalMs[index] += cost;
+            phaseCounts[index]++;
+            entry.append(", ").append(describePhase(phase)).append("=").append(cost).append("ms");
+        }
+        long tapped = times[Phase.TAPPED.ordinal()];
+        long firstFrame = times[Phase.FIRST_FRAME.ordinal()];
+        if (tapped > 0 && firstFrame > 0) {
+            firstFrameTotalMs[plan.source.ordinal()] += firstFrame - tapped;
+            firstFrameCounts[plan.source.ordinal()]++;
+            entry.append(", 点击到首帧=").append(firstFrame - tapped).append("ms");
+        }
+        lastEntry = entry.toString();
+        Log.d(TAG, "进房耗时: " + lastEntry);
+    }
+
+    private static String describePhase(Phase phase) {
+        switch (phase) {
+            case TAPPED:
+                return "按下到点击";
+            case CREATED:
+                return "点击到onCreate";
+            case ATTACHED:
+                return "onCreate";
+            case FIRST_FRAME:
+                return "布局到首帧";
+            default:
+                return phase.name();
+        }
+    }
+
+    /**
+     * 进房统计，例如
+     * "进房=5 (TTL=1, PRELOADED=2, FRESH=2), 过期=0, 按下取消=3
+     *  按下到点击 平均=110ms, 点击到onCreate 平均=60ms, onCreate 平均=25ms, 布局到首帧 平均=380ms
+     *  点击到首帧 TTL=90ms, PRELOADED=210ms, FRESH=720ms
+     *  最近一次: ..."
+     */
+    public String describeStats() {
+        StringBuilder builder = new StringBuilder("进房=");
+        int total = 0;
+        for (int count : entryCounts) {
+            total += count;
+        }
+        builder.append(total).append(" (");
+        for (Source source : Source.values()) {
+            builder.append(source.ordinal() > 0 ? ", " : "")
+                    .append(source).append("=").append(entryCounts[source.ordinal()]);
+        }
+        builder.append("), 过期=").append(expiredCount).append(", 按下取消=").append(cancelledCount).append("\n");
+        for (Phase phase : Phase.values()) {
+            int index = phase.ordinal();
+            if (index == 0) {
+                continue;
+            }
+            builder.append(index > 1 ? ", " : "").append(describePhase(phase)).append(" 平均=")
+                    .append(phaseCounts[index] > 0 ? phaseTotalMs[index] / phaseCounts[index] : 0).append("ms");
+        }
+        builder.append("\n点击到首帧");
+        for (Source source : Source.values()) {
+            int index = source.ordinal();
+            builder.append(index > 0 ? "," : "").append(" ").append(source).append("=")
+                    .append(firstFrameCounts[index] > 0 ? firstFrameTotalMs[index] / firstFrameCounts[index] : 0).append("ms");
+        }
+        builder.append("\n最近一次: ").append(lastEntry).append("\n");
+        return builder.toString();
+    }
+}
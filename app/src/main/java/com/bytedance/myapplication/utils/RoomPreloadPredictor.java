@@ -0,0 +1,352 @@
+package com.bytedance.myapplication.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 直播间预加载预测
+ * 根据以下信号给直播间打分，预加载名额优先给分数最高的几个直播间：
+ *   - 滚动方向和速度：预测停下来时视口的位置，靠近预测位置的直播间分数高
+ *   - 停留时长：在屏幕上停留越久分数越高
+ *   - 历史点击率：点击次数 / 曝光次数（持久化到 SharedPreferences，只保留最近更新的 MAX_PERSISTED_ROOMS 个直播间）
+ * 分数随时间指数衰减，已预加载的直播间分数衰减到阈值以下后取消预加载
+ * 注意：所有方法都需要在主线程调用
+ */
+public class RoomPreloadPredictor {
+    private static RoomPreloadPredictor instance;
+
+    private static final String PREFS_NAME = "room_preload_predictor";
+    private static final String KEY_TAPS_PREFIX = "taps_";
+    private static final String KEY_IMPRESSIONS_PREFIX = "impr_";
+    // 已持久化的直播间 ID，按最近更新排序（最久的在前），换行分隔
+    private static final String KEY_RECENT_ROOMS = "recent_rooms";
+    // 持久化点击率历史的直播间数上限，超过时删除最久没有更新的直播间
+    private static final int MAX_PERSISTED_ROOMS = 200;
+
+    private static final double WEIGHT_PROXIMITY = 0.5;
+    private static final double WEIGHT_DWELL = 0.25;
+    private static final double WEIGHT_TAP_THROUGH = 0.25;
+
+    // 用当前速度向前预测的时间（秒）
+    private static final double PREDICTION_HORIZON_S = 0.6;
+    // 停止滚动后速度的衰减半衰期
+    private static final long VELOCITY_HALF_LIFE_MS = 400;
+    // 速度的指数平滑系数
+    private static final double VELOCITY_SMOOTHING = 0.5;
+    // 停留多久算满分
+    private static final long DWELL_SATURATION_MS = 1500;
+    // 停留多久算一次曝光
+    private static final long IMPRESSION_MIN_MS = 500;
+    // 点击率的先验（相当于预先有 1 次点击 / 10 次曝光），避免新直播间的点击率为 0 或 1
+    private static final double PRIOR_TAPS = 1;
+    private static final double PRIOR_IMPRESSIONS = 10;
+    // 分数衰减的半衰期
+    private static final long SCORE_HALF_LIFE_MS = 3000;
+    // 已预加载的直播间分数低于该值时取消预加载
+    public static final double MIN_SCORE_TO_KEEP = 0.2;
+    // 不可见的直播间分数低于该值时丢弃信号（点击率历史已写入 SharedPreferences，需要时重新读取）
+    private static final double PRUNE_SCORE = 0.01;
+
+    private static class RoomSignal {
+        double score;
+        long scoreUpdatedMs;
+        // 本次可见的开始时间，不可见时为 -1
+        long visibleSinceMs = -1;
+        // 累计停留时长（不含本次可见）
+        long dwellMs;
+        boolean impressionCounted;
+    }
+
+    private static class TapHistory {
+        int taps;
+        int impressions;
+    }
+
+    private final Map<String, RoomSignal> signals = new HashMap<>();
+    private final Map<String, TapHistory> history = new HashMap<>();
+    private final Set<String> dirtyHistory = new HashSet<>();
+    private SharedPreferences prefs;
+
+    // 滚动速度（条目/秒，正数表示向下滚动）
+    private double velocityItemsPerSec = 0;
+    private long lastScrollSampleMs = -1;
+    private int lastFirstVisible = -1;
+
+    private RoomPreloadPredictor() {
+    }
+
+    public static synchronized RoomPreloadPredictor getInstance() {
+        if (instance == null) {
+            instance = new RoomPreloadPredictor();
+        }
+        return instance;
+    }
+
+    public void init(Context context) {
+        if (prefs == null) {
+            prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        }
+    }
+
+    /**
+     * 滚动回调中调用，更新滚动速度
+     */
+    public void onScroll(int firstVisible, long nowMs) {
+        if (lastScrollSampleMs >= 0 && nowMs > lastScrollSampleMs && firstVisible != lastFirstVisible) {
+            double instant = (firstVisible - lastFirstVisible) * 1000.0 / (nowMs - lastScrollSampleMs);
+            velocityItemsPerSec = VELOCITY_SMOOTHING * instant + (1 - VELOCITY_SMOOTHING) * currentVelocity(nowMs);
+        }
+        if (firstVisible != lastFirstVisible || lastScrollSampleMs < 0) {
+            lastFirstVisible = firstVisible;
+            lastScrollSampleMs = nowMs;
+        }
+    }
+
+    /**
+     * 可见范围变化时调用，更新每个直播间的停留时长
+     */
+    public void onVisibleRange(List<String> roomIds, int firstVisible, int lastVisible, long nowMs) {
+        Set<String> visible = new HashSet<>();
+        for (int i = Math.max(0, firstVisible); i <= lastVisible && i < roomIds.size(); i++) {
+            String roomId = roomIds.get(i);
+            // 占位条目（所在页还没加载）没有房间 ID
+            if (roomId != null) {
+                visible.add(roomId);
+            }
+        }
+        Iterator<Map.Entry<String, RoomSignal>> iterator = signals.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, RoomSignal> entry = iterator.next();
+            if (visible.contains(entry.getKey())) {
+                continue;
+            }
+            stopDwell(entry.getKey(), entry.getValue(), nowMs);
+            // 离开视口且分数已衰减的直播间不再保留信号，目录滚动多远信号数量都有上限
+            if (decayedScore(entry.getValue(), nowMs) < PRUNE_SCORE) {
+                iterator.remove();
+                if (!dirtyHistory.contains(entry.getKey())) {
+                    history.remove(entry.getKey());
+                }
+            }
+        }
+        for (String roomId : visible) {
+            RoomSignal signal = signalOf(roomId);
+            if (signal.visibleSinceMs < 0) {
+                signal.visibleSinceMs = nowMs;
+                signal.impressionCounted = false;
+            } else {
+                countImpressionIfDue(roomId, signal, nowMs);
+            }
+        }
+    }
+
+    /**
+     * 用户点击进入直播间
+     */
+    public void onRoomTapped(String roomId) {
+        TapHistory tapHistory = historyOf(roomId);
+        tapHistory.taps++;
+        dirtyHistory.add(roomId);
+    }
+
+    /**
+     * 对候选直播间打分，返回分数最高的 k 个（按分数从高到低）
+     * 候选范围：视口以及按滚动方向预测会进入视口的直播间
+     */
+    public List<String> rank(List<String> roomIds, int firstVisible, int lastVisible, int k, long nowMs) {
+        List<String> result = new ArrayList<>();
+        if (roomIds == null || roomIds.isEmpty() || k <= 0 || lastVisible < firstVisible) {
+            return result;
+        }
+        onVisibleRange(roomIds, firstVisible, lastVisible, nowMs);
+
+        double velocity = currentVelocity(nowMs);
+        int visibleCount = lastVisible - firstVisible + 1;
+        double predictedCenter = (firstVisible + lastVisible) / 2.0 + velocity * PREDICTION_HORIZON_S;
+        double spread = Math.max(1.0, visibleCount / 2.0);
+        int lookahead = (int) Math.ceil(Math.abs(velocity) * PREDICTION_HORIZON_S);
+        int from = Math.max(0, velocity < 0 ? firstVisible - lookahead : firstVisible);
+        int to = Math.min(roomIds.size() - 1, velocity > 0 ? lastVisible + lookahead : lastVisible);
+
+        List<String> candidates = new ArrayList<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (int position = from; position <= to; position++) {
+            String roomId = roomIds.get(position);
+            if (roomId == null) {
+                continue;
+            }
+            RoomSignal signal = signalOf(roomId);
+
+            double proximity = 1.0 / (1.0 + Math.abs(position - predictedCenter) / spread);
+            double dwell = Math.min(1.0, dwellOf(signal, nowMs) / (double) DWELL_SATURATION_MS);
+            double fresh = WEIGHT_PROXIMITY * proximity
+                    + WEIGHT_DWELL * dwell
+                    + WEIGHT_TAP_THROUGH * tapThroughScore(roomId);
+
+            signal.score = Math.max(decayedScore(signal, nowMs), fresh);
+            signal.scoreUpdatedMs = nowMs;
+            candidates.add(roomId);
+            scores.put(roomId, signal.score);
+        }
+
+        Collections.sort(candidates, (a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        for (int i = 0; i < candidates.size() && i < k; i++) {
+            result.add(candidates.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 当前（衰减后的）分数，没有记录时为 0
+     */
+    public double getScore(String roomId, long nowMs) {
+        RoomSignal signal = signals.get(roomId);
+        return signal != null ? decayedScore(signal, nowMs) : 0;
+    }
+
+    /**
+     * 把点击 / 曝光计数写入 SharedPreferences（页面暂停时调用）
+     * 超过 MAX_PERSISTED_ROOMS 个直播间时删除最久没有更新的记录
+     */
+    public void flush() {
+        if (prefs == null || dirtyHistory.isEmpty()) {
+            return;
+        }
+        LinkedHashSet<String> recentRooms = loadRecentRooms();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String roomId : dirtyHistory) {
+            TapHistory tapHistory = history.get(roomId);
+            if (tapHistory != null) {
+                editor.putInt(KEY_TAPS_PREFIX + roomId, tapHistory.taps);
+                editor.putInt(KEY_IMPRESSIONS_PREFIX + roomId, tapHistory.impressions);
+                recentRooms.remove(roomId);
+                recentRooms.add(roomId);
+            }
+        }
+        Iterator<String> iterator = recentRooms.iterator();
+        while (recentRooms.size() > MAX_PERSISTED_ROOMS && iterator.hasNext()) {
+            String roomId = iterator.next();
+            editor.remove(KEY_TAPS_PREFIX + roomId);
+            editor.remove(KEY_IMPRESSIONS_PREFIX + roomId);
+            iterator.remove();
+        }
+        editor.putString(KEY_RECENT_ROOMS, TextUtils.join("\n", recentRooms));
+        editor.apply();
+        dirtyHistory.clear();
+    }
+
+    /**
+     * 读取已持久化的直播间顺序；旧数据没有记录顺序时从已有的计数键恢复
+     */
+    private LinkedHashSet<String> loadRecentRooms() {
+        LinkedHashSet<String> recentRooms = new LinkedHashSet<>();
+        String saved = prefs.getString(KEY_RECENT_ROOMS, null);
+        if (saved != null) {
+            for (String roomId : saved.split("\n")) {
+                if (!roomId.isEmpty()) {
+                    recentRooms.add(roomId);
+                }
+            }
+            return recentRooms;
+        }
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(KEY_TAPS_PREFIX)) {
+                recentRooms.add(key.substring(KEY_TAPS_PREFIX.length()));
+            } else if (key.startsWith(KEY_IMPRESSIONS_PREFIX)) {
+                recentRooms.add(key.substring(KEY_IMPRESSIONS_PREFIX.length()));
+            }
+        }
+        return recentRooms;
+    }
+
+    /**
+     * 清空本次会话的滚动和停留信号（历史点击率保留）
+     */
+    public void resetSession() {
+        long now = SystemClock.uptimeMillis();
+        Iterator<Map.Entry<String, RoomSignal>> iterator = signals.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, RoomSignal> entry = iterator.next();
+            stopDwell(entry.getKey(), entry.getValue(), now);
+            iterator.remove();
+        }
+        velocityItemsPerSec = 0;
+        lastScrollSampleMs = -1;
+        lastFirstVisible = -1;
+    }
+
+    private double currentVelocity(long nowMs) {
+        if (lastScrollSampleMs < 0) {
+            return 0;
+        }
+        long idleMs = Math.max(0, nowMs - lastScrollSampleMs);
+        return velocityItemsPerSec * Math.pow(0.5, idleMs / (double) VELOCITY_HALF_LIFE_MS);
+    }
+
+    private double decayedScore(RoomSignal signal, long nowMs) {
+        long elapsed = Math.max(0, nowMs - signal.scoreUpdatedMs);
+        return signal.score * Math.pow(0.5, elapsed / (double) SCORE_HALF_LIFE_MS);
+    }
+
+    private double tapThroughScore(String roomId) {
+        TapHistory tapHistory = historyOf(roomId);
+        double rate = (tapHistory.taps + PRIOR_TAPS) / (tapHistory.impressions + PRIOR_IMPRESSIONS);
+        return Math.min(1.0, rate);
+    }
+
+    private long dwellOf(RoomSignal signal, long nowMs) {
+        long current = signal.visibleSinceMs >= 0 ? Math.max(0, nowMs - signal.visibleSinceMs) : 0;
+        return signal.dwellMs + current;
+    }
+
+    private void stopDwell(String roomId, RoomSignal signal, long nowMs) {
+        if (signal.visibleSinceMs < 0) {
+            return;
+        }
+        countImpressionIfDue(roomId, signal, nowMs);
+        signal.dwellMs += Math.max(0, nowMs - signal.visibleSinceMs);
+        signal.visibleSinceMs = -1;
+    }
+
+    private void countImpressionIfDue(String roomId, RoomSignal signal, long nowMs) {
+        if (!signal.impressionCounted && nowMs - signal.visibleSinceMs >= IMPRESSION_MIN_MS) {
+            signal.impressionCounted = true;
+            historyOf(roomId).impressions++;
+            dirtyHistory.add(roomId);
+        }
+    }
+
+    private RoomSignal signalOf(String roomId) {
+        RoomSignal signal = signals.get(roomId);
+        if (signal == null) {
+            signal = new RoomSignal();
+            signals.put(roomId, signal);
+        }
+        return signal;
+    }
+
+    private TapHistory historyOf(String roomId) {
+        TapHistory tapHistory = history.get(roomId);
+        if (tapHistory == null) {
+            tapHistory = new TapHistory();
+            if (prefs != null) {
+                tapHistory.taps = prefs.getInt(KEY_TAPS_PREFIX + roomId, 0);
+                tapHistory.impressions = prefs.getInt(KEY_IMPRESSIONS_PREFIX + roomId, 0);
+            }
+            history.put(roomId, tapHistory);
+        }
+        return tapHistory;
+    }
+}
@@ -0,0 +1,286 @@
+package com.bytedance.myapplication.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Base64;
+import android.util.Log;
+import android.util.LruCache;
+import android.webkit.WebView;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.FutureTarget;
+import com.bytedance.myapplication.LiveBoard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 直播间列表的预览帧缓存
+ * 每个直播间保存一张低分辨率截图，列表条目优先显示预览帧，没有时显示主播头像
+ * 截图来源（按优先级）：
+ * - 已经预缓冲（PLAYER_LOADED）或在后台静音播放（PLAYING_MUTED）的 WebView：在页面内截取当前视频帧
+ * - 接口下发的关键帧截图地址（snapshotUrl）：服务端定期刷新，按预览尺寸下载
+ * 都没有的直播间不截图，不会为了预览单独创建播放器
+ * 缓存按字节数 LRU 淘汰，超过 REFRESH_MS 的预览在下次可见时重新截取（刷新前继续显示旧的）
+ * 缓存登记到 MemoryBudget，预算不足时整体释放
+ * 注意：需要在主线程调用
+ */
+public class RoomPreviewCache {
+    private static final String TAG = "RoomPreviewCache";
+    private static RoomPreviewCache instance;
+
+    // 预览帧宽度（像素），列表条目只有半屏宽，不需要更清晰
+    private static final int PREVIEW_WIDTH = 320;
+    private static final int PREVIEW_HEIGHT = PREVIEW_WIDTH * 9 / 16;
+    private static final long MAX_CACHE_BYTES = 4 * MemoryBudget.MB;
+    private static final long REFRESH_MS = 15000;
+    // 截取失败（播放器还没有画面等）后的重试间隔
+    private static final long RETRY_MS = 3000;
+    private static final int MAX_CONCURRENT_CAPTURES = 2;
+
+    public interface Listener {
+        /** 直播间的预览帧已更新 */
+        void onPreviewUpdated(String roomId);
+    }
+
+    private static class Preview {
+        final Bitmap bitmap;
+        final long capturedAt;
+
+        Preview(Bitmap bitmap, long capturedAt) {
+            this.bitmap = bitmap;
+            this.capturedAt = capturedAt;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Preview> cache = new LruCache<String, Preview>((int) MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Preview value) {
+            return value.bitmap.getByteCount();
+        }
+    };
+    private final Set<String> capturing = new HashSet<>();
+    private final Map<String, Long> lastFailedAt = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final MemoryBudget.Holder budgetHolder = new MemoryBudget.Holder() {
+        @Override
+        public String getName() {
+            return "直播间预览帧";
+        }
+
+        @Override
+        public long getSpeculativeBytes() {
+            return cache.size();
+        }
+
+        @Override
+        public long getRequiredBytes() {
+            return 0;
+        }
+
+        @Override
+        public long releaseSpeculative(long bytes) {
+            long freed = cache.size();
+            cache.evictAll();
+            return freed;
+        }
+    };
+
+    // 统计
+    private int playerCaptureCount = 0;
+    private int snapshotCaptureCount = 0;
+    private int failedCount = 0;
+    private int shownCount = 0;
+
+    private RoomPreviewCache() {
+        MemoryBudget.getInstance().register(budgetHolder, MemoryBudget.PRIORITY_ROOM_PREVIEW);
+    }
+
+    public static synchronized RoomPreviewCache getInstance() {
+        if (instance == null) {
+            instance = new RoomPreviewCache();
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 直播间的预览帧（可能已经过期，等待刷新），没有时返回 null
+     */
+    @Nullable
+    public Bitmap get(String roomId) {
+        if (roomId == null) {
+            return null;
+        }
+        Preview preview = cache.get(roomId);
+        if (preview == null) {
+            return null;
+        }
+        shownCount++;
+        return preview.bitmap;
+    }
+
+    /**
+     * 为可见的直播间截取缺少或过期的预览帧（列表停止滚动时调用）
+     */
+    public void refresh(Context context, List<String> roomIds) {
+        long now = SystemClock.uptimeMillis();
+        Iterator<Long> failures = lastFailedAt.values().iterator();
+        while (failures.hasNext()) {
+            if (now - failures.next() >= RETRY_MS) {
+                failures.remove();
+            }
+        }
+        WebViewPool pool = WebViewPool.getInstance();
+        for (String roomId : roomIds) {
+            if (capturing.size() >= MAX_CONCURRENT_CAPTURES) {
+                return;
+            }
+            if (roomId == null || capturing.contains(roomId) || !isDue(roomId, now)) {
+                continue;
+            }
+            WebView webView = pool.find(roomId, WebViewPool.State.PLAYER_LOADED);
+            if (webView == null) {
+                webView = pool.find(roomId, WebViewPool.State.PLAYING_MUTED);
+            }
+            if (webView != null) {
+                captureFromPlayer(roomId, webView);
+                continue;
+            }
+            StreamRegistry.StreamInfo info = StreamRegistry.getInstance().get(roomId);
+            String snapshotUrl = info != null ? info.snapshotUrl : null;
+            if (snapshotUrl != null) {
+                captureFromSnapshot(context.getApplicationContext(), roomId, snapshotUrl);
+            }
+        }
+    }
+
+    private boolean isDue(String roomId, long now) {
+        if (lastFailedAt.containsKey(roomId)) {
+            return false;
+        }
+        Preview preview = cache.get(roomId);
+        return preview == null || now - preview.capturedAt >= REFRESH_MS;
+    }
+
+    /**
+     * 在播放器页面内截取当前帧，JPEG 数据在后台线程解码
+     */
+    private void captureFromPlayer(String roomId, WebView webView) {
+        capturing.add(roomId);
+        PlayerBridge.of(webView).snapshot(PREVIEW_WIDTH, dataUrl -> {
+            if (dataUrl == null) {
+                onCaptured(roomId, null, false);
+                return;
+            }
+            LiveBoard.getApplicationExecutor().execute(() -> {
+                Bitmap bitmap = decodeDataUrl(dataUrl);
+                mainHandler.post(() -> onCaptured(roomId, bitmap, false));
+            });
+        });
+    }
+
+    /**
+     * 下载关键帧截图：不经过 Glide 的内存和磁盘缓存（截图会定期变化），结果复制一份再交还 Glide
+     */
+    private void captureFromSnapshot(Context context, String roomId, String snapshotUrl) {
+        capturing.add(roomId);
+        LiveBoard.getApplicationExecutor().execute(() -> {
+            Bitmap bitmap = null;
+            FutureTarget<Bitmap> target = Glide.with(context)
+                    .asBitmap()
+                    .load(snapshotUrl)
+                    .format(DecodeFormat.PREFER_RGB_565)
+                    .centerCrop()
+                    .skipMemoryCache(true)
+                    .diskCacheStrategy(DiskCacheStrategy.NONE)
+                    .submit(PREVIEW_WIDTH, PREVIEW_HEIGHT);
+            try {
+                Bitmap result = target.get();
+                bitmap = result.copy(result.getConfig() != null ? result.getConfig() : Bitmap.Config.RGB_565, false);
+            } catch (Exception e) {
+                Log.w(TAG, "下载直播间截图失败: roomId=" + roomId + ", " + e.getMessage());
+            } finally {
+                Glide.with(context).clear(target);
+            }
+            Bitmap captured = bitmap;
+            mainHandler.post(() -> onCaptured(roomId, captured, true));
+        });
+    }
+
+    private static Bitmap decodeDataUrl(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (comma < 0) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.decode(dataUrl.substring(comma + 1), Base64.DEFAULT);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        } catch (Exception e) {
+            Log.w(TAG, "解码视频帧失败", e);
+            return null;
+        }
+    }
+
+    private void onCaptured(String roomId, Bitmap bitmap, boolean fromSnapshot) {
+        capturing.remove(roomId);
+        if (bitmap == null) {
+            failedCount++;
+            lastFailedAt.put(roomId, SystemClock.uptimeMillis());
+            return;
+        }
+        lastFailedAt.remove(roomId);
+        if (fromSnapshot) {
+            snapshotCaptureCount++;
+        } else {
+            playerCaptureCount++;
+        }
+        // 旧的 Bitmap 可能还显示在列表中，不主动回收
+        cache.put(roomId, new Preview(bitmap, SystemClock.uptimeMillis()));
+        MemoryBudget.getInstance().requestCheck();
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onPreviewUpdated(roomId);
+        }
+    }
+
+    /**
+     * 预览帧统计，例如 "缓存=12 (780KB), 播放器截帧=30, 截图接口=5, 失败=3, 显示=120"
+     */
+    public String describeStats() {
+        return "缓存=" + cache.snapshot().size() + " (" + (cache.size() / 1024) + "KB)"
+                + ", 播放器截帧=" + playerCaptureCount
+                + ", 截图接口=" + snapshotCaptureCount
+                + ", 失败=" + failedCount
+                + ", 显示=" + shownCount;
+    }
+
+    public void clear() {
+        cache.evictAll();
+        lastFailedAt.clear();
+    }
+}
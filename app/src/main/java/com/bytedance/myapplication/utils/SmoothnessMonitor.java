@@ -54,6 +54,8 @@ public class SmoothnessMonitor {
     
     private boolean isMonitoring = false;
     private String pageId;
+    // 实现版本标记（例如同一页面改版前后），写入最终报告便于对比
+    private String variant;
     
     // 统计报告回调接口
     public interface SmoothnessReportCallback {
@@ -217,7 +219,7 @@ public class SmoothnessMonitor {
         float dropFrame7Rate = (dropFrame7Count.get() * 1000.0f) / totalTimeMs;
         
         Log.d(TAG, String.format(
-            "=== 最终流畅性报告 [%s] ===\n" +
+            "=== 最终流畅性报告 [%s%s] ===\n" +
             "统计时长: %dms\n" +
             "总帧数: %d\n" +
             "平均FPS: %.2f\n" +
@@ -225,7 +227,7 @@ public class SmoothnessMonitor {
             "丢5帧率: %.2f次/s (严重卡顿)\n" +
             "丢7帧率: %.2f次/s (严重卡顿)\n" +
             "=========================",
-            pageId, totalTimeMs, frames, fps, dropFrame3Rate, dropFrame5Rate, dropFrame7Rate
+            pageId, variant != null ? "/" + variant : "", totalTimeMs, frames, fps, dropFrame3Rate, dropFrame5Rate, dropFrame7Rate
         ));
         
         if (reportCallback != null) {
@@ -233,6 +235,13 @@ public class SmoothnessMonitor {
         }
     }
     
+    /**
+     * 设置实现版本标记，最终报告中显示为 [pageId/variant]
+     */
+    public void setVariant(String variant) {
+        this.variant = variant;
+    }
+    
     /**
      * 设置报告回调
      */
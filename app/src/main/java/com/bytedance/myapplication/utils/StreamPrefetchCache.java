@@ -0,0 +1,310 @@
+package com.bytedance.myapplication.utils;
+
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import com.bytedance.myapplication.LiveBoard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直播流预取缓存
+ * 预加载直播间时下载 manifest，解析出初始化分片和直播边缘附近的媒体分片一并下载，保存在内存中；
+ * 播放器 WebView 通过 shouldInterceptRequest 请求这些地址时直接从内存返回，
+ * Shaka 的首批请求（manifest、init、第一个媒体分片）不再走网络
+ * - 缓存按 URL 索引（多个直播间共用同一路流时共享缓存）
+ * - manifest 和媒体分片只返回一次（之后的刷新请求走网络，拿到最新内容）；初始化分片在过期前可重复使用
+ * - 每个 URL 单独登记下载中的状态：manifest 缓存后立即放行，分片请求只等待自己那个分片下载完成，
+ *   最多等待 PREFETCH_WAIT_MS，避免和预取重复下载
+ */
+public class StreamPrefetchCache {
+    private static final String TAG = "StreamPrefetchCache";
+    private static StreamPrefetchCache instance;
+
+    private static final int MAX_ENTRIES = 32;
+    // 单个资源的大小上限，超出的不缓存
+    private static final int MAX_RESOURCE_BYTES = 2 * 1024 * 1024;
+    private static final long INIT_SEGMENT_TTL_MS = 5 * 60 * 1000;
+    private static final long MEDIA_SEGMENT_TTL_MS = 20 * 1000;
+    // manifest 的缓存时长：取 minimumUpdatePeriod，限制在该范围内
+    private static final long MIN_MANIFEST_TTL_MS = 2000;
+    private static final long MAX_MANIFEST_TTL_MS = 10 * 1000;
+    // 每个轨道预取直播边缘前的媒体分片数量
+    private static final int EDGE_SEGMENT_COUNT = 2;
+    // Shaka 默认带宽估计为 500kbps 且播放器关闭了 ABR，首个视频轨道选不超过该值的最高码率
+    private static final long INITIAL_BANDWIDTH_ESTIMATE = 500_000;
+    private static final long PREFETCH_WAIT_MS = 1500;
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final int READ_TIMEOUT_MS = 5000;
+
+    /**
+     * 已登记、等待下载的分片
+     */
+    private static class PendingResource {
+        final String url;
+        final String mimeType;
+        final boolean singleUse;
+        final long ttlMs;
+        final CountDownLatch latch;
+
+        PendingResource(String url, String mimeType, boolean singleUse, long ttlMs, CountDownLatch latch) {
+            this.url = url;
+            this.mimeType = mimeType;
+            this.singleUse = singleUse;
+            this.ttlMs = ttlMs;
+            this.latch = latch;
+        }
+    }
+
+    private static class Resource {
+        final byte[] data;
+        final String mimeType;
+        // 返回一次后移除
+        final boolean singleUse;
+
+        Resource(byte[] data, String mimeType, boolean singleUse) {
+            this.data = data;
+            this.mimeType = mimeType;
+            this.singleUse = singleUse;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final TimedCache<String, Resource> resources;
+    // 资源 URL（manifest 或分片）→ 正在进行的下载（该资源缓存或失败后 countDown）
+    private final Map<String, CountDownLatch> inFlight = new ConcurrentHashMap<>();
+
+    private StreamPrefetchCache() {
+        executor = LiveBoard.getApplicationExecutor();
+        resources = new TimedCache.Builder<String, Resource>()
+                .maxSize(MAX_ENTRIES)
+                .defaultTtl(MEDIA_SEGMENT_TTL_MS)
+                .build();
+    }
+
+    public static synchronized StreamPrefetchCache getInstance() {
+        if (instance == null) {
+            instance = new StreamPrefetchCache();
+        }
+        return instance;
+    }
+
+    /**
+     * 异步预取 manifest 及其首批分片
+     */
+    public void prefetch(String manifestUrl) {
+        CountDownLatch latch = startPrefetch(manifestUrl);
+        if (latch != null) {
+            executor.execute(() -> runPrefetch(manifestUrl, latch));
+        }
+    }
+
+    /**
+     * 在当前线程预取（调用方已经在后台线程时使用）
+     */
+    public void prefetchBlocking(String manifestUrl) {
+        CountDownLatch latch = startPrefetch(manifestUrl);
+        if (latch != null) {
+            runPrefetch(manifestUrl, latch);
+        }
+    }
+
+    private CountDownLatch startPrefetch(String manifestUrl) {
+        if (manifestUrl == null || manifestUrl.isEmpty()) {
+            return null;
+        }
+        return claim(manifestUrl);
+    }
+
+    /**
+     * 登记一个下载中的资源；已缓存或已有其他预取在下载时返回 null
+     */
+    private CountDownLatch claim(String url) {
+        if (resources.containsKey(url)) {
+            return null;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        if (inFlight.putIfAbsent(url, latch) != null) {
+            return null;
+        }
+        return latch;
+    }
+
+    /**
+     * 放行等待该资源的拦截请求（可重复调用）
+     */
+    private void release(String url, CountDownLatch latch) {
+        inFlight.remove(url, latch);
+        latch.countDown();
+    }
+
+    private void runPrefetch(String manifestUrl, CountDownLatch latch) {
+        List<PendingResource> pending = new ArrayList<>();
+        try {
+            byte[] manifestBytes = download(manifestUrl);
+            if (manifestBytes == null) {
+                return;
+            }
+
+            DashManifest manifest = DashManifest.parse(new String(manifestBytes, StandardCharsets.UTF_8),
+                    manifestUrl, System.currentTimeMillis(), EDGE_SEGMENT_COUNT);
+            // 先登记分片再放行 manifest，播放器解析完 manifest 后请求的分片能等到这次预取
+            claimTrack(manifest.selectTrack("video", INITIAL_BANDWIDTH_ESTIMATE), pending);
+            claimTrack(manifest.selectTrack("audio", Long.MAX_VALUE), pending);
+            long manifestTtl = manifest.minimumUpdatePeriodMs > 0
+                    ? Math.max(MIN_MANIFEST_TTL_MS, Math.min(MAX_MANIFEST_TTL_MS, manifest.minimumUpdatePeriodMs))
+                    : MAX_MANIFEST_TTL_MS;
+            resources.put(manifestUrl, new Resource(manifestBytes, "application/dash+xml", true), manifestTtl);
+            release(manifestUrl, latch);
+
+            for (PendingResource resource : pending) {
+                byte[] data = download(resource.url);
+                if (data != null) {
+                    resources.put(resource.url, new Resource(data, resource.mimeType, resource.singleUse), resource.ttlMs);
+                }
+                release(resource.url, resource.latch);
+            }
+            Log.d(TAG, "预取完成: " + manifestUrl + ", 缓存条目=" + resources.size());
+        } catch (Exception e) {
+            Log.w(TAG, "预取失败: " + manifestUrl, e);
+        } finally {
+            release(manifestUrl, latch);
+            for (PendingResource resource : pending) {
+                release(resource.url, resource.latch);
+            }
+        }
+    }
+
+    /**
+     * 登记轨道的初始化分片和直播边缘分片（已缓存或正在下载的跳过）
+     */
+    private void claimTrack(DashManifest.Track track, List<PendingResource> pending) {
+        if (track == null) {
+            return;
+        }
+        String mimeType = mimeTypeOf(track);
+        if (track.initUrl != null) {
+            CountDownLatch latch = claim(track.initUrl);
+            if (latch != null) {
+                pending.add(new PendingResource(track.initUrl, mimeType, false, INIT_SEGMENT_TTL_MS, latch));
+            }
+        }
+        for (String segmentUrl : track.edgeSegmentUrls) {
+            CountDownLatch latch = claim(segmentUrl);
+            if (latch != null) {
+                pending.add(new PendingResource(segmentUrl, mimeType, true, MEDIA_SEGMENT_TTL_MS, latch));
+            }
+        }
+    }
+
+    /**
+     * WebView 资源拦截（在 WebView 的 IO 线程调用）
+     * @return 命中时返回内存中的数据，否则返回 null 交给网络
+     */
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        if (request == null || !"GET".equalsIgnoreCase(request.getMethod())) {
+            return null;
+        }
+        String url = request.getUrl().toString();
+        if (!isStreamResource(url)) {
+            return null;
+        }
+
+        CountDownLatch latch = inFlight.get(url);
+        if (latch != null) {
+            try {
+                latch.await(PREFETCH_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Resource resource = resources.peek(url);
+        if (resource != null && resource.singleUse) {
+            resource = resources.take(url);
+        }
+        if (resource == null) {
+            PerformanceMonitor.recordPrefetchMiss();
+            return null;
+        }
+
+        PerformanceMonitor.recordPrefetchHit(resource.data.length);
+        Map<String, String> headers = new HashMap<>();
+        // player.html 从本地加载，跨域请求需要 CORS 头
+        headers.put("Access-Control-Allow-Origin", "*");
+        headers.put("Cache-Control", "no-cache");
+        headers.put("Content-Length", String.valueOf(resource.data.length));
+        return new WebResourceResponse(resource.mimeType, null, 200, "OK", headers,
+                new ByteArrayInputStream(resource.data));
+    }
+
+    public void clear() {
+        resources.invalidateAll();
+    }
+
+    private static boolean isStreamResource(String url) {
+        String path = url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return path.endsWith(".mpd") || path.endsWith(".m4s") || path.endsWith(".mp4")
+                || path.endsWith(".m4v") || path.endsWith(".m4a") || path.endsWith(".cmfv")
+                || path.endsWith(".cmfa");
+    }
+
+    private static String mimeTypeOf(DashManifest.Track track) {
+        return "audio".equals(track.contentType) ? "audio/mp4" : "video/mp4";
+    }
+
+    private static byte[] download(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return null;
+            }
+            int length = connection.getContentLength();
+            if (length > MAX_RESOURCE_BYTES) {
+                return null;
+            }
+            try (InputStream inputStream = connection.getInputStream()) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(length > 0 ? length : 16 * 1024);
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                    if (output.size() > MAX_RESOURCE_BYTES) {
+                        return null;
+                    }
+                }
+                return output.toByteArray();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "下载失败: " + url + ", " + e.getMessage());
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.bytedance.myapplication.utils;
+
+import android.util.Log;
+
+import com.bytedance.myapplication.model.Host;
+import com.bytedance.myapplication.repository.RoomDirectory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 直播间流信息登记表
+ * roomId → manifest 地址、截图地址，由主播信息接口返回的数据填充
+ * 已登记但接口没有下发流地址的直播间使用默认流
+ * 只保留最近登记 / 查询的 MAX_STREAMS 个直播间（按 LRU 淘汰），被淘汰的直播间重新拉取主播信息时再登记
+ * 未登记（或已被淘汰）的直播间查询结果为 null，预加载直接跳过；只有进入直播间播放时通过 getPlaybackUrl 退回默认流
+ */
+public class StreamRegistry {
+    private static final String TAG = "StreamRegistry";
+    private static StreamRegistry instance;
+
+    // 使用 DASH 直播流（与 dash_live_final.html 保持一致）
+    public static final String DEFAULT_MANIFEST_URL = "https://akamaibroadcasteruseast.akamaized.net/cmaf/live/657078/akasource/out.mpd";
+
+    // 房间目录窗口（MAX_LOADED_PAGES 页）再多留一页，覆盖刚滑出窗口的直播间
+    private static final int MAX_STREAMS = (RoomDirectory.MAX_LOADED_PAGES + 1) * RoomDirectory.PAGE_SIZE;
+
+    public static class StreamInfo {
+        public final String roomId;
+        public final String manifestUrl;
+        // 关键帧截图地址，没有时为 null
+        public final String snapshotUrl;
+
+        StreamInfo(String roomId, String manifestUrl, String snapshotUrl) {
+            this.roomId = roomId;
+            this.manifestUrl = manifestUrl;
+            this.snapshotUrl = snapshotUrl;
+        }
+    }
+
+    // accessOrder = true：登记和查询都会刷新位置，超过上限时淘汰最久未用的直播间
+    private final Map<String, StreamInfo> streams = new LinkedHashMap<String, StreamInfo>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StreamInfo> eldest) {
+            return size() > MAX_STREAMS;
+        }
+    };
+
+    private StreamRegistry() {
+    }
+
+    public static synchronized StreamRegistry getInstance() {
+        if (instance == null) {
+            instance = new StreamRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * 根据主播信息登记直播间的流信息
+     */
+    public void register(String roomId, Host host) {
+        if (roomId == null || roomId.isEmpty() || host == null) {
+            return;
+        }
+        String manifestUrl = host.getStreamUrl();
+        if (manifestUrl == null || manifestUrl.isEmpty()) {
+            manifestUrl = DEFAULT_MANIFEST_URL;
+        }
+        String snapshotUrl = host.getSnapshotUrl();
+        if (snapshotUrl != null && snapshotUrl.isEmpty()) {
+            snapshotUrl = null;
+        }
+
+        StreamInfo info = new StreamInfo(roomId, manifestUrl, snapshotUrl);
+        synchronized (this) {
+            streams.put(roomId, info);
+        }
+    }
+
+    /**
+     * 获取直播间的流信息，未登记时返回 null
+     */
+    public synchronized StreamInfo get(String roomId) {
+        return streams.get(roomId);
+    }
+
+    /**
+     * 直播间的 manifest 地址，未登记时返回 null（预加载应跳过该直播间）
+     */
+    public String getManifestUrl(String roomId) {
+        StreamInfo info = get(roomId);
+        return info != null ? info.manifestUrl : null;
+    }
+
+    /**
+     * 进入直播间播放使用的地址：未登记时退回默认流，保证页面有内容可播放
+     */
+    public String getPlaybackUrl(String roomId) {
+        String manifestUrl = getManifestUrl(roomId);
+        if (manifestUrl != null) {
+            return manifestUrl;
+        }
+        Log.w(TAG, "直播间未登记流信息，使用默认流播放: roomId=" + roomId);
+        return DEFAULT_MANIFEST_URL;
+    }
+
+    public synchronized boolean isRegistered(String roomId) {
+        return streams.containsKey(roomId);
+    }
+
+    public synchronized void clear() {
+        streams.clear();
+    }
+}
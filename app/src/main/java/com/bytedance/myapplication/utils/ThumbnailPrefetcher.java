@@ -0,0 +1,239 @@
+package com.bytedance.myapplication.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列表缩略图的视口预取
+ * - 按滚动方向把视口外即将出现的条目排队，以列表中缩略图的实际像素尺寸解码，绑定时直接命中 Glide 内存缓存
+ * - 滚动方向反转时取消排队和进行中的请求（反方向的图片已经不会马上出现）
+ * - 同时解码的数量不超过 MAX_CONCURRENT_DECODES，避免抢占绑定请求的解码线程
+ * - 绑定时统计命中（预取已完成）、迟到（预取还在进行）和未命中，计入 PerformanceMonitor
+ * 缩略图尺寸记录在 SharedPreferences 中，启动页可以按相同尺寸预加载首屏头像
+ * 注意：需要在主线程调用
+ */
+public class ThumbnailPrefetcher {
+    private static final String PREFS_NAME = "thumbnail_prefetcher";
+    private static final String KEY_WIDTH = "tile_width";
+    private static final String KEY_HEIGHT = "tile_height";
+
+    private static final int MAX_CONCURRENT_DECODES = 2;
+    // 记住已预取完成的地址数量（用于命中统计），超过后最早的记为浪费
+    private static final int MAX_COMPLETED = 64;
+
+    /**
+     * 提供条目的图片地址和请求参数（与绑定时的请求一致，才能命中内存缓存）
+     */
+    public interface ModelProvider {
+        @Nullable
+        String getUrl(int position);
+
+        RequestBuilder<Drawable> request(String url);
+    }
+
+    private final RequestManager requestManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ModelProvider provider;
+    private final int prefetchCount;
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private final Map<String, PrefetchTarget> inFlight = new HashMap<>();
+    private final LinkedHashMap<String, Boolean> completed = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            if (size() > MAX_COMPLETED) {
+                PerformanceMonitor.recordThumbnailPrefetchWasted();
+                return true;
+            }
+            return false;
+        }
+    };
+    private int tileWidth = 0;
+    private int tileHeight = 0;
+    private int lastFirstVisible = -1;
+    private int lastLastVisible = -1;
+    // 1 向下，-1 向上，0 还没有滚动
+    private int direction = 0;
+
+    public ThumbnailPrefetcher(RequestManager requestManager, ModelProvider provider, int prefetchCount) {
+        this.requestManager = requestManager;
+        this.provider = provider;
+        this.prefetchCount = prefetchCount;
+    }
+
+    /**
+     * 设置缩略图的像素尺寸（列表第一次布局后从缩略图控件取得），并记录下来供启动页使用
+     */
+    public void setTileSize(Context context, int width, int height) {
+        if (width <= 0 || height <= 0 || (width == tileWidth && height == tileHeight)) {
+            return;
+        }
+        tileWidth = width;
+        tileHeight = height;
+        context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putInt(KEY_WIDTH, width)
+                .putInt(KEY_HEIGHT, height)
+                .apply();
+    }
+
+    public boolean hasTileSize() {
+        return tileWidth > 0 && tileHeight > 0;
+    }
+
+    /**
+     * 上次记录的缩略图尺寸 {width, height}，没有记录时返回 null
+     */
+    @Nullable
+    public static int[] getLastTileSize(Context context) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int width = prefs.getInt(KEY_WIDTH, 0);
+        int height = prefs.getInt(KEY_HEIGHT, 0);
+        return width > 0 && height > 0 ? new int[]{width, height} : null;
+    }
+
+    /**
+     * 滚动回调中调用：判断滚动方向，方向反转时取消，之后按距离视口由近到远重新排队
+     */
+    public void onScroll(int firstVisible, int lastVisible, int itemCount) {
+        if (firstVisible < 0 || lastVisible < firstVisible) {
+            return;
+        }
+        int newDirection = direction;
+        if (lastFirstVisible >= 0) {
+            if (firstVisible > lastFirstVisible || lastVisible > lastLastVisible) {
+                newDirection = 1;
+            } else if (firstVisible < lastFirstVisible || lastVisible < lastLastVisible) {
+                newDirection = -1;
+            }
+        }
+        lastFirstVisible = firstVisible;
+        lastLastVisible = lastVisible;
+        if (newDirection == 0) {
+            return;
+        }
+        if (direction != 0 && newDirection != direction) {
+            cancelAll();
+        }
+        direction = newDirection;
+        if (!hasTileSize()) {
+            return;
+        }
+
+        queue.clear();
+        for (int i = 1; i <= prefetchCount; i++) {
+            int position = direction > 0 ? lastVisible + i : firstVisible - i;
+            if (position < 0 || position >= itemCount) {
+                break;
+            }
+            String url = provider.getUrl(position);
+            if (url != null && !inFlight.containsKey(url) && !completed.containsKey(url) && !queue.contains(url)) {
+                queue.add(url);
+            }
+        }
+        pump();
+    }
+
+    /**
+     * 条目绑定图片时调用，统计预取命中
+     */
+    public void onBind(String url) {
+        if (url == null) {
+            return;
+        }
+        if (completed.remove(url) != null) {
+            PerformanceMonitor.recordThumbnailPrefetchHit();
+        } else if (inFlight.containsKey(url)) {
+            PerformanceMonitor.recordThumbnailPrefetchLate();
+        } else if (direction != 0) {
+            // 还没滚动时绑定的是首屏条目，不属于预取的范围
+            PerformanceMonitor.recordThumbnailPrefetchMiss();
+        }
+    }
+
+    /**
+     * 取消排队和进行中的预取
+     */
+    public void cancelAll() {
+        queue.clear();
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<PrefetchTarget> targets = new ArrayList<>(inFlight.values());
+        inFlight.clear();
+        for (PrefetchTarget target : targets) {
+            PerformanceMonitor.recordThumbnailPrefetchCancelled();
+            requestManager.clear(target);
+        }
+    }
+
+    private void pump() {
+        while (inFlight.size() < MAX_CONCURRENT_DECODES && !queue.isEmpty()) {
+            String url = queue.poll();
+            PrefetchTarget target = new PrefetchTarget(url, tileWidth, tileHeight);
+            inFlight.put(url, target);
+            provider.request(url).into(target);
+        }
+    }
+
+    private void onFinished(PrefetchTarget target, boolean success) {
+        // 已被取消或被同一地址的新请求替换
+        if (inFlight.get(target.url) != target) {
+            return;
+        }
+        inFlight.remove(target.url);
+        if (success) {
+            completed.put(target.url, Boolean.TRUE);
+        }
+        // Target 回调中不能直接 clear / 发起请求，放到下一个消息中执行
+        mainHandler.post(() -> {
+            // 释放 Target 对图片的引用，图片转入 Glide 内存缓存
+            requestManager.clear(target);
+            pump();
+        });
+    }
+
+    /**
+     * 按缩略图尺寸解码，完成后清除 Target，结果只留在 Glide 内存缓存中
+     */
+    private class PrefetchTarget extends CustomTarget<Drawable> {
+        final String url;
+
+        PrefetchTarget(String url, int width, int height) {
+            super(width, height);
+            this.url = url;
+        }
+
+        @Override
+        public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+            onFinished(this, true);
+        }
+
+        @Override
+        public void onLoadFailed(@Nullable Drawable errorDrawable) {
+            onFinished(this, false);
+        }
+
+        @Override
+        public void onLoadCleared(@Nullable Drawable placeholder) {
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.bytedance.myapplication.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 带过期时间和容量上限的缓存（TTL + LRU）
+ * - 过期基于单调时钟，不受系统时间调整影响
+ * - 过期条目挂在哈希时间轮上，按时间片批量清理，不再为每个条目单独 postDelayed
+ * - 超出容量时淘汰最久未访问的条目
+ * - 淘汰回调通过指定的 Executor 派发（PreloadManager 中为主线程），回调在缓存锁之外执行
+ * 纯 Java 实现，不依赖 Android，时钟和调度器都可以替换，便于在 JVM 单元测试中使用假时钟
+ */
+public class TimedCache<K, V> {
+
+    /**
+     * 单调时钟（毫秒）
+     */
+    public interface Clock {
+        long nowMs();
+    }
+
+    /**
+     * 延迟任务调度器，用于在最早的过期时间点触发一次清理
+     */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    public enum RemovalCause {
+        EXPIRED,    // 过期
+        SIZE,       // 超出容量被淘汰
+        REPLACED,   // 被同 key 的新值替换
+        EXPLICIT    // 调用 invalidate 主动移除
+    }
+
+    public interface EvictionListener<K, V> {
+        void onEvicted(K key, V value, RemovalCause cause);
+    }
+
+    public static final Clock SYSTEM_CLOCK = () -> System.nanoTime() / 1_000_000L;
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        long deadlineTick;
+        // 时间轮槽位中的双向链表
+        Node<K, V> prev;
+        Node<K, V> next;
+        int bucket = -1;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private final int maxSize;
+    private final long defaultTtlMs;
+    private final long tickMs;
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final Executor listenerExecutor;
+    private final EvictionListener<K, V> listener;
+
+    // accessOrder = true：遍历顺序即 LRU 顺序
+    private final LinkedHashMap<K, Node<K, V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    // 不影响 LRU 顺序的查找索引（peek 使用）
+    private final HashMap<K, Node<K, V>> index = new HashMap<>();
+    private final Node<K, V>[] wheel;
+    private final int wheelMask;
+    // 最早截止时间片的下界：link 时取较小值，unlink 不更新（条目被移除后可能偏早），
+    // 调度清理时发现它已经过去才沿时间轮向后扫描重新计算；Long.MAX_VALUE 表示没有条目
+    private long earliestTick = Long.MAX_VALUE;
+    // 已处理到的时间片
+    private long currentTick;
+    // 已调度的清理任务对应的时间片，-1 表示未调度
+    private long scheduledTick = -1;
+    private final Runnable sweepTask = this::onSweep;
+
+    @SuppressWarnings("unchecked")
+    private TimedCache(Builder<K, V> builder) {
+        this.maxSize = builder.maxSize;
+        this.defaultTtlMs = builder.defaultTtlMs;
+        this.tickMs = builder.tickMs;
+        this.clock = builder.clock;
+        this.scheduler = builder.scheduler;
+        this.listenerExecutor = builder.listenerExecutor;
+        this.listener = builder.listener;
+
+        int size = Integer.highestOneBit(Math.max(2, builder.wheelSize) - 1) << 1;
+        this.wheel = (Node<K, V>[]) new Node[size];
+        this.wheelMask = size - 1;
+        this.currentTick = clock.nowMs() / tickMs;
+    }
+
+    /**
+     * 使用默认 TTL 放入
+     */
+    public void put(K key, V value) {
+        put(key, value, defaultTtlMs);
+    }
+
+    public void put(K key, V value, long ttlMs) {
+        if (key == null || value == null) {
+            return;
+        }
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.nowMs();
+            advance(now, notifications);
+            putLocked(key, value, ttlMs, now, notifications);
+        }
+        dispatch(notifications);
+    }
+
+    /**
+     * 不存在（或已过期）时才放入
+     * @return 是否放入
+     */
+    public boolean putIfAbsent(K key, V value, long ttlMs) {
+        if (key == null || value == null) {
+            return false;
+        }
+        List<Runnable> notifications = new ArrayList<>();
+        boolean inserted = false;
+        synchronized (this) {
+            long now = clock.nowMs();
+            advance(now, notifications);
+            if (!index.containsKey(key)) {
+                putLocked(key, value, ttlMs, now, notifications);
+                inserted = true;
+            }
+        }
+        dispatch(notifications);
+        return inserted;
+    }
+
+    private void putLocked(K key, V value, long ttlMs, long now, List<Runnable> notifications) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            map.put(key, node);
+            index.put(key, node);
+        } else {
+            unlink(node);
+            if (node.value != value) {
+                notifications.add(notification(key, node.value, RemovalCause.REPLACED));
+            }
+        }
+        node.value = value;
+        // 向上取整，保证不会早于 TTL 过期；至少落在下一个时间片
+        long deadline = now + Math.max(0, ttlMs);
+        node.deadlineTick = Math.max((deadline + tickMs - 1) / tickMs, currentTick + 1);
+        link(node);
+
+        evictOverflow(notifications);
+        scheduleSweepLocked();
+    }
+
+    /**
+     * 获取（刷新 LRU 顺序），已过期返回 null
+     */
+    public V get(K key) {
+        List<Runnable> notifications = new ArrayList<>();
+        V value;
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+            Node<K, V> node = map.get(key);
+            value = node != null ? node.value : null;
+        }
+        dispatch(notifications);
+        return value;
+    }
+
+    /**
+     * 获取但不刷新 LRU 顺序
+     */
+    public V peek(K key) {
+        List<Runnable> notifications = new ArrayList<>();
+        V value = null;
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+            Node<K, V> node = index.get(key);
+            if (node != null) {
+                value = node.value;
+            }
+        }
+        dispatch(notifications);
+        return value;
+    }
+
+    public boolean containsKey(K key) {
+        return peek(key) != null;
+    }
+
+    /**
+     * 取出并移除，不触发淘汰回调（值的所有权转交给调用方）
+     */
+    public V take(K key) {
+        List<Runnable> notifications = new ArrayList<>();
+        V value = null;
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+            Node<K, V> node = removeNode(key);
+            if (node != null) {
+                value = node.value;
+            }
+        }
+        dispatch(notifications);
+        return value;
+    }
+
+    /**
+     * 移除并触发淘汰回调
+     */
+    public void invalidate(K key) {
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+            Node<K, V> node = removeNode(key);
+            if (node != null) {
+                notifications.add(notification(key, node.value, RemovalCause.EXPLICIT));
+            }
+        }
+        dispatch(notifications);
+    }
+
+    public void invalidateAll() {
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (this) {
+            for (Node<K, V> node : map.values()) {
+                unlink(node);
+                notifications.add(notification(node.key, node.value, RemovalCause.EXPLICIT));
+            }
+            map.clear();
+            index.clear();
+            earliestTick = Long.MAX_VALUE;
+        }
+        dispatch(notifications);
+    }
+
+    public int size() {
+        List<Runnable> notifications = new ArrayList<>();
+        int size;
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+            size = map.size();
+        }
+        dispatch(notifications);
+        return size;
+    }
+
+    /**
+     * 未过期条目的快照（按 LRU 顺序，最久未访问的在前）
+     */
+    public Map<K, V> snapshot() {
+        List<Runnable> notifications = new ArrayList<>();
+        Map<K, V> result = new LinkedHashMap<>();
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+            for (Map.Entry<K, Node<K, V>> entry : map.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().value);
+            }
+        }
+        dispatch(notifications);
+        return result;
+    }
+
+    /**
+     * 立即清理所有到期条目
+     * @return 清理的条目数
+     */
+    public int expireDue() {
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (this) {
+            advance(clock.nowMs(), notifications);
+        }
+        dispatch(notifications);
+        return notifications.size();
+    }
+
+    private void onSweep() {
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.nowMs();
+            advance(now, notifications);
+            // 调度器不支持取消：被更早的清理取代的旧任务仍会执行，此时已有待执行的清理，不再重复调度
+            if (scheduledTick < 0 || scheduledTick <= now / tickMs) {
+                scheduledTick = -1;
+                scheduleSweepLocked();
+            }
+        }
+        dispatch(notifications);
+    }
+
+    /**
+     * 推进时间轮到当前时间片，收集到期条目
+     */
+    private void advance(long now, List<Runnable> notifications) {
+        long nowTick = now / tickMs;
+        if (nowTick <= currentTick) {
+            return;
+        }
+        long ticks = nowTick - currentTick;
+        // 跨过整圈时，每个槽位只需扫描一次
+        int buckets = ticks >= wheel.length ? wheel.length : (int) ticks;
+        for (int i = 1; i <= buckets; i++) {
+            int bucket = (int) ((currentTick + i) & wheelMask);
+            Node<K, V> node = wheel[bucket];
+            while (node != null) {
+                Node<K, V> next = node.next;
+                // 同一槽位中还有后续圈数的条目，比较截止时间片即可
+                if (node.deadlineTick <= nowTick) {
+                    removeNode(node.key);
+                    notifications.add(notification(node.key, node.value, RemovalCause.EXPIRED));
+                }
+                node = next;
+            }
+        }
+        currentTick = nowTick;
+    }
+
+    private void evictOverflow(List<Runnable> notifications) {
+        Iterator<Node<K, V>> iterator = map.values().iterator();
+        while (map.size() > maxSize && iterator.hasNext()) {
+            Node<K, V> eldest = iterator.next();
+            iterator.remove();
+            index.remove(eldest.key);
+            unlink(eldest);
+            notifications.add(notification(eldest.key, eldest.value, RemovalCause.SIZE));
+        }
+    }
+
+    /**
+     * 在最早的截止时间片调度一次清理；已有更早的清理任务时不重复调度
+     * 被移除的条目可能让 earliestTick 偏早，最多多一次没有到期条目的清理，清理时重新计算
+     */
+    private void scheduleSweepLocked() {
+        if (scheduler == null) {
+            return;
+        }
+        if (map.isEmpty()) {
+            earliestTick = Long.MAX_VALUE;
+        } else if (earliestTick <= currentTick) {
+            // advance 之后不会有截止时间片不晚于 currentTick 的条目，下界已失效
+            earliestTick = findEarliestTick();
+        }
+        if (earliestTick == Long.MAX_VALUE) {
+            return;
+        }
+        long earliest = earliestTick;
+        if (scheduledTick >= 0 && scheduledTick <= earliest) {
+            return;
+        }
+        scheduledTick = earliest;
+        long delayMs = Math.max(0, earliest * tickMs - clock.nowMs());
+        scheduler.schedule(sweepTask, delayMs);
+    }
+
+    /**
+     * 从下一个时间片开始沿时间轮扫描一圈：本圈内第一个到期的条目即最早的截止时间片，
+     * 本圈内没有到期条目时取所有条目中最早的截止时间片
+     */
+    private long findEarliestTick() {
+        long earliest = Long.MAX_VALUE;
+        for (int i = 1; i <= wheel.length; i++) {
+            long tick = currentTick + i;
+            for (Node<K, V> node = wheel[(int) (tick & wheelMask)]; node != null; node = node.next) {
+                if (node.deadlineTick == tick) {
+                    return tick;
+                }
+                earliest = Math.min(earliest, node.deadlineTick);
+            }
+        }
+        return earliest;
+    }
+
+    private Node<K, V> removeNode(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node != null) {
+            index.remove(key);
+            unlink(node);
+        }
+        return node;
+    }
+
+    private void link(Node<K, V> node) {
+        int bucket = (int) (node.deadlineTick & wheelMask);
+        node.bucket = bucket;
+        node.prev = null;
+        node.next = wheel[bucket];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        wheel[bucket] = node;
+        earliestTick = Math.min(earliestTick, node.deadlineTick);
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.bucket < 0) {
+            return;
+        }
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            wheel[node.bucket] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.bucket = -1;
+    }
+
+    private Runnable notification(K key, V value, RemovalCause cause) {
+        return () -> listener.onEvicted(key, value, cause);
+    }
+
+    private void dispatch(List<Runnable> notifications) {
+        if (listener == null) {
+            return;
+        }
+        for (Runnable notification : notifications) {
+            listenerExecutor.execute(notification);
+        }
+    }
+
+    public static class Builder<K, V> {
+        private int maxSize = Integer.MAX_VALUE;
+        private long defaultTtlMs = 30_000;
+        private long tickMs = 1_000;
+        private int wheelSize = 64;
+        private Clock clock = SYSTEM_CLOCK;
+        private Scheduler scheduler;
+        private Executor listenerExecutor = Runnable::run;
+        private EvictionListener<K, V> listener;
+
+        public Builder<K, V> maxSize(int maxSize) {
+            this.maxSize = Math.max(1, maxSize);
+            return this;
+        }
+
+        public Builder<K, V> defaultTtl(long ttlMs) {
+            this.defaultTtlMs = ttlMs;
+            return this;
+        }
+
+        /**
+         * 时间片长度：过期精度，同一时间片内到期的条目一起清理
+         */
+        public Builder<K, V> tick(long tickMs) {
+            this.tickMs = Math.max(1, tickMs);
+            return this;
+        }
+
+        public Builder<K, V> wheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+            return this;
+        }
+
+        public Builder<K, V> clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * 不设置时只在访问缓存时顺带清理到期条目
+         */
+        public Builder<K, V> scheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public Builder<K, V> evictionListener(EvictionListener<K, V> listener, Executor executor) {
+            this.listener = listener;
+            this.listenerExecutor = executor != null ? executor : Runnable::run;
+            return this;
+        }
+
+        public TimedCache<K, V> build() {
+            return new TimedCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bytedance.myapplication.utils;
+
+import android.util.Log;
+import android.webkit.JavascriptInterface;
+import android.webkit.WebView;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * JavaScript 接口，用于接收播放器页面上报的视频性能指标（player.html 中的 window.Android）
+ * 不持有页面引用，每个 WebView 只注入一次；接口在下一次加载页面时生效，需要在加载播放器之前注入
+ */
+public class VideoMetricsInterface {
+    private static final String TAG = "VideoMetricsInterface";
+    private static final String NAME = "Android";
+
+    private final String pageId;
+
+    private VideoMetricsInterface(String pageId) {
+        this.pageId = pageId;
+    }
+
+    /**
+     * 为 WebView 注入接口，指标记录到指定页面（已注入过时不重复注入）
+     */
+    public static void install(WebView webView, String pageId) {
+        WebViewConfigHelper.addJavascriptInterfaceOnce(webView, new VideoMetricsInterface(pageId), NAME);
+    }
+
+    @JavascriptInterface
+    public void onVideoPerformanceMetrics(String metricsJson) {
+        try {
+            JSONObject json = new JSONObject(metricsJson);
+
+            long playerInitTime = json.optLong("playerInitTime", 0);
+            long loadStartTime = json.optLong("loadStartTime", 0);
+            long loadedDataTime = json.optLong("loadedDataTime", 0);
+            long playingTime = json.optLong("playingTime", 0);
+            long firstFrameDuration = json.optLong("firstFrameDuration", 0);
+
+            // 如果 firstFrameDuration 为 0，但 playingTime 和 playerInitTime 都有值，则计算
+            if (firstFrameDuration == 0 && playingTime > 0 && playerInitTime > 0) {
+                firstFrameDuration = playingTime - playerInitTime;
+            }
+
+            PerformanceMonitor.VideoPerformanceMetrics metrics =
+                new PerformanceMonitor.VideoPerformanceMetrics(
+                    playerInitTime,
+                    loadStartTime,
+                    loadedDataTime,
+                    playingTime,
+                    firstFrameDuration
+                );
+            PerformanceMonitor.recordVideoPerformanceMetrics(pageId, metrics);
+
+            // 只在有完整数据时输出日志
+            if (firstFrameDuration > 0) {
+                long connectTime = loadStartTime > 0 && playerInitTime > 0 ?
+                    (loadStartTime - playerInitTime) : 0;
+                long dataLoadTime = loadedDataTime > 0 && loadStartTime > 0 ?
+                    (loadedDataTime - loadStartTime) : 0;
+                long renderTime = playingTime > 0 && loadedDataTime > 0 ?
+                    (playingTime - loadedDataTime) : 0;
+                Log.d(TAG, String.format(
+                    "首帧渲染: %dms (连接:%dms 数据:%dms 渲染:%dms)",
+                    firstFrameDuration, connectTime, dataLoadTime, renderTime
+                ));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "解析视频性能指标失败: " + metricsJson, e);
+        } catch (Exception e) {
+            Log.e(TAG, "处理性能指标失败", e);
+        }
+    }
+}
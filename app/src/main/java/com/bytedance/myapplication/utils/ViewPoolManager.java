@@ -1,38 +1,102 @@
 package com.bytedance.myapplication.utils;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bytedance.myapplication.R;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * View 预加载池管理器
  * 用于预加载和复用 View 对象，减少 inflate 开销
+ * - 预加载在专用的低优先级线程上 inflate（类似 AsyncLayoutInflater），不占用主线程
+ * - 布局中有不能在后台线程创建的 View 时（inflate 抛出异常），该布局之后改为在主线程 inflate
+ * - 池是并发容器：后台线程放入，主线程取出 / 回收
+ * - 按布局统计 inflate 次数和耗时
+ * - 按布局统计命中、未命中、淘汰和单个页面的峰值需求；预加载数量按峰值需求自动调整，
+ *   学到的数量持久化到 SharedPreferences，下次冷启动直接按它预热
+ * - RecyclerView 列表可以使用按布局共享的 RecycledViewPool：预先把池中的 View 包装成 ViewHolder 放进去，
+ *   进入页面时直接绑定数据；共享池在进程内跨 Activity 保留（RecycledViewPool 相关方法需要在主线程调用）
  */
 public class ViewPoolManager {
     private static final String TAG = "ViewPoolManager";
+    private static final String PREFS_NAME = "view_pool_sizes";
+    private static final String KEY_SIZE_PREFIX = "size_";
+    // 池被取空后，延迟补充到目标数量（等页面创建完首屏的 View）
+    private static final long REFILL_DELAY_MS = 1000;
     private static ViewPoolManager instance;
     
     // View 池：key 为 layoutId，value 为 View 队列
-    private Map<Integer, Queue<View>> viewPools = new HashMap<>();
+    private final ConcurrentHashMap<Integer, Queue<View>> viewPools = new ConcurrentHashMap<>();
     
     // 每个布局的最大缓存数量
     private static final int MAX_POOL_SIZE = 10;
     
+    // 单个池中 View 的估算内存（列表项布局，不含图片）
+    private static final long ESTIMATED_VIEW_BYTES = 16 * 1024;
+    
     // 预加载的布局 ID 列表
-    private Map<Integer, Integer> preloadLayouts = new HashMap<>();
+    private final Map<Integer, Integer> preloadLayouts = new ConcurrentHashMap<>();
+    
+    // 不能在后台线程 inflate 的布局
+    private final Set<Integer> mainThreadOnlyLayouts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    
+    // 每个布局的 inflate 统计
+    private final ConcurrentHashMap<Integer, InflateStats> inflateStats = new ConcurrentHashMap<>();
+    
+    // 每个布局的使用统计
+    private final ConcurrentHashMap<Integer, UsageStats> usageStats = new ConcurrentHashMap<>();
+    
+    // 已安排补充的布局
+    private final Set<Integer> pendingRefills = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    
+    // 共享的 RecycledViewPool：key 为 layoutId（主线程访问）
+    private final Map<Integer, RecyclerView.RecycledViewPool> recycledViewPools = new HashMap<>();
+    
+    private volatile Context applicationContext;
+    private volatile SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Handler inflateHandler;
+    
+    private static class InflateStats {
+        final AtomicInteger backgroundCount = new AtomicInteger();
+        final AtomicInteger mainThreadCount = new AtomicInteger();
+        final AtomicLong backgroundNanos = new AtomicLong();
+        final AtomicLong mainThreadNanos = new AtomicLong();
+    }
     
-    private Context applicationContext;
+    private static class UsageStats {
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicInteger misses = new AtomicInteger();
+        final AtomicInteger evictions = new AtomicInteger();
+        // 单个页面同时使用的 View 数量的峰值
+        final AtomicInteger peakDemand = new AtomicInteger();
+        volatile boolean dirty;
+    }
     
     private ViewPoolManager() {
     }
@@ -44,134 +108,293 @@ public class ViewPoolManager {
         return instance;
     }
     
+    // 登记到内存预算的占用
+    private final MemoryBudget.Holder budgetHolder = new MemoryBudget.Holder() {
+        @Override
+        public String getName() {
+            return "View池";
+        }
+        
+        @Override
+        public long getSpeculativeBytes() {
+            return (getTotalPoolSize() + getRecycledHolderCount()) * ESTIMATED_VIEW_BYTES;
+        }
+        
+        @Override
+        public long getRequiredBytes() {
+            return 0;
+        }
+        
+        @Override
+        public long releaseSpeculative(long bytes) {
+            long freed = getSpeculativeBytes();
+            clearAllPools();
+            for (RecyclerView.RecycledViewPool pool : recycledViewPools.values()) {
+                pool.clear();
+            }
+            return freed;
+        }
+    };
+    
     /**
      * 初始化 View 池管理器
      * @param context Application 上下文
      */
     public void init(Context context) {
         this.applicationContext = context.getApplicationContext();
+        if (prefs == null) {
+            prefs = applicationContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        }
+        // 重复 init 时同一个 Holder 只会登记一次
+        MemoryBudget.getInstance().register(budgetHolder, MemoryBudget.PRIORITY_VIEW_POOL);
     }
     
     /**
      * 注册需要预加载的布局
+     * 之前的启动中学到过峰值需求时按学到的数量预加载，否则使用 preloadCount
+     * 注意：会读取 SharedPreferences，需要在后台线程调用
      * @param layoutId 布局资源 ID
-     * @param preloadCount 预加载数量
+     * @param preloadCount 默认预加载数量
      */
     public void registerPreloadLayout(int layoutId, int preloadCount) {
-        preloadLayouts.put(layoutId, preloadCount);
+        int learned = prefs != null ? prefs.getInt(KEY_SIZE_PREFIX + layoutName(layoutId), -1) : -1;
+        preloadLayouts.put(layoutId, learned >= 0 ? learned : preloadCount);
+    }
+    
+    /**
+     * 页面使用了 concurrentViews 个该布局的 View 时调用（Adapter 每创建一个 View 报告一次当前总数）
+     * 峰值需求超过当前预加载数量时，提高预加载数量
+     */
+    public void recordDemand(int layoutId, int concurrentViews) {
+        UsageStats stats = getUsageStats(layoutId);
+        int peak;
+        while ((peak = stats.peakDemand.get()) < concurrentViews) {
+            if (stats.peakDemand.compareAndSet(peak, concurrentViews)) {
+                stats.dirty = true;
+                break;
+            }
+        }
+        Integer target = preloadLayouts.get(layoutId);
+        int size = Math.min(concurrentViews, MAX_POOL_SIZE);
+        if (target != null && target < size) {
+            preloadLayouts.put(layoutId, size);
+        }
+    }
+    
+    /**
+     * 把本次启动学到的预加载数量写入 SharedPreferences（页面暂停时调用）
+     * 没有使用过的布局保留上次的数量
+     */
+    public void flush() {
+        if (prefs == null) {
+            return;
+        }
+        SharedPreferences.Editor editor = null;
+        for (Map.Entry<Integer, UsageStats> entry : usageStats.entrySet()) {
+            UsageStats stats = entry.getValue();
+            if (!stats.dirty) {
+                continue;
+            }
+            stats.dirty = false;
+            if (editor == null) {
+                editor = prefs.edit();
+            }
+            editor.putInt(KEY_SIZE_PREFIX + layoutName(entry.getKey()),
+                    Math.min(stats.peakDemand.get(), MAX_POOL_SIZE));
+        }
+        if (editor != null) {
+            editor.apply();
+        }
     }
     
     /**
-     * 预加载指定布局的 View
+     * 预加载指定布局的 View（在后台 inflate 线程执行，立即返回）
      * @param layoutId 布局资源 ID
-     * @param parent 父容器（可以为 null）
+     * @param parent 父容器（可以为 null，只用于生成布局参数）
      * @param count 预加载数量
      */
     public void preloadViews(int layoutId, ViewGroup parent, int count) {
+        preloadViews(layoutId, parent, count, null);
+    }
+    
+    private void preloadViews(int layoutId, ViewGroup parent, int count, Runnable onComplete) {
         if (applicationContext == null) {
+            if (onComplete != null) {
+                mainHandler.post(onComplete);
+            }
             return;
         }
         
-        LayoutInflater inflater = LayoutInflater.from(applicationContext);
-        Queue<View> pool = viewPools.get(layoutId);
-        if (pool == null) {
-            pool = new LinkedList<>();
-            viewPools.put(layoutId, pool);
+        if (mainThreadOnlyLayouts.contains(layoutId)) {
+            mainHandler.post(() -> {
+                inflateInto(layoutId, parent, count, true);
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            });
+            return;
         }
         
-        // 预加载指定数量的 View
-        int currentSize = pool.size();
-        int needLoad = Math.min(count, MAX_POOL_SIZE - currentSize);
+        getInflateHandler().post(() -> {
+            int remaining = inflateInto(layoutId, parent, count, false);
+            if (remaining > 0) {
+                // 后台 inflate 失败，剩余的数量回到主线程完成
+                mainHandler.post(() -> inflateInto(layoutId, parent, remaining, true));
+            }
+            if (onComplete != null) {
+                mainHandler.post(onComplete);
+            }
+        });
+    }
+    
+    /**
+     * inflate 最多 count 个 View 放入池中（不超过 MAX_POOL_SIZE）
+     * @return 后台线程 inflate 失败时未完成的数量，其他情况返回 0
+     */
+    private int inflateInto(int layoutId, ViewGroup parent, int count, boolean onMainThread) {
+        LayoutInflater inflater = LayoutInflater.from(applicationContext);
+        Queue<View> pool = getOrCreatePool(layoutId);
+        InflateStats stats = getInflateStats(layoutId);
+        // 没有父容器时用一个临时的 FrameLayout 生成布局参数，保留布局根节点的宽高属性，
+        // 列表使用时由 RecyclerView / GridView 转换成自己的布局参数
+        ViewGroup layoutParent = parent != null ? parent : new FrameLayout(applicationContext);
         
+        // 预加载指定数量的 View
+        int needLoad = Math.min(count, MAX_POOL_SIZE - pool.size());
         for (int i = 0; i < needLoad; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
             try {
-                // 注意：parent 为 null 时，inflate 的 View 可能没有正确的布局参数
-                // 但这是正常的，因为布局参数会在使用时由 GridView/ListView 设置
-                View view = inflater.inflate(layoutId, parent, false);
+                View view = inflater.inflate(layoutId, layoutParent, false);
                 // 标记为预加载的 View（使用 R.id 作为 key）
                 view.setTag(R.id.view_pool_tag, true);
                 // 注意：不要在这里清除布局参数，因为 setLayoutParams(null) 会抛出异常
                 // 布局参数会在从池中获取时由 Adapter 处理
                 pool.offer(view);
             } catch (Exception e) {
+                if (!onMainThread) {
+                    Log.w(TAG, "后台 inflate 失败，改为在主线程 inflate: layoutId=" + layoutId, e);
+                    mainThreadOnlyLayouts.add(layoutId);
+                    return needLoad - i;
+                }
                 Log.e(TAG, "预加载 View 失败: layoutId=" + layoutId, e);
+                continue;
+            }
+            long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+            if (onMainThread) {
+                stats.mainThreadCount.incrementAndGet();
+                stats.mainThreadNanos.addAndGet(elapsed);
+            } else {
+                stats.backgroundCount.incrementAndGet();
+                stats.backgroundNanos.addAndGet(elapsed);
             }
         }
+        if (needLoad > 0) {
+            MemoryBudget.getInstance().requestCheck();
+        }
+        return 0;
     }
     
     /**
-     * 预加载所有注册的布局
+     * 后台 inflate 线程，第一次使用时创建
      */
-    public void preloadAll() {
-        if (applicationContext == null) {
-            return;
+    private synchronized Handler getInflateHandler() {
+        if (inflateHandler == null) {
+            HandlerThread thread = new HandlerThread("ViewPoolInflater", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            inflateHandler = new Handler(thread.getLooper());
         }
-        
-        for (Map.Entry<Integer, Integer> entry : preloadLayouts.entrySet()) {
-            int layoutId = entry.getKey();
-            int count = entry.getValue();
-            preloadViews(layoutId, null, count);
+        return inflateHandler;
+    }
+    
+    private Queue<View> getOrCreatePool(int layoutId) {
+        Queue<View> pool = viewPools.get(layoutId);
+        if (pool == null) {
+            viewPools.putIfAbsent(layoutId, new ConcurrentLinkedQueue<>());
+            pool = viewPools.get(layoutId);
+        }
+        return pool;
+    }
+    
+    private InflateStats getInflateStats(int layoutId) {
+        InflateStats stats = inflateStats.get(layoutId);
+        if (stats == null) {
+            inflateStats.putIfAbsent(layoutId, new InflateStats());
+            stats = inflateStats.get(layoutId);
         }
+        return stats;
     }
     
     /**
-     * 分批预加载所有注册的布局，避免阻塞主线程
-     * @param handler 主线程 Handler
-     * @param onComplete 完成回调
+     * 预加载所有注册的布局
      */
-    public void preloadAllInBatches(android.os.Handler handler, Runnable onComplete) {
-        if (applicationContext == null) {
+    public void preloadAll() {
+        preloadAllAsync(null);
+    }
+    
+    /**
+     * 在后台 inflate 线程预加载所有注册的布局，不阻塞主线程
+     * @param onComplete 全部完成后在主线程回调（可以为 null）
+     */
+    public void preloadAllAsync(Runnable onComplete) {
+        List<Map.Entry<Integer, Integer>> tasks = new ArrayList<>(preloadLayouts.entrySet());
+        if (applicationContext == null || tasks.isEmpty()) {
             if (onComplete != null) {
-                onComplete.run();
+                mainHandler.post(onComplete);
             }
             return;
         }
         
-        // 收集所有需要预加载的布局和数量
-        List<PreloadTask> tasks = new ArrayList<>();
-        for (Map.Entry<Integer, Integer> entry : preloadLayouts.entrySet()) {
-            int layoutId = entry.getKey();
-            int count = entry.getValue();
-            tasks.add(new PreloadTask(layoutId, count));
+        AtomicInteger pending = new AtomicInteger(tasks.size());
+        Runnable onTaskDone = () -> {
+            if (pending.decrementAndGet() == 0) {
+                Log.d(TAG, "View 池预加载完成: " + describeInflateStats());
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            }
+        };
+        for (Map.Entry<Integer, Integer> entry : tasks) {
+            preloadViews(entry.getKey(), null, entry.getValue(), onTaskDone);
         }
-        
-        // 分批预加载，每次 2 个，间隔 50ms
-        preloadBatch(handler, tasks, 0, onComplete);
     }
     
-    private void preloadBatch(android.os.Handler handler, List<PreloadTask> tasks, int taskIndex, Runnable onComplete) {
-        if (taskIndex >= tasks.size()) {
-            if (onComplete != null) {
-                onComplete.run();
-            }
-            return;
+    /**
+     * 各布局的 inflate 统计，例如 "item_comment: 后台 5 次 平均 3.2ms, 主线程 0 次"
+     */
+    public String describeInflateStats() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Integer, InflateStats> entry : inflateStats.entrySet()) {
+            InflateStats stats = entry.getValue();
+            int background = stats.backgroundCount.get();
+            int main = stats.mainThreadCount.get();
+            builder.append(String.format(Locale.US, "%s: 后台 %d 次 平均 %.1fms, 主线程 %d 次 平均 %.1fms\n",
+                    layoutName(entry.getKey()),
+                    background, background > 0 ? stats.backgroundNanos.get() / 1e6 / background : 0.0,
+                    main, main > 0 ? stats.mainThreadNanos.get() / 1e6 / main : 0.0));
         }
-        
-        PreloadTask task = tasks.get(taskIndex);
-        int layoutId = task.layoutId;
-        int remaining = task.remaining;
-        
-        // 每次只预加载 2 个 View
-        int batchSize = Math.min(2, remaining);
-        preloadViews(layoutId, null, batchSize);
-        task.remaining -= batchSize;
-        
-        if (task.remaining > 0) {
-            // 继续预加载当前布局
-            handler.postDelayed(() -> preloadBatch(handler, tasks, taskIndex, onComplete), 50);
-        } else {
-            // 当前布局预加载完成，继续下一个
-            handler.postDelayed(() -> preloadBatch(handler, tasks, taskIndex + 1, onComplete), 50);
+        return builder.toString();
+    }
+    
+    /**
+     * 各布局的使用统计，例如 "item_comment: 命中 5, 未命中 3, 淘汰 0, 峰值需求 8, 预加载 8"
+     */
+    public String describeUsageStats() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Integer, UsageStats> entry : usageStats.entrySet()) {
+            UsageStats stats = entry.getValue();
+            Integer target = preloadLayouts.get(entry.getKey());
+            builder.append(String.format(Locale.US, "%s: 命中 %d, 未命中 %d, 淘汰 %d, 峰值需求 %d, 预加载 %d\n",
+                    layoutName(entry.getKey()), stats.hits.get(), stats.misses.get(),
+                    stats.evictions.get(), stats.peakDemand.get(), target != null ? target : 0));
         }
+        return builder.toString();
     }
     
-    private static class PreloadTask {
-        int layoutId;
-        int remaining;
-        
-        PreloadTask(int layoutId, int count) {
-            this.layoutId = layoutId;
-            this.remaining = count;
+    private String layoutName(int layoutId) {
+        try {
+            return applicationContext.getResources().getResourceEntryName(layoutId);
+        } catch (Exception e) {
+            return String.valueOf(layoutId);
         }
     }
     
@@ -181,12 +404,101 @@ public class ViewPoolManager {
      * @return View 对象，如果池中没有则返回 null
      */
     public View getViewFromPool(int layoutId) {
+        UsageStats stats = getUsageStats(layoutId);
         Queue<View> pool = viewPools.get(layoutId);
-        if (pool != null && !pool.isEmpty()) {
-            View view = pool.poll();
-            return view;
+        View view = pool != null ? pool.poll() : null;
+        if (view != null) {
+            stats.hits.incrementAndGet();
+        } else {
+            stats.misses.incrementAndGet();
+        }
+        if (pool == null || pool.isEmpty()) {
+            scheduleRefill(layoutId);
+        }
+        return view;
+    }
+    
+    /**
+     * 布局当前的预加载数量（按峰值需求调整后），没有注册时返回 0
+     */
+    public int getPreloadCount(int layoutId) {
+        Integer count = preloadLayouts.get(layoutId);
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * 获取布局对应的共享 RecycledViewPool（主线程调用）
+     * 注意：需要在 RecyclerView.setAdapter 之后再设置共享池，setAdapter 在池没有关联其他 Adapter 时会清空池
+     */
+    public RecyclerView.RecycledViewPool getRecycledViewPool(int layoutId) {
+        RecyclerView.RecycledViewPool pool = recycledViewPools.get(layoutId);
+        if (pool == null) {
+            pool = new RecyclerView.RecycledViewPool();
+            recycledViewPools.put(layoutId, pool);
         }
-        return null;
+        return pool;
+    }
+    
+    /**
+     * 通过 adapter 预先创建 ViewHolder 放入共享的 RecycledViewPool（主线程调用）
+     * adapter 的 onCreateViewHolder 从 View 池取 View，这里只做 findViewById 等轻量操作
+     * @param count 池中该类型的 ViewHolder 补足到的数量
+     */
+    public void seedRecycledViewPool(int layoutId, RecyclerView.Adapter<?> adapter, int viewType, int count) {
+        if (applicationContext == null) {
+            return;
+        }
+        RecyclerView.RecycledViewPool pool = getRecycledViewPool(layoutId);
+        pool.setMaxRecycledViews(viewType, MAX_POOL_SIZE);
+        int needCreate = Math.min(count, MAX_POOL_SIZE) - pool.getRecycledViewCount(viewType);
+        if (needCreate <= 0) {
+            return;
+        }
+        ViewGroup parent = new FrameLayout(applicationContext);
+        for (int i = 0; i < needCreate; i++) {
+            try {
+                pool.putRecycledView(adapter.createViewHolder(parent, viewType));
+            } catch (Exception e) {
+                Log.e(TAG, "预创建 ViewHolder 失败: layoutId=" + layoutId, e);
+                break;
+            }
+        }
+        MemoryBudget.getInstance().requestCheck();
+    }
+    
+    private int getRecycledHolderCount() {
+        int total = 0;
+        for (RecyclerView.RecycledViewPool pool : recycledViewPools.values()) {
+            // 目前每个共享池只有一种 view type（默认的 0）
+            total += pool.getRecycledViewCount(0);
+        }
+        return total;
+    }
+    
+    /**
+     * 池被取空后，在后台补充到目标数量，下一个页面可以继续命中
+     */
+    private void scheduleRefill(int layoutId) {
+        if (applicationContext == null || !preloadLayouts.containsKey(layoutId)
+                || !pendingRefills.add(layoutId)) {
+            return;
+        }
+        getInflateHandler().postDelayed(() -> {
+            pendingRefills.remove(layoutId);
+            Integer target = preloadLayouts.get(layoutId);
+            if (target != null && target > getPoolSize(layoutId)) {
+                preloadViews(layoutId, null, target - getPoolSize(layoutId));
+            }
+        }, REFILL_DELAY_MS);
+    }
+    
+    private UsageStats getUsageStats(int layoutId) {
+        UsageStats stats = usageStats.get(layoutId);
+        if (stats == null) {
+            usageStats.putIfAbsent(layoutId, new UsageStats());
+            stats = usageStats.get(layoutId);
+        }
+        return stats;
     }
     
     /**
@@ -199,11 +511,7 @@ public class ViewPoolManager {
             return;
         }
         
-        Queue<View> pool = viewPools.get(layoutId);
-        if (pool == null) {
-            pool = new LinkedList<>();
-            viewPools.put(layoutId, pool);
-        }
+        Queue<View> pool = getOrCreatePool(layoutId);
         
         // 如果池未满，回收 View
         if (pool.size() < MAX_POOL_SIZE) {
@@ -213,6 +521,8 @@ public class ViewPoolManager {
             }
             view.setTag(R.id.view_pool_tag, null);
             pool.offer(view);
+        } else {
+            getUsageStats(layoutId).evictions.incrementAndGet();
         }
     }
     
@@ -226,6 +536,17 @@ public class ViewPoolManager {
         return pool != null ? pool.size() : 0;
     }
     
+    /**
+     * 所有池中 View 的总数
+     */
+    public int getTotalPoolSize() {
+        int total = 0;
+        for (Queue<View> pool : viewPools.values()) {
+            total += pool.size();
+        }
+        return total;
+    }
+    
     /**
      * 清空指定布局的池
      * @param layoutId 布局资源 ID
@@ -233,6 +554,7 @@ public class ViewPoolManager {
     public void clearPool(int layoutId) {
         Queue<View> pool = viewPools.remove(layoutId);
         if (pool != null) {
+            getUsageStats(layoutId).evictions.addAndGet(pool.size());
             for (View view : pool) {
                 if (view instanceof ViewGroup) {
                     ((ViewGroup) view).removeAllViews();
@@ -248,6 +570,7 @@ public class ViewPoolManager {
     public void clearAllPools() {
         for (Map.Entry<Integer, Queue<View>> entry : viewPools.entrySet()) {
             Queue<View> pool = entry.getValue();
+            getUsageStats(entry.getKey()).evictions.addAndGet(pool.size());
             for (View view : pool) {
                 if (view instanceof ViewGroup) {
                     ((ViewGroup) view).removeAllViews();
@@ -2,15 +2,29 @@ package com.bytedance.myapplication.utils;
 
 import android.os.Build;
 import android.util.Log;
+import android.webkit.WebChromeClient;
 import android.webkit.WebView;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
 /**
  * WebView 配置工具类
  * 统一管理 WebView 的性能优化配置，避免代码重复
+ * 设置和客户端保存在 WebView 上，同一个 WebView 只配置一次（进入直播间时不再重复配置）
+ * 注意：需要在主线程调用
  */
 public class WebViewConfigHelper {
     private static final String TAG = "WebViewConfigHelper";
     private static Boolean hardwareAccelerationSupported = null; // 缓存检测结果
+    // 已配置过的 WebView（弱引用，销毁后自动移除）
+    private static final Map<WebView, Boolean> configuredWebViews = new WeakHashMap<>();
+    // 已注入的 JavaScript 接口名称
+    private static final Map<WebView, Set<String>> installedInterfaces = new WeakHashMap<>();
+    // WebChromeClient 没有状态，所有 WebView 共用一个
+    private static final WebChromeClient sharedChromeClient = new WebChromeClient();
     
     /**
      * 检测硬件加速是否支持
@@ -37,7 +51,7 @@ public class WebViewConfigHelper {
      * 优化：添加硬件加速检测和降级机制，避免播放失败
      */
     public static void configureForPerformance(WebView webView) {
-        if (webView == null) {
+        if (webView == null || configuredWebViews.containsKey(webView)) {
             return;
         }
         
@@ -167,9 +181,19 @@ public class WebViewConfigHelper {
             // 静默处理
         }
         
+        // 设置 WebViewClient：拦截播放器请求，命中预取缓存时直接从内存返回
+        try {
+            LocalAssetServer.getInstance().init(webView.getContext());
+            webView.setWebViewClient(PlayerWebViewClient.getInstance());
+            // 页面加载前创建播放器通道，player.html 加载完成后建立事件通道
+            PlayerBridge.of(webView);
+        } catch (Exception e) {
+            // 静默处理
+        }
+        
         // 设置 WebChromeClient（用于处理 JavaScript 对话框等）
         try {
-            webView.setWebChromeClient(new android.webkit.WebChromeClient());
+            webView.setWebChromeClient(sharedChromeClient);
         } catch (Exception e) {
             // 静默处理
         }
@@ -180,6 +204,31 @@ public class WebViewConfigHelper {
         } catch (Exception e) {
             // 静默处理
         }
+        configuredWebViews.put(webView, Boolean.TRUE);
+    }
+    
+    /**
+     * 注入 JavaScript 接口（同名接口已注入过时不重复注入）
+     * 注意：接口在下一次加载页面时生效
+     */
+    public static void addJavascriptInterfaceOnce(WebView webView, Object object, String name) {
+        if (webView == null) {
+            return;
+        }
+        Set<String> names = installedInterfaces.get(webView);
+        if (names == null) {
+            names = new HashSet<>();
+            installedInterfaces.put(webView, names);
+        }
+        if (!names.add(name)) {
+            return;
+        }
+        try {
+            webView.addJavascriptInterface(object, name);
+        } catch (Exception e) {
+            names.remove(name);
+            Log.w(TAG, "注入 JavaScript 接口失败: " + name, e);
+        }
     }
 }
 
@@ -0,0 +1,572 @@
+package com.bytedance.myapplication.utils;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.webkit.WebView;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统一的 WebView 池
+ * 预热 WebView、预加载播放器的 WebView、TTL 缓存中静音播放的 WebView 以及可复用的 WebView
+ * 全部登记在这里，按状态管理：
+ *   COLD          已创建，未配置 / 已暂停
+ *   WARMED        已配置，空白页，可直接加载播放器
+ *   PLAYER_LOADED 已加载 player.html（预加载某个直播间）
+ *   PLAYING_MUTED 离开直播间后在后台静音播放（TTL 缓存）
+ *   IN_USE        正在直播间页面中显示
+ * 池有全局上限（按设备内存档位计算），超出时按 LRU 淘汰空闲的 WebView；
+ * 各状态的估算内存登记到 MemoryBudget，超出预算或系统内存紧张时由预算按优先级淘汰
+ * 注意：所有方法都需要在主线程调用
+ */
+public class WebViewPool {
+    private static final String TAG = "WebViewPool";
+    private static WebViewPool instance;
+
+    public enum State {
+        COLD(8),
+        WARMED(12),
+        PLAYER_LOADED(35),
+        PLAYING_MUTED(60),
+        IN_USE(60);
+
+        // 单个 WebView 在该状态下的估算内存（MB，包含渲染进程中的占用）
+        final int estimatedMb;
+
+        State(int estimatedMb) {
+            this.estimatedMb = estimatedMb;
+        }
+    }
+
+    /**
+     * 淘汰回调（WebView 销毁前调用），用于清理 TTL 缓存等引用了该 WebView 的数据
+     */
+    public interface EvictionListener {
+        void onEvicted(WebView webView, State state, String roomId);
+    }
+
+    private static class Entry {
+        final WebView webView;
+        State state;
+        String roomId;
+        // 后台停放时所在的隐藏容器
+        ViewGroup hiddenContainer;
+
+        Entry(WebView webView, State state) {
+            this.webView = webView;
+            this.state = state;
+        }
+    }
+
+    // 插入顺序即 LRU 顺序（最久未使用的在前）；只有取出 / 归还时通过 touch() 移到队尾，
+    // 只读查询（getState / find / contains 等）不改变淘汰顺序
+    private final LinkedHashMap<WebView, Entry> entries = new LinkedHashMap<>();
+    private final List<EvictionListener> evictionListeners = new ArrayList<>();
+    private int maxSize = 3;
+
+    private WebViewPool() {
+        MemoryBudget budget = MemoryBudget.getInstance();
+        budget.register(new BudgetHolder("预热WebView", State.COLD, State.WARMED), MemoryBudget.PRIORITY_WARM_WEBVIEW);
+        budget.register(new BudgetHolder("预缓冲直播间", State.PLAYER_LOADED), MemoryBudget.PRIORITY_STREAM_PRELOAD);
+        budget.register(new BudgetHolder("TTL直播间", State.PLAYING_MUTED), MemoryBudget.PRIORITY_TTL_ROOM);
+        budget.register(new BudgetHolder("使用中WebView", State.IN_USE), MemoryBudget.PRIORITY_REQUIRED);
+    }
+
+    public static synchronized WebViewPool getInstance() {
+        if (instance == null) {
+            instance = new WebViewPool();
+        }
+        return instance;
+    }
+
+    /**
+     * 按设备内存档位设置全局上限
+     */
+    public void init(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getApplicationContext()
+                .getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return;
+        }
+        if (activityManager.isLowRamDevice()) {
+            maxSize = 1;
+        } else if (activityManager.getMemoryClass() <= 192) {
+            maxSize = 2;
+        } else {
+            maxSize = 4;
+        }
+        Log.d(TAG, "WebView 池上限: " + maxSize + ", memoryClass=" + activityManager.getMemoryClass());
+    }
+
+    public void addEvictionListener(EvictionListener listener) {
+        if (listener != null && !evictionListeners.contains(listener)) {
+            evictionListeners.add(listener);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 创建一个新的已配置 WebView 并登记为 WARMED
+     * 达到上限且没有可淘汰的空闲 WebView 时返回 null
+     */
+    public WebView createWarmed(Context context) {
+        if (!makeRoomFor(1)) {
+            Log.w(TAG, "WebView 池已满，跳过创建: " + describe());
+            return null;
+        }
+        WebView webView = new WebView(context.getApplicationContext());
+        WebViewConfigHelper.configureForPerformance(webView);
+        entries.put(webView, new Entry(webView, State.WARMED));
+        MemoryBudget.getInstance().requestCheck();
+        return webView;
+    }
+
+    /**
+     * 取一个空闲的 COLD / WARMED WebView 用于预加载直播间；没有时按需创建
+     */
+    public WebView obtainForPreload(Context context, String roomId) {
+        Entry idle = findIdle();
+        WebView webView = idle != null ? idle.webView : createWarmed(context);
+        if (webView == null) {
+            return null;
+        }
+        Entry entry = entries.get(webView);
+        entry.state = State.PLAYER_LOADED;
+        entry.roomId = roomId;
+        touch(entry);
+        MemoryBudget.getInstance().requestCheck();
+        return webView;
+    }
+
+    /**
+     * 取出指定状态、指定直播间的 WebView 并标记为 IN_USE
+     */
+    public WebView acquire(String roomId, State state) {
+        if (roomId == null) {
+            return null;
+        }
+        WebView found = find(roomId, state);
+        if (found != null) {
+            markInUse(found, roomId);
+        }
+        return found;
+    }
+
+    /**
+     * 取出一个空闲的 COLD / WARMED WebView 并标记为 IN_USE
+     */
+    public WebView acquireIdle() {
+        Entry idle = findIdle();
+        if (idle == null) {
+            return null;
+        }
+        markInUse(idle.webView, null);
+        return idle.webView;
+    }
+
+    /**
+     * 查看（不取出）指定状态的 WebView
+     */
+    public WebView peek(State state) {
+        for (Entry entry : entries.values()) {
+            if (entry.state == state) {
+                return entry.webView;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否有指定状态、指定直播间的 WebView
+     */
+    public boolean contains(String roomId, State state) {
+        for (Entry entry : entries.values()) {
+            if (entry.state == state && roomId != null && roomId.equals(entry.roomId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查看（不取出）指定状态、指定直播间的 WebView
+     */
+    public WebView find(String roomId, State state) {
+        for (Entry entry : entries.values()) {
+            if (entry.state == state && roomId != null && roomId.equals(entry.roomId)) {
+                return entry.webView;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 指定状态的 WebView 对应的直播间（按 LRU 顺序）
+     */
+    public List<String> getRoomIds(State state) {
+        List<String> roomIds = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.state == state && entry.roomId != null) {
+                roomIds.add(entry.roomId);
+            }
+        }
+        return roomIds;
+    }
+
+    /**
+     * 登记正在页面中使用的 WebView（包括布局中自带的 WebView）
+     */
+    public void markInUse(WebView webView, String roomId) {
+        if (webView == null) {
+            return;
+        }
+        Entry entry = entries.get(webView);
+        if (entry == null) {
+            entry = new Entry(webView, State.IN_USE);
+            entries.put(webView, entry);
+            // 使用中的 WebView 不会被淘汰，但会挤占空闲 WebView 的名额
+            trimToSize(maxSize);
+        }
+        detachFromHiddenContainer(entry);
+        entry.state = State.IN_USE;
+        entry.roomId = roomId;
+        touch(entry);
+        MemoryBudget.getInstance().requestCheck();
+    }
+
+    /**
+     * 更新状态（登记不存在的 WebView 时一并加入），并按上限淘汰其他空闲 WebView
+     */
+    public void setState(WebView webView, State state, String roomId) {
+        if (webView == null) {
+            return;
+        }
+        Entry entry = entries.get(webView);
+        if (entry == null) {
+            entry = new Entry(webView, state);
+            entries.put(webView, entry);
+        }
+        entry.state = state;
+        entry.roomId = roomId;
+        touch(entry);
+        trimToSize(maxSize);
+        MemoryBudget.getInstance().requestCheck();
+    }
+
+    /**
+     * WebView 是否仍在池中（未销毁）
+     * 所有 WebView 都由池销毁，销毁前先从池中移除，因此不在池中的 WebView 视为已销毁或不再可用
+     */
+    public boolean isAlive(WebView webView) {
+        return webView != null && entries.containsKey(webView);
+    }
+
+    public State getState(WebView webView) {
+        Entry entry = webView != null ? entries.get(webView) : null;
+        return entry != null ? entry.state : null;
+    }
+
+    /**
+     * 把 WebView 停放到 Activity 中的 1x1 隐藏容器里，使其在后台保持活跃（静音播放 / 预缓冲）
+     * 容器由池统一记录，取出或淘汰时负责移除
+     */
+    public void parkHidden(WebView webView, Activity activity) {
+        Entry entry = webView != null ? entries.get(webView) : null;
+        if (entry == null || activity == null || activity.isFinishing() || activity.isDestroyed()) {
+            return;
+        }
+        ViewGroup rootView = activity.findViewById(android.R.id.content);
+        if (rootView == null) {
+            return;
+        }
+        detachFromHiddenContainer(entry);
+        detachFromParent(webView);
+
+        FrameLayout hiddenContainer = new FrameLayout(activity);
+        hiddenContainer.setLayoutParams(new ViewGroup.LayoutParams(1, 1));
+        hiddenContainer.setVisibility(View.INVISIBLE);
+        hiddenContainer.setAlpha(0.0f);
+        hiddenContainer.addView(webView, new ViewGroup.LayoutParams(1, 1));
+        rootView.addView(hiddenContainer);
+        entry.hiddenContainer = hiddenContainer;
+    }
+
+    /**
+     * 从池中移除并销毁 WebView
+     */
+    public void evict(WebView webView) {
+        Entry entry = webView != null ? entries.remove(webView) : null;
+        if (entry != null) {
+            destroyEntry(entry);
+        }
+    }
+
+    /**
+     * 从池中移除（不销毁），之后 isAlive 返回 false
+     */
+    public void remove(WebView webView) {
+        Entry entry = webView != null ? entries.remove(webView) : null;
+        if (entry != null) {
+            detachFromHiddenContainer(entry);
+        }
+    }
+
+    /**
+     * 销毁指定状态的所有 WebView
+     */
+    public void evictAll(State state) {
+        List<Entry> evicted = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.state == state) {
+                evicted.add(entry);
+            }
+        }
+        for (Entry entry : evicted) {
+            entries.remove(entry.webView);
+            destroyEntry(entry);
+        }
+    }
+
+    /**
+     * 销毁池中所有空闲 WebView（使用中的保留）
+     */
+    public void clearIdle() {
+        evictIdleUpTo(State.PLAYING_MUTED);
+    }
+
+    public int getCount(State state) {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.state == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getTotalCount() {
+        return entries.size();
+    }
+
+    /**
+     * 估算池中 WebView 的总内存占用（MB）
+     */
+    public int getEstimatedMemoryMb() {
+        int total = 0;
+        for (Entry entry : entries.values()) {
+            total += entry.state.estimatedMb;
+        }
+        return total;
+    }
+
+    /**
+     * 各状态数量和估算内存，例如 "WARMED=1(12MB) IN_USE=1(60MB) total=72MB/4"
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (State state : State.values()) {
+            int count = getCount(state);
+            if (count > 0) {
+                builder.append(state.name()).append('=').append(count)
+                        .append('(').append(count * state.estimatedMb).append("MB) ");
+            }
+        }
+        builder.append("total=").append(getEstimatedMemoryMb()).append("MB/").append(maxSize);
+        return builder.toString();
+    }
+
+    /**
+     * 指定状态的 WebView 的估算内存（字节）
+     */
+    public static long estimatedBytes(State state) {
+        return state.estimatedMb * MemoryBudget.MB;
+    }
+
+    /**
+     * 把一组状态的 WebView 登记到内存预算；IN_USE 报告为必需占用，其余为预测性占用
+     * 释放时按 LRU 顺序淘汰这些状态的 WebView
+     */
+    private class BudgetHolder implements MemoryBudget.Holder {
+        private final String name;
+        private final State[] states;
+
+        BudgetHolder(String name, State... states) {
+            this.name = name;
+            this.states = states;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getSpeculativeBytes() {
+            return states[0] == State.IN_USE ? 0 : countBytes();
+        }
+
+        @Override
+        public long getRequiredBytes() {
+            return states[0] == State.IN_USE ? countBytes() : 0;
+        }
+
+        @Override
+        public long releaseSpeculative(long bytes) {
+            List<Entry> evicted = new ArrayList<>();
+            long freed = 0;
+            for (Entry entry : entries.values()) {
+                if (freed >= bytes) {
+                    break;
+                }
+                if (entry.state != State.IN_USE && matches(entry.state)) {
+                    evicted.add(entry);
+                    freed += estimatedBytes(entry.state);
+                }
+            }
+            for (Entry entry : evicted) {
+                entries.remove(entry.webView);
+                destroyEntry(entry);
+            }
+            return freed;
+        }
+
+        private long countBytes() {
+            long total = 0;
+            for (Entry entry : entries.values()) {
+                if (matches(entry.state)) {
+                    total += estimatedBytes(entry.state);
+                }
+            }
+            return total;
+        }
+
+        private boolean matches(State state) {
+            for (State candidate : states) {
+                if (candidate == state) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private Entry findIdle() {
+        Entry found = null;
+        for (Entry entry : entries.values()) {
+            if (entry.state == State.WARMED) {
+                return entry;
+            }
+            if (entry.state == State.COLD && found == null) {
+                found = entry;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 把条目移到队尾（最近使用），只在取出 / 归还时调用
+     */
+    private void touch(Entry entry) {
+        entries.remove(entry.webView);
+        entries.put(entry.webView, entry);
+    }
+
+    /**
+     * 为新 WebView 腾出名额
+     */
+    private boolean makeRoomFor(int count) {
+        trimToSize(maxSize - count);
+        return entries.size() + count <= maxSize;
+    }
+
+    /**
+     * 按 LRU 顺序淘汰空闲 WebView，直到数量不超过 size
+     */
+    private void trimToSize(int size) {
+        Iterator<Map.Entry<WebView, Entry>> iterator = entries.entrySet().iterator();
+        List<Entry> evicted = new ArrayList<>();
+        while (entries.size() - evicted.size() > size && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.state != State.IN_USE) {
+                evicted.add(entry);
+            }
+        }
+        for (Entry entry : evicted) {
+            entries.remove(entry.webView);
+            destroyEntry(entry);
+        }
+    }
+
+    private int evictIdleUpTo(State threshold) {
+        List<Entry> evicted = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.state != State.IN_USE && entry.state.ordinal() <= threshold.ordinal()) {
+                evicted.add(entry);
+            }
+        }
+        for (Entry entry : evicted) {
+            entries.remove(entry.webView);
+            destroyEntry(entry);
+        }
+        return evicted.size();
+    }
+
+    /**
+     * 销毁条目中的 WebView；调用前条目已从 entries 中移除，isAlive 随即返回 false
+     */
+    private void destroyEntry(Entry entry) {
+        for (EvictionListener listener : new ArrayList<>(evictionListeners)) {
+            try {
+                listener.onEvicted(entry.webView, entry.state, entry.roomId);
+            } catch (Exception e) {
+                Log.e(TAG, "淘汰回调失败", e);
+            }
+        }
+        detachFromHiddenContainer(entry);
+        WebView webView = entry.webView;
+        try {
+            // 不再单独释放页面中的播放器：destroy() 会结束页面，播放器和缓冲随之释放
+            detachFromParent(webView);
+            webView.onPause();
+            webView.destroy();
+        } catch (Exception e) {
+            Log.e(TAG, "销毁 WebView 失败", e);
+        }
+        Log.d(TAG, "淘汰 WebView: state=" + entry.state + ", roomId=" + entry.roomId);
+    }
+
+    private void detachFromHiddenContainer(Entry entry) {
+        ViewGroup container = entry.hiddenContainer;
+        entry.hiddenContainer = null;
+        if (container == null) {
+            return;
+        }
+        if (entry.webView.getParent() == container) {
+            container.removeView(entry.webView);
+        }
+        ViewParent parent = container.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(container);
+        }
+    }
+
+    private static void detachFromParent(WebView webView) {
+        ViewParent parent = webView.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(webView);
+        }
+    }
+}
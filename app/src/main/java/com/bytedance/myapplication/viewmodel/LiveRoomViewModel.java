@@ -16,10 +16,11 @@ import com.bytedance.myapplication.plugin.PluginManager;
 import com.bytedance.myapplication.plugin.example.LikePlugin;
 import com.bytedance.myapplication.repository.LiveRoomRepository;
 import com.bytedance.myapplication.utils.ApiService;
-import com.bytedance.myapplication.utils.PreloadManager;
+import com.bytedance.myapplication.utils.CommentMergeEngine;
+import com.bytedance.myapplication.utils.CommentScrollbackLog;
+import com.bytedance.myapplication.utils.RoomEntryOrchestrator;
 import com.bytedance.myapplication.utils.WebSocketManager;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class LiveRoomViewModel extends AndroidViewModel {
@@ -31,9 +32,12 @@ public class LiveRoomViewModel extends AndroidViewModel {
     // LiveData for Host info
     private MutableLiveData<Host> hostData = new MutableLiveData<>();
     
-    // LiveData for Comments
+    // LiveData for Comments（值为合并引擎的只读视图）
     private MutableLiveData<List<Comment>> commentsData = new MutableLiveData<>();
     
+    // 评论合并引擎：REST 历史、发送结果、实时推送统一按 ID 去重、按时间排序
+    private final CommentMergeEngine commentMergeEngine = new CommentMergeEngine();
+    
     // LiveData for sending comment error
     private MutableLiveData<String> sendCommentError = new MutableLiveData<>();
     
@@ -66,6 +70,36 @@ public class LiveRoomViewModel extends AndroidViewModel {
         return commentsData;
     }
 
+    public CommentMergeEngine getCommentMergeEngine() {
+        return commentMergeEngine;
+    }
+
+    /**
+     * 绑定直播间的评论回滚日志
+     * @param keepHistory 是否保留日志中已有的评论（从 TTL 缓存恢复时为 true）
+     */
+    public void bindCommentScrollback(String roomId, boolean keepHistory) {
+        if (roomId == null || roomId.isEmpty()) {
+            return;
+        }
+        CommentScrollbackLog log = CommentScrollbackLog.open(getApplication(), roomId);
+        if (!keepHistory) {
+            log.clear();
+        }
+        commentMergeEngine.attachScrollbackLog(log);
+    }
+
+    /**
+     * 向上滚动接近顶部时，从回滚日志读回更早的评论
+     */
+    public void loadOlderComments() {
+        commentMergeEngine.loadOlder();
+    }
+
+    public void setFollowingLatestComments(boolean following) {
+        commentMergeEngine.setFollowingLatest(following);
+    }
+
     public LiveData<String> getSendCommentError() {
         return sendCommentError;
     }
@@ -82,7 +116,8 @@ public class LiveRoomViewModel extends AndroidViewModel {
     
     public void setCommentsData(List<Comment> comments) {
         if (comments != null) {
-            commentsData.postValue(comments);
+            commentMergeEngine.merge(comments);
+            commentsData.postValue(commentMergeEngine.asList());
         }
     }
     
@@ -139,7 +174,8 @@ public class LiveRoomViewModel extends AndroidViewModel {
         repository.getComments(new ApiService.ApiCallback<List<Comment>>() {
             @Override
             public void onSuccess(List<Comment> comments) {
-                commentsData.postValue(comments);
+                commentMergeEngine.merge(comments);
+                commentsData.postValue(commentMergeEngine.asList());
             }
 
             @Override
@@ -153,12 +189,8 @@ public class LiveRoomViewModel extends AndroidViewModel {
         repository.sendComment(commentText, new ApiService.ApiCallback<Comment>() {
             @Override
             public void onSuccess(Comment comment) {
-                List<Comment> currentComments = commentsData.getValue();
-                if (currentComments == null) {
-                    currentComments = new ArrayList<>();
-                }
-                currentComments.add(comment);
-                commentsData.postValue(currentComments);
+                commentMergeEngine.upsert(comment);
+                commentsData.postValue(commentMergeEngine.asList());
             }
 
             @Override
@@ -168,12 +200,48 @@ public class LiveRoomViewModel extends AndroidViewModel {
         });
     }
 
-    public void setupWebSocket() {
+    /**
+     * 接手进房计划中提前请求的数据和已经连接的 WebSocket
+     * 从 TTL 缓存恢复时计划中直接带有离开前的主播信息、评论和在线人数
+     */
+    public void attachEntryPlan(RoomEntryOrchestrator.EntryPlan plan) {
+        plan.observeHost(new ApiService.ApiCallback<Host>() {
+            @Override
+            public void onSuccess(Host host) {
+                hostData.postValue(host);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                Log.e(TAG, "loadHostInfo failed: " + error);
+            }
+        });
+        plan.observeComments(new ApiService.ApiCallback<List<Comment>>() {
+            @Override
+            public void onSuccess(List<Comment> comments) {
+                commentMergeEngine.merge(comments);
+                commentsData.postValue(commentMergeEngine.asList());
+            }
+
+            @Override
+            public void onFailure(String error) {
+                Log.e(TAG, "loadComments failed: " + error);
+            }
+        });
+        setOnlineCount(plan.getOnlineCount());
+        setupWebSocket(plan);
+    }
+
+    private void setupWebSocket(RoomEntryOrchestrator.EntryPlan plan) {
         try {
-            PreloadManager preloadManager = PreloadManager.getInstance();
-            webSocketManager = preloadManager.getPreloadedWebSocketManager();
+            WebSocketManager socket = plan.getSocket();
+            // 重新绑定计划时先断开之前的连接，避免旧连接泄漏
+            if (webSocketManager != null && webSocketManager != socket) {
+                webSocketManager.disconnect();
+            }
+            webSocketManager = socket;
             
-            webSocketManager.connect(new WebSocketManager.WebSocketCallback() {
+            plan.attachSocket(new WebSocketManager.WebSocketCallback() {
                 @Override
                 public void onMessage(String message) {
                     // 优化：使用防抖机制，累积多次消息后一次性更新
@@ -220,6 +288,7 @@ public class LiveRoomViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        commentMergeEngine.setListUpdateCallback(null);
         // 清理防抖任务
         if (onlineCountUpdateRunnable != null) {
             onlineCountUpdateHandler.removeCallbacks(onlineCountUpdateRunnable);
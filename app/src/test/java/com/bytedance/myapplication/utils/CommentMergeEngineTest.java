@@ -0,0 +1,240 @@
+package com.bytedance.myapplication.utils;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.bytedance.myapplication.model.Comment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * CommentMergeEngine 单元测试（回滚日志写入临时文件，回调排队后在测试线程执行，模拟主线程）
+ */
+public class CommentMergeEngineTest {
+
+    // 2024-01-01T00:00:00Z
+    private static final long START_MS = 1704067200000L;
+
+    private static class RecordingCallback implements ListUpdateCallback {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            events.add("insert " + position + "," + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            events.add("remove " + position + "," + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            events.add("move " + fromPosition + "," + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            events.add("change " + position + "," + count);
+        }
+    }
+
+    private CommentMergeEngine engine;
+    private RecordingCallback callback;
+    private LinkedBlockingQueue<Runnable> mainQueue;
+
+    @Before
+    public void setUp() {
+        engine = new CommentMergeEngine();
+        callback = new RecordingCallback();
+        engine.setListUpdateCallback(callback);
+        mainQueue = new LinkedBlockingQueue<>();
+    }
+
+    private static Comment comment(String id, long offsetMs, String text) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setComment(text);
+        comment.setCreatedAt(String.valueOf(START_MS + offsetMs));
+        return comment;
+    }
+
+    private static List<Comment> comments(int from, int to) {
+        List<Comment> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            result.add(comment(String.valueOf(i), i * 1000L, "评论 " + i));
+        }
+        return result;
+    }
+
+    private List<String> ids() {
+        List<String> result = new ArrayList<>();
+        for (Comment comment : engine.asList()) {
+            result.add(comment.getId());
+        }
+        return result;
+    }
+
+    private CommentScrollbackLog createLog() throws Exception {
+        File file = File.createTempFile("scrollback", ".log");
+        file.deleteOnExit();
+        return CommentScrollbackLog.create("test_room", file, mainQueue::add);
+    }
+
+    /**
+     * 执行一个排队的主线程回调（等待 IO 线程完成）
+     */
+    private void runNextMainTask() throws InterruptedException {
+        Runnable task = mainQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull("回调没有到达", task);
+        task.run();
+    }
+
+    @Test
+    public void merge_dedupesById() {
+        assertEquals(3, engine.merge(comments(0, 3)));
+        // 重复到达的评论幂等忽略
+        assertEquals(0, engine.merge(comments(0, 3)));
+        assertFalse(engine.upsert(comment("1", 1000, "评论 1")));
+        assertEquals(Arrays.asList("0", "1", "2"), ids());
+
+        // 同一 ID 内容变化：原位更新
+        callback.events.clear();
+        assertTrue(engine.upsert(comment("1", 1000, "已编辑")));
+        assertEquals(3, engine.size());
+        assertEquals("已编辑", engine.get(1).getComment());
+        assertEquals(Arrays.asList("change 1,1"), callback.events);
+    }
+
+    @Test
+    public void upsert_outOfOrderInsertsByTimestamp() {
+        engine.upsert(comment("a", 3000, "c"));
+        engine.upsert(comment("b", 1000, "a"));
+        engine.upsert(comment("c", 2000, "b"));
+
+        assertEquals(Arrays.asList("b", "c", "a"), ids());
+        assertEquals(Arrays.asList("insert 0,1", "insert 0,1", "insert 1,1"), callback.events);
+    }
+
+    @Test
+    public void upsert_sameTimestampOrderedByNumericId() {
+        engine.upsert(comment("12", 0, "x"));
+        engine.upsert(comment("3", 0, "y"));
+
+        assertEquals(Arrays.asList("3", "12"), ids());
+    }
+
+    @Test
+    public void upsert_correctedTimestampMovesEntry() {
+        engine.merge(comments(0, 3));
+        callback.events.clear();
+
+        assertTrue(engine.upsert(comment("0", 5000, "评论 0")));
+        assertEquals(Arrays.asList("1", "2", "0"), ids());
+        assertEquals(Arrays.asList("move 0,2", "change 2,1"), callback.events);
+    }
+
+    @Test
+    public void trim_spillsOldestToLog() throws Exception {
+        engine.setCapacity(10);
+        engine.attachScrollbackLog(createLog());
+
+        // 跟随最新评论时超出上限 + 50 才淘汰
+        engine.merge(comments(0, 60));
+        assertEquals(60, engine.size());
+        assertFalse(engine.hasOlderComments());
+
+        engine.upsert(comment("60", 60_000, "评论 60"));
+        assertEquals(10, engine.size());
+        assertEquals("51", engine.get(0).getId());
+        assertTrue(engine.hasOlderComments());
+        assertEquals("remove 0,51", callback.events.get(callback.events.size() - 1));
+    }
+
+    @Test
+    public void trim_waitsWhileBrowsingHistory() throws Exception {
+        engine.setCapacity(10);
+        engine.attachScrollbackLog(createLog());
+        engine.setFollowingLatest(false);
+
+        // 离开底部时放宽到 2 倍上限
+        engine.merge(comments(0, 20));
+        assertEquals(20, engine.size());
+        engine.upsert(comment("20", 20_000, "评论 20"));
+        assertEquals(10, engine.size());
+        assertEquals("11", engine.get(0).getId());
+    }
+
+    @Test
+    public void loadOlder_pagesBackFromLog() throws Exception {
+        engine.setCapacity(10);
+        engine.attachScrollbackLog(createLog());
+        engine.merge(comments(0, 61));
+        engine.setFollowingLatest(false);
+        assertEquals(10, engine.size());
+
+        // 每页 50 条，从最新的淘汰评论往前读
+        assertTrue(engine.loadOlder());
+        assertFalse("读取中不重复发起", engine.loadOlder());
+        runNextMainTask();
+        assertEquals(60, engine.size());
+        assertEquals("1", engine.get(0).getId());
+        assertEquals("评论 1", engine.get(0).getComment());
+        assertEquals(START_MS + 1000, engine.get(0).getCreatedAtMillis());
+        assertTrue(engine.hasOlderComments());
+
+        assertTrue(engine.loadOlder());
+        runNextMainTask();
+        assertEquals(61, engine.size());
+        assertEquals("0", engine.get(0).getId());
+        assertFalse(engine.hasOlderComments());
+        assertFalse(engine.loadOlder());
+    }
+
+    @Test
+    public void loadOlder_readBackCommentsAreNotWrittenTwice() throws Exception {
+        CommentScrollbackLog log = createLog();
+        engine.setCapacity(10);
+        engine.attachScrollbackLog(log);
+        engine.merge(comments(0, 61));
+        engine.setFollowingLatest(false);
+        engine.loadOlder();
+        runNextMainTask();
+        assertEquals(51, log.getCount());
+
+        // 回到底部重新收缩：读回的评论已在日志中，只有内存中的新评论需要写入
+        engine.setFollowingLatest(true);
+        engine.merge(comments(61, 62));
+        assertEquals(10, engine.size());
+        assertEquals(52, log.getCount());
+    }
+
+    @Test
+    public void trim_keepsCommentsWhenLogFailed() throws Exception {
+        // 父路径是普通文件，日志无法打开
+        File parent = File.createTempFile("scrollback", ".parent");
+        parent.deleteOnExit();
+        CommentScrollbackLog log = CommentScrollbackLog.create("failed_room",
+                new File(parent, "room.log"), mainQueue::add);
+        runNextMainTask();
+        assertTrue(log.isFailed());
+
+        engine.setCapacity(10);
+        engine.attachScrollbackLog(log);
+        engine.merge(comments(0, 61));
+
+        assertEquals(61, engine.size());
+        assertFalse(engine.hasOlderComments());
+        assertEquals(-1, log.append(comments(61, 62)));
+        assertEquals(0, log.getCount());
+    }
+}
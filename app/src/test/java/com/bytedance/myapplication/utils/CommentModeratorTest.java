@@ -0,0 +1,136 @@
+package com.bytedance.myapplication.utils;
+
+import com.bytedance.myapplication.model.Comment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CommentModerator 单元测试（同步 reload 词库）
+ */
+public class CommentModeratorTest {
+
+    private CommentModerator moderator;
+
+    @Before
+    public void setUp() {
+        moderator = CommentModerator.getInstance();
+        moderator.reload(Arrays.asList(
+                "# 注释行",
+                "",
+                "mask:傻瓜",
+                "垃圾",
+                "drop:加微信",
+                "flag:代购",
+                "MASK:bad"));
+    }
+
+    private static Comment comment(String text) {
+        Comment comment = new Comment();
+        comment.setId("1");
+        comment.setComment(text);
+        return comment;
+    }
+
+    @Test
+    public void moderate_masksMatchedText() {
+        long masked = moderator.getMaskedCount();
+        Comment comment = comment("你这个傻瓜，真垃圾");
+
+        assertTrue(moderator.moderate(comment));
+        assertEquals("你这个**，真**", comment.getComment());
+        assertFalse(comment.isFlagged());
+        assertEquals(masked + 1, moderator.getMaskedCount());
+    }
+
+    @Test
+    public void moderate_masksOverlappingMatches() {
+        moderator.reload(Arrays.asList("abc", "bcd"));
+        Comment comment = comment("xabcdx");
+
+        assertTrue(moderator.moderate(comment));
+        assertEquals("x****x", comment.getComment());
+    }
+
+    @Test
+    public void moderate_masksIgnoringCase() {
+        Comment comment = comment("so BAD");
+
+        assertTrue(moderator.moderate(comment));
+        assertEquals("so ***", comment.getComment());
+    }
+
+    @Test
+    public void moderate_dropWinsOverMaskAndFlag() {
+        long dropped = moderator.getDroppedCount();
+        Comment comment = comment("傻瓜代购加微信");
+
+        assertFalse(moderator.moderate(comment));
+        // 丢弃的评论不修改内容
+        assertEquals("傻瓜代购加微信", comment.getComment());
+        assertEquals(dropped + 1, moderator.getDroppedCount());
+    }
+
+    @Test
+    public void moderate_flagKeepsText() {
+        long flagged = moderator.getFlaggedCount();
+        Comment comment = comment("正品代购");
+
+        assertTrue(moderator.moderate(comment));
+        assertEquals("正品代购", comment.getComment());
+        assertTrue(comment.isFlagged());
+        assertEquals(flagged + 1, moderator.getFlaggedCount());
+    }
+
+    @Test
+    public void moderate_flagAndMaskTogether() {
+        Comment comment = comment("垃圾代购");
+
+        assertTrue(moderator.moderate(comment));
+        assertEquals("**代购", comment.getComment());
+        assertTrue(comment.isFlagged());
+    }
+
+    @Test
+    public void moderate_cleanComment() {
+        Comment comment = comment("主播好");
+
+        assertTrue(moderator.moderate(comment));
+        assertEquals("主播好", comment.getComment());
+        assertFalse(comment.isFlagged());
+        assertFalse(moderator.moderate(null));
+    }
+
+    @Test
+    public void moderateOutgoing() {
+        assertEquals("你好**", moderator.moderateOutgoing("你好垃圾"));
+        assertNull(moderator.moderateOutgoing("加微信领红包"));
+        // flag 原样发送
+        assertEquals("代购", moderator.moderateOutgoing("代购"));
+        assertEquals("", moderator.moderateOutgoing(""));
+    }
+
+    @Test
+    public void filter_removesDroppedComments() {
+        List<Comment> result = moderator.filter(Arrays.asList(
+                comment("主播好"), comment("加微信"), comment("垃圾")));
+
+        assertEquals(2, result.size());
+        assertEquals("主播好", result.get(0).getComment());
+        assertEquals("**", result.get(1).getComment());
+    }
+
+    @Test
+    public void reload_replacesRules() {
+        moderator.reload(Collections.singletonList("drop:新词"));
+
+        assertEquals("垃圾", moderator.moderateOutgoing("垃圾"));
+        assertNull(moderator.moderateOutgoing("新词"));
+    }
+}
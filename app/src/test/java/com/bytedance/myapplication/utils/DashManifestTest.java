@@ -0,0 +1,143 @@
+package com.bytedance.myapplication.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * DashManifest 单元测试（纯 JDK 解析，固定的当前时间）
+ */
+public class DashManifestTest {
+
+    private static final String MANIFEST_URL = "https://cdn.example.com/live/stream/out.mpd";
+    // 2024-01-01T00:00:00Z
+    private static final long START_MS = 1704067200000L;
+
+    private static String timelineManifest(String timeline) {
+        return "<?xml version=\"1.0\"?>"
+                + "<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" type=\"dynamic\""
+                + " availabilityStartTime=\"2024-01-01T08:00:00+08:00\" minimumUpdatePeriod=\"PT2S\">"
+                + "<Period start=\"PT0S\">"
+                + "<AdaptationSet contentType=\"video\">"
+                + "<SegmentTemplate timescale=\"1000\" startNumber=\"1\""
+                + " initialization=\"init-$RepresentationID$.mp4\" media=\"seg-$RepresentationID$-$Number$-$Time$.m4s\">"
+                + "<SegmentTimeline>" + timeline + "</SegmentTimeline>"
+                + "</SegmentTemplate>"
+                + "<Representation id=\"v1\" bandwidth=\"400000\"/>"
+                + "</AdaptationSet>"
+                + "</Period>"
+                + "</MPD>";
+    }
+
+    @Test
+    public void parseDate_utc() {
+        assertEquals(START_MS, DashManifest.parseDateMs("2024-01-01T00:00:00Z"));
+        // 没有时区时按 UTC
+        assertEquals(START_MS, DashManifest.parseDateMs("2024-01-01T00:00:00"));
+    }
+
+    @Test
+    public void parseDate_honoursOffset() {
+        assertEquals(START_MS, DashManifest.parseDateMs("2024-01-01T08:00:00+08:00"));
+        assertEquals(START_MS, DashManifest.parseDateMs("2023-12-31T19:00:00-05:00"));
+        assertEquals(START_MS, DashManifest.parseDateMs("2024-01-01T05:30:00+0530"));
+    }
+
+    @Test
+    public void parseDate_keepsMilliseconds() {
+        assertEquals(START_MS + 500, DashManifest.parseDateMs("2024-01-01T00:00:00.5Z"));
+        assertEquals(START_MS + 123, DashManifest.parseDateMs("2024-01-01T08:00:00.123456+08:00"));
+    }
+
+    @Test
+    public void parseDate_invalid() {
+        assertEquals(0, DashManifest.parseDateMs(null));
+        assertEquals(0, DashManifest.parseDateMs("yesterday"));
+    }
+
+    @Test
+    public void parseDuration() {
+        assertEquals(2000, DashManifest.parseDurationMs("PT2S", -1));
+        assertEquals(90500, DashManifest.parseDurationMs("PT1M30.5S", -1));
+        assertEquals(-1, DashManifest.parseDurationMs("2S", -1));
+    }
+
+    @Test
+    public void timeline_repeatUntilLiveEdge() throws Exception {
+        // r=-1 重复到直播边缘：10.5s 时已完整的分片为 0、2、4、6、8s
+        DashManifest manifest = DashManifest.parse(timelineManifest("<S t=\"0\" d=\"2000\" r=\"-1\"/>"),
+                MANIFEST_URL, START_MS + 10_500, 2);
+
+        assertTrue(manifest.isDynamic);
+        assertEquals(2000, manifest.minimumUpdatePeriodMs);
+        DashManifest.Track track = manifest.selectTrack("video", Long.MAX_VALUE);
+        assertNotNull(track);
+        assertEquals("https://cdn.example.com/live/stream/init-v1.mp4", track.initUrl);
+        assertEquals(Arrays.asList(
+                "https://cdn.example.com/live/stream/seg-v1-4-6000.m4s",
+                "https://cdn.example.com/live/stream/seg-v1-5-8000.m4s"), track.edgeSegmentUrls);
+    }
+
+    @Test
+    public void timeline_repeatUntilNextSegment() throws Exception {
+        // r=-1 重复到下一段的开始时间：0、2、4s，之后 6、7s
+        DashManifest manifest = DashManifest.parse(
+                timelineManifest("<S t=\"0\" d=\"2000\" r=\"-1\"/><S t=\"6000\" d=\"1000\" r=\"1\"/>"),
+                MANIFEST_URL, START_MS + 60_000, 3);
+
+        DashManifest.Track track = manifest.selectTrack("video", Long.MAX_VALUE);
+        assertEquals(Arrays.asList(
+                "https://cdn.example.com/live/stream/seg-v1-3-4000.m4s",
+                "https://cdn.example.com/live/stream/seg-v1-4-6000.m4s",
+                "https://cdn.example.com/live/stream/seg-v1-5-7000.m4s"), track.edgeSegmentUrls);
+    }
+
+    @Test
+    public void timeline_explicitRepeat() throws Exception {
+        DashManifest manifest = DashManifest.parse(timelineManifest("<S t=\"1000\" d=\"500\" r=\"2\"/><S d=\"500\"/>"),
+                MANIFEST_URL, START_MS, 2);
+
+        DashManifest.Track track = manifest.selectTrack("video", Long.MAX_VALUE);
+        assertEquals(Arrays.asList(
+                "https://cdn.example.com/live/stream/seg-v1-3-2000.m4s",
+                "https://cdn.example.com/live/stream/seg-v1-4-2500.m4s"), track.edgeSegmentUrls);
+    }
+
+    @Test
+    public void durationTemplate_liveEdgeAndTrackSelection() throws Exception {
+        String xml = "<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" type=\"dynamic\""
+                + " availabilityStartTime=\"2024-01-01T00:00:00Z\">"
+                + "<BaseURL>media/</BaseURL>"
+                + "<Period>"
+                + "<AdaptationSet mimeType=\"video/mp4\">"
+                + "<SegmentTemplate timescale=\"90000\" duration=\"180000\" startNumber=\"10\""
+                + " media=\"$RepresentationID$/$Number%05d$.m4s\"/>"
+                + "<Representation id=\"low\" bandwidth=\"300000\"/>"
+                + "<Representation id=\"high\" bandwidth=\"2000000\"/>"
+                + "</AdaptationSet>"
+                + "<AdaptationSet mimeType=\"audio/mp4\">"
+                + "<SegmentTemplate timescale=\"48000\" duration=\"96000\" media=\"/audio/$Number$.m4a\"/>"
+                + "<Representation id=\"a\" bandwidth=\"64000\"/>"
+                + "</AdaptationSet>"
+                + "</Period>"
+                + "</MPD>";
+        // 2s 的分片，7s 时最新完整分片序号为 10 + 3 - 1
+        DashManifest manifest = DashManifest.parse(xml, MANIFEST_URL, START_MS + 7000, 2);
+
+        DashManifest.Track video = manifest.selectTrack("video", 500_000);
+        assertEquals("low", video.representationId);
+        assertNull(video.initUrl);
+        assertEquals(Arrays.asList(
+                "https://cdn.example.com/live/stream/media/low/00011.m4s",
+                "https://cdn.example.com/live/stream/media/low/00012.m4s"), video.edgeSegmentUrls);
+        // 没有不超过上限的码率时取最低码率
+        assertEquals("low", manifest.selectTrack("video", 1).representationId);
+
+        DashManifest.Track audio = manifest.selectTrack("audio", Long.MAX_VALUE);
+        assertEquals(Arrays.asList(
+                "https://cdn.example.com/audio/2.m4a",
+                "https://cdn.example.com/audio/3.m4a"), audio.edgeSegmentUrls);
+    }
+}
@@ -0,0 +1,103 @@
+package com.bytedance.myapplication.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * KeywordMatcher 单元测试
+ */
+public class KeywordMatcherTest {
+
+    /**
+     * 按 "开始-结束:标记" 记录命中，按开始位置、结束位置排序
+     */
+    private static List<String> matches(KeywordMatcher matcher, String text) {
+        List<int[]> hits = new ArrayList<>();
+        matcher.scan(text, (start, end, tag) -> hits.add(new int[] {start, end, tag}));
+        Collections.sort(hits, (a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        List<String> result = new ArrayList<>();
+        for (int[] hit : hits) {
+            result.add(hit[0] + "-" + hit[1] + ":" + hit[2]);
+        }
+        return result;
+    }
+
+    @Test
+    public void scan_reportsOverlappingMatches() {
+        // 经典用例：he / she / his / hers
+        KeywordMatcher matcher = new KeywordMatcher.Builder()
+                .add("he", 1)
+                .add("she", 2)
+                .add("his", 4)
+                .add("hers", 8)
+                .build();
+
+        assertEquals(Arrays.asList("1-4:2", "2-4:1", "2-6:8"), matches(matcher, "ushers"));
+        assertEquals(Arrays.asList("0-3:4", "2-5:2", "3-5:1"), matches(matcher, "hishe"));
+    }
+
+    @Test
+    public void scan_reportsNestedMatches() {
+        // 短词完全包含在长词中，沿输出链都能报告
+        KeywordMatcher matcher = new KeywordMatcher.Builder()
+                .add("广告", 1)
+                .add("加微信看广告", 2)
+                .add("微信", 4)
+                .build();
+
+        assertEquals(Arrays.asList("0-6:2", "1-3:4", "4-6:1"), matches(matcher, "加微信看广告"));
+    }
+
+    @Test
+    public void scan_repeatedAndAdjacentMatches() {
+        KeywordMatcher matcher = new KeywordMatcher.Builder().add("aa", 1).build();
+
+        assertEquals(Arrays.asList("0-2:1", "1-3:1", "2-4:1"), matches(matcher, "aaaa"));
+    }
+
+    @Test
+    public void scan_ignoresCase() {
+        KeywordMatcher matcher = new KeywordMatcher.Builder().add("Spam", 1).build();
+
+        assertEquals(Arrays.asList("4-8:1"), matches(matcher, "buy SPAM now"));
+        assertTrue(matcher.containsAny("sPaM"));
+    }
+
+    @Test
+    public void builder_mergesTagsOfDuplicateKeywords() {
+        KeywordMatcher matcher = new KeywordMatcher.Builder()
+                .add("spam", 1)
+                .add("SPAM", 4)
+                .add("", 2)
+                .add(null, 2)
+                .build();
+
+        assertEquals(1, matcher.getPatternCount());
+        assertEquals(Arrays.asList("0-4:5"), matches(matcher, "spam"));
+    }
+
+    @Test
+    public void containsAny() {
+        KeywordMatcher matcher = new KeywordMatcher.Builder().add("abcd", 1).add("bc", 2).build();
+
+        assertTrue(matcher.containsAny("xabcx"));
+        assertFalse(matcher.containsAny("abdc"));
+        assertFalse(matcher.containsAny(""));
+        assertFalse(matcher.containsAny(null));
+    }
+
+    @Test
+    public void emptyMatcher_matchesNothing() {
+        KeywordMatcher matcher = new KeywordMatcher.Builder().build();
+
+        assertEquals(0, matcher.getPatternCount());
+        assertTrue(matches(matcher, "anything").isEmpty());
+        assertFalse(matcher.containsAny("anything"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.bytedance.myapplication.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RoomPreloadPredictor 单元测试（未调用 init，点击率历史只保存在内存中）
+ * 预测器是单例，点击率历史在测试之间保留，每个测试使用不同的直播间 ID
+ */
+public class RoomPreloadPredictorTest {
+
+    private static final double DELTA = 1e-9;
+    private static final long T0 = 100_000L;
+
+    private RoomPreloadPredictor predictor;
+
+    @Before
+    public void setUp() {
+        predictor = RoomPreloadPredictor.getInstance();
+        predictor.resetSession();
+    }
+
+    private static List<String> rooms(String prefix, int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(prefix + i);
+        }
+        return result;
+    }
+
+    @Test
+    public void score_decaysWithHalfLife() {
+        List<String> ids = Collections.singletonList("decay");
+        predictor.rank(ids, 0, 0, 1, T0);
+
+        // 视口中心 0.5 + 没有停留 0 + 先验点击率 1/10 * 0.25
+        double score = predictor.getScore("decay", T0);
+        assertEquals(0.525, score, DELTA);
+        assertEquals(score / 2, predictor.getScore("decay", T0 + 3000), DELTA);
+        assertEquals(score / 4, predictor.getScore("decay", T0 + 6000), DELTA);
+        assertTrue(predictor.getScore("decay", T0 + 6000) < RoomPreloadPredictor.MIN_SCORE_TO_KEEP);
+        assertEquals(0, predictor.getScore("unknown", T0), DELTA);
+    }
+
+    @Test
+    public void rank_prefersCenterOfViewport() {
+        List<String> ids = rooms("center", 10);
+
+        // 没有滚动速度时只在视口内选
+        assertEquals(Arrays.asList("center3", "center2", "center4"), predictor.rank(ids, 2, 4, 5, T0));
+        assertEquals(Arrays.asList("center3"), predictor.rank(ids, 2, 4, 1, T0));
+    }
+
+    @Test
+    public void rank_looksAheadInScrollDirection() {
+        List<String> ids = rooms("down", 20);
+        // 0.5 秒向下滚动 5 条：平滑后速度 5 条/秒，向前预测 3 条
+        predictor.onScroll(0, T0);
+        predictor.onScroll(5, T0 + 500);
+
+        List<String> ranked = predictor.rank(ids, 5, 7, 3, T0 + 500);
+        assertEquals(Arrays.asList("down9", "down8", "down10"), ranked);
+    }
+
+    @Test
+    public void rank_looksBehindWhenScrollingUp() {
+        List<String> ids = rooms("up", 20);
+        predictor.onScroll(10, T0);
+        predictor.onScroll(5, T0 + 500);
+
+        List<String> ranked = predictor.rank(ids, 5, 7, 1, T0 + 500);
+        assertEquals(Arrays.asList("up3"), ranked);
+    }
+
+    @Test
+    public void rank_dwellRaisesScore() {
+        List<String> ids = rooms("dwell", 2);
+        predictor.onVisibleRange(ids, 0, 0, T0);
+
+        // 两个直播间离视口中心一样近，先可见的停留更久
+        assertEquals(Arrays.asList("dwell0", "dwell1"), predictor.rank(ids, 0, 1, 2, T0 + 1500));
+    }
+
+    @Test
+    public void rank_tapHistoryRaisesScore() {
+        List<String> ids = rooms("tap", 2);
+        for (int i = 0; i < 5; i++) {
+            predictor.onRoomTapped("tap1");
+        }
+
+        assertEquals(Arrays.asList("tap1", "tap0"), predictor.rank(ids, 0, 1, 2, T0));
+    }
+
+    @Test
+    public void rank_keepsDecayedScoreAboveFreshScore() {
+        List<String> ids = rooms("keep", 10);
+        predictor.rank(ids, 0, 2, 3, T0);
+        double before = predictor.getScore("keep1", T0);
+
+        // 视口移走后重新打分：仍在候选范围内的直播间取衰减分数和新分数的较大值
+        predictor.rank(ids, 1, 9, 3, T0 + 100);
+        assertEquals(before * Math.pow(0.5, 100 / 3000.0), predictor.getScore("keep1", T0 + 100), DELTA);
+    }
+
+    @Test
+    public void offscreenRoomsArePrunedAfterDecay() {
+        List<String> ids = rooms("prune", 10);
+        predictor.rank(ids, 0, 0, 1, T0);
+        assertTrue(predictor.getScore("prune0", T0 + 30_000) > 0);
+
+        // 离开视口且分数衰减到 0.01 以下后丢弃信号
+        predictor.onVisibleRange(ids, 5, 5, T0 + 30_000);
+        assertEquals(0, predictor.getScore("prune0", T0 + 30_000), 0);
+    }
+
+    @Test
+    public void rank_skipsPlaceholders() {
+        List<String> ids = Arrays.asList("hole0", null, "hole2");
+
+        assertEquals(Arrays.asList("hole0", "hole2"), predictor.rank(ids, 0, 2, 3, T0));
+    }
+
+    @Test
+    public void rank_invalidArguments() {
+        assertTrue(predictor.rank(null, 0, 1, 3, T0).isEmpty());
+        assertTrue(predictor.rank(rooms("bad", 3), 0, 2, 0, T0).isEmpty());
+        assertTrue(predictor.rank(rooms("bad", 3), 2, 1, 3, T0).isEmpty());
+    }
+}
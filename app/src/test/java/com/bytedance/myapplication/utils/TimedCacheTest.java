@@ -0,0 +1,307 @@
+package com.bytedance.myapplication.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * TimedCache 单元测试（假时钟，不依赖真实时间）
+ */
+public class TimedCacheTest {
+
+    private static class FakeClock implements TimedCache.Clock {
+        long now = 1_000_000L;
+
+        @Override
+        public long nowMs() {
+            return now;
+        }
+
+        void advance(long ms) {
+            now += ms;
+        }
+    }
+
+    private static class FakeScheduler implements TimedCache.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            tasks.add(task);
+            delays.add(delayMs);
+        }
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            for (Runnable task : pending) {
+                task.run();
+            }
+        }
+    }
+
+    private FakeClock clock;
+    private List<String> evictions;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        evictions = new ArrayList<>();
+    }
+
+    private TimedCache.Builder<String, String> builder() {
+        return new TimedCache.Builder<String, String>()
+                .clock(clock)
+                .tick(100)
+                .wheelSize(8)
+                .evictionListener((key, value, cause) -> evictions.add(key + ":" + cause), null);
+    }
+
+    @Test
+    public void entryExpiresAfterTtl() {
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).build();
+        cache.put("a", "1");
+
+        clock.advance(999);
+        assertEquals("1", cache.get("a"));
+        assertTrue(evictions.isEmpty());
+
+        clock.advance(1);
+        assertNull(cache.get("a"));
+        assertEquals(Arrays.asList("a:EXPIRED"), evictions);
+    }
+
+    @Test
+    public void expiresAcrossMultipleWheelRounds() {
+        // 时间轮 8 个槽位 * 100ms = 800ms 一圈，TTL 跨越多圈
+        TimedCache<String, String> cache = builder().defaultTtl(2_500).build();
+        cache.put("a", "1");
+        cache.put("b", "2", 300);
+
+        clock.advance(800);
+        assertEquals(1, cache.expireDue());
+        assertEquals(Arrays.asList("b:EXPIRED"), evictions);
+        assertEquals("1", cache.peek("a"));
+
+        clock.advance(800);
+        assertEquals(0, cache.expireDue());
+        assertEquals("1", cache.peek("a"));
+
+        clock.advance(900);
+        assertEquals(1, cache.expireDue());
+        assertEquals(Arrays.asList("b:EXPIRED", "a:EXPIRED"), evictions);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void longIdleGapExpiresEverythingDue() {
+        TimedCache<String, String> cache = builder().defaultTtl(500).build();
+        cache.put("a", "1");
+        cache.put("b", "2", 10_000);
+
+        // 远超一整圈，没有任何中间调用
+        clock.advance(5_000);
+        assertEquals(1, cache.size());
+        assertEquals("2", cache.get("b"));
+    }
+
+    @Test
+    public void putRefreshesDeadline() {
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).build();
+        cache.put("a", "1");
+        clock.advance(800);
+        cache.put("a", "1");
+        clock.advance(800);
+        assertEquals("1", cache.get("a"));
+        assertTrue(evictions.isEmpty());
+    }
+
+    @Test
+    public void replacingValueNotifiesOldValue() {
+        TimedCache<String, String> cache = builder().build();
+        cache.put("a", "1");
+        cache.put("a", "2");
+        assertEquals("2", cache.get("a"));
+        assertEquals(Arrays.asList("a:REPLACED"), evictions);
+    }
+
+    @Test
+    public void capacityEvictsLeastRecentlyUsed() {
+        TimedCache<String, String> cache = builder().maxSize(2).build();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // 访问 a 之后，b 成为最久未使用
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals(Arrays.asList("b:SIZE"), evictions);
+        assertNull(cache.peek("b"));
+        assertEquals("1", cache.peek("a"));
+        assertEquals("3", cache.peek("c"));
+    }
+
+    @Test
+    public void peekDoesNotAffectLruOrder() {
+        TimedCache<String, String> cache = builder().maxSize(2).build();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.peek("a");
+        cache.put("c", "3");
+        assertEquals(Arrays.asList("a:SIZE"), evictions);
+    }
+
+    @Test
+    public void takeRemovesWithoutNotifying() {
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).build();
+        cache.put("a", "1");
+        assertEquals("1", cache.take("a"));
+        assertNull(cache.peek("a"));
+
+        clock.advance(2_000);
+        assertEquals(0, cache.expireDue());
+        assertTrue(evictions.isEmpty());
+    }
+
+    @Test
+    public void invalidateNotifiesExplicit() {
+        TimedCache<String, String> cache = builder().build();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.invalidate("a");
+        assertEquals(Arrays.asList("a:EXPLICIT"), evictions);
+
+        cache.invalidateAll();
+        assertEquals(Arrays.asList("a:EXPLICIT", "b:EXPLICIT"), evictions);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void listenerRunsOnProvidedExecutor() {
+        List<Runnable> queued = new ArrayList<>();
+        TimedCache<String, String> cache = new TimedCache.Builder<String, String>()
+                .clock(clock)
+                .tick(100)
+                .defaultTtl(100)
+                .evictionListener((key, value, cause) -> evictions.add(key), queued::add)
+                .build();
+        cache.put("a", "1");
+        clock.advance(100);
+        cache.expireDue();
+
+        assertTrue(evictions.isEmpty());
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        assertEquals(Arrays.asList("a"), evictions);
+    }
+
+    @Test
+    public void schedulerFiresOnceAtEarliestDeadline() {
+        FakeScheduler scheduler = new FakeScheduler();
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).scheduler(scheduler).build();
+
+        cache.put("a", "1");
+        cache.put("b", "2", 3_000);
+        // b 晚于已调度的清理，不会重复调度
+        assertEquals(1, scheduler.tasks.size());
+        assertEquals(Long.valueOf(1_000), scheduler.delays.get(0));
+
+        cache.put("c", "3", 200);
+        // c 更早到期，重新调度到更早的时间点
+        assertEquals(2, scheduler.tasks.size());
+        assertEquals(Long.valueOf(200), scheduler.delays.get(1));
+
+        clock.advance(1_000);
+        scheduler.runAll();
+        assertEquals(Arrays.asList("c:EXPIRED", "a:EXPIRED"), sorted(evictions, "c", "a"));
+        // 还剩 b，清理任务继续调度到 b 的截止时间
+        assertEquals(1, scheduler.tasks.size());
+        assertEquals(Long.valueOf(2_000), scheduler.delays.get(scheduler.delays.size() - 1));
+
+        clock.advance(2_000);
+        scheduler.runAll();
+        assertTrue(evictions.contains("b:EXPIRED"));
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    @Test
+    public void schedulerIgnoresRemovedEntries() {
+        FakeScheduler scheduler = new FakeScheduler();
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).scheduler(scheduler).build();
+
+        cache.put("a", "1", 200);
+        cache.put("b", "2");
+        assertEquals(Long.valueOf(200), scheduler.delays.get(scheduler.delays.size() - 1));
+
+        // a 已被取走，下一次清理直接调度到 b 的截止时间
+        cache.take("a");
+        clock.advance(200);
+        scheduler.runAll();
+        assertTrue(evictions.isEmpty());
+        assertEquals(1, scheduler.tasks.size());
+        assertEquals(Long.valueOf(800), scheduler.delays.get(scheduler.delays.size() - 1));
+
+        // 被替换的旧截止时间不再参与调度
+        cache.put("b", "3", 2_000);
+        cache.invalidate("b");
+        clock.advance(800);
+        scheduler.runAll();
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    @Test
+    public void snapshotExcludesExpiredEntries() {
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).build();
+        cache.put("a", "1", 200);
+        cache.put("b", "2");
+        clock.advance(500);
+
+        Map<String, String> snapshot = cache.snapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals("2", snapshot.get("b"));
+    }
+
+    @Test
+    public void putIfAbsentOnlyInsertsMissingOrExpired() {
+        TimedCache<String, String> cache = builder().defaultTtl(1_000).build();
+        assertTrue(cache.putIfAbsent("a", "1", 500));
+        assertFalse(cache.putIfAbsent("a", "2", 500));
+        assertEquals("1", cache.peek("a"));
+
+        clock.advance(500);
+        assertTrue(cache.putIfAbsent("a", "2", 500));
+        assertEquals("2", cache.peek("a"));
+    }
+
+    @Test
+    public void deadlineRoundsUpToTick() {
+        TimedCache<String, String> cache = builder().defaultTtl(150).build();
+        cache.put("a", "1");
+        // 150ms 向上取整到 200ms 的时间片边界，不会提前过期
+        clock.advance(150);
+        assertEquals("1", cache.get("a"));
+        clock.advance(50);
+        assertNull(cache.get("a"));
+    }
+
+    /**
+     * 同一时间片内到期的条目顺序不做保证，按期望顺序排列后再比较
+     */
+    private static List<String> sorted(List<String> actual, String... order) {
+        List<String> result = new ArrayList<>();
+        for (String key : order) {
+            for (String item : actual) {
+                if (item.startsWith(key + ":")) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+}